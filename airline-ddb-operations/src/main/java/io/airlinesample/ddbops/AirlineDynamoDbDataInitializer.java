@@ -1,22 +1,47 @@
 package io.airlinesample.ddbops;
 
+import io.airlinesample.ddbops.dataset.SyntheticAirlineData;
+import io.airlinesample.ddbops.dataset.SyntheticDatasetSpec;
 import io.airlinesample.ddbops.domain.Booking;
 import io.airlinesample.ddbops.domain.Flight;
 import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.persistence.BatchWriteBulkLoader;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+
+/**
+ * Seeds the airline tables. Items are written with {@link BatchWriteBulkLoader}, so the same pipeline loads the
+ * in-memory sample data and much larger generated datasets.
+ * <p>
+ * Without arguments, loads {@link InMemoryData}. With {@code --synthetic=true}, streams a {@link SyntheticAirlineData}
+ * dataset instead, starting from {@link SyntheticDatasetSpec#defaultSpec()} and overridden by the options
+ * {@code --seed}, {@code --routes}, {@code --days}, {@code --departuresPerRouteDay}, {@code --passengers},
+ * {@code --zipfExponent}, {@code --preClaimedSeatRatio} and {@code --seatBitmaps}.
+ */
 public class AirlineDynamoDbDataInitializer {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private static final TableSchema<Passenger> PASSENGER_SCHEMA = TableSchema.fromBean(Passenger.class);
+    private static final TableSchema<Flight> FLIGHT_SCHEMA = TableSchema.fromBean(Flight.class);
+    private static final TableSchema<Booking> BOOKING_SCHEMA = TableSchema.fromBean(Booking.class);
+
+    // First version of a new flight, as written by the enhanced client's putItem
+    private static final AttributeValue INITIAL_FLIGHT_VERSION = AttributeValue.fromN("1");
+
     public static void main(String[] args) {
-        var dataInitializer = new AirlineDynamoDbDataInitializer();
+        var options = parseOptions(args);
+        var dataInitializer = Boolean.parseBoolean(options.getOrDefault("synthetic", "false"))
+                ? new AirlineDynamoDbDataInitializer(new SyntheticAirlineData(syntheticDatasetSpec(options)))
+                : new AirlineDynamoDbDataInitializer();
 
         if (dataInitializer.success) {
             System.out.println("✅ Airline data inserted into DynamoDB successfully!");
@@ -29,21 +54,21 @@ public class AirlineDynamoDbDataInitializer {
         this.success = initializeData();
     }
 
+    public AirlineDynamoDbDataInitializer(SyntheticAirlineData syntheticData) {
+        this.success = initializeData(syntheticData);
+    }
+
     private boolean initializeData() {
         try (var dynamoDbClient = AwsClientProvider.dynamoDbClient()) {
-            var enhancedClient = AwsClientProvider.dynamoDbEnhancedClient(dynamoDbClient);
-
-            var passengerTable = enhancedClient.table(Passenger.PASSENGER_TABLE_NAME, TableSchema.fromBean(Passenger.class));
-            var flightTable = enhancedClient.table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class));
-            var bookingTable = enhancedClient.table(Booking.BOOKING_TABLE_NAME, TableSchema.fromBean(Booking.class));
+            var bulkLoader = new BatchWriteBulkLoader(dynamoDbClient);
 
             var passengers = InMemoryData.passengers();
             var flights = InMemoryData.flights();
             var bookings = InMemoryData.bookings();
 
-            passengers.forEach(passengerTable::putItem);
-            flights.forEach(flightTable::putItem);
-            bookings.forEach(bookingTable::putItem);
+            bulkLoader.load(Passenger.PASSENGER_TABLE_NAME, passengers.stream(), AirlineDynamoDbDataInitializer::passengerItem);
+            bulkLoader.load(Flight.FLIGHT_TABLE_NAME, flights.stream(), AirlineDynamoDbDataInitializer::flightItem);
+            bulkLoader.load(Booking.BOOKING_TABLE_NAME, bookings.stream(), AirlineDynamoDbDataInitializer::bookingItem);
 
             logSummary(passengers, flights, bookings);
 
@@ -54,6 +79,42 @@ public class AirlineDynamoDbDataInitializer {
         }
     }
 
+    private boolean initializeData(SyntheticAirlineData syntheticData) {
+        try (var dynamoDbClient = AwsClientProvider.dynamoDbClient()) {
+            var bulkLoader = new BatchWriteBulkLoader(dynamoDbClient);
+
+            // Streamed straight from the generator into the tables, never held in memory
+            var passengers = bulkLoader.load(Passenger.PASSENGER_TABLE_NAME, syntheticData.passengers(), AirlineDynamoDbDataInitializer::passengerItem);
+            var flights = bulkLoader.load(Flight.FLIGHT_TABLE_NAME, syntheticData.flights(), AirlineDynamoDbDataInitializer::flightItem);
+            var bookings = bulkLoader.load(Booking.BOOKING_TABLE_NAME, syntheticData.bookings(), AirlineDynamoDbDataInitializer::bookingItem);
+
+            logSummary(syntheticData.spec(), passengers, flights, bookings);
+
+            return true;
+        } catch (Exception e) {
+            System.out.println("❌ Error populating DynamoDB: " + e.getMessage());
+            return false;
+        }
+    }
+
+    static Map<String, AttributeValue> passengerItem(Passenger passenger) {
+        return PASSENGER_SCHEMA.itemToMap(passenger, true);
+    }
+
+    static Map<String, AttributeValue> flightItem(Flight flight) {
+        var item = FLIGHT_SCHEMA.itemToMap(flight, true);
+        if (!item.containsKey(Flight.VERSION_FIELD_NAME)) {
+            // BatchWriteItem bypasses the version extension of the enhanced client, and bookings increment Version
+            item = new HashMap<>(item);
+            item.put(Flight.VERSION_FIELD_NAME, INITIAL_FLIGHT_VERSION);
+        }
+        return item;
+    }
+
+    static Map<String, AttributeValue> bookingItem(Booking booking) {
+        return BOOKING_SCHEMA.itemToMap(booking, true);
+    }
+
     private void logSummary(List<Passenger> passengers, List<Flight> flights, List<Booking> bookings) {
         System.out.println("\n=========== 🛫 Airline Data Summary 🛬 ===========\n");
         System.out.println(String.format("👤 Inserted Passengers: %d", passengers.size()));
@@ -67,6 +128,17 @@ public class AirlineDynamoDbDataInitializer {
         bookings.forEach(this::logBooking);
     }
 
+    private void logSummary(SyntheticDatasetSpec spec, BatchWriteBulkLoader.Summary passengers,
+                            BatchWriteBulkLoader.Summary flights, BatchWriteBulkLoader.Summary bookings) {
+        System.out.println("\n=========== 🛫 Synthetic Airline Data Summary 🛬 ===========\n");
+        System.out.println("🧬 " + spec);
+        System.out.println(String.format("👤 Inserted Passengers: %d (%.0f items/s)", passengers.items(), passengers.itemsPerSecond()));
+        System.out.println(String.format("✈️ Inserted Flights: %d (%.0f items/s)", flights.items(), flights.itemsPerSecond()));
+        System.out.println(String.format("📌 Inserted Bookings: %d (%.0f items/s)", bookings.items(), bookings.itemsPerSecond()));
+        System.out.println(String.format("🔁 Resubmitted unprocessed items: %d",
+                passengers.resubmittedItems() + flights.resubmittedItems() + bookings.resubmittedItems()));
+    }
+
     private void logFlight(Flight flight) {
         var primaryKey = flight.getPrimaryKey();
         System.out.println(String.format(
@@ -91,4 +163,32 @@ public class AirlineDynamoDbDataInitializer {
                 departureDate
         ));
     }
+
+    private static SyntheticDatasetSpec syntheticDatasetSpec(Map<String, String> options) {
+        var defaultSpec = SyntheticDatasetSpec.defaultSpec();
+        return defaultSpec.toBuilder()
+                .seed(Long.parseLong(options.getOrDefault("seed", Long.toString(defaultSpec.seed()))))
+                .routes(Integer.parseInt(options.getOrDefault("routes", Integer.toString(defaultSpec.routes()))))
+                .days(Integer.parseInt(options.getOrDefault("days", Integer.toString(defaultSpec.days()))))
+                .departuresPerRouteDay(Integer.parseInt(options.getOrDefault("departuresPerRouteDay",
+                        Integer.toString(defaultSpec.departuresPerRouteDay()))))
+                .passengers(Integer.parseInt(options.getOrDefault("passengers", Integer.toString(defaultSpec.passengers()))))
+                .zipfExponent(Double.parseDouble(options.getOrDefault("zipfExponent", Double.toString(defaultSpec.zipfExponent()))))
+                .preClaimedSeatRatio(Double.parseDouble(options.getOrDefault("preClaimedSeatRatio",
+                        Double.toString(defaultSpec.preClaimedSeatRatio()))))
+                .seatBitmaps(Boolean.parseBoolean(options.getOrDefault("seatBitmaps", Boolean.toString(defaultSpec.seatBitmaps()))))
+                .build();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid option: " + arg + " (expected --name=value)");
+            }
+            var separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
 }
@@ -0,0 +1,97 @@
+package io.airlinesample.ddbops;
+
+import io.airlinesample.ddbops.dataset.SyntheticAirlineData;
+import io.airlinesample.ddbops.dataset.SyntheticDatasetSpec;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import io.airlinesample.ddbops.export.ExportCompression;
+import io.airlinesample.ddbops.export.ExportOptions;
+import io.airlinesample.ddbops.export.ScanExporter;
+import io.airlinesample.ddbops.persistence.BatchWriteBulkLoader;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exports the {@code flights} or {@code bookings} table to compressed NDJSON files with {@link ScanExporter}.
+ * <p>
+ * Options, all optional:
+ * <ul>
+ *     <li>{@code --table}: table to export, {@code bookings} by default.</li>
+ *     <li>{@code --dir}: output directory, {@code target/export} by default. Running the same export into the same
+ *     directory resumes it from its checkpoints.</li>
+ *     <li>{@code --segments}: parallel scan segments (default {@value ExportOptions#DEFAULT_TOTAL_SEGMENTS}).</li>
+ *     <li>{@code --compression}: {@code zstd} (default) or {@code gzip}.</li>
+ *     <li>{@code --readCapacity}: read capacity units per second the export may consume, unlimited by default.</li>
+ *     <li>{@code --pageSize}: items per {@code Scan} page, 1 MB pages by default.</li>
+ *     <li>{@code --checkpointEveryPages}: pages between two checkpoints of a segment (default
+ *     {@value ExportOptions#DEFAULT_CHECKPOINT_EVERY_PAGES}).</li>
+ *     <li>{@code --target}: {@code localstack} (default) exports the tables of {@link AwsClientProvider#dynamoDbClient()},
+ *     {@code embedded} first loads the default {@link SyntheticAirlineData} dataset into an {@link EmbeddedDynamoDb}.</li>
+ * </ul>
+ */
+public class AirlineTableExporter {
+
+    public static void main(String[] args) {
+        var options = parseOptions(args);
+
+        var exportOptions = ExportOptions.builder()
+                .tableName(options.getOrDefault("table", Booking.BOOKING_TABLE_NAME))
+                .directory(Path.of(options.getOrDefault("dir", "target/export")))
+                .totalSegments(Integer.parseInt(options.getOrDefault("segments", "0")))
+                .compression(ExportCompression.valueOf(options.getOrDefault("compression", "zstd").toUpperCase()))
+                .readCapacityUnitsPerSecond(Double.parseDouble(options.getOrDefault("readCapacity", "0")))
+                .pageSize(Integer.parseInt(options.getOrDefault("pageSize", "0")))
+                .checkpointEveryPages(Integer.parseInt(options.getOrDefault("checkpointEveryPages", "0")))
+                .build();
+        var target = options.getOrDefault("target", "localstack");
+
+        try (var dynamoDbClient = dynamoDbClient(target)) {
+            System.out.printf("%n📦 Export of %s: %d segment(s), %s, readCapacity=%s, into %s, target=%s%n",
+                    exportOptions.tableName(), exportOptions.totalSegments(), exportOptions.compression(),
+                    exportOptions.readCapacityUnitsPerSecond() > 0 ? exportOptions.readCapacityUnitsPerSecond() : "unlimited",
+                    exportOptions.directory(), target);
+
+            var summary = new ScanExporter(dynamoDbClient).export(exportOptions);
+
+            System.out.println("\n============================================");
+            System.out.printf("📌 Items exported: %d (%.0f items/s)%n", summary.items(), summary.itemsPerSecond());
+            System.out.printf("💾 Compressed size: %.1f MB%n", summary.bytes() / (1024.0 * 1024.0));
+            System.out.printf("📄 Scan pages: %d, RCU consumed: %.1f%n", summary.pages(), summary.readCapacityUnits());
+            System.out.printf("⏯️ Resumed segments: %d%n", summary.resumedSegments());
+            System.out.printf("⏱️ Elapsed: %d ms%n", summary.elapsed().toMillis());
+            System.out.println("============================================");
+        }
+    }
+
+    private static DynamoDbClient dynamoDbClient(String target) {
+        return switch (target) {
+            case "embedded" -> {
+                var dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+                var syntheticData = new SyntheticAirlineData(SyntheticDatasetSpec.defaultSpec());
+                var bulkLoader = new BatchWriteBulkLoader(dynamoDbClient);
+                bulkLoader.load(Flight.FLIGHT_TABLE_NAME, syntheticData.flights(), AirlineDynamoDbDataInitializer::flightItem);
+                bulkLoader.load(Booking.BOOKING_TABLE_NAME, syntheticData.bookings(), AirlineDynamoDbDataInitializer::bookingItem);
+                yield dynamoDbClient;
+            }
+            case "localstack" -> AwsClientProvider.dynamoDbClient();
+            default -> throw new IllegalArgumentException("Unknown target: " + target + " (expected embedded or localstack)");
+        };
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid option: " + arg + " (expected --name=value)");
+            }
+            var separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
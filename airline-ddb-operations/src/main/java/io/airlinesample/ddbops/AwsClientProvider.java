@@ -1,32 +1,45 @@
 package io.airlinesample.ddbops;
 
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.crt.TcpKeepAliveConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
-import java.net.URI;
+import java.time.Duration;
 
+/**
+ * Builds the DynamoDB clients of the runners from {@link AwsClientSettings}: {@link AwsClientSettings#fromEnvironment()}
+ * unless settings are passed. The enhanced clients wrap the given low-level clients and so share their HTTP client,
+ * pool and retry settings.
+ */
 public class AwsClientProvider {
 
-    private static final String ACCESS_KEY = "key";
-    private static final String SECRET_KEY = "secret";
-    private static final Region REGION = Region.EU_WEST_1;
-    private static final URI ENDPOINT = URI.create("https://localhost.localstack.cloud:4566");
+    // CRT keep-alive probes that go unanswered for this long drop the connection
+    private static final Duration CRT_KEEP_ALIVE_TIMEOUT = Duration.ofSeconds(10);
 
     public static DynamoDbClient dynamoDbClient() {
-        AwsCredentialsProvider credentials = StaticCredentialsProvider.create(
-                AwsBasicCredentials.create(ACCESS_KEY, SECRET_KEY));
+        return dynamoDbClient(AwsClientSettings.fromEnvironment());
+    }
 
-        return DynamoDbClient.builder()
-                .region(REGION)
-                .credentialsProvider(credentials)
-                .endpointOverride(ENDPOINT)
-                .build();
+    public static DynamoDbClient dynamoDbClient(AwsClientSettings settings) {
+        var builder = DynamoDbClient.builder()
+                .region(settings.region())
+                .credentialsProvider(settings.credentialsProvider())
+                .overrideConfiguration(overrideConfiguration(settings))
+                .httpClientBuilder(httpClient(settings));
+        if (settings.endpoint() != null) {
+            builder.endpointOverride(settings.endpoint());
+        }
+        return builder.build();
     }
 
     public static DynamoDbEnhancedClient dynamoDbEnhancedClient(DynamoDbClient dynamoDbClient) {
@@ -36,14 +49,19 @@ public class AwsClientProvider {
     }
 
     public static DynamoDbAsyncClient dynamoDbAsyncClient() {
-        AwsCredentialsProvider credentials = StaticCredentialsProvider.create(
-                AwsBasicCredentials.create(ACCESS_KEY, SECRET_KEY));
+        return dynamoDbAsyncClient(AwsClientSettings.fromEnvironment());
+    }
 
-        return DynamoDbAsyncClient.builder()
-                .region(REGION)
-                .credentialsProvider(credentials)
-                .endpointOverride(ENDPOINT)
-                .build();
+    public static DynamoDbAsyncClient dynamoDbAsyncClient(AwsClientSettings settings) {
+        var builder = DynamoDbAsyncClient.builder()
+                .region(settings.region())
+                .credentialsProvider(settings.credentialsProvider())
+                .overrideConfiguration(overrideConfiguration(settings))
+                .httpClientBuilder(asyncHttpClient(settings));
+        if (settings.endpoint() != null) {
+            builder.endpointOverride(settings.endpoint());
+        }
+        return builder.build();
     }
 
     public static DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
@@ -51,4 +69,67 @@ public class AwsClientProvider {
                 .dynamoDbClient(dynamoDbAsyncClient)
                 .build();
     }
+
+    private static ClientOverrideConfiguration overrideConfiguration(AwsClientSettings settings) {
+        return ClientOverrideConfiguration.builder()
+                .apiCallAttemptTimeout(settings.apiCallAttemptTimeout())
+                .apiCallTimeout(settings.apiCallTimeout())
+                .retryStrategy(AwsRetryStrategy.forRetryMode(settings.retryMode()).toBuilder()
+                        .maxAttempts(settings.maxAttempts())
+                        .build())
+                .build();
+    }
+
+    // Passed as a builder, so each DynamoDB client owns its HTTP client and closes it with itself
+    private static SdkHttpClient.Builder<?> httpClient(AwsClientSettings settings) {
+        return switch (settings.httpClient()) {
+            case APACHE -> ApacheHttpClient.builder()
+                    .maxConnections(settings.maxConnections())
+                    .connectionAcquisitionTimeout(settings.connectionAcquisitionTimeout())
+                    .connectionTimeout(settings.connectionTimeout())
+                    .connectionMaxIdleTime(settings.connectionMaxIdleTime())
+                    .useIdleConnectionReaper(true)
+                    .tcpKeepAlive(settings.tcpKeepAliveInterval() != null);
+            case CRT -> {
+                var crt = AwsCrtHttpClient.builder()
+                        .maxConcurrency(settings.maxConnections())
+                        .connectionTimeout(settings.connectionTimeout())
+                        .connectionMaxIdleTime(settings.connectionMaxIdleTime());
+                if (settings.tcpKeepAliveInterval() != null) {
+                    crt.tcpKeepAliveConfiguration(crtKeepAlive(settings));
+                }
+                yield crt;
+            }
+        };
+    }
+
+    // Netty: one event loop multiplexes many in-flight requests, so size the pool for the load
+    private static SdkAsyncHttpClient.Builder<?> asyncHttpClient(AwsClientSettings settings) {
+        return switch (settings.httpClient()) {
+            case APACHE -> NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(settings.maxConnections())
+                    .maxPendingConnectionAcquires(settings.maxPendingConnectionAcquires())
+                    .connectionAcquisitionTimeout(settings.connectionAcquisitionTimeout())
+                    .connectionTimeout(settings.connectionTimeout())
+                    .connectionMaxIdleTime(settings.connectionMaxIdleTime())
+                    .tcpKeepAlive(settings.tcpKeepAliveInterval() != null);
+            case CRT -> {
+                var crt = AwsCrtAsyncHttpClient.builder()
+                        .maxConcurrency(settings.maxConnections())
+                        .connectionTimeout(settings.connectionTimeout())
+                        .connectionMaxIdleTime(settings.connectionMaxIdleTime());
+                if (settings.tcpKeepAliveInterval() != null) {
+                    crt.tcpKeepAliveConfiguration(crtKeepAlive(settings));
+                }
+                yield crt;
+            }
+        };
+    }
+
+    private static TcpKeepAliveConfiguration crtKeepAlive(AwsClientSettings settings) {
+        return TcpKeepAliveConfiguration.builder()
+                .keepAliveInterval(settings.tcpKeepAliveInterval())
+                .keepAliveTimeout(CRT_KEEP_ALIVE_TIMEOUT)
+                .build();
+    }
 }
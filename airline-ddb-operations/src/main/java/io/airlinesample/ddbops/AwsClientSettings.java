@@ -0,0 +1,178 @@
+package io.airlinesample.ddbops;
+
+import lombok.Builder;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.regions.Region;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Endpoint, credentials, HTTP client and retry settings of the clients built by {@link AwsClientProvider}.
+ * <p>
+ * The defaults target LocalStack and are sized for hundreds of concurrent bookings: a large connection pool, short
+ * connect and acquisition timeouts so a saturated pool fails fast instead of queueing for minutes, TCP keep-alive and
+ * an idle timeout so pooled connections survive between bursts, and adaptive retries, which also rate-limit the client
+ * once DynamoDB starts throttling.
+ *
+ * @param endpoint                     endpoint override; {@code null} to use the regional DynamoDB endpoint
+ * @param region                       signing region
+ * @param credentialsProvider          credentials of the requests
+ * @param httpClient                   HTTP client implementation
+ * @param maxConnections               pooled connections (sync) or concurrent requests (async)
+ * @param maxPendingConnectionAcquires requests allowed to wait for a connection (Netty only)
+ * @param connectionAcquisitionTimeout longest wait for a pooled connection (Apache and Netty)
+ * @param connectionTimeout            longest wait to open a connection
+ * @param connectionMaxIdleTime        idle time after which a pooled connection is closed
+ * @param tcpKeepAliveInterval         TCP keep-alive probe interval, {@code null} to disable keep-alive; Apache and
+ *                                     Netty only switch keep-alive on and leave the interval to the operating system
+ * @param apiCallAttemptTimeout        longest single HTTP attempt, connection acquisition included
+ * @param apiCallTimeout               longest API call, retries and backoff included
+ * @param retryMode                    retry strategy, {@link RetryMode#ADAPTIVE_V2} by default
+ * @param maxAttempts                  attempts per API call, the first one included
+ */
+@Builder(toBuilder = true)
+public record AwsClientSettings(URI endpoint,
+                                Region region,
+                                AwsCredentialsProvider credentialsProvider,
+                                HttpClientType httpClient,
+                                int maxConnections,
+                                int maxPendingConnectionAcquires,
+                                Duration connectionAcquisitionTimeout,
+                                Duration connectionTimeout,
+                                Duration connectionMaxIdleTime,
+                                Duration tcpKeepAliveInterval,
+                                Duration apiCallAttemptTimeout,
+                                Duration apiCallTimeout,
+                                RetryMode retryMode,
+                                int maxAttempts) {
+
+    /**
+     * The HTTP client implementations the SDK clients can run on.
+     */
+    public enum HttpClientType {
+        /**
+         * Apache HTTP client for the sync clients, Netty for the async ones: the SDK defaults.
+         */
+        APACHE,
+        /**
+         * AWS Common Runtime HTTP client for both: native, lower latency and memory footprint.
+         */
+        CRT
+    }
+
+    public static final String ENDPOINT_VARIABLE = "AWS_ENDPOINT_URL_DYNAMODB";
+    public static final String GLOBAL_ENDPOINT_VARIABLE = "AWS_ENDPOINT_URL";
+    public static final String REGION_VARIABLE = "AWS_REGION";
+    public static final String ACCESS_KEY_VARIABLE = "AWS_ACCESS_KEY_ID";
+    public static final String PROFILE_VARIABLE = "AWS_PROFILE";
+
+    private static final URI LOCALSTACK_ENDPOINT = URI.create("https://localhost.localstack.cloud:4566");
+    private static final Region DEFAULT_REGION = Region.EU_WEST_1;
+
+    // LocalStack accepts any credentials
+    private static final AwsCredentialsProvider LOCALSTACK_CREDENTIALS = StaticCredentialsProvider.create(
+            AwsBasicCredentials.create("key", "secret"));
+
+    public AwsClientSettings {
+        requireNonNull(region, "region cannot be null");
+        requireNonNull(credentialsProvider, "credentialsProvider cannot be null");
+        requireNonNull(httpClient, "httpClient cannot be null");
+        requireNonNull(retryMode, "retryMode cannot be null");
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be greater than 0");
+        }
+        if (maxPendingConnectionAcquires < 1) {
+            throw new IllegalArgumentException("maxPendingConnectionAcquires must be greater than 0");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be greater than 0");
+        }
+        requirePositive(connectionAcquisitionTimeout, "connectionAcquisitionTimeout");
+        requirePositive(connectionTimeout, "connectionTimeout");
+        requirePositive(connectionMaxIdleTime, "connectionMaxIdleTime");
+        requirePositive(apiCallAttemptTimeout, "apiCallAttemptTimeout");
+        requirePositive(apiCallTimeout, "apiCallTimeout");
+        if (tcpKeepAliveInterval != null && !tcpKeepAliveInterval.isPositive()) {
+            throw new IllegalArgumentException("tcpKeepAliveInterval must be positive, or null to disable keep-alive");
+        }
+    }
+
+    /**
+     * LocalStack in {@code eu-west-1} over Apache (sync) and Netty (async) clients: 1,000 connections, 10 s connection
+     * acquisition, 2 s connect, 60 s idle time, 30 s keep-alive, 15 s per attempt, 45 s per call and up to 3 adaptive
+     * attempts.
+     */
+    public static AwsClientSettings defaults() {
+        return AwsClientSettings.builder()
+                .endpoint(LOCALSTACK_ENDPOINT)
+                .region(DEFAULT_REGION)
+                .credentialsProvider(LOCALSTACK_CREDENTIALS)
+                .httpClient(HttpClientType.APACHE)
+                .maxConnections(1_000)
+                .maxPendingConnectionAcquires(20_000)
+                .connectionAcquisitionTimeout(Duration.ofSeconds(10))
+                .connectionTimeout(Duration.ofSeconds(2))
+                .connectionMaxIdleTime(Duration.ofSeconds(60))
+                .tcpKeepAliveInterval(Duration.ofSeconds(30))
+                .apiCallAttemptTimeout(Duration.ofSeconds(15))
+                .apiCallTimeout(Duration.ofSeconds(45))
+                .retryMode(RetryMode.ADAPTIVE_V2)
+                .maxAttempts(3)
+                .build();
+    }
+
+    /**
+     * The {@link #defaults()}, with the endpoint, region and credentials taken from the environment when set:
+     * <ul>
+     *     <li>{@value #ENDPOINT_VARIABLE}, else {@value #GLOBAL_ENDPOINT_VARIABLE}: the endpoint, e.g.
+     *     {@code https://dynamodb.eu-west-1.amazonaws.com} to leave LocalStack;</li>
+     *     <li>{@value #REGION_VARIABLE}: the region;</li>
+     *     <li>{@value #ACCESS_KEY_VARIABLE} or {@value #PROFILE_VARIABLE}: the SDK default credentials chain replaces
+     *     the LocalStack credentials.</li>
+     * </ul>
+     */
+    public static AwsClientSettings fromEnvironment() {
+        return fromEnvironment(System.getenv());
+    }
+
+    static AwsClientSettings fromEnvironment(Map<String, String> environment) {
+        var settings = defaults().toBuilder();
+
+        var endpoint = nonBlank(environment.get(ENDPOINT_VARIABLE), environment.get(GLOBAL_ENDPOINT_VARIABLE));
+        if (endpoint != null) {
+            settings.endpoint(URI.create(endpoint));
+        }
+
+        var region = nonBlank(environment.get(REGION_VARIABLE), null);
+        if (region != null) {
+            settings.region(Region.of(region));
+        }
+
+        if (nonBlank(environment.get(ACCESS_KEY_VARIABLE), environment.get(PROFILE_VARIABLE)) != null) {
+            settings.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+
+        return settings.build();
+    }
+
+    private static String nonBlank(String value, String fallback) {
+        if (value != null && !value.isBlank()) {
+            return value.trim();
+        }
+        return fallback != null && !fallback.isBlank() ? fallback.trim() : null;
+    }
+
+    private static void requirePositive(Duration duration, String name) {
+        if (duration == null || !duration.isPositive()) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+    }
+}
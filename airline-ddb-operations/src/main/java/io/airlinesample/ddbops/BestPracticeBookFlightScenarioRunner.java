@@ -1,10 +1,10 @@
 package io.airlinesample.ddbops;
 
+import io.airlinesample.ddbops.application.BookingExecutor;
 import io.airlinesample.ddbops.application.NoLockingBookFlightService;
 import io.airlinesample.ddbops.domain.Booking;
 import io.airlinesample.ddbops.domain.FlightPrimaryKey;
 import io.airlinesample.ddbops.persistence.ConditionalExpressionBookFlightRepository;
-import io.airlinesample.ddbops.persistence.EnhancedClientFlightBookingsRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -39,7 +39,8 @@ public class BestPracticeBookFlightScenarioRunner {
 
         System.out.println("\n🚀 Starting Best Practice Flight Booking Scenario (using DynamoClient with ConditionalExpression) ...");
 
-        try (var dynamoClient = AwsClientProvider.dynamoDbClient()) {
+        try (var dynamoClient = AwsClientProvider.dynamoDbClient();
+             var bookingExecutor = BookingExecutor.fromSystemProperties()) {
 
             var conditionalExpressionBookFlightRepository = new ConditionalExpressionBookFlightRepository(dynamoClient);
             var bookFlightService = new NoLockingBookFlightService(conditionalExpressionBookFlightRepository);
@@ -71,11 +72,11 @@ public class BestPracticeBookFlightScenarioRunner {
             };
 
             var futures = List.of(
-                    CompletableFuture.runAsync(bookingTask),
-                    CompletableFuture.runAsync(bookingTask)
+                    CompletableFuture.runAsync(bookingTask, bookingExecutor.executor()),
+                    CompletableFuture.runAsync(bookingTask, bookingExecutor.executor())
             );
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
                     .thenRun(() -> {
                         System.out.println("\n📊 Fetching updated flight and booking details...");
 
@@ -86,9 +87,7 @@ public class BestPracticeBookFlightScenarioRunner {
                                 .build();
 
                         System.out.println("\n✈️ Updated Flight Information:");
-                        var enhancedClientFlightBookingsRepository =
-                                new EnhancedClientFlightBookingsRepository(AwsClientProvider.dynamoDbEnhancedClient(dynamoClient));
-                        enhancedClientFlightBookingsRepository.findFlight(primaryKey)
+                        conditionalExpressionBookFlightRepository.findFlight(primaryKey)
                                 .ifPresentOrElse(
                                         flight -> System.out.println("📌 " + flight),
                                         () -> System.out.println("⚠️ Flight details not found!")
@@ -96,7 +95,7 @@ public class BestPracticeBookFlightScenarioRunner {
 
                         System.out.println("\n📌 Attempted Bookings:");
                         bookings.forEach(booking ->
-                                enhancedClientFlightBookingsRepository.findBooking(booking.getCustomerEmail(), booking.getBookingID())
+                                conditionalExpressionBookFlightRepository.findBooking(booking.getCustomerEmail(), booking.getBookingID())
                                         .ifPresentOrElse(
                                                 storedBooking -> System.out.println("✅ " + storedBooking),
                                                 () -> System.out.println("❌ Booking not found in DB: " + booking.getBookingID())
@@ -0,0 +1,405 @@
+package io.airlinesample.ddbops;
+
+import io.airlinesample.ddbops.application.BookFlightUseCase;
+import io.airlinesample.ddbops.application.BookingExecutor;
+import io.airlinesample.ddbops.application.NoLockingBookFlightService;
+import io.airlinesample.ddbops.application.OptimisticLockingFlightBookingService;
+import io.airlinesample.ddbops.application.RetryPolicy;
+import io.airlinesample.ddbops.application.RetryStatistics;
+import io.airlinesample.ddbops.application.SeatPickingBookFlightService;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.domain.Preferences;
+import io.airlinesample.ddbops.domain.SeatLayout;
+import io.airlinesample.ddbops.domain.SeatSelector;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import io.airlinesample.ddbops.metrics.BookingMetrics;
+import io.airlinesample.ddbops.metrics.ConsoleMetricsReporter;
+import io.airlinesample.ddbops.persistence.CachingFlightBookings;
+import io.airlinesample.ddbops.persistence.CachingPassengers;
+import io.airlinesample.ddbops.persistence.CoalescingBookFlightRepository;
+import io.airlinesample.ddbops.persistence.ConditionalExpressionBookFlightRepository;
+import io.airlinesample.ddbops.persistence.EnhancedClientFlightBookingsRepository;
+import io.airlinesample.ddbops.persistence.PassengerRepository;
+import io.airlinesample.ddbops.persistence.SeatBitmapBookFlightRepository;
+import io.airlinesample.ddbops.persistence.SeatInventoryReconciler;
+import io.airlinesample.ddbops.persistence.ShardedInventoryBookFlightRepository;
+import io.airlinesample.ddbops.persistence.SimpleClientBookFlightRepository;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Load-generator mode: pushes a large number of concurrent bookings (10k by default) through one of the booking
+ * services, each booking running on the configured {@link BookingExecutor}, and reports the outcome and throughput.
+ * <p>
+ * Options (all optional), e.g. {@code --bookings=20000 --flights=4 --strategy=SIMPLE_OPTIMISTIC --executor=bounded:200}:
+ * <ul>
+ *     <li>{@code --bookings}: number of bookings submitted at once (default 10000).</li>
+ *     <li>{@code --flights}: number of flights the bookings are spread over (default 10); each flight has exactly
+ *     enough seats for its share of the bookings, so every booking can succeed.</li>
+ *     <li>{@code --strategy}: {@code ENHANCED_OPTIMISTIC}, {@code SIMPLE_OPTIMISTIC}, {@code CONDITIONAL_EXPRESSION} (default),
+ *     {@code COALESCING_CONDITIONAL_EXPRESSION}, {@code SEAT_BITMAP_OPTIMISTIC} (flights seeded as a
+ *     {@value #SEAT_BITMAP_AIRPLANE_MODEL} with a compact seat inventory, see {@link SeatLayout}) or
+ *     {@code SHARDED_CONDITIONAL_EXPRESSION}, or {@code SEAT_PICKER_CONDITIONAL_EXPRESSION} (flights seeded as a
+ *     {@value #SEAT_PICKER_AIRPLANE_MODEL} with a {@code ClaimedSeatMap}, passengers with a seat preference, and a seat
+ *     picked for every booking by {@link SeatPickingBookFlightService}).</li>
+ *     <li>{@code --seatPicker}: {@code random} (default) or {@code deterministic} {@link SeatSelector} of
+ *     {@code SEAT_PICKER_CONDITIONAL_EXPRESSION}.</li>
+ *     <li>{@code --shards}: inventory shards per flight of {@code SHARDED_CONDITIONAL_EXPRESSION} (default 8); the
+ *     shards are rebalanced by a {@link SeatInventoryReconciler} every 100 ms during the run.</li>
+ *     <li>{@code --seats}: {@code true} to book a specific seat (default {@code false}).</li>
+ *     <li>{@code --cache}: {@code true} to serve the flight reads of the optimistic-locking strategies through
+ *     {@link CachingFlightBookings} (default {@code false}).</li>
+ *     <li>{@code --maxAttempts}: attempts per booking of the optimistic-locking strategies (default from
+ *     {@link RetryPolicy#defaultPolicy()}).</li>
+ *     <li>{@code --executor}: {@code virtual} or {@code bounded:<threads>}, defaulting to the {@code booking.executor}
+ *     system property (see {@link BookingExecutor}).</li>
+ *     <li>{@code --target}: {@code embedded} (default) runs against the in-process {@link EmbeddedDynamoDb},
+ *     {@code localstack} against the endpoint of {@link AwsClientSettings#fromEnvironment()}, LocalStack by
+ *     default.</li>
+ *     <li>{@code --httpClient}: {@code APACHE} (default) or {@code CRT}, and {@code --maxConnections}: the HTTP
+ *     connection pool size (default from {@link AwsClientSettings#defaults()}), for the {@code localstack} target.</li>
+ *     <li>{@code --metrics}: {@code true} to meter the bookings with {@link BookingMetrics}, published over JMX
+ *     during the run and printed per flight with the summary (default {@code false}).</li>
+ * </ul>
+ * Optimistic-locking strategies retry conflicting bookings; their retry counters are reported with the summary.
+ */
+@Slf4j
+public class BookFlightLoadGenerator {
+
+    public enum Strategy {
+        ENHANCED_OPTIMISTIC,
+        SIMPLE_OPTIMISTIC,
+        CONDITIONAL_EXPRESSION,
+        COALESCING_CONDITIONAL_EXPRESSION,
+        SEAT_BITMAP_OPTIMISTIC,
+        SHARDED_CONDITIONAL_EXPRESSION,
+        SEAT_PICKER_CONDITIONAL_EXPRESSION
+    }
+
+    private static final String SEAT_LETTERS = "ABCDEF";
+    private static final String SEAT_BITMAP_AIRPLANE_MODEL = "Boeing 777-300ER";
+    private static final String SEAT_PICKER_AIRPLANE_MODEL = "Airbus A320";
+    private static final Duration REBALANCE_INTERVAL = Duration.ofMillis(100);
+
+    public static void main(String[] args) {
+        var options = parseOptions(args);
+
+        var bookings = Integer.parseInt(options.getOrDefault("bookings", "10000"));
+        var flights = Integer.parseInt(options.getOrDefault("flights", "10"));
+        var strategy = Strategy.valueOf(options.getOrDefault("strategy", Strategy.CONDITIONAL_EXPRESSION.name()));
+        var seatPicking = strategy == Strategy.SEAT_PICKER_CONDITIONAL_EXPRESSION;
+        // The seat picker assigns the seats itself
+        var withSeat = !seatPicking && Boolean.parseBoolean(options.getOrDefault("seats", "false"));
+        var seatSelector = "deterministic".equals(options.get("seatPicker")) ? SeatSelector.deterministic() : SeatSelector.random();
+        var target = options.getOrDefault("target", "embedded");
+        var withCache = Boolean.parseBoolean(options.getOrDefault("cache", "false"));
+        var shards = Integer.parseInt(options.getOrDefault("shards", "8"));
+        var withMetrics = Boolean.parseBoolean(options.getOrDefault("metrics", "false"));
+        var retryPolicy = options.containsKey("maxAttempts")
+                ? RetryPolicy.builder()
+                .maxAttempts(Integer.parseInt(options.get("maxAttempts")))
+                .baseDelay(RetryPolicy.defaultPolicy().baseDelay())
+                .maxDelay(RetryPolicy.defaultPolicy().maxDelay())
+                .maxRetriesInFlightPerFlight(RetryPolicy.defaultPolicy().maxRetriesInFlightPerFlight())
+                .build()
+                : RetryPolicy.defaultPolicy();
+        var seatLayout = switch (strategy) {
+            case SEAT_BITMAP_OPTIMISTIC -> SeatLayout.forAirplaneModel(SEAT_BITMAP_AIRPLANE_MODEL).orElseThrow();
+            case SEAT_PICKER_CONDITIONAL_EXPRESSION -> SeatLayout.forAirplaneModel(SEAT_PICKER_AIRPLANE_MODEL).orElseThrow();
+            default -> null;
+        };
+        var seatsPerFlight = (bookings + flights - 1) / flights;
+        if ((withSeat || seatPicking) && seatLayout != null && seatsPerFlight > seatLayout.capacity()) {
+            throw new IllegalArgumentException("A " + seatLayout.airplaneModel() + " has " + seatLayout.capacity()
+                    + " seats, use more flights for " + bookings + " bookings with a seat");
+        }
+
+        try (var dynamoDbClient = dynamoDbClient(target, options);
+             var bookingExecutor = options.containsKey("executor")
+                     ? BookingExecutor.of(options.get("executor"))
+                     : BookingExecutor.fromSystemProperties();
+             var metrics = new BookingMetrics()) {
+
+            System.out.printf("%n🚀 Load test: %d bookings over %d flight(s), strategy=%s, seats=%s, executor=%s, target=%s%n",
+                    bookings, flights, strategy, seatPicking ? seatSelector : withSeat, bookingExecutor, target);
+
+            var flightKeys = seedFlights(dynamoDbClient, flights, seatsPerFlight, seatLayout,
+                    strategy == Strategy.SEAT_BITMAP_OPTIMISTIC);
+            if (seatPicking) {
+                seedPassengers(dynamoDbClient, seatsPerFlight);
+            }
+            var tag = strategy.name();
+            var bookingService = withMetrics
+                    ? bookFlightUseCase(strategy, withCache, retryPolicy, seatSelector, metrics.meteredDynamoDbClient(tag, dynamoDbClient),
+                    flightBookings -> metrics.meteredFlightBookings(tag, flightBookings))
+                    : bookFlightUseCase(strategy, withCache, retryPolicy, seatSelector, dynamoDbClient, UnaryOperator.identity());
+            var bookFlightUseCase = withMetrics ? metered(tag, bookingService, metrics) : bookingService;
+
+            var reconciler = new SeatInventoryReconciler(dynamoDbClient);
+            var sharded = strategy == Strategy.SHARDED_CONDITIONAL_EXPRESSION;
+            if (sharded) {
+                flightKeys.forEach(flightKey -> reconciler.split(flightKey, shards));
+            }
+            var rebalancing = sharded ? rebalancePeriodically(reconciler, flightKeys) : null;
+
+            var booked = new AtomicLong();
+            var rejected = new AtomicLong();
+            var errors = new AtomicLong();
+
+            var startNanos = System.nanoTime();
+            Duration elapsed;
+            try {
+                var futures = new ArrayList<CompletableFuture<Void>>(bookings);
+                for (int i = 0; i < bookings; i++) {
+                    var booking = booking(flightKeys.get(i % flights), i % flights, i / flights, withSeat, seatLayout);
+                    futures.add(bookingExecutor.bookFlight(bookFlightUseCase, booking)
+                            .handle((success, throwable) -> {
+                                (throwable != null ? errors : Boolean.TRUE.equals(success) ? booked : rejected).incrementAndGet();
+                                return null;
+                            }));
+                }
+                CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+                elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+            } finally {
+                if (rebalancing != null) {
+                    rebalancing.shutdownNow();
+                }
+            }
+
+            var seatsSold = soldSeats(sharded
+                    ? new ShardedInventoryBookFlightRepository(dynamoDbClient)
+                    : new SimpleClientBookFlightRepository(dynamoDbClient), flightKeys);
+            logSummary(bookings, booked.get(), rejected.get(), errors.get(), seatsSold, elapsed);
+            retryStatistics(bookingService).ifPresent(retryStatistics -> System.out.println("🔁 " + retryStatistics));
+            if (withMetrics) {
+                new ConsoleMetricsReporter(System.out, true).report(metrics.snapshots());
+            }
+        }
+    }
+
+    private static DynamoDbClient dynamoDbClient(String target, Map<String, String> options) {
+        return switch (target) {
+            case "embedded" -> new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+            case "localstack" -> {
+                var settings = AwsClientSettings.fromEnvironment().toBuilder();
+                if (options.containsKey("httpClient")) {
+                    settings.httpClient(AwsClientSettings.HttpClientType.valueOf(options.get("httpClient").toUpperCase()));
+                }
+                if (options.containsKey("maxConnections")) {
+                    settings.maxConnections(Integer.parseInt(options.get("maxConnections")));
+                }
+                yield AwsClientProvider.dynamoDbClient(settings.build());
+            }
+            default -> throw new IllegalArgumentException("Unknown target: " + target + " (expected embedded or localstack)");
+        };
+    }
+
+    /**
+     * Meters the bookings of a service built over a metered client and repository (the flight seeding and the final
+     * seat count stay unmetered), and publishes the metrics over JMX.
+     */
+    private static BookFlightUseCase metered(String tag, BookFlightUseCase bookingService, BookingMetrics metrics) {
+        retryStatistics(bookingService).ifPresent(retryStatistics -> metrics.registerRetryStatistics(tag, retryStatistics));
+        metrics.registerMBeans();
+        return metrics.meteredBookFlightUseCase(tag, bookingService);
+    }
+
+    private static Optional<RetryStatistics> retryStatistics(BookFlightUseCase bookingService) {
+        return switch (bookingService) {
+            case OptimisticLockingFlightBookingService optimisticLockingService ->
+                    Optional.of(optimisticLockingService.retryStatistics());
+            case SeatPickingBookFlightService seatPickingService -> Optional.of(seatPickingService.retryStatistics());
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * @param metered decorates the repository of the strategy, beneath the cache
+     */
+    private static BookFlightUseCase bookFlightUseCase(Strategy strategy, boolean withCache, RetryPolicy retryPolicy,
+                                                       SeatSelector seatSelector, DynamoDbClient dynamoDbClient,
+                                                       UnaryOperator<FlightBookings> metered) {
+        return switch (strategy) {
+            case ENHANCED_OPTIMISTIC -> new OptimisticLockingFlightBookingService(withCache(withCache, metered.apply(
+                    new EnhancedClientFlightBookingsRepository(dynamoDbClient))), retryPolicy);
+            case SIMPLE_OPTIMISTIC -> new OptimisticLockingFlightBookingService(withCache(withCache, metered.apply(
+                    new SimpleClientBookFlightRepository(dynamoDbClient))), retryPolicy);
+            case CONDITIONAL_EXPRESSION -> new NoLockingBookFlightService(metered.apply(
+                    new ConditionalExpressionBookFlightRepository(dynamoDbClient)));
+            case COALESCING_CONDITIONAL_EXPRESSION -> new NoLockingBookFlightService(metered.apply(
+                    new CoalescingBookFlightRepository(dynamoDbClient,
+                            new ConditionalExpressionBookFlightRepository(dynamoDbClient))));
+            case SEAT_BITMAP_OPTIMISTIC -> new OptimisticLockingFlightBookingService(withCache(withCache, metered.apply(
+                    new SeatBitmapBookFlightRepository(dynamoDbClient))), retryPolicy);
+            case SHARDED_CONDITIONAL_EXPRESSION -> new NoLockingBookFlightService(metered.apply(
+                    new ShardedInventoryBookFlightRepository(dynamoDbClient)));
+            case SEAT_PICKER_CONDITIONAL_EXPRESSION -> new SeatPickingBookFlightService(metered.apply(
+                    new ConditionalExpressionBookFlightRepository(dynamoDbClient)),
+                    new CachingPassengers(new PassengerRepository(dynamoDbClient)), seatSelector, retryPolicy);
+        };
+    }
+
+    private static FlightBookings withCache(boolean withCache, FlightBookings flightBookings) {
+        return withCache ? new CachingFlightBookings(flightBookings) : flightBookings;
+    }
+
+    /**
+     * Seeds flights of the {@code seatLayout} airplane model, or of a model without a layout when {@code null}, with a
+     * {@code SeatBitmap} inventory when {@code seatBitmap} and a {@code ClaimedSeatMap} one otherwise.
+     */
+    private static List<FlightPrimaryKey> seedFlights(DynamoDbClient dynamoDbClient, int flights, int seatsPerFlight,
+                                                      SeatLayout seatLayout, boolean seatBitmap) {
+        var flightTable = AwsClientProvider.dynamoDbEnhancedClient(dynamoDbClient)
+                .table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class));
+
+        // Departures are unique per run, so repeated runs against LocalStack never collide with earlier flights
+        var firstDeparture = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MINUTES).plusYears(1);
+
+        var flightKeys = new ArrayList<FlightPrimaryKey>(flights);
+        for (int i = 0; i < flights; i++) {
+            var primaryKey = FlightPrimaryKey.builder()
+                    .sourceAirportCode("LHR")
+                    .destinationAirportCode("CDG")
+                    .departureDateTime(firstDeparture.plusMinutes(i))
+                    .build();
+
+            var flight = Flight.builder()
+                    .primaryKey(primaryKey)
+                    .flightNumber(flightNumber(i))
+                    .airplaneModel(seatLayout != null ? seatLayout.airplaneModel() : "Load Test")
+                    .totalSeats(seatsPerFlight)
+                    .build();
+            if (seatBitmap) {
+                flight.encodeSeatsAsBitmap();
+            }
+            flightTable.putItem(flight);
+
+            flightKeys.add(primaryKey);
+        }
+        return flightKeys;
+    }
+
+    /**
+     * Seeds the passengers of the bookings ({@code load-<seat>@email.com}), with the seat preference mix of the
+     * synthetic dataset: 45% window, 35% aisle, 5% middle, 15% none.
+     */
+    private static void seedPassengers(DynamoDbClient dynamoDbClient, int passengers) {
+        var passengerTable = AwsClientProvider.dynamoDbEnhancedClient(dynamoDbClient)
+                .table(Passenger.PASSENGER_TABLE_NAME, TableSchema.fromBean(Passenger.class));
+
+        for (int i = 0; i < passengers; i++) {
+            var share = i % 20;
+            passengerTable.putItem(Passenger.builder()
+                    .emailAddress(customerEmail(i))
+                    .fullName("Load Passenger " + i)
+                    .preferences(Preferences.builder()
+                            .seatPreference(share < 9 ? "Window" : share < 16 ? "Aisle" : share < 17 ? "Middle" : null)
+                            .build())
+                    .build());
+        }
+    }
+
+    private static Booking booking(FlightPrimaryKey flightKey, int flightIndex, int seatIndex, boolean withSeat,
+                                   SeatLayout seatLayout) {
+        return Booking.builder()
+                .customerEmail(customerEmail(seatIndex))
+                .bookingID(UUID.randomUUID().toString())
+                .flightNumber(flightNumber(flightIndex))
+                .source(flightKey.getSourceAirportCode())
+                .destination(flightKey.getDestinationAirportCode())
+                .departureDateTime(flightKey.getDepartureDateTime().toEpochSecond(ZoneOffset.UTC))
+                .seatNumber(withSeat ? seatNumber(seatIndex, seatLayout) : null)
+                .fareClass("Economy")
+                .build();
+    }
+
+    private static String customerEmail(int seatIndex) {
+        return "load-" + seatIndex + "@email.com";
+    }
+
+    private static String flightNumber(int flightIndex) {
+        return "LT" + (1000 + flightIndex);
+    }
+
+    private static String seatNumber(int seatIndex, SeatLayout seatLayout) {
+        if (seatLayout != null) {
+            return seatLayout.seatNumber(seatIndex);
+        }
+        return (seatIndex / SEAT_LETTERS.length() + 1) + String.valueOf(SEAT_LETTERS.charAt(seatIndex % SEAT_LETTERS.length()));
+    }
+
+    private static ScheduledExecutorService rebalancePeriodically(SeatInventoryReconciler reconciler,
+                                                                  List<FlightPrimaryKey> flightKeys) {
+        var rebalancing = Executors.newSingleThreadScheduledExecutor();
+        rebalancing.scheduleWithFixedDelay(() -> flightKeys.forEach(flightKey -> rebalance(reconciler, flightKey)),
+                REBALANCE_INTERVAL.toMillis(), REBALANCE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        return rebalancing;
+    }
+
+    /**
+     * Rebalances one flight; a failure is logged, since an exception escaping the scheduled task would silently cancel
+     * every later run.
+     */
+    private static void rebalance(SeatInventoryReconciler reconciler, FlightPrimaryKey flightKey) {
+        try {
+            reconciler.rebalance(flightKey);
+        } catch (RuntimeException e) {
+            log.warn("event=rebalance-failed flight={}", flightKey, e);
+        }
+    }
+
+    private static long soldSeats(FlightBookings flightBookings, List<FlightPrimaryKey> flightKeys) {
+        return flightKeys.stream()
+                .map(flightBookings::findFlight)
+                .flatMap(Optional::stream)
+                .mapToLong(flight -> flight.getTotalSeats() - flight.getAvailableSeats())
+                .sum();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid option: " + arg + " (expected --name=value)");
+            }
+            var separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static void logSummary(int bookings, long booked, long rejected, long errors, long seatsSold, Duration elapsed) {
+        System.out.println("\n=========== 📊 Load Test Summary ===========\n");
+        System.out.printf("🛫 Submitted bookings: %d%n", bookings);
+        System.out.printf("✅ Booked: %d%n", booked);
+        System.out.printf("⚠️ Rejected: %d%n", rejected);
+        System.out.printf("❌ Errors: %d%n", errors);
+        System.out.printf("💺 Seats sold (from DB): %d%n", seatsSold);
+        System.out.printf("⏱️ Elapsed: %d ms%n", elapsed.toMillis());
+        System.out.printf("🚀 Throughput: %.1f bookings/s%n", bookings * 1_000_000_000.0 / Math.max(1, elapsed.toNanos()));
+        System.out.println("\n============================================");
+    }
+}
@@ -1,5 +1,6 @@
 package io.airlinesample.ddbops;
 
+import io.airlinesample.ddbops.application.BookingExecutor;
 import io.airlinesample.ddbops.application.OptimisticLockingFlightBookingService;
 import io.airlinesample.ddbops.domain.Booking;
 import io.airlinesample.ddbops.domain.FlightPrimaryKey;
@@ -35,10 +36,10 @@ public class EnhancedClientOptimisticLockingBookFlightScenarioRunner {
 
         System.out.println("\n🚀 Starting Optimistic Locking Booking Scenario (using EnhancedClient) ...");
 
-        try (var dynamoDbClient = AwsClientProvider.dynamoDbClient()) {
+        try (var dynamoDbClient = AwsClientProvider.dynamoDbClient();
+             var bookingExecutor = BookingExecutor.fromSystemProperties()) {
 
-            var enhancedClient = AwsClientProvider.dynamoDbEnhancedClient(dynamoDbClient);
-            var enhancedClientFlightBookingsRepository = new EnhancedClientFlightBookingsRepository(enhancedClient);
+            var enhancedClientFlightBookingsRepository = new EnhancedClientFlightBookingsRepository(dynamoDbClient);
             var bookFlightUseCase = new OptimisticLockingFlightBookingService(enhancedClientFlightBookingsRepository);
 
             var bookings = new CopyOnWriteArrayList<Booking>();
@@ -68,11 +69,11 @@ public class EnhancedClientOptimisticLockingBookFlightScenarioRunner {
             };
 
             var futures = List.of(
-                    CompletableFuture.runAsync(bookingTask),
-                    CompletableFuture.runAsync(bookingTask)
+                    CompletableFuture.runAsync(bookingTask, bookingExecutor.executor()),
+                    CompletableFuture.runAsync(bookingTask, bookingExecutor.executor())
             );
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
                     .thenRun(() -> {
                         System.out.println("\n📊 Fetching updated flight and booking details...");
 
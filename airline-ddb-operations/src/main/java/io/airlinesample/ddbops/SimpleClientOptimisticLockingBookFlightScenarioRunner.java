@@ -1,5 +1,6 @@
 package io.airlinesample.ddbops;
 
+import io.airlinesample.ddbops.application.BookingExecutor;
 import io.airlinesample.ddbops.application.OptimisticLockingFlightBookingService;
 import io.airlinesample.ddbops.domain.Booking;
 import io.airlinesample.ddbops.domain.FlightPrimaryKey;
@@ -32,7 +33,8 @@ public class SimpleClientOptimisticLockingBookFlightScenarioRunner {
     public static void main(String[] args) {
 
         System.out.println("\n🚀 Starting Simple Client Optimistic Locking Booking Scenario (using DynamoClient) ...");
-        try (var dynamoClient = AwsClientProvider.dynamoDbClient()) {
+        try (var dynamoClient = AwsClientProvider.dynamoDbClient();
+             var bookingExecutor = BookingExecutor.fromSystemProperties()) {
 
             var simpleClientBookFlightRepository = new SimpleClientBookFlightRepository(dynamoClient);
             var noLockingBookFlightUseCase = new OptimisticLockingFlightBookingService(simpleClientBookFlightRepository);
@@ -64,11 +66,11 @@ public class SimpleClientOptimisticLockingBookFlightScenarioRunner {
             };
 
             var futures = List.of(
-                    CompletableFuture.runAsync(bookingTask),
-                    CompletableFuture.runAsync(bookingTask)
+                    CompletableFuture.runAsync(bookingTask, bookingExecutor.executor()),
+                    CompletableFuture.runAsync(bookingTask, bookingExecutor.executor())
             );
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
                     .thenRun(() -> {
                         System.out.println("\n📊 Fetching updated flight and booking details...");
 
@@ -0,0 +1,22 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.Booking;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link BookFlightUseCase}.
+ * <p>
+ * The booking is processed without holding the calling thread while DynamoDB answers, so a single JVM can keep
+ * thousands of bookings in flight on a handful of event-loop threads.
+ */
+public interface AsyncBookFlightUseCase {
+
+    /**
+     * Books a flight for a given booking.
+     *
+     * @param booking The booking information for the flight.
+     * @return a future completed with true if the booking was successful, false otherwise.
+     */
+    CompletableFuture<Boolean> bookFlight(Booking booking);
+}
@@ -0,0 +1,42 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.AsyncFlightBookings;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@RequiredArgsConstructor
+public final class AsyncNoLockingBookFlightService implements AsyncBookFlightUseCase {
+
+    private final AsyncFlightBookings flightBookings;
+
+    @Override
+    public CompletableFuture<Boolean> bookFlight(Booking booking) {
+        return flightBookings.transactBookFlight(booking, null)
+                .thenApply(transactSummary -> {
+                    log(booking, transactSummary);
+                    return transactSummary.success();
+                });
+    }
+
+    private void log(Booking booking, FlightBookings.TransactSummary transactSummary) {
+        if (transactSummary.success()) {
+            log.info("event=booked bookingId={} flight={}", booking.getBookingID(), booking.getFlightNumber());
+            return;
+        }
+
+        if (transactSummary.preconditionFailed()) {
+            // No seat left, the seat already taken, or a concurrent modification: the caller may try again
+            log.info("event=rejected reason=condition-failed bookingId={} flight={}",
+                    booking.getBookingID(), booking.getFlightNumber());
+            return;
+        }
+
+        log.error("event=failed bookingId={} flight={} reason={}",
+                booking.getBookingID(), booking.getFlightNumber(), transactSummary.failureReason());
+    }
+}
@@ -0,0 +1,159 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.AsyncFlightBookings;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-blocking counterpart of {@link OptimisticLockingFlightBookingService}, retrying conflicts within the same
+ * {@link RetryPolicy} and per-flight contention budget.
+ * <p>
+ * Backoffs never block a thread: each retry is scheduled on a {@linkplain CompletableFuture#delayedExecutor delayed
+ * executor}, and the retried transaction rebases on the flight returned by the failed condition.
+ */
+@Slf4j
+public final class AsyncOptimisticLockingFlightBookingService implements AsyncBookFlightUseCase {
+
+    private final AsyncFlightBookings flightBookings;
+    private final RetryPolicy retryPolicy;
+    private final ContentionBudget contentionBudget;
+    private final RetryStatistics retryStatistics = new RetryStatistics();
+
+    public AsyncOptimisticLockingFlightBookingService(AsyncFlightBookings flightBookings) {
+        this(flightBookings, RetryPolicy.defaultPolicy());
+    }
+
+    public AsyncOptimisticLockingFlightBookingService(AsyncFlightBookings flightBookings, RetryPolicy retryPolicy) {
+        this.flightBookings = requireNonNull(flightBookings);
+        this.retryPolicy = requireNonNull(retryPolicy);
+        this.contentionBudget = new ContentionBudget(retryPolicy.maxRetriesInFlightPerFlight());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> bookFlight(Booking booking) {
+        return tryBookFlight(booking, Optional.empty())
+                .thenCompose(transactSummary -> retryOnConflict(booking, transactSummary, 1))
+                .thenApply(transactSummary -> {
+                    transactSummary.ifPresent(summary -> log(booking, summary));
+                    return transactSummary.map(FlightBookings.TransactSummary::success).orElse(false);
+                });
+    }
+
+    /**
+     * Retry counters of all the bookings processed by this service.
+     */
+    public RetryStatistics retryStatistics() {
+        return retryStatistics;
+    }
+
+    /**
+     * Optimistic locking conflict: rebases the booking on the current flight and retries after a non-blocking
+     * backoff, within the retry policy. Completes with the summary of the last attempt.
+     */
+    private CompletableFuture<Optional<FlightBookings.TransactSummary>> retryOnConflict(
+            Booking booking, Optional<FlightBookings.TransactSummary> transactSummary, int attempts) {
+        if (transactSummary.isEmpty() || !transactSummary.get().preconditionFailed()) {
+            return CompletableFuture.completedFuture(transactSummary);
+        }
+
+        if (!retryPolicy.canRetry(attempts)) {
+            retryStatistics.recordRetriesExhausted();
+            return CompletableFuture.completedFuture(transactSummary);
+        }
+
+        var flightKey = booking.flightPrimaryKey();
+        if (!contentionBudget.tryAcquire(flightKey)) {
+            retryStatistics.recordContentionBudgetExhausted();
+            return CompletableFuture.completedFuture(transactSummary);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("event=retry bookingId={} flight={} attempt={}/{}", booking.getBookingID(),
+                    booking.getFlightNumber(), attempts + 1, retryPolicy.maxAttempts());
+        }
+        var backoff = CompletableFuture.delayedExecutor(retryPolicy.backoff(attempts).toNanos(), TimeUnit.NANOSECONDS);
+        // The failed condition returned the current flight, so no need to read it again
+        var currentFlight = transactSummary.get().currentFlight();
+        return CompletableFuture.runAsync(retryStatistics::recordRetry, backoff)
+                .thenCompose(ignored -> tryBookFlight(booking, currentFlight))
+                .whenComplete((ignored, throwable) -> contentionBudget.release(flightKey))
+                .thenCompose(nextSummary -> retryOnConflict(booking, nextSummary, attempts + 1));
+    }
+
+    /**
+     * Runs one read-modify-write cycle, starting from {@code currentFlight} when known. Completes with empty when the
+     * booking is rejected before reaching DynamoDB.
+     */
+    private CompletableFuture<Optional<FlightBookings.TransactSummary>> tryBookFlight(Booking booking,
+                                                                                      Optional<Flight> currentFlight) {
+        // Step 1: Fetch the flight information from DynamoDB based on booking details
+        var possibleFlight = currentFlight.isPresent()
+                ? CompletableFuture.completedFuture(currentFlight)
+                : flightBookings.findFlight(booking.flightPrimaryKey());
+        return possibleFlight.thenCompose(flight -> tryBookFlight(booking, flight.orElse(null)));
+    }
+
+    private CompletableFuture<Optional<FlightBookings.TransactSummary>> tryBookFlight(Booking booking, Flight flight) {
+        if (flight == null) {
+            log.info("event=rejected reason=flight-not-found bookingId={} flight={}",
+                    booking.getBookingID(), booking.getFlightNumber());
+            return CompletableFuture.completedFuture(Optional.empty());  // Flight does not exist or could not be retrieved
+        }
+
+        // Step 2: Check if the flight has available seats
+        if (!flight.anySeatAvailable()) {
+            log.info("event=rejected reason=sold-out bookingId={} flight={}",
+                    booking.getBookingID(), flight.getFlightNumber());
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        if (booking.hasSeatNumber()) {
+            // Step 3: Check if the requested seat is available and claim it
+            if (!flight.addSeatIfAvailable(booking.getSeatNumber(), booking.getBookingID())) {
+                log.info("event=rejected reason=seat-taken bookingId={} flight={} seat={}",
+                        booking.getBookingID(), booking.getFlightNumber(), booking.getSeatNumber());
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+        } else {
+            flight.incrementHeldSeats();
+        }
+
+        // Step 4: Decrement the available seats on the flight as the seat is now booked
+        flight.decrementAvailableSeats();
+
+        // Step 5: Submit changes in a transaction
+        return flightBookings.transactBookFlight(booking, flight)
+                .thenApply(transactSummary -> {
+                    retryStatistics.recordTransaction();
+                    if (transactSummary.preconditionFailed()) {
+                        retryStatistics.recordConflict();
+                    }
+                    return Optional.of(transactSummary);
+                });
+    }
+
+    private void log(Booking booking, FlightBookings.TransactSummary transactSummary) {
+        if (transactSummary.success()) {
+            log.info("event=booked bookingId={} flight={}", booking.getBookingID(), booking.getFlightNumber());
+            return;
+        }
+
+        if (transactSummary.preconditionFailed()) {
+            // Still conflicting after the last attempt the retry policy or the contention budget allowed
+            log.info("event=rejected reason=retries-exhausted bookingId={} flight={}",
+                    booking.getBookingID(), booking.getFlightNumber());
+            return;
+        }
+
+        log.error("event=failed bookingId={} flight={} reason={}",
+                booking.getBookingID(), booking.getFlightNumber(), transactSummary.failureReason());
+    }
+}
@@ -0,0 +1,109 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.Booking;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Runs blocking {@link BookFlightUseCase} calls off the caller thread.
+ * <p>
+ * The synchronous services block their thread for the whole DynamoDB round trip, so running them on the common
+ * {@code ForkJoinPool} (sized to the CPU count) starves it as soon as a few bookings are in flight. A booking executor
+ * is either:
+ * <ul>
+ *     <li><b>virtual</b>: one virtual thread per booking, so thousands of bookings can wait on DynamoDB at once.</li>
+ *     <li><b>bounded</b>: a fixed pool of platform threads, capping the number of concurrent DynamoDB calls.</li>
+ * </ul>
+ * The executor is selected with the {@code booking.executor} system property: {@code virtual} (default) or
+ * {@code bounded:<threads>}, e.g. {@code -Dbooking.executor=bounded:64}.
+ */
+public final class BookingExecutor implements AutoCloseable {
+
+    public static final String EXECUTOR_PROPERTY = "booking.executor";
+
+    private static final String VIRTUAL = "virtual";
+    private static final String BOUNDED_PREFIX = "bounded:";
+
+    private final String description;
+    private final ExecutorService executorService;
+
+    private BookingExecutor(String description, ExecutorService executorService) {
+        this.description = description;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Creates an executor starting one virtual thread per booking.
+     */
+    public static BookingExecutor virtualThreads() {
+        return new BookingExecutor(VIRTUAL, Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("booking-", 0).factory()));
+    }
+
+    /**
+     * Creates an executor backed by a fixed pool of {@code threads} platform threads.
+     */
+    public static BookingExecutor bounded(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+
+        return new BookingExecutor(BOUNDED_PREFIX + threads, Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("booking-", 0).daemon(true).factory()));
+    }
+
+    /**
+     * Creates the executor described by {@code spec}: {@code virtual} or {@code bounded:<threads>}.
+     */
+    public static BookingExecutor of(String spec) {
+        requireNonNull(spec, "spec cannot be null");
+
+        if (spec.equalsIgnoreCase(VIRTUAL)) {
+            return virtualThreads();
+        }
+
+        if (spec.toLowerCase().startsWith(BOUNDED_PREFIX)) {
+            return bounded(Integer.parseInt(spec.substring(BOUNDED_PREFIX.length()).trim()));
+        }
+
+        throw new IllegalArgumentException("Unknown booking executor: " + spec + " (expected virtual or bounded:<threads>)");
+    }
+
+    /**
+     * Creates the executor configured by the {@value #EXECUTOR_PROPERTY} system property, virtual threads by default.
+     */
+    public static BookingExecutor fromSystemProperties() {
+        return of(System.getProperty(EXECUTOR_PROPERTY, VIRTUAL));
+    }
+
+    /**
+     * Books a flight through {@code bookFlightUseCase} on this executor.
+     *
+     * @return a future completed with the booking result
+     */
+    public CompletableFuture<Boolean> bookFlight(BookFlightUseCase bookFlightUseCase, Booking booking) {
+        return CompletableFuture.supplyAsync(() -> bookFlightUseCase.bookFlight(booking), executorService);
+    }
+
+    /**
+     * The underlying executor, for callers submitting their own booking tasks.
+     */
+    public Executor executor() {
+        return executorService;
+    }
+
+    @Override
+    public void close() {
+        executorService.close();
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
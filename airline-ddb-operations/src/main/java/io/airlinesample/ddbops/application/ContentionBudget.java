@@ -0,0 +1,36 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caps the number of bookings retrying on the same flight at once. Flights without retrying bookings hold no entry.
+ */
+final class ContentionBudget {
+
+    private final int maxInFlightPerFlight;
+    private final Map<FlightPrimaryKey, Integer> inFlight = new ConcurrentHashMap<>();
+
+    ContentionBudget(int maxInFlightPerFlight) {
+        this.maxInFlightPerFlight = maxInFlightPerFlight;
+    }
+
+    boolean tryAcquire(FlightPrimaryKey flightKey) {
+        var acquired = new boolean[1];
+        inFlight.compute(flightKey, (key, count) -> {
+            var current = count == null ? 0 : count;
+            if (current >= maxInFlightPerFlight) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    void release(FlightPrimaryKey flightKey) {
+        inFlight.computeIfPresent(flightKey, (key, count) -> count == 1 ? null : count - 1);
+    }
+}
@@ -3,7 +3,9 @@ package io.airlinesample.ddbops.application;
 import io.airlinesample.ddbops.domain.Booking;
 import io.airlinesample.ddbops.domain.FlightBookings;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @RequiredArgsConstructor
 public final class NoLockingBookFlightService implements BookFlightUseCase {
 
@@ -12,22 +14,24 @@ public final class NoLockingBookFlightService implements BookFlightUseCase {
     @Override
     public boolean bookFlight(Booking booking) {
         var transactSummary = flightBookings.transactBookFlight(booking, null);
-        log(transactSummary);
+        log(booking, transactSummary);
         return transactSummary.success();
     }
 
-    private void log(FlightBookings.TransactSummary transactSummary) {
+    private void log(Booking booking, FlightBookings.TransactSummary transactSummary) {
         if (transactSummary.success()) {
-            System.out.println("✅ Flight booked successfully.");
+            log.info("event=booked bookingId={} flight={}", booking.getBookingID(), booking.getFlightNumber());
             return;
         }
 
         if (transactSummary.preconditionFailed()) {
-            System.out.println("⚠️ No seats available or specified seat already taken.");
-            System.err.println("❌ Optimistic locking failed: Another user modified the flight concurrently. Consider attempting again...");
+            // No seat left, the seat already taken, or a concurrent modification: the caller may try again
+            log.info("event=rejected reason=condition-failed bookingId={} flight={}",
+                    booking.getBookingID(), booking.getFlightNumber());
             return;
         }
 
-        System.err.println("❌ " + transactSummary.failureReason());
+        log.error("event=failed bookingId={} flight={} reason={}",
+                booking.getBookingID(), booking.getFlightNumber(), transactSummary.failureReason());
     }
 }
@@ -1,36 +1,107 @@
 package io.airlinesample.ddbops.application;
 
+import io.airlinesample.ddbops.domain.Backoff;
 import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
 import io.airlinesample.ddbops.domain.FlightBookings;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
-@RequiredArgsConstructor
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+@Slf4j
 public final class OptimisticLockingFlightBookingService implements BookFlightUseCase {
 
     private final FlightBookings flightBookings;
+    private final RetryPolicy retryPolicy;
+    private final ContentionBudget contentionBudget;
+    private final RetryStatistics retryStatistics = new RetryStatistics();
+
+    public OptimisticLockingFlightBookingService(FlightBookings flightBookings) {
+        this(flightBookings, RetryPolicy.defaultPolicy());
+    }
+
+    public OptimisticLockingFlightBookingService(FlightBookings flightBookings, RetryPolicy retryPolicy) {
+        this.flightBookings = requireNonNull(flightBookings);
+        this.retryPolicy = requireNonNull(retryPolicy);
+        this.contentionBudget = new ContentionBudget(retryPolicy.maxRetriesInFlightPerFlight());
+    }
 
     @Override
     public boolean bookFlight(Booking booking) {
+        var transactSummary = tryBookFlight(booking, Optional.empty());
+
+        // Optimistic locking conflict: rebase the booking on the current flight and retry, within the retry policy
+        var attempts = 1;
+        while (transactSummary.isPresent() && transactSummary.get().preconditionFailed()) {
+            if (!retryPolicy.canRetry(attempts)) {
+                retryStatistics.recordRetriesExhausted();
+                break;
+            }
+
+            var flightKey = booking.flightPrimaryKey();
+            if (!contentionBudget.tryAcquire(flightKey)) {
+                retryStatistics.recordContentionBudgetExhausted();
+                break;
+            }
+
+            try {
+                if (log.isDebugEnabled()) {
+                    log.debug("event=retry bookingId={} flight={} attempt={}/{}", booking.getBookingID(),
+                            booking.getFlightNumber(), attempts + 1, retryPolicy.maxAttempts());
+                }
+                Backoff.sleep(retryPolicy.backoff(attempts));
+                retryStatistics.recordRetry();
+                // The failed condition returned the current flight, so no need to read it again
+                transactSummary = tryBookFlight(booking, transactSummary.get().currentFlight());
+                attempts++;
+            } finally {
+                contentionBudget.release(flightKey);
+            }
+        }
+
+        transactSummary.ifPresent(summary -> log(booking, summary));
+        return transactSummary.map(FlightBookings.TransactSummary::success).orElse(false);
+    }
+
+    /**
+     * Retry counters of all the bookings processed by this service.
+     */
+    public RetryStatistics retryStatistics() {
+        return retryStatistics;
+    }
+
+    /**
+     * Runs one read-modify-write cycle, starting from {@code currentFlight} when known. Returns empty when the booking
+     * is rejected before reaching DynamoDB.
+     */
+    private Optional<FlightBookings.TransactSummary> tryBookFlight(Booking booking, Optional<Flight> currentFlight) {
 
         // Step 1: Fetch the flight information from DynamoDB based on booking details
-        var possibleFlight = flightBookings.findFlight(booking.flightPrimaryKey());
+        var possibleFlight = currentFlight.isPresent()
+                ? currentFlight
+                : flightBookings.findFlight(booking.flightPrimaryKey());
         if (possibleFlight.isEmpty()) {
-            System.err.println("❌ Flight not available for booking.");
-            return false;  // Flight does not exist or could not be retrieved
+            log.info("event=rejected reason=flight-not-found bookingId={} flight={}",
+                    booking.getBookingID(), booking.getFlightNumber());
+            return Optional.empty();  // Flight does not exist or could not be retrieved
         }
         var flight = possibleFlight.get();
 
         // Step 2: Check if the flight has available seats
         if (!flight.anySeatAvailable()) {
-            System.err.println("❌ No available seats for the flight: " + flight.getFlightNumber());
-            return false;
+            log.info("event=rejected reason=sold-out bookingId={} flight={}",
+                    booking.getBookingID(), flight.getFlightNumber());
+            return Optional.empty();
         }
 
         if (booking.hasSeatNumber()) {
             // Step 3: Check if the requested seat is available and claim it
             if (!flight.addSeatIfAvailable(booking.getSeatNumber(), booking.getBookingID())) {
-                System.err.println("⚠️ The requested seat is already claimed.");
-                return false;
+                log.info("event=rejected reason=seat-taken bookingId={} flight={} seat={}",
+                        booking.getBookingID(), booking.getFlightNumber(), booking.getSeatNumber());
+                return Optional.empty();
             }
         } else {
             flight.incrementHeldSeats();
@@ -40,23 +111,28 @@ public final class OptimisticLockingFlightBookingService implements BookFlightUs
         flight.decrementAvailableSeats();
 
         // Step 5: Submit changes in a transaction
-        // FIXME: in case of retry consider the result of this
         var transactSummary = flightBookings.transactBookFlight(booking, flight);
-        log(transactSummary);
-        return transactSummary.success();
+        retryStatistics.recordTransaction();
+        if (transactSummary.preconditionFailed()) {
+            retryStatistics.recordConflict();
+        }
+        return Optional.of(transactSummary);
     }
 
-    private void log(FlightBookings.TransactSummary transactSummary) {
+    private void log(Booking booking, FlightBookings.TransactSummary transactSummary) {
         if (transactSummary.success()) {
-            System.out.println("✅ Flight booked successfully.");
+            log.info("event=booked bookingId={} flight={}", booking.getBookingID(), booking.getFlightNumber());
             return;
         }
 
         if (transactSummary.preconditionFailed()) {
-            System.err.println("⚠️ Optimistic locking failed: Another user modified the flight concurrently. Consider attempting again...");
+            // Still conflicting after the last attempt the retry policy or the contention budget allowed
+            log.info("event=rejected reason=retries-exhausted bookingId={} flight={}",
+                    booking.getBookingID(), booking.getFlightNumber());
             return;
         }
 
-        System.err.println("❌ " + transactSummary.failureReason());
+        log.error("event=failed bookingId={} flight={} reason={}",
+                booking.getBookingID(), booking.getFlightNumber(), transactSummary.failureReason());
     }
 }
@@ -0,0 +1,84 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.Backoff;
+import lombok.Builder;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Retry policy for bookings rejected by an optimistic-locking conflict.
+ * <p>
+ * Retries {@linkplain Backoff back off} exponentially with full jitter: the n-th retry waits a random delay between
+ * zero and {@code min(maxDelay, baseDelay * 2^(n-1))}, so contenders spread out instead of colliding again in lockstep.
+ * At most {@code maxRetriesInFlightPerFlight} bookings may be retrying on the same flight at once; beyond that
+ * budget a conflict is reported immediately, so a hot flight degrades gracefully instead of piling up retries.
+ *
+ * @param maxAttempts                  total attempts per booking, the first one included
+ * @param baseDelay                    backoff ceiling of the first retry, positive when retries are allowed
+ * @param maxDelay                     upper bound of the backoff ceiling, at least {@code baseDelay}
+ * @param maxRetriesInFlightPerFlight  per-flight contention budget
+ */
+@Builder
+public record RetryPolicy(int maxAttempts,
+                          Duration baseDelay,
+                          Duration maxDelay,
+                          int maxRetriesInFlightPerFlight) {
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be greater than 0");
+        }
+        if (maxRetriesInFlightPerFlight < 1) {
+            throw new IllegalArgumentException("maxRetriesInFlightPerFlight must be greater than 0");
+        }
+        requireNonNull(baseDelay, "baseDelay cannot be null");
+        requireNonNull(maxDelay, "maxDelay cannot be null");
+        // Without retries the delays are never used, so noRetry() may leave them at zero
+        if (maxAttempts > 1 && (!baseDelay.isPositive() || !maxDelay.isPositive())) {
+            throw new IllegalArgumentException("baseDelay and maxDelay must be positive");
+        }
+        if (baseDelay.isNegative() || baseDelay.compareTo(maxDelay) > 0) {
+            throw new IllegalArgumentException("baseDelay must be between 0 and maxDelay");
+        }
+    }
+
+    /**
+     * Four attempts, backing off from 10 ms up to 200 ms, with at most 16 retrying bookings per flight.
+     */
+    public static RetryPolicy defaultPolicy() {
+        return RetryPolicy.builder()
+                .maxAttempts(4)
+                .baseDelay(Duration.ofMillis(10))
+                .maxDelay(Duration.ofMillis(200))
+                .maxRetriesInFlightPerFlight(16)
+                .build();
+    }
+
+    /**
+     * A single attempt: conflicts are reported straight away.
+     */
+    public static RetryPolicy noRetry() {
+        return RetryPolicy.builder()
+                .maxAttempts(1)
+                .baseDelay(Duration.ZERO)
+                .maxDelay(Duration.ZERO)
+                .maxRetriesInFlightPerFlight(1)
+                .build();
+    }
+
+    /**
+     * Checks whether a booking that already made {@code attempts} attempts may try again.
+     */
+    public boolean canRetry(int attempts) {
+        return attempts < maxAttempts;
+    }
+
+    /**
+     * Full-jitter backoff before the given retry (1 for the first retry).
+     */
+    public Duration backoff(int retry) {
+        return new Backoff(baseDelay, maxDelay).delay(retry);
+    }
+}
@@ -0,0 +1,79 @@
+package io.airlinesample.ddbops.application;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry counters of a booking service, updated concurrently by every booking it processes.
+ */
+public final class RetryStatistics {
+
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriesExhausted = new LongAdder();
+    private final LongAdder contentionBudgetExhausted = new LongAdder();
+
+    void recordTransaction() {
+        transactions.increment();
+    }
+
+    void recordConflict() {
+        conflicts.increment();
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordRetriesExhausted() {
+        retriesExhausted.increment();
+    }
+
+    void recordContentionBudgetExhausted() {
+        contentionBudgetExhausted.increment();
+    }
+
+    /**
+     * Booking transactions submitted, retries included.
+     */
+    public long transactions() {
+        return transactions.sum();
+    }
+
+    /**
+     * Transactions rejected by an optimistic-locking conflict.
+     */
+    public long conflicts() {
+        return conflicts.sum();
+    }
+
+    /**
+     * Bookings attempted again after a conflict.
+     */
+    public long retries() {
+        return retries.sum();
+    }
+
+    /**
+     * Bookings that gave up after {@link RetryPolicy#maxAttempts()} attempts.
+     */
+    public long retriesExhausted() {
+        return retriesExhausted.sum();
+    }
+
+    /**
+     * Bookings that gave up because too many bookings were already retrying on the same flight.
+     */
+    public long contentionBudgetExhausted() {
+        return contentionBudgetExhausted.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "RetryStatistics[transactions=" + transactions() +
+                ", conflicts=" + conflicts() +
+                ", retries=" + retries() +
+                ", retriesExhausted=" + retriesExhausted() +
+                ", contentionBudgetExhausted=" + contentionBudgetExhausted() + "]";
+    }
+}
@@ -0,0 +1,183 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.domain.Passengers;
+import io.airlinesample.ddbops.domain.Preferences;
+import io.airlinesample.ddbops.domain.SeatLayout;
+import io.airlinesample.ddbops.domain.SeatPosition;
+import io.airlinesample.ddbops.domain.SeatSelector;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Books a flight assigning a seat to bookings that come without one, picked by a {@link SeatSelector} according to
+ * the passenger's {@link Preferences#getSeatPreference()}.
+ * <p>
+ * How the seat is claimed depends on the seat inventory of the flight, and so does the {@link FlightBookings} to use:
+ * <ul>
+ *     <li>{@code ClaimedSeatMap}: by the conditional expression transaction
+ *     ({@code attribute_not_exists(ClaimedSeatMap.#seatNumber)}), through a repository guarded by conditions only,
+ *     e.g. {@code ConditionalExpressionBookFlightRepository};</li>
+ *     <li>{@code SeatBitmap}: on the flight read, then written by compare-and-swap on its bitmap, through
+ *     {@code SeatBitmapBookFlightRepository}. The other repositories reject seat bookings on such flights.</li>
+ * </ul>
+ * When a concurrent booking changed the seats first, the failed condition returns the current flight
+ * ({@code ALL_OLD}): the next best free seat is picked from it and claimed at once, without reading the flight again
+ * nor backing off, up to the attempts of the {@link RetryPolicy}.
+ * <p>
+ * Bookings with a seat number, and flights whose airplane model has no known {@link SeatLayout}, are booked as they
+ * are. Put {@code CachingPassengers} in front of the passengers, so reading the preference costs no round trip.
+ */
+@Slf4j
+public final class SeatPickingBookFlightService implements BookFlightUseCase {
+
+    private final FlightBookings flightBookings;
+    private final Passengers passengers;
+    private final SeatSelector seatSelector;
+    private final RetryPolicy retryPolicy;
+    private final RetryStatistics retryStatistics = new RetryStatistics();
+
+    public SeatPickingBookFlightService(FlightBookings flightBookings, Passengers passengers) {
+        this(flightBookings, passengers, SeatSelector.random(), RetryPolicy.defaultPolicy());
+    }
+
+    public SeatPickingBookFlightService(FlightBookings flightBookings, Passengers passengers,
+                                        SeatSelector seatSelector, RetryPolicy retryPolicy) {
+        this.flightBookings = requireNonNull(flightBookings);
+        this.passengers = requireNonNull(passengers);
+        this.seatSelector = requireNonNull(seatSelector);
+        this.retryPolicy = requireNonNull(retryPolicy);
+    }
+
+    @Override
+    public boolean bookFlight(Booking booking) {
+        if (booking.hasSeatNumber()) {
+            return submit(booking).success();
+        }
+
+        var possibleFlight = flightBookings.findFlight(booking.flightPrimaryKey());
+        if (possibleFlight.isEmpty()) {
+            log.info("event=rejected reason=flight-not-found bookingId={} flight={}",
+                    booking.getBookingID(), booking.getFlightNumber());
+            return false;
+        }
+        var flight = possibleFlight.get();
+
+        var layout = SeatLayout.forAirplaneModel(flight.getAirplaneModel());
+        if (layout.isEmpty()) {
+            return submit(booking).success();
+        }
+
+        var preference = passengers.findPassenger(booking.getCustomerEmail())
+                .map(Passenger::getPreferences)
+                .flatMap(preferences -> SeatPosition.fromPreference(preferences.getSeatPreference()))
+                .orElse(null);
+
+        var triedSeats = new ArrayList<String>();
+        for (int attempts = 1; ; attempts++) {
+            if (!flight.anySeatAvailable()) {
+                log.info("event=rejected reason=sold-out bookingId={} flight={}",
+                        booking.getBookingID(), booking.getFlightNumber());
+                return false;
+            }
+
+            var seatNumber = seatSelector.pick(flight, layout.get(), preference, triedSeats);
+            if (seatNumber.isEmpty()) {
+                log.info("event=rejected reason=no-free-seat bookingId={} flight={}",
+                        booking.getBookingID(), booking.getFlightNumber());
+                return false;
+            }
+            triedSeats.add(seatNumber.get());
+
+            var seatBooking = withSeat(booking, seatNumber.get());
+            var transactSummary = flightBookings.transactBookFlight(seatBooking, claimedOn(flight, seatBooking));
+            retryStatistics.recordTransaction();
+            if (!transactSummary.preconditionFailed() || transactSummary.currentFlight().isEmpty()) {
+                log(booking, seatNumber.get(), transactSummary);
+                return transactSummary.success();
+            }
+
+            // The seat was taken meanwhile: pick another one from the flight returned with the failed condition
+            retryStatistics.recordConflict();
+            if (!retryPolicy.canRetry(attempts)) {
+                retryStatistics.recordRetriesExhausted();
+                log.info("event=rejected reason=retries-exhausted bookingId={} flight={}",
+                        booking.getBookingID(), booking.getFlightNumber());
+                return false;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("event=seat-conflict bookingId={} flight={} seat={} attempt={}/{}", booking.getBookingID(),
+                        booking.getFlightNumber(), seatNumber.get(), attempts + 1, retryPolicy.maxAttempts());
+            }
+            retryStatistics.recordRetry();
+            flight = transactSummary.currentFlight().get();
+        }
+    }
+
+    /**
+     * Conflict and retry counters of all the bookings processed by this service.
+     */
+    public RetryStatistics retryStatistics() {
+        return retryStatistics;
+    }
+
+    private FlightBookings.TransactSummary submit(Booking booking) {
+        var transactSummary = flightBookings.transactBookFlight(booking, null);
+        retryStatistics.recordTransaction();
+        log(booking, booking.getSeatNumber(), transactSummary);
+        return transactSummary;
+    }
+
+    /**
+     * Claims the seat of {@code booking} on a flight using the {@code SeatBitmap} inventory, which is then written as a
+     * whole; a {@code ClaimedSeatMap} seat is claimed by the transaction condition alone, no flight needed.
+     *
+     * @return the flight to book on, or {@code null} for a {@code ClaimedSeatMap} flight
+     */
+    private static Flight claimedOn(Flight flight, Booking booking) {
+        if (isNull(flight.getSeatBitmap())) {
+            return null;
+        }
+
+        if (!flight.addSeatIfAvailable(booking.getSeatNumber(), booking.getBookingID())) {
+            throw new IllegalStateException("Seat " + booking.getSeatNumber() + " picked but not free on flight " + booking.getFlightNumber());
+        }
+        return flight;
+    }
+
+    private static Booking withSeat(Booking booking, String seatNumber) {
+        return Booking.builder()
+                .customerEmail(booking.getCustomerEmail())
+                .bookingID(booking.getBookingID())
+                .flightNumber(booking.getFlightNumber())
+                .source(booking.getSource())
+                .destination(booking.getDestination())
+                .departureDateTime(booking.getDepartureDateTime())
+                .seatNumber(seatNumber)
+                .fareClass(booking.getFareClass())
+                .build();
+    }
+
+    private void log(Booking booking, String seatNumber, FlightBookings.TransactSummary transactSummary) {
+        if (transactSummary.success()) {
+            log.info("event=booked bookingId={} flight={} seat={}", booking.getBookingID(), booking.getFlightNumber(), seatNumber);
+            return;
+        }
+
+        if (transactSummary.preconditionFailed()) {
+            log.info("event=rejected reason=condition-failed bookingId={} flight={} seat={}",
+                    booking.getBookingID(), booking.getFlightNumber(), seatNumber);
+            return;
+        }
+
+        log.error("event=failed bookingId={} flight={} reason={}",
+                booking.getBookingID(), booking.getFlightNumber(), transactSummary.failureReason());
+    }
+}
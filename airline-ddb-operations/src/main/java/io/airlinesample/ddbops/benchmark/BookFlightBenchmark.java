@@ -0,0 +1,279 @@
+package io.airlinesample.ddbops.benchmark;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import io.airlinesample.ddbops.persistence.ConditionalExpressionBookFlightRepository;
+import io.airlinesample.ddbops.persistence.EnhancedClientFlightBookingsRepository;
+import io.airlinesample.ddbops.persistence.SimpleClientBookFlightRepository;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end booking benchmark of the three {@link FlightBookings} strategies, run against the in-process
+ * {@link EmbeddedDynamoDb} so the numbers reflect the client-side cost and the contention behaviour of each strategy
+ * rather than network latency.
+ * <p>
+ * Each invocation books one seat the way the matching service does:
+ * <ul>
+ *     <li>{@code ENHANCED_OPTIMISTIC} / {@code SIMPLE_OPTIMISTIC}: consistent {@code findFlight}, claim the seat locally,
+ *     then {@code transactBookFlight} guarded by {@code Version}.</li>
+ *     <li>{@code CONDITIONAL_EXPRESSION}: a single {@code transactBookFlight} guarded by condition expressions.</li>
+ * </ul>
+ * {@code flights} controls contention: with one flight every thread fights over the same item, with many flights
+ * the load is spread. {@code bookingKind} chooses between bookings without a seat, with a distinct seat each, and
+ * with one of a few contended seats, which adds seat-level contention: most of them fail the {@code ClaimedSeatMap}
+ * condition. A flight is sold out after {@value BookingState#CAPACITY} bookings and the next ones go to a fresh cabin,
+ * a new flight item seeded in advance by a background thread, so neither the seeding nor bookings still in flight on
+ * the sold-out cabin affect the measurements. Booking outcomes are reported as auxiliary counters next to throughput
+ * and latency percentiles.
+ * <p>
+ * Sweep thread counts with {@link BookFlightBenchmarkRunner}, or run a single configuration with
+ * {@code java -jar target/airline-ddb-operations-1.0-SNAPSHOT.jar BookFlightBenchmark -t 64}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BookFlightBenchmark {
+
+    public enum Strategy {ENHANCED_OPTIMISTIC, SIMPLE_OPTIMISTIC, CONDITIONAL_EXPRESSION}
+
+    /**
+     * {@code NO_SEAT} books without a seat number, {@code SEAT} books every seat of a cabin once, and
+     * {@code CONTENDED_SEAT} picks a random seat among the first {@value BookingState#CONTENDED_SEATS}, so most
+     * bookings lose the seat to another one.
+     */
+    public enum BookingKind {NO_SEAT, SEAT, CONTENDED_SEAT}
+
+    @State(Scope.Benchmark)
+    public static class BookingState {
+
+        // Airbus A320 cabin: rows 1-30, seats A-F
+        static final int ROWS = 30;
+        static final String SEAT_LETTERS = "ABCDEF";
+        static final int CAPACITY = ROWS * SEAT_LETTERS.length();
+
+        // Booking IDs are recycled so the bookings table stays bounded during long runs
+        static final int BOOKING_ID_SPACE = 10_000;
+
+        // Fresh cabins kept seeded ahead of the bookings of each flight
+        static final int CABINS_AHEAD = 64;
+
+        static final int CONTENDED_SEATS = 8;
+
+        static final LocalDateTime FIRST_DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+        @Param({"ENHANCED_OPTIMISTIC", "SIMPLE_OPTIMISTIC", "CONDITIONAL_EXPRESSION"})
+        public Strategy strategy;
+
+        @Param({"NO_SEAT", "SEAT", "CONTENDED_SEAT"})
+        public BookingKind bookingKind;
+
+        @Param({"1", "64"})
+        public int flights;
+
+        EmbeddedDynamoDb engine;
+        FlightBookings flightBookings;
+        FlightSlot[] slots;
+
+        private volatile boolean seeding;
+        private Thread seeder;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            engine = EmbeddedDynamoDb.withAirlineTables();
+            var dynamoDbClient = new EmbeddedDynamoDbClient(engine);
+
+            flightBookings = switch (strategy) {
+                case ENHANCED_OPTIMISTIC -> new EnhancedClientFlightBookingsRepository(dynamoDbClient);
+                case SIMPLE_OPTIMISTIC -> new SimpleClientBookFlightRepository(dynamoDbClient);
+                case CONDITIONAL_EXPRESSION -> new ConditionalExpressionBookFlightRepository(dynamoDbClient);
+            };
+
+            slots = new FlightSlot[flights];
+            for (int i = 0; i < flights; i++) {
+                slots[i] = new FlightSlot(i);
+            }
+            seedAhead();
+
+            // Sold-out cabins are replaced by new flight items off the measured path, never overwritten in place
+            seeding = true;
+            seeder = Thread.ofPlatform().daemon().name("cabin-seeder").start(() -> {
+                while (seeding) {
+                    seedAhead();
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+            });
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws InterruptedException {
+            seeding = false;
+            seeder.join();
+        }
+
+        Booking nextBooking() {
+            var slot = slots[flights == 1 ? 0 : ThreadLocalRandom.current().nextInt(flights)];
+            var sequence = slot.sequence.getAndIncrement();
+            var cabin = (int) (sequence / CAPACITY);
+            var seatIndex = (int) (sequence % CAPACITY);
+
+            // Only when the seeder falls behind, which its lead of CABINS_AHEAD cabins makes rare
+            while (cabin >= slot.seededCabins) {
+                Thread.onSpinWait();
+            }
+
+            var departure = departure(slot, cabin);
+            return Booking.builder()
+                    .customerEmail("passenger-" + (sequence % 100) + "@email.com")
+                    .bookingID(slot.index + "-" + (sequence % BOOKING_ID_SPACE))
+                    .flightNumber(slot.flightNumber)
+                    .source("LHR")
+                    .destination("CDG")
+                    .departureDateTime(departure.toEpochSecond(ZoneOffset.UTC))
+                    .seatNumber(switch (bookingKind) {
+                        case NO_SEAT -> null;
+                        case SEAT -> seatNumber(seatIndex);
+                        case CONTENDED_SEAT -> seatNumber(ThreadLocalRandom.current().nextInt(CONTENDED_SEATS));
+                    })
+                    .fareClass("Economy")
+                    .build();
+        }
+
+        private void seedAhead() {
+            for (var slot : slots) {
+                var target = (int) (slot.sequence.get() / CAPACITY) + CABINS_AHEAD;
+                while (slot.seededCabins < target) {
+                    seed(slot, slot.seededCabins);
+                    slot.seededCabins++;
+                }
+            }
+        }
+
+        private void seed(FlightSlot slot, int cabin) {
+            var primaryKey = FlightPrimaryKey.builder()
+                    .sourceAirportCode("LHR")
+                    .destinationAirportCode("CDG")
+                    .departureDateTime(departure(slot, cabin))
+                    .build();
+
+            var item = new HashMap<String, AttributeValue>();
+            item.put(Flight.ROUTE_BY_DAY_FIELD_NAME, AttributeValue.fromS(primaryKey.getPartitionKey()));
+            item.put(Flight.DEPARTURE_TIME_FIELD_NAME, AttributeValue.fromS(primaryKey.getSortKey()));
+            item.put(Flight.FLIGHT_NUMBER_FIELD_NAME, AttributeValue.fromS(slot.flightNumber));
+            item.put(Flight.AIRPLANE_MODEL_FIELD_NAME, AttributeValue.fromS("Airbus A320"));
+            item.put(Flight.TOTAL_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(CAPACITY)));
+            item.put(Flight.AVAILABLE_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(CAPACITY)));
+            item.put(Flight.HELD_SEATS_FIELD_NAME, AttributeValue.fromN("0"));
+            item.put(Flight.VERSION_FIELD_NAME, AttributeValue.fromN("1"));
+            item.put(Flight.CLAIMED_SEAT_MAP_FIELD_NAME, AttributeValue.fromM(Map.of()));
+
+            engine.putItem(PutItemRequest.builder().tableName(Flight.FLIGHT_TABLE_NAME).item(item).build());
+        }
+
+        /**
+         * Every cabin of every flight departs in its own minute, so each one is a distinct flight item.
+         */
+        private LocalDateTime departure(FlightSlot slot, int cabin) {
+            return FIRST_DEPARTURE.plusMinutes((long) cabin * flights + slot.index);
+        }
+
+        private static String seatNumber(int seatIndex) {
+            return (seatIndex / SEAT_LETTERS.length() + 1) + String.valueOf(SEAT_LETTERS.charAt(seatIndex % SEAT_LETTERS.length()));
+        }
+    }
+
+    /**
+     * Booking outcomes per thread, reported by JMH as {@code booked}, {@code conflicts}, {@code rejected} and {@code failures}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+
+        public long booked;
+        public long conflicts;
+        public long rejected;
+        public long failures;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            booked = 0;
+            conflicts = 0;
+            rejected = 0;
+            failures = 0;
+        }
+
+        void record(FlightBookings.TransactSummary transactSummary) {
+            if (transactSummary.success()) {
+                booked++;
+            } else if (transactSummary.preconditionFailed()) {
+                conflicts++;
+            } else {
+                failures++;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean transactBookFlight(BookingState state, Outcomes outcomes) {
+        var booking = state.nextBooking();
+
+        if (state.strategy == Strategy.CONDITIONAL_EXPRESSION) {
+            var transactSummary = state.flightBookings.transactBookFlight(booking, null);
+            outcomes.record(transactSummary);
+            return transactSummary.success();
+        }
+
+        // Optimistic strategies: the same read-modify-write cycle as OptimisticLockingFlightBookingService
+        var possibleFlight = state.flightBookings.findFlight(booking.flightPrimaryKey());
+        if (possibleFlight.isEmpty() || !possibleFlight.get().anySeatAvailable()) {
+            outcomes.rejected++;
+            return false;
+        }
+
+        var flight = possibleFlight.get();
+        if (booking.hasSeatNumber()) {
+            if (!flight.addSeatIfAvailable(booking.getSeatNumber(), booking.getBookingID())) {
+                outcomes.rejected++;
+                return false;
+            }
+        } else {
+            flight.incrementHeldSeats();
+        }
+        flight.decrementAvailableSeats();
+
+        var transactSummary = state.flightBookings.transactBookFlight(booking, flight);
+        outcomes.record(transactSummary);
+        return transactSummary.success();
+    }
+
+    static final class FlightSlot {
+
+        final int index;
+        final String flightNumber;
+        final AtomicLong sequence = new AtomicLong();
+
+        // Written by the seeder only
+        volatile int seededCabins;
+
+        FlightSlot(int index) {
+            this.index = index;
+            this.flightNumber = "BA" + (100 + index);
+        }
+    }
+}
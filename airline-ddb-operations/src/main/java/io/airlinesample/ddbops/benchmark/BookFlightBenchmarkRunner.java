@@ -0,0 +1,45 @@
+package io.airlinesample.ddbops.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Runs {@link BookFlightBenchmark} once per thread count, from a single booking thread up to 256 concurrent ones,
+ * and writes one JSON result file per run into {@code target/jmh}.
+ * <p>
+ * Usage: {@code BookFlightBenchmarkRunner [threadCounts...]}, e.g. {@code BookFlightBenchmarkRunner 1 16 256}.
+ */
+public class BookFlightBenchmarkRunner {
+
+    private static final int[] DEFAULT_THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64, 128, 256};
+
+    public static void main(String[] args) throws RunnerException {
+        var threadCounts = args.length == 0
+                ? DEFAULT_THREAD_COUNTS
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        var resultDirectory = new File("target/jmh");
+        if (!resultDirectory.exists() && !resultDirectory.mkdirs()) {
+            throw new IllegalStateException("Cannot create result directory: " + resultDirectory.getAbsolutePath());
+        }
+
+        for (var threads : threadCounts) {
+            System.out.println("\n🚀 Running BookFlightBenchmark with " + threads + " thread(s) ...");
+
+            var options = new OptionsBuilder()
+                    .include(Pattern.quote(BookFlightBenchmark.class.getName() + "."))
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDirectory, "book-flight-t" + threads + ".json").getPath())
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.airlinesample.ddbops.benchmark;
+
+import io.airlinesample.ddbops.application.BookFlightUseCase;
+import io.airlinesample.ddbops.application.NoLockingBookFlightService;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.persistence.ConditionalExpressionBookFlightRepository;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking throughput of {@link NoLockingBookFlightService} on all cores, depending on how its booking events are
+ * logged. DynamoDB is replaced by a client that accepts every transaction, so the service, the request building and
+ * the logging are all that is measured:
+ * <ul>
+ *     <li>{@code ASYNC}: one event per booking through the asynchronous loggers at {@code INFO} (see
+ *     {@code log4j2.component.properties}), written by a background thread to {@code target/jmh/logs}.</li>
+ *     <li>{@code OFF}: the booking loggers are gated off, the ceiling any logging can reach.</li>
+ *     <li>{@code PRINT_STREAM}: one line per booking printed to a {@link PrintStream} flushed on every line, the way
+ *     the services used to log through {@code System.out}; every booking thread queues on its lock and waits for the
+ *     write.</li>
+ * </ul>
+ * {@code ASYNC} should stay close to {@code OFF}, while {@code PRINT_STREAM} stops scaling with the thread count:
+ * {@code java -jar target/airline-ddb-operations-1.0-SNAPSHOT.jar BookingLoggingBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dbooking.log.dir=target/jmh/logs")
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class BookingLoggingBenchmark {
+
+    public enum Logging {ASYNC, OFF, PRINT_STREAM}
+
+    @Param({"ASYNC", "OFF", "PRINT_STREAM"})
+    public Logging logging;
+
+    private BookFlightUseCase bookFlightUseCase;
+    private Booking booking;
+    private Path printStreamFile;
+    private PrintStream printStream;
+
+    @Setup
+    public void setUp() throws IOException {
+        Configurator.setLevel("io.airlinesample.ddbops", logging == Logging.ASYNC ? Level.INFO : Level.OFF);
+
+        var service = new NoLockingBookFlightService(new ConditionalExpressionBookFlightRepository(
+                new TransactBookFlightAllocationBenchmark.AcceptingDynamoDbClient()));
+        if (logging == Logging.PRINT_STREAM) {
+            // Same setup as System.out: buffered, but flushed by every println under the stream lock
+            printStreamFile = Files.createTempFile("booking-events", ".log");
+            printStream = new PrintStream(new BufferedOutputStream(new FileOutputStream(printStreamFile.toFile())), true);
+            bookFlightUseCase = booking -> {
+                var booked = service.bookFlight(booking);
+                printStream.println("✅ Flight booked successfully.");
+                return booked;
+            };
+        } else {
+            bookFlightUseCase = service;
+        }
+
+        booking = Booking.builder()
+                .customerEmail("sherlock.homes@email.com")
+                .bookingID("a6a2b0ba-6a3c-4d4f-9f0e-1c1b8e1f6c2d")
+                .flightNumber("BA123")
+                .source("LHR")
+                .destination("CDG")
+                .departureDateTime(LocalDateTime.of(2030, 1, 1, 8, 0).toEpochSecond(ZoneOffset.UTC))
+                .fareClass("Economy")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (printStream != null) {
+            printStream.close();
+            Files.deleteIfExists(printStreamFile);
+        }
+    }
+
+    @Benchmark
+    public boolean bookFlight() {
+        return bookFlightUseCase.bookFlight(booking);
+    }
+}
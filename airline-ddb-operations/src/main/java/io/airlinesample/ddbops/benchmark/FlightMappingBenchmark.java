@@ -0,0 +1,129 @@
+package io.airlinesample.ddbops.benchmark;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.persistence.SimpleClientBookFlightRepository;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding DynamoDB items into the domain model on the low-level client path, with DynamoDB replaced by a
+ * client answering every query with the same item.
+ * <p>
+ * {@code findFlight} decodes a widebody flight whose {@code ClaimedSeatMap} holds 300 claimed seats, as done on every
+ * optimistic booking; {@code findBooking} decodes a booking. Run it with the GC profiler to read the allocation per
+ * call ({@code gc.alloc.rate.norm}):
+ * {@code java -jar target/airline-ddb-operations-1.0-SNAPSHOT.jar FlightMappingBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FlightMappingBenchmark {
+
+    // Boeing 777 cabin: rows 1-50, seats A-F
+    private static final int CLAIMED_SEATS = 300;
+    private static final String SEAT_LETTERS = "ABCDEF";
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("JFK")
+            .departureDateTime(DEPARTURE)
+            .build();
+
+    private SimpleClientBookFlightRepository flightRepository;
+    private SimpleClientBookFlightRepository bookingRepository;
+
+    @Setup
+    public void setUp() {
+        flightRepository = new SimpleClientBookFlightRepository(new CannedQueryDynamoDbClient(flightItem()));
+        bookingRepository = new SimpleClientBookFlightRepository(new CannedQueryDynamoDbClient(bookingItem()));
+    }
+
+    @Benchmark
+    public Optional<Flight> findFlight() {
+        return flightRepository.findFlight(FLIGHT_KEY);
+    }
+
+    @Benchmark
+    public Optional<Booking> findBooking() {
+        return bookingRepository.findBooking("sherlock.homes@email.com", "a6a2b0ba-6a3c-4d4f-9f0e-1c1b8e1f6c2d");
+    }
+
+    private static Map<String, AttributeValue> flightItem() {
+        var claimedSeatMap = new HashMap<String, AttributeValue>();
+        for (int i = 0; i < CLAIMED_SEATS; i++) {
+            var seatNumber = (i / SEAT_LETTERS.length() + 1) + String.valueOf(SEAT_LETTERS.charAt(i % SEAT_LETTERS.length()));
+            claimedSeatMap.put(seatNumber, AttributeValue.fromS("booking-" + i));
+        }
+
+        return Map.of(
+                Flight.ROUTE_BY_DAY_FIELD_NAME, AttributeValue.fromS(FLIGHT_KEY.getPartitionKey()),
+                Flight.DEPARTURE_TIME_FIELD_NAME, AttributeValue.fromS(FLIGHT_KEY.getSortKey()),
+                Flight.FLIGHT_NUMBER_FIELD_NAME, AttributeValue.fromS("BA117"),
+                Flight.AIRPLANE_MODEL_FIELD_NAME, AttributeValue.fromS("Boeing 777"),
+                Flight.TOTAL_SEATS_FIELD_NAME, AttributeValue.fromN("336"),
+                Flight.AVAILABLE_SEATS_FIELD_NAME, AttributeValue.fromN("36"),
+                Flight.HELD_SEATS_FIELD_NAME, AttributeValue.fromN("0"),
+                Flight.VERSION_FIELD_NAME, AttributeValue.fromN("301"),
+                Flight.CLAIMED_SEAT_MAP_FIELD_NAME, AttributeValue.fromM(claimedSeatMap)
+        );
+    }
+
+    private static Map<String, AttributeValue> bookingItem() {
+        return Map.of(
+                Booking.CUSTOMER_EMAIL_FIELD_NAME, AttributeValue.fromS("sherlock.homes@email.com"),
+                Booking.BOOKING_ID_FIELD_NAME, AttributeValue.fromS("a6a2b0ba-6a3c-4d4f-9f0e-1c1b8e1f6c2d"),
+                Booking.FLIGHT_NUMBER_FIELD_NAME, AttributeValue.fromS("BA117"),
+                Booking.SOURCE_FIELD_NAME, AttributeValue.fromS("LHR"),
+                Booking.DESTINATION_FIELD_NAME, AttributeValue.fromS("JFK"),
+                Booking.DEPARTURE_DATE_TIME_FIELD_NAME, AttributeValue.fromN(Long.toString(DEPARTURE.toEpochSecond(ZoneOffset.UTC))),
+                Booking.SEAT_NUMBER_FIELD_NAME, AttributeValue.fromS("12C"),
+                Booking.FARE_CLASS_FIELD_NAME, AttributeValue.fromS("Economy")
+        );
+    }
+
+    /**
+     * Answers every query with the same single item, so only request building and item decoding are measured.
+     */
+    static final class CannedQueryDynamoDbClient implements DynamoDbClient {
+
+        private final QueryResponse response;
+
+        CannedQueryDynamoDbClient(Map<String, AttributeValue> item) {
+            this.response = QueryResponse.builder()
+                    .items(List.of(item))
+                    .count(1)
+                    .build();
+        }
+
+        @Override
+        public QueryResponse query(QueryRequest queryRequest) {
+            return response;
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.airlinesample.ddbops.benchmark;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.persistence.ConditionalExpressionBookFlightRepository;
+import io.airlinesample.ddbops.persistence.SimpleClientBookFlightRepository;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side cost of {@code transactBookFlight}: building the transaction expressions, attribute maps and request,
+ * with DynamoDB replaced by a client that accepts every transaction without any work.
+ * <p>
+ * Run it with the GC profiler to read the allocation per booking ({@code gc.alloc.rate.norm}):
+ * {@code java -jar target/airline-ddb-operations-1.0-SNAPSHOT.jar TransactBookFlightAllocationBenchmark -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TransactBookFlightAllocationBenchmark {
+
+    public enum Strategy {SIMPLE_OPTIMISTIC, CONDITIONAL_EXPRESSION}
+
+    @Param({"SIMPLE_OPTIMISTIC", "CONDITIONAL_EXPRESSION"})
+    public Strategy strategy;
+
+    @Param({"true", "false"})
+    public boolean withSeat;
+
+    private FlightBookings flightBookings;
+    private Booking booking;
+    private Flight flight;
+
+    @Setup
+    public void setUp() {
+        var dynamoDbClient = new AcceptingDynamoDbClient();
+        flightBookings = switch (strategy) {
+            case SIMPLE_OPTIMISTIC -> new SimpleClientBookFlightRepository(dynamoDbClient);
+            case CONDITIONAL_EXPRESSION -> new ConditionalExpressionBookFlightRepository(dynamoDbClient);
+        };
+
+        var departure = LocalDateTime.of(2030, 1, 1, 8, 0);
+        booking = Booking.builder()
+                .customerEmail("sherlock.homes@email.com")
+                .bookingID("a6a2b0ba-6a3c-4d4f-9f0e-1c1b8e1f6c2d")
+                .flightNumber("BA123")
+                .source("LHR")
+                .destination("CDG")
+                .departureDateTime(departure.toEpochSecond(ZoneOffset.UTC))
+                .seatNumber(withSeat ? "12C" : null)
+                .fareClass("Economy")
+                .build();
+
+        flight = Flight.builder()
+                .primaryKey(FlightPrimaryKey.builder()
+                        .sourceAirportCode("LHR")
+                        .destinationAirportCode("CDG")
+                        .departureDateTime(departure)
+                        .build())
+                .flightNumber("BA123")
+                .airplaneModel("Airbus A320")
+                .totalSeats(180)
+                .build();
+        flight.setVersion(42L);
+    }
+
+    @Benchmark
+    public FlightBookings.TransactSummary transactBookFlight() {
+        return flightBookings.transactBookFlight(booking, flight);
+    }
+
+    /**
+     * Accepts every transaction, so only the request building is measured.
+     */
+    static final class AcceptingDynamoDbClient implements DynamoDbClient {
+
+        private static final TransactWriteItemsResponse RESPONSE = TransactWriteItemsResponse.builder().build();
+
+        @Override
+        public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest transactWriteItemsRequest) {
+            return RESPONSE;
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package io.airlinesample.ddbops.dataset;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.domain.Preferences;
+import io.airlinesample.ddbops.domain.SeatBitmap;
+import io.airlinesample.ddbops.domain.SeatLayout;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Seeded, deterministic generator of airline datasets far larger than the hand-written {@code InMemoryData}, for load
+ * tests and benchmarks.
+ * <p>
+ * What is generated:
+ * <ul>
+ *     <li>Flights for every route, day and departure of the {@link SyntheticDatasetSpec}, each with the
+ *     {@link SeatLayout} of a random airplane model and part of its seats already claimed.</li>
+ *     <li>Popularity follows a Zipf distribution over the flights, scattered across routes and days: the more popular
+ *     a flight, the more of its seats are claimed, and {@link #popularFlightKeys} draws flights to book by
+ *     popularity, so the hottest flights get most of the traffic.</li>
+ *     <li>One booking per claimed seat, consistent with the {@code ClaimedSeatMap} (or {@code SeatBitmap}) of its
+ *     flight, held by a random passenger.</li>
+ *     <li>Passengers with random {@link Preferences}.</li>
+ * </ul>
+ * Every record is derived from the seed and its own index only, so records are generated lazily, in any order, and
+ * the streams never hold more than the record being built: datasets far larger than the heap can be streamed into
+ * a table.
+ */
+public final class SyntheticAirlineData {
+
+    private static final List<String> AIRPORTS = List.of(
+            "LHR", "CDG", "AMS", "FRA", "MAD", "BCN", "FCO", "MUC", "LIS", "DUB",
+            "CPH", "ARN", "OSL", "HEL", "VIE", "ZRH", "BRU", "WAW", "PRG", "BUD",
+            "ATH", "IST", "OTP", "KIV", "SOF", "ZAG", "BER", "MXP", "LGW", "ORY");
+    private static final List<String> AIRLINES = List.of(
+            "BA", "AF", "KL", "LH", "IB", "TP", "LX", "OS", "SK", "AY", "LO", "OK", "RO", "9U", "TK", "A3");
+
+    private static final List<String> FIRST_NAMES = List.of(
+            "Ana", "Ion", "Maria", "John", "Emma", "Lucas", "Sofia", "Mateo", "Olivia", "Noah",
+            "Elena", "Luca", "Mia", "Hugo", "Lea", "Jonas", "Sara", "Pablo", "Nina", "Felix");
+    private static final List<String> LAST_NAMES = List.of(
+            "Popescu", "Smith", "Garcia", "Muller", "Rossi", "Dubois", "Silva", "Novak", "Jansen", "Nielsen",
+            "Kowalski", "Horvat", "Ivanov", "Costa", "Berg", "Weber", "Moreau", "Romano", "Lopez", "Brown");
+    private static final List<String> MEALS = List.of("Vegan", "Vegetarian", "Gluten-Free", "Halal", "Kosher");
+    private static final List<String> TIMEZONES = List.of(
+            "Europe/London", "Europe/Paris", "Europe/Berlin", "Europe/Madrid", "Europe/Bucharest", "Europe/Chisinau");
+    private static final List<String> LANGUAGES = List.of("English", "French", "German", "Spanish", "Romanian");
+    private static final List<String> ACCESSIBILITY_REQUIREMENTS = List.of("Wheelchair Access", "Visual Assistance");
+
+    // Birthdays between 1940-01-01 and 2010-12-31
+    private static final long FIRST_BIRTHDAY = LocalDate.of(1940, 1, 1).toEpochDay();
+    private static final long BIRTHDAY_DAYS = LocalDate.of(2011, 1, 1).toEpochDay() - FIRST_BIRTHDAY;
+
+    // Independent random streams per kind of record
+    private static final long PASSENGERS = 1;
+    private static final long FLIGHTS = 2;
+    private static final long CLAIMS = 3;
+    private static final long POPULAR_FLIGHTS = 4;
+    private static final long PERMUTATIONS = 5;
+
+    // Popularity normalization: exact sum of the first ranks, integral approximation of the tail
+    private static final int EXACT_HARMONIC_TERMS = 10_000;
+
+    private final SyntheticDatasetSpec spec;
+    private final int flights;
+    private final ZipfSampler zipfSampler;
+    private final double claimFactor;
+    private final Permutation popularity;
+    private final Permutation routePairs;
+
+    public SyntheticAirlineData(SyntheticDatasetSpec spec) {
+        this.spec = requireNonNull(spec);
+        this.flights = spec.flights();
+        this.zipfSampler = new ZipfSampler(flights, spec.zipfExponent());
+        this.claimFactor = claimFactor(flights, spec.zipfExponent(), spec.preClaimedSeatRatio());
+        this.popularity = new Permutation(flights, mix(spec.seed(), PERMUTATIONS, 0));
+        this.routePairs = new Permutation(maxRoutes(), mix(spec.seed(), PERMUTATIONS, 1));
+    }
+
+    /**
+     * Most routes a dataset can have: every ordered pair of distinct known airports.
+     */
+    public static int maxRoutes() {
+        return AIRPORTS.size() * (AIRPORTS.size() - 1);
+    }
+
+    public SyntheticDatasetSpec spec() {
+        return spec;
+    }
+
+    /**
+     * Lazily generates the passengers, {@code passenger<n>@example.com} for {@code n} from 0.
+     */
+    public Stream<Passenger> passengers() {
+        return IntStream.range(0, spec.passengers()).mapToObj(this::passenger);
+    }
+
+    /**
+     * Lazily generates the flights, route by route, day by day.
+     */
+    public Stream<Flight> flights() {
+        return IntStream.range(0, flights).mapToObj(flightIndex -> flight(flightPlan(flightIndex)));
+    }
+
+    /**
+     * Lazily generates one booking per seat claimed on the flights, in the order of {@link #flights()}.
+     */
+    public Stream<Booking> bookings() {
+        return IntStream.range(0, flights).mapToObj(this::flightPlan).flatMap(this::bookings);
+    }
+
+    /**
+     * Draws {@code count} flight keys by popularity, the same ones for the same seed: the most popular flight comes up
+     * most often. Feeds load tests on hot partitions.
+     */
+    public Stream<FlightPrimaryKey> popularFlightKeys(long count) {
+        return LongStream.range(0, count).mapToObj(i -> {
+            var rank = zipfSampler.sample(random(POPULAR_FLIGHTS, i));
+            return flightKey(popularity.apply(rank - 1));
+        });
+    }
+
+    private Passenger passenger(int passengerIndex) {
+        var random = random(PASSENGERS, passengerIndex);
+
+        var seatPreference = random.nextInt(100);
+        var preferences = Preferences.builder()
+                .seatPreference(seatPreference < 45 ? "Window" : seatPreference < 80 ? "Aisle" : seatPreference < 85 ? "Middle" : null)
+                .mealPreference(random.nextInt(5) == 0 ? List.of(pick(MEALS, random)) : null)
+                .timezone(pick(TIMEZONES, random))
+                .language(random.nextBoolean() ? pick(LANGUAGES, random) : null)
+                .accessibilityRequirements(random.nextInt(100) < 3 ? List.of(pick(ACCESSIBILITY_REQUIREMENTS, random)) : null)
+                .build();
+
+        return Passenger.builder()
+                .emailAddress(passengerEmail(passengerIndex))
+                .fullName(pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random))
+                .birthday(LocalDate.ofEpochDay(FIRST_BIRTHDAY + random.nextLong(BIRTHDAY_DAYS))
+                        .atStartOfDay().toEpochSecond(ZoneOffset.UTC))
+                .frequentFlyerID(random.nextInt(10) < 6 ? pick(AIRLINES, random) + (100_000 + random.nextInt(900_000)) : null)
+                .preferences(preferences)
+                .build();
+    }
+
+    private Flight flight(FlightPlan plan) {
+        var layout = plan.layout();
+        var claimedSeats = plan.claimedSeats().length;
+
+        var claimedSeatMap = HashMap.<String, String>newHashMap(spec.seatBitmaps() ? 0 : claimedSeats);
+        var seatBitmap = spec.seatBitmaps() ? SeatBitmap.empty(layout) : null;
+        for (int claim = 0; claim < claimedSeats; claim++) {
+            var seatIndex = plan.claimedSeats()[claim];
+            if (spec.seatBitmaps()) {
+                seatBitmap[seatIndex >>> 3] |= (byte) (1 << (seatIndex & 7));
+            } else {
+                claimedSeatMap.put(layout.seatNumber(seatIndex), plan.bookingIds()[claim]);
+            }
+        }
+
+        return Flight.mapBuilder()
+                .routeByDay(plan.key().getPartitionKey())
+                .departureTime(plan.key().getSortKey())
+                .flightNumber(plan.flightNumber())
+                .airplaneModel(layout.airplaneModel())
+                .totalSeats(layout.capacity())
+                .availableSeats(layout.capacity() - claimedSeats)
+                .heldSeats(0)
+                .version(1L)
+                .claimedSeatMap(claimedSeatMap)
+                .seatBitmap(seatBitmap)
+                .build();
+    }
+
+    private Stream<Booking> bookings(FlightPlan plan) {
+        var departureDateTime = plan.key().getDepartureDateTime().toEpochSecond(ZoneOffset.UTC);
+
+        return IntStream.range(0, plan.claimedSeats().length).mapToObj(claim -> Booking.builder()
+                .customerEmail(passengerEmail(plan.passengers()[claim]))
+                .bookingID(plan.bookingIds()[claim])
+                .flightNumber(plan.flightNumber())
+                .source(plan.key().getSourceAirportCode())
+                .destination(plan.key().getDestinationAirportCode())
+                .departureDateTime(departureDateTime)
+                .seatNumber(plan.layout().seatNumber(plan.claimedSeats()[claim]))
+                .fareClass(plan.fareClasses()[claim])
+                .build());
+    }
+
+    /**
+     * Everything random about a flight and its claimed seats. Both {@link #flights()} and {@link #bookings()} derive
+     * their records from it, so the claims of a flight and its bookings always match.
+     */
+    private FlightPlan flightPlan(int flightIndex) {
+        var slot = flightIndex % spec.departuresPerRouteDay();
+        var route = flightIndex / spec.departuresPerRouteDay() / spec.days();
+
+        var layouts = SeatLayout.knownLayouts();
+        var layout = layouts.get(random(FLIGHTS, flightIndex).nextInt(layouts.size()));
+
+        var claimRandom = random(CLAIMS, flightIndex);
+        var claimedSeats = claimedSeats(layout.capacity(), claimedSeatRatio(flightIndex), claimRandom);
+        var bookingIds = new String[claimedSeats.length];
+        var passengers = new int[claimedSeats.length];
+        var fareClasses = new String[claimedSeats.length];
+        for (int claim = 0; claim < claimedSeats.length; claim++) {
+            bookingIds[claim] = uuid(claimRandom);
+            passengers[claim] = claimRandom.nextInt(spec.passengers());
+            fareClasses[claim] = fareClass(claimRandom.nextInt(100));
+        }
+
+        var flightNumber = AIRLINES.get(route % AIRLINES.size())
+                + (100 + (route * spec.departuresPerRouteDay() + slot) % 9_900);
+
+        return new FlightPlan(flightKey(flightIndex), flightNumber, layout, claimedSeats, bookingIds, passengers, fareClasses);
+    }
+
+    private FlightPrimaryKey flightKey(int flightIndex) {
+        var slot = flightIndex % spec.departuresPerRouteDay();
+        var day = flightIndex / spec.departuresPerRouteDay() % spec.days();
+        var route = flightIndex / spec.departuresPerRouteDay() / spec.days();
+
+        var routePair = routePairs.apply(route);
+        var source = routePair / (AIRPORTS.size() - 1);
+        var destination = routePair % (AIRPORTS.size() - 1);
+        if (destination >= source) {
+            destination++;  // Skip the source airport
+        }
+
+        var departureMinute = SyntheticDatasetSpec.FIRST_DEPARTURE_MINUTE
+                + slot * (SyntheticDatasetSpec.DEPARTURE_WINDOW_MINUTES / spec.departuresPerRouteDay());
+
+        return FlightPrimaryKey.builder()
+                .sourceAirportCode(AIRPORTS.get(source))
+                .destinationAirportCode(AIRPORTS.get(destination))
+                .departureDateTime(spec.firstDepartureDate().plusDays(day).atTime(departureMinute / 60, departureMinute % 60))
+                .build();
+    }
+
+    /**
+     * Claimed share of a flight, proportional to its popularity and capped at a full flight.
+     */
+    private double claimedSeatRatio(int flightIndex) {
+        var rank = popularity.inverse(flightIndex) + 1;
+        return Math.min(1, claimFactor * Math.pow(rank, -spec.zipfExponent()));
+    }
+
+    /**
+     * Picks {@code round(capacity * ratio)} distinct seat indexes (partial Fisher-Yates shuffle).
+     */
+    private static int[] claimedSeats(int capacity, double ratio, SplittableRandom random) {
+        var claimed = (int) Math.round(capacity * ratio);
+        var seats = IntStream.range(0, capacity).toArray();
+        for (int i = 0; i < claimed; i++) {
+            var j = i + random.nextInt(capacity - i);
+            var seat = seats[j];
+            seats[j] = seats[i];
+            seats[i] = seat;
+        }
+        return Arrays.copyOf(seats, claimed);
+    }
+
+    private static String fareClass(int percentile) {
+        return percentile < 80 ? "Economy" : percentile < 90 ? "Premium Economy" : percentile < 98 ? "Business" : "First";
+    }
+
+    private static String passengerEmail(int passengerIndex) {
+        return "passenger" + passengerIndex + "@example.com";
+    }
+
+    private static String uuid(SplittableRandom random) {
+        // Random (version 4) UUID drawn from the seeded stream
+        return new UUID((random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L,
+                (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L).toString();
+    }
+
+    private static <T> T pick(List<T> values, SplittableRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private SplittableRandom random(long kind, long index) {
+        return new SplittableRandom(mix(spec.seed(), kind, index));
+    }
+
+    private static long mix(long seed, long kind, long index) {
+        return mix64(mix64(mix64(seed) + kind) + index);
+    }
+
+    // SplitMix64 finalizer: close inputs give unrelated outputs
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Finds the factor {@code c} such that claiming {@code min(1, c / rank^exponent)} of each flight claims
+     * {@code ratio} of the seats over all flights (bisection). The most popular flights are capped at full, so the
+     * others claim more than a plain proportional split would give them.
+     */
+    private static double claimFactor(int flights, double exponent, double ratio) {
+        if (ratio == 0) {
+            return 0;
+        }
+
+        // Every flight is full once the least popular one is
+        var low = 0.0;
+        var high = Math.pow(flights, exponent);
+        for (int i = 0; i < 100; i++) {
+            var factor = (low + high) / 2;
+            if (meanClaimedRatio(flights, exponent, factor) < ratio) {
+                low = factor;
+            } else {
+                high = factor;
+            }
+        }
+        return high;
+    }
+
+    private static double meanClaimedRatio(int flights, double exponent, double factor) {
+        // Ranks up to fullRanks are capped at a full flight
+        var fullRanks = (int) Math.min(flights, Math.floor(Math.pow(factor, 1 / exponent)));
+        var claimed = fullRanks + factor * (harmonicNumber(flights, exponent) - harmonicNumber(fullRanks, exponent));
+        return claimed / flights;
+    }
+
+    // Sum of k^-exponent for k = 1..n
+    private static double harmonicNumber(int n, double exponent) {
+        var sum = 0.0;
+        for (int k = 1; k <= Math.min(n, EXACT_HARMONIC_TERMS); k++) {
+            sum += Math.pow(k, -exponent);
+        }
+        if (n > EXACT_HARMONIC_TERMS) {
+            sum += integral(EXACT_HARMONIC_TERMS + 0.5, n + 0.5, exponent);
+        }
+        return sum;
+    }
+
+    // Integral of x^-exponent between from and to
+    private static double integral(double from, double to, double exponent) {
+        return exponent == 1
+                ? Math.log(to / from)
+                : (Math.pow(to, 1 - exponent) - Math.pow(from, 1 - exponent)) / (1 - exponent);
+    }
+
+    private record FlightPlan(FlightPrimaryKey key,
+                              String flightNumber,
+                              SeatLayout layout,
+                              int[] claimedSeats,
+                              String[] bookingIds,
+                              int[] passengers,
+                              String[] fareClasses) {
+    }
+
+    /**
+     * Seeded bijection of {@code 0..size-1}, {@code i -> (i * stride + offset) mod size}, computed without a table.
+     */
+    private static final class Permutation {
+
+        private final long size;
+        private final long stride;
+        private final long strideInverse;
+        private final long offset;
+
+        private Permutation(int size, long seed) {
+            this.size = size;
+            this.offset = Math.floorMod(seed, size);
+
+            var stride = Math.floorMod(mix64(seed), size);
+            while (BigInteger.valueOf(stride).gcd(BigInteger.valueOf(size)).intValue() != 1 && size > 1) {
+                stride = (stride + 1) % size;
+            }
+            this.stride = stride;
+            this.strideInverse = size > 1 ? BigInteger.valueOf(stride).modInverse(BigInteger.valueOf(size)).longValue() : 0;
+        }
+
+        int apply(long i) {
+            return (int) ((i * stride + offset) % size);
+        }
+
+        int inverse(long permuted) {
+            return (int) Math.floorMod((permuted - offset) * strideInverse, size);
+        }
+    }
+}
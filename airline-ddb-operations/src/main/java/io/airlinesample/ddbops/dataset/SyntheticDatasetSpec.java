@@ -0,0 +1,88 @@
+package io.airlinesample.ddbops.dataset;
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Scale and shape of a {@link SyntheticAirlineData} dataset. The same spec always generates the same records.
+ *
+ * @param seed                  seed of every random choice
+ * @param routes                distinct source/destination airport pairs
+ * @param days                  consecutive departure days, from {@code firstDepartureDate}
+ * @param departuresPerRouteDay flights per route and day, spread between 06:00 and 23:00
+ * @param firstDepartureDate    first departure day
+ * @param passengers            passengers, who hold the bookings
+ * @param zipfExponent          skew of the flight popularity: flight popularity follows {@code 1 / rank^zipfExponent}
+ * @param preClaimedSeatRatio   share of all the seats already claimed, spread by popularity: the most popular flights
+ *                              are sold out, the least popular nearly empty
+ * @param seatBitmaps           {@code true} to store the claimed seats as a {@code SeatBitmap} instead of a
+ *                              {@code ClaimedSeatMap}
+ */
+@Builder(toBuilder = true)
+public record SyntheticDatasetSpec(long seed,
+                                   int routes,
+                                   int days,
+                                   int departuresPerRouteDay,
+                                   LocalDate firstDepartureDate,
+                                   int passengers,
+                                   double zipfExponent,
+                                   double preClaimedSeatRatio,
+                                   boolean seatBitmaps) {
+
+    // Departures from 06:00, one departure per minute at most
+    static final int FIRST_DEPARTURE_MINUTE = 6 * 60;
+    static final int DEPARTURE_WINDOW_MINUTES = 17 * 60;
+
+    public SyntheticDatasetSpec {
+        if (routes < 1 || routes > SyntheticAirlineData.maxRoutes()) {
+            throw new IllegalArgumentException("routes must be between 1 and " + SyntheticAirlineData.maxRoutes());
+        }
+        if (days < 1) {
+            throw new IllegalArgumentException("days must be greater than 0");
+        }
+        if (departuresPerRouteDay < 1 || departuresPerRouteDay > DEPARTURE_WINDOW_MINUTES) {
+            throw new IllegalArgumentException("departuresPerRouteDay must be between 1 and " + DEPARTURE_WINDOW_MINUTES);
+        }
+        if ((long) routes * days * departuresPerRouteDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A dataset holds at most " + Integer.MAX_VALUE + " flights");
+        }
+        requireNonNull(firstDepartureDate, "firstDepartureDate cannot be null");
+        if (passengers < 1) {
+            throw new IllegalArgumentException("passengers must be greater than 0");
+        }
+        if (zipfExponent <= 0) {
+            throw new IllegalArgumentException("zipfExponent must be greater than 0");
+        }
+        if (preClaimedSeatRatio < 0 || preClaimedSeatRatio > 1) {
+            throw new IllegalArgumentException("preClaimedSeatRatio must be between 0 and 1");
+        }
+    }
+
+    /**
+     * 50 routes over 30 days with 4 departures a day (6,000 flights), 100,000 passengers, Zipf exponent 1 and 30% of
+     * the seats pre-claimed on average.
+     */
+    public static SyntheticDatasetSpec defaultSpec() {
+        return SyntheticDatasetSpec.builder()
+                .seed(42)
+                .routes(50)
+                .days(30)
+                .departuresPerRouteDay(4)
+                .firstDepartureDate(LocalDate.of(2030, 1, 1))
+                .passengers(100_000)
+                .zipfExponent(1.0)
+                .preClaimedSeatRatio(0.3)
+                .seatBitmaps(false)
+                .build();
+    }
+
+    /**
+     * Number of flights of the dataset.
+     */
+    public int flights() {
+        return routes * days * departuresPerRouteDay;
+    }
+}
@@ -0,0 +1,41 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link FlightBookings}: every operation returns immediately with a
+ * {@code CompletableFuture} completed by the underlying asynchronous DynamoDB client.
+ * <p>
+ * Failures of {@link #transactBookFlight(Booking, Flight)} are reported through the
+ * {@link FlightBookings.TransactSummary}, never as an exceptionally completed future.
+ */
+public interface AsyncFlightBookings {
+
+    /**
+     * Finds a flight by its primary key.
+     *
+     * @param primaryKey the primary key of the flight
+     * @return a future of an {@code Optional} containing the flight if found, or empty otherwise
+     */
+    CompletableFuture<Optional<Flight>> findFlight(FlightPrimaryKey primaryKey);
+
+    /**
+     * Finds a booking by the customer's email and booking ID.
+     *
+     * @param customerEmail Partition Key
+     * @param bookingID     Sort Key
+     * @return a future of an {@code Optional} containing the booking if found, or empty otherwise
+     */
+    CompletableFuture<Optional<Booking>> findBooking(String customerEmail, String bookingID);
+
+    /**
+     * Performs a transactional operation to book a flight.
+     * This operation decrements available seats and, optionally, assigns a seat.
+     *
+     * @param booking the booking details
+     * @param flight  the flight details
+     * @return a future of the {@code TransactSummary} summarizing the transaction outcome
+     */
+    CompletableFuture<FlightBookings.TransactSummary> transactBookFlight(Booking booking, Flight flight);
+}
@@ -0,0 +1,63 @@
+package io.airlinesample.ddbops.domain;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Exponential backoff with full jitter: the n-th attempt waits a random delay between zero and
+ * {@code min(maxDelay, baseDelay * 2^(n-1))}, so clients retrying at the same time spread out instead of colliding
+ * again in lockstep.
+ *
+ * @param baseDelay backoff ceiling of the first attempt
+ * @param maxDelay  upper bound of the backoff ceiling, at least {@code baseDelay}
+ */
+public record Backoff(Duration baseDelay, Duration maxDelay) {
+
+    public Backoff {
+        requireNonNull(baseDelay, "baseDelay cannot be null");
+        requireNonNull(maxDelay, "maxDelay cannot be null");
+        if (baseDelay.isNegative() || baseDelay.compareTo(maxDelay) > 0) {
+            throw new IllegalArgumentException("baseDelay must be between 0 and maxDelay");
+        }
+    }
+
+    /**
+     * Random delay before the given attempt (1 for the first retry).
+     */
+    public Duration delay(int attempt) {
+        var maxDelayNanos = maxDelay.toNanos();
+        long ceilingNanos;
+        try {
+            ceilingNanos = Math.min(Math.multiplyExact(baseDelay.toNanos(), 1L << Math.min(attempt - 1, 62)), maxDelayNanos);
+        } catch (ArithmeticException e) {
+            // baseDelay * 2^(attempt-1) is past Long.MAX_VALUE nanoseconds, far beyond any maxDelay
+            ceilingNanos = maxDelayNanos;
+        }
+
+        return ceilingNanos == 0
+                ? Duration.ZERO
+                : Duration.ofNanos(ThreadLocalRandom.current().nextLong(ceilingNanos + 1));
+    }
+
+    /**
+     * Waits a random {@linkplain #delay(int) delay} before the given attempt.
+     */
+    public void sleep(int attempt) {
+        sleep(delay(attempt));
+    }
+
+    /**
+     * Waits {@code delay}, restoring the interrupt flag and failing with an {@link IllegalStateException} when
+     * interrupted.
+     */
+    public static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import java.time.ZoneOffset;
 public class Booking {
 
     public static final String BOOKING_TABLE_NAME = "bookings";
+    public static final String BOOKING_ID_INDEX_NAME = "BookingIDIndex";
 
     public static final String CUSTOMER_EMAIL_FIELD_NAME = "CustomerEmail";
     public static final String BOOKING_ID_FIELD_NAME = "BookingID";
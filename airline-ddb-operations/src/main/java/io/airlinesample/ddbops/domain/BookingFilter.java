@@ -0,0 +1,43 @@
+package io.airlinesample.ddbops.domain;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which bookings of a customer to list, and how to page through them.
+ *
+ * @param departureFrom earliest departure (UTC) included, or {@code null} for no lower bound
+ * @param departureTo   latest departure (UTC) included, or {@code null} for no upper bound
+ * @param pageSize      bookings per page, {@value #DEFAULT_PAGE_SIZE} when not positive; only the last page may hold
+ *                      fewer
+ * @param cursor        {@link BookingPage#cursor()} of the page to resume after, or {@code null} to start over
+ */
+@Builder(toBuilder = true)
+public record BookingFilter(LocalDateTime departureFrom, LocalDateTime departureTo, int pageSize, String cursor) {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final BookingFilter ALL = new BookingFilter(null, null, DEFAULT_PAGE_SIZE, null);
+
+    public BookingFilter {
+        if (departureFrom != null && departureTo != null && departureTo.isBefore(departureFrom)) {
+            throw new IllegalArgumentException("departureTo cannot be before departureFrom");
+        }
+        pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+    }
+
+    /**
+     * All the bookings, from the first page, {@value #DEFAULT_PAGE_SIZE} per page.
+     */
+    public static BookingFilter all() {
+        return ALL;
+    }
+
+    /**
+     * Same filter, resuming after the page {@code cursor} was returned with.
+     */
+    public BookingFilter resumeAfter(String cursor) {
+        return new BookingFilter(departureFrom, departureTo, pageSize, cursor);
+    }
+}
@@ -0,0 +1,23 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.stream.Stream;
+
+/**
+ * Booking history of a customer, for the list view of frequent flyers with thousands of bookings.
+ */
+public interface BookingHistory {
+
+    /**
+     * Streams the bookings of {@code customerEmail} matching {@code filter}, one page at a time. Pages are fetched
+     * lazily as the stream is consumed, and only the current page is held in memory; e.g.
+     * {@code streamBookings(email, filter).findFirst()} reads a single page, whose {@link BookingPage#cursor()} resumes
+     * the history later on, while {@code flatMap(page -> page.bookings().stream())} walks the whole history.
+     * <p>
+     * Every page but the last holds {@link BookingFilter#pageSize()} bookings, however many the departure window
+     * filters out; the history ends without an empty page.
+     *
+     * @param customerEmail the customer whose bookings to list
+     * @param filter        departure window, page size and cursor to resume from
+     */
+    Stream<BookingPage> streamBookings(String customerEmail, BookingFilter filter);
+}
@@ -0,0 +1,21 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.List;
+
+/**
+ * One page of a booking history.
+ *
+ * @param bookings the bookings of the page, carrying the list-view fields only
+ * @param cursor   opaque token to resume after this page with {@link BookingFilter#resumeAfter(String)}, or
+ *                 {@code null} when this is the last page
+ */
+public record BookingPage(List<Booking> bookings, String cursor) {
+
+    public BookingPage {
+        bookings = List.copyOf(bookings);
+    }
+
+    public boolean hasMore() {
+        return cursor != null;
+    }
+}
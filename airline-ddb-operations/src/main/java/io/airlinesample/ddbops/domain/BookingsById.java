@@ -0,0 +1,28 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lookup of bookings by booking ID alone, for callers that do not know the customer, e.g. support agents or payment
+ * callbacks. The lookup goes through a global secondary index, hence is eventually consistent: a booking made a moment
+ * ago may not be found yet.
+ */
+public interface BookingsById {
+
+    /**
+     * Finds a booking by its booking ID.
+     *
+     * @return an {@code Optional} containing the booking if found, or empty otherwise
+     */
+    Optional<Booking> findBookingById(String bookingID);
+
+    /**
+     * Finds several bookings by booking ID at once.
+     *
+     * @param bookingIDs the booking IDs, duplicates allowed
+     * @return the bookings found by booking ID, in the order of {@code bookingIDs}; missing bookings are left out
+     */
+    Map<String, Booking> findBookingsByIds(Collection<String> bookingIDs);
+}
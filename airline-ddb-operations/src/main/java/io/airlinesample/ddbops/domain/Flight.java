@@ -1,10 +1,12 @@
 package io.airlinesample.ddbops.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import software.amazon.awssdk.enhanced.dynamodb.extensions.annotations.DynamoDbVersionAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbIgnore;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
@@ -32,6 +34,7 @@ public class Flight {
     public static final String HELD_SEATS_FIELD_NAME = "HeldSeats";
     public static final String VERSION_FIELD_NAME = "Version";
     public static final String CLAIMED_SEAT_MAP_FIELD_NAME = "ClaimedSeatMap";
+    public static final String SEAT_BITMAP_FIELD_NAME = "SeatBitmap";
 
     @Getter(onMethod = @__({
             @DynamoDbPartitionKey,
@@ -78,11 +81,24 @@ public class Flight {
     @JsonProperty(CLAIMED_SEAT_MAP_FIELD_NAME)
     private Map<String, String> claimedSeatMap = new HashMap<>();
 
+    // Compact seat inventory (see SeatBitmap), used instead of ClaimedSeatMap when present
+    @Getter(onMethod = @__({@DynamoDbAttribute(SEAT_BITMAP_FIELD_NAME)}))
+    @JsonProperty(SEAT_BITMAP_FIELD_NAME)
+    private byte[] seatBitmap;
+
+    // SeatBitmap as read, before the first seat claimed on this instance: the value a seat booking compares against
+    @Getter(onMethod = @__({@DynamoDbIgnore}))
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private byte[] seatBitmapAsRead;
+
     @Builder(builderClassName = "MapFlightBuilder", builderMethodName = "mapBuilder")
     // CREATE NEW routes, or build exiting
     public Flight(String routeByDay, String departureTime, String flightNumber, String airplaneModel,
                   Integer totalSeats, Integer availableSeats, Integer heldSeats,
-                  Long version, Map<String, String> claimedSeatMap) {
+                  Long version, Map<String, String> claimedSeatMap, byte[] seatBitmap) {
 
         this.routeByDay = routeByDay;
         this.departureTime = departureTime;
@@ -94,6 +110,7 @@ public class Flight {
         this.heldSeats = heldSeats;
 
         this.claimedSeatMap = isNull(claimedSeatMap) ? new HashMap<>() : claimedSeatMap;
+        this.seatBitmap = seatBitmap;
     }
 
     @Builder(builderClassName = "NewFlightBuilder")
@@ -122,7 +139,23 @@ public class Flight {
         this.availableSeats--;
     }
 
+    /**
+     * Switches the seat inventory of a new flight to the compact {@link SeatBitmap} encoding of its airplane model.
+     *
+     * @throws IllegalStateException when the airplane model has no known {@link SeatLayout}
+     */
+    public void encodeSeatsAsBitmap() {
+        var layout = SeatLayout.forAirplaneModel(airplaneModel)
+                .orElseThrow(() -> new IllegalStateException("No seat layout for airplane model: " + airplaneModel));
+
+        this.seatBitmap = SeatBitmap.empty(layout);
+    }
+
     public boolean addSeatIfAvailable(String seatNumber, String bookingId) {
+        if (this.seatBitmap != null) {
+            return addSeatToBitmapIfAvailable(seatNumber);
+        }
+
         if (this.claimedSeatMap == null) {
             this.claimedSeatMap = new HashMap<>();
         }
@@ -135,6 +168,22 @@ public class Flight {
         return false;
     }
 
+    private boolean addSeatToBitmapIfAvailable(String seatNumber) {
+        // Seats past the layout capacity would grow the bitmap beyond the stored one
+        var layout = SeatLayout.forAirplaneModel(airplaneModel);
+        var seatIndex = layout.map(seatLayout -> seatLayout.seatIndex(seatNumber)).orElse(-1);
+
+        if (seatIndex < 0 || seatIndex >= layout.get().capacity() || SeatBitmap.isOccupied(seatBitmap, seatIndex)) {
+            return false;
+        }
+
+        if (this.seatBitmapAsRead == null) {
+            this.seatBitmapAsRead = seatBitmap;
+        }
+        this.seatBitmap = SeatBitmap.withOccupied(seatBitmap, seatIndex);
+        return true;
+    }
+
     public boolean anySeatAvailable() {
         return this.availableSeats > 0;
     }
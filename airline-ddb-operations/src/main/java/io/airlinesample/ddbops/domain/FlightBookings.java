@@ -1,5 +1,8 @@
 package io.airlinesample.ddbops.domain;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -16,6 +19,35 @@ public interface FlightBookings {
      */
     Optional<Flight> findFlight(FlightPrimaryKey primaryKey);
 
+    /**
+     * Finds the seat availability of several flights at once, e.g. for a page of search results. The returned flights
+     * carry at least their key and seat counters ({@code TotalSeats}, {@code AvailableSeats}, {@code HeldSeats}),
+     * possibly read eventually consistent: check the availability again when booking.
+     * <p>
+     * The default reads the flights one by one; the DynamoDB repositories batch the reads.
+     *
+     * @param primaryKeys the primary keys of the flights, duplicates allowed
+     * @return the flights found by primary key, in the order of {@code primaryKeys}; missing flights are left out
+     */
+    default Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> primaryKeys) {
+        var flights = LinkedHashMap.<FlightPrimaryKey, Flight>newLinkedHashMap(primaryKeys.size());
+        for (var primaryKey : primaryKeys) {
+            if (!flights.containsKey(primaryKey)) {
+                findFlight(primaryKey).ifPresent(flight -> flights.put(primaryKey, flight));
+            }
+        }
+        return flights;
+    }
+
+    /**
+     * Whether {@link #transactBookFlight} guards the flight write with {@code Version = :expectedVersion} of the flight
+     * passed, so that a successful booking stored exactly that flight, with its {@code Version} incremented. Without
+     * this guard, other bookings may have changed the flight concurrently. Decorators answer for their delegate.
+     */
+    default boolean guardsFlightVersion() {
+        return false;
+    }
+
     /**
      * Finds a booking by the customer's email and booking ID.
      *
@@ -65,6 +97,15 @@ public interface FlightBookings {
          * Provides a reason for the failure, if applicable.
          */
         String failureReason();
+
+        /**
+         * The flight as stored when a condition check failed, returned by DynamoDB with the cancellation reasons
+         * ({@code ReturnValuesOnConditionCheckFailure.ALL_OLD}). A retrying caller can rebase its booking on it
+         * without reading the flight again.
+         *
+         * @return the current flight state, or empty when the transaction did not fail on the flight condition
+         */
+        Optional<Flight> currentFlight();
     }
 }
 
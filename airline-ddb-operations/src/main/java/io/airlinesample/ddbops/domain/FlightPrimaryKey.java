@@ -17,6 +17,10 @@ public class FlightPrimaryKey {
     public static final String DEPARTURE_DATE_FORMATTER = "yyyy-MM-dd";
     public static final String DEPARTURE_TIME_FORMATTER = "HHmm";
 
+    // Formatters are immutable and thread-safe: build them once, keys are derived on every booking
+    private static final DateTimeFormatter departureDateFormatter = DateTimeFormatter.ofPattern(DEPARTURE_DATE_FORMATTER);
+    private static final DateTimeFormatter departureTimeFormatter = DateTimeFormatter.ofPattern(DEPARTURE_TIME_FORMATTER);
+
     // Regex pattern to validate the partition key (sourceAirportCode#destinationAirportCode#date, e.g. KIV#LIS#2030-06-12)
     public static final String PARTITION_KEY_PATTERN = "^[A-Z]{3}#[A-Z]{3}#\\d{4}-\\d{2}-\\d{2}$";
     private static final Pattern pkPattern = Pattern.compile(PARTITION_KEY_PATTERN);
@@ -38,12 +42,12 @@ public class FlightPrimaryKey {
         requireNonNull(destinationAirportCode, "destinationAirportCode cannot be null");
         requireNonNull(departureDateTime, "departureDateTime cannot be null");
 
-        var departureDate = departureDateTime.toLocalDate().format(DateTimeFormatter.ofPattern(DEPARTURE_DATE_FORMATTER));
+        var departureDate = departureDateTime.toLocalDate().format(departureDateFormatter);
         // PK: sourceAirportCode#destinationAirportCode#date, e.g. KIV#LIS#2030-06-12
         this.partitionKey = String.join("#", sourceAirportCode, destinationAirportCode, departureDate);
 
         // SK: HHmm, e.g. 0800
-        this.sortKey = departureDateTime.toLocalTime().format(DateTimeFormatter.ofPattern(DEPARTURE_TIME_FORMATTER));
+        this.sortKey = departureDateTime.toLocalTime().format(departureTimeFormatter);
 
         this.sourceAirportCode = sourceAirportCode;
         this.destinationAirportCode = destinationAirportCode;
@@ -72,6 +76,6 @@ public class FlightPrimaryKey {
 
         this.sourceAirportCode = pkSlit[0];
         this.destinationAirportCode = pkSlit[1];
-        this.departureDateTime = LocalDateTime.of(LocalDate.parse(pkSlit[2], DateTimeFormatter.ofPattern(DEPARTURE_DATE_FORMATTER)), LocalTime.parse(sortKey, DateTimeFormatter.ofPattern(DEPARTURE_TIME_FORMATTER)));
+        this.departureDateTime = LocalDateTime.of(LocalDate.parse(pkSlit[2], departureDateFormatter), LocalTime.parse(sortKey, departureTimeFormatter));
     }
 }
@@ -0,0 +1,31 @@
+package io.airlinesample.ddbops.domain;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Departures of a route, as laid out by the {@code RouteByDay} partition key (e.g. {@code KIV#LIS#2030-06-12}): all
+ * the flights of a route on a day share one partition, sorted by departure time.
+ * <p>
+ * The returned streams are lazy: flights are fetched page by page as the stream is consumed, so a caller that stops
+ * early (e.g. {@code limit(20)}) does not pay for the rest of the day. Close the streams once done, e.g. with
+ * try-with-resources, to release the pages still in flight.
+ */
+public interface FlightSchedule {
+
+    /**
+     * Finds the flights from {@code source} to {@code destination} departing on {@code date} within
+     * {@code timeRange}, by departure time.
+     *
+     * @param source      IATA code of the source airport, e.g. {@code KIV}
+     * @param destination IATA code of the destination airport, e.g. {@code LIS}
+     */
+    Stream<Flight> findFlightsOnRoute(String source, String destination, LocalDate date, TimeRange timeRange);
+
+    /**
+     * Finds the flights from {@code source} to {@code destination} departing within {@code timeRange} on every day
+     * from {@code firstDate} to {@code lastDate}, both included, by departure date and time.
+     */
+    Stream<Flight> findFlightsOnRoute(String source, String destination, LocalDate firstDate, LocalDate lastDate,
+                                      TimeRange timeRange);
+}
@@ -0,0 +1,27 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Passenger profiles, with the {@link Preferences} the booking flow applies, e.g. the seat preference.
+ */
+public interface Passengers {
+
+    /**
+     * Finds a passenger by email address.
+     *
+     * @return an {@code Optional} containing the passenger if found, or empty otherwise
+     */
+    Optional<Passenger> findPassenger(String emailAddress);
+
+    /**
+     * Finds several passengers at once.
+     *
+     * @param emailAddresses the email addresses, duplicates allowed
+     * @return the passengers found by email address, in the order of {@code emailAddresses}; unknown emails are left
+     * out
+     */
+    Map<String, Passenger> findPassengers(Collection<String> emailAddresses);
+}
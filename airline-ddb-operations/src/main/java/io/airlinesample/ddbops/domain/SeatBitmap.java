@@ -0,0 +1,62 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.Arrays;
+
+/**
+ * Compact seat inventory of a flight: one bit per seat of its {@link SeatLayout}, set when the seat is occupied.
+ * Bit {@code i} is bit {@code i % 8} of byte {@code i / 8}.
+ * <p>
+ * A 300-seat cabin fits in 38 bytes, where a {@code ClaimedSeatMap} of seat number to booking ID needs ~40 bytes per
+ * claimed seat. Which booking holds a seat is recorded by the booking itself ({@code Booking.SeatNumber}).
+ */
+public final class SeatBitmap {
+
+    private SeatBitmap() {
+    }
+
+    /**
+     * An empty bitmap sized for every seat of {@code layout}.
+     */
+    public static byte[] empty(SeatLayout layout) {
+        return new byte[(layout.capacity() + 7) / 8];
+    }
+
+    /**
+     * Checks whether the seat at {@code seatIndex} is occupied. Seats beyond the bitmap are free.
+     */
+    public static boolean isOccupied(byte[] bitmap, int seatIndex) {
+        var byteIndex = seatIndex >>> 3;
+        return byteIndex < bitmap.length && (bitmap[byteIndex] & (1 << (seatIndex & 7))) != 0;
+    }
+
+    /**
+     * A copy of {@code bitmap} with the seat at {@code seatIndex} occupied, grown if needed.
+     */
+    public static byte[] withOccupied(byte[] bitmap, int seatIndex) {
+        var copy = Arrays.copyOf(bitmap, Math.max(bitmap.length, (seatIndex >>> 3) + 1));
+        copy[seatIndex >>> 3] |= (byte) (1 << (seatIndex & 7));
+        return copy;
+    }
+
+    /**
+     * A copy of {@code bitmap} with the seat at {@code seatIndex} free.
+     */
+    public static byte[] withFree(byte[] bitmap, int seatIndex) {
+        var copy = bitmap.clone();
+        if ((seatIndex >>> 3) < copy.length) {
+            copy[seatIndex >>> 3] &= (byte) ~(1 << (seatIndex & 7));
+        }
+        return copy;
+    }
+
+    /**
+     * Number of occupied seats.
+     */
+    public static int occupiedCount(byte[] bitmap) {
+        var count = 0;
+        for (var b : bitmap) {
+            count += Integer.bitCount(b & 0xFF);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,117 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cabin layout of an airplane model: seats are numbered row first, then letter (e.g. {@code 12C}), and indexed
+ * row by row from {@code 0} ({@code 1A}) to {@code capacity() - 1}.
+ * <p>
+ * The index is the position of the seat in the compact seat inventory of a flight (see {@link SeatBitmap}).
+ *
+ * @param airplaneModel the airplane model, as stored in {@code Flight.AirplaneModel}
+ * @param rows          number of seat rows, numbered from 1
+ * @param seatLetters   seat letters of a row, from window to window
+ * @param aisleLetters  seat letters of a row next to an aisle
+ */
+public record SeatLayout(String airplaneModel, int rows, String seatLetters, String aisleLetters) {
+
+    private static final List<SeatLayout> KNOWN_LAYOUTS = List.of(
+            new SeatLayout("Airbus A320", 30, "ABCDEF", "CD"),
+            new SeatLayout("Boeing 737-800", 32, "ABCDEF", "CD"),
+            new SeatLayout("Embraer E195", 30, "ABCD", "BC"),
+            new SeatLayout("Boeing 777-300ER", 42, "ABCDEFGHJK", "CDGH")
+    );
+    private static final Map<String, SeatLayout> LAYOUTS = KNOWN_LAYOUTS.stream()
+            .collect(Collectors.toUnmodifiableMap(SeatLayout::airplaneModel, Function.identity()));
+
+    public SeatLayout {
+        requireNonNull(airplaneModel, "airplaneModel cannot be null");
+        requireNonNull(seatLetters, "seatLetters cannot be null");
+        requireNonNull(aisleLetters, "aisleLetters cannot be null");
+
+        if (rows < 1 || seatLetters.isEmpty()) {
+            throw new IllegalArgumentException("A seat layout needs at least one row and one seat letter");
+        }
+    }
+
+    /**
+     * All the known layouts, always in the same order.
+     */
+    public static List<SeatLayout> knownLayouts() {
+        return KNOWN_LAYOUTS;
+    }
+
+    /**
+     * Finds the layout of a known airplane model.
+     *
+     * @return the layout, or empty when the model has no known layout
+     */
+    public static Optional<SeatLayout> forAirplaneModel(String airplaneModel) {
+        return Optional.ofNullable(airplaneModel).map(LAYOUTS::get);
+    }
+
+    /**
+     * Number of seat positions of the layout.
+     */
+    public int capacity() {
+        return rows * seatLetters.length();
+    }
+
+    /**
+     * Index of a seat number, e.g. {@code 1A} is 0 and {@code 1B} is 1.
+     *
+     * @return the seat index, or -1 when the seat does not exist in this layout
+     */
+    public int seatIndex(String seatNumber) {
+        if (seatNumber == null || seatNumber.length() < 2) {
+            return -1;
+        }
+
+        var letter = seatLetters.indexOf(seatNumber.charAt(seatNumber.length() - 1));
+        if (letter < 0) {
+            return -1;
+        }
+
+        int row;
+        try {
+            row = Integer.parseInt(seatNumber, 0, seatNumber.length() - 1, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+
+        return row < 1 || row > rows ? -1 : (row - 1) * seatLetters.length() + letter;
+    }
+
+    /**
+     * Position of a seat in its row: the first and last letters are windows, the {@code aisleLetters} aisles, any
+     * other seat is a middle seat.
+     */
+    public SeatPosition position(int seatIndex) {
+        if (seatIndex < 0 || seatIndex >= capacity()) {
+            throw new IllegalArgumentException("Seat index " + seatIndex + " is out of the " + airplaneModel + " layout");
+        }
+
+        var letter = seatIndex % seatLetters.length();
+        if (letter == 0 || letter == seatLetters.length() - 1) {
+            return SeatPosition.WINDOW;
+        }
+        return aisleLetters.indexOf(seatLetters.charAt(letter)) >= 0 ? SeatPosition.AISLE : SeatPosition.MIDDLE;
+    }
+
+    /**
+     * Seat number of a seat index, e.g. 0 is {@code 1A}.
+     */
+    public String seatNumber(int seatIndex) {
+        if (seatIndex < 0 || seatIndex >= capacity()) {
+            throw new IllegalArgumentException("Seat index " + seatIndex + " is out of the " + airplaneModel + " layout");
+        }
+
+        return (seatIndex / seatLetters.length() + 1) + String.valueOf(seatLetters.charAt(seatIndex % seatLetters.length()));
+    }
+}
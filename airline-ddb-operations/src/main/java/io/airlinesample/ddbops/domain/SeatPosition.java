@@ -0,0 +1,30 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.Optional;
+
+/**
+ * Position of a seat in its row, as a passenger states it in {@link Preferences#getSeatPreference()}.
+ */
+public enum SeatPosition {
+    WINDOW,
+    MIDDLE,
+    AISLE;
+
+    /**
+     * Reads a seat preference such as {@code Window} or {@code Aisle}, ignoring case.
+     *
+     * @return the position, or empty when there is no preference or it is not a known position
+     */
+    public static Optional<SeatPosition> fromPreference(String seatPreference) {
+        if (seatPreference == null) {
+            return Optional.empty();
+        }
+
+        for (var position : values()) {
+            if (position.name().equalsIgnoreCase(seatPreference.trim())) {
+                return Optional.of(position);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,94 @@
+package io.airlinesample.ddbops.domain;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Picks a free seat of a flight for a passenger's {@link SeatPosition} preference, over the {@link SeatLayout} of
+ * the flight's airplane model.
+ * <p>
+ * Seats in the preferred position are the best candidates, then any other free seat; without a preference every free
+ * seat is as good as any other. Among equally good seats:
+ * <ul>
+ *     <li>{@link #random()} picks one at random, so concurrent bookings of a popular flight spread over the free
+ *     seats instead of all claiming the same one, and all but one failing their seat condition;</li>
+ *     <li>{@link #deterministic()} always picks the first one in seat order, the baseline the random picker is
+ *     measured against.</li>
+ * </ul>
+ * Selectors are stateless and thread-safe.
+ */
+public final class SeatSelector {
+
+    private static final SeatSelector RANDOM = new SeatSelector(true);
+    private static final SeatSelector DETERMINISTIC = new SeatSelector(false);
+
+    private final boolean random;
+
+    private SeatSelector(boolean random) {
+        this.random = random;
+    }
+
+    public static SeatSelector random() {
+        return RANDOM;
+    }
+
+    public static SeatSelector deterministic() {
+        return DETERMINISTIC;
+    }
+
+    /**
+     * Picks a seat that is free on {@code flight} and not in {@code excludedSeats}, e.g. the seats already tried.
+     *
+     * @param preference the preferred position, or {@code null} for none
+     * @return the seat number, or empty when no seat of the layout is free
+     */
+    public Optional<String> pick(Flight flight, SeatLayout layout, SeatPosition preference,
+                                 Collection<String> excludedSeats) {
+        requireNonNull(flight, "flight cannot be null");
+        requireNonNull(layout, "layout cannot be null");
+
+        var preferred = new int[layout.capacity()];
+        var preferredCount = 0;
+        var others = new int[layout.capacity()];
+        var otherCount = 0;
+        for (int seatIndex = 0; seatIndex < layout.capacity(); seatIndex++) {
+            if (!isFree(flight, layout, seatIndex, excludedSeats)) {
+                continue;
+            }
+            if (preference == null || layout.position(seatIndex) == preference) {
+                preferred[preferredCount++] = seatIndex;
+            } else {
+                others[otherCount++] = seatIndex;
+            }
+        }
+
+        if (preferredCount > 0) {
+            return Optional.of(layout.seatNumber(choose(preferred, preferredCount)));
+        }
+        return otherCount > 0 ? Optional.of(layout.seatNumber(choose(others, otherCount))) : Optional.empty();
+    }
+
+    private int choose(int[] candidates, int count) {
+        return random ? candidates[ThreadLocalRandom.current().nextInt(count)] : candidates[0];
+    }
+
+    private static boolean isFree(Flight flight, SeatLayout layout, int seatIndex, Collection<String> excludedSeats) {
+        if (!isNull(flight.getSeatBitmap())) {
+            return !SeatBitmap.isOccupied(flight.getSeatBitmap(), seatIndex)
+                    && !excludedSeats.contains(layout.seatNumber(seatIndex));
+        }
+
+        var seatNumber = layout.seatNumber(seatIndex);
+        return (isNull(flight.getClaimedSeatMap()) || !flight.getClaimedSeatMap().containsKey(seatNumber))
+                && !excludedSeats.contains(seatNumber);
+    }
+
+    @Override
+    public String toString() {
+        return random ? "random" : "deterministic";
+    }
+}
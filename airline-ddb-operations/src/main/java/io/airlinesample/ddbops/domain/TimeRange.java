@@ -0,0 +1,32 @@
+package io.airlinesample.ddbops.domain;
+
+import java.time.LocalTime;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Departure times from {@code earliest} to {@code latest}, both included, at the minute resolution of the flight
+ * sort key.
+ *
+ * @param earliest first departure time included
+ * @param latest   last departure time included
+ */
+public record TimeRange(LocalTime earliest, LocalTime latest) {
+
+    private static final TimeRange ALL_DAY = new TimeRange(LocalTime.MIDNIGHT, LocalTime.of(23, 59));
+
+    public TimeRange {
+        requireNonNull(earliest, "earliest cannot be null");
+        requireNonNull(latest, "latest cannot be null");
+        if (latest.isBefore(earliest)) {
+            throw new IllegalArgumentException("latest cannot be before earliest");
+        }
+    }
+
+    /**
+     * Every departure of the day.
+     */
+    public static TimeRange allDay() {
+        return ALL_DAY;
+    }
+}
@@ -0,0 +1,255 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Comparison and arithmetic rules of the DynamoDB type system, applied to SDK {@link AttributeValue}s.
+ */
+final class AttributeValues {
+
+    /**
+     * Orders key attributes the way DynamoDB orders sort keys: numerically for N, by UTF-8 bytes for S, unsigned for B.
+     */
+    static final Comparator<AttributeValue> KEY_ORDER = (left, right) -> {
+        var result = compare(left, right);
+        if (result == null) {
+            throw DynamoDbErrors.validation("Key attributes of one table must share the same type");
+        }
+        return result;
+    };
+
+    /**
+     * Returns a string that is unique per key value and type, suitable for hashing partition keys.
+     */
+    static String keyString(AttributeValue value) {
+        if (value.s() != null) {
+            return "S" + value.s();
+        }
+        if (value.n() != null) {
+            return "N" + new BigDecimal(value.n()).stripTrailingZeros().toPlainString();
+        }
+        if (value.b() != null) {
+            return "B" + Base64.getEncoder().encodeToString(value.b().asByteArrayUnsafe());
+        }
+        throw DynamoDbErrors.validation("Key attributes must be scalars of type S, N or B");
+    }
+
+    static boolean isEqual(AttributeValue left, AttributeValue right) {
+        if (left == null || right == null) {
+            return false;
+        }
+        if (left.n() != null && right.n() != null) {
+            return new BigDecimal(left.n()).compareTo(new BigDecimal(right.n())) == 0;
+        }
+        return left.equals(right);
+    }
+
+    /**
+     * Compares two scalar values of the same type, or returns {@code null} when they cannot be compared.
+     */
+    static Integer compare(AttributeValue left, AttributeValue right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        if (left.n() != null && right.n() != null) {
+            return new BigDecimal(left.n()).compareTo(new BigDecimal(right.n()));
+        }
+        if (left.s() != null && right.s() != null) {
+            return compareUtf8(left.s(), right.s());
+        }
+        if (left.b() != null && right.b() != null) {
+            return Arrays.compareUnsigned(left.b().asByteArrayUnsafe(), right.b().asByteArrayUnsafe());
+        }
+        return null;
+    }
+
+    // Code point order is UTF-8 byte order; String.compareTo orders by UTF-16 code units, which differs once a
+    // supplementary character meets a character in U+E000..U+FFFF
+    private static int compareUtf8(String left, String right) {
+        int i = 0;
+        int j = 0;
+        while (i < left.length() && j < right.length()) {
+            var leftCodePoint = left.codePointAt(i);
+            var rightCodePoint = right.codePointAt(j);
+            if (leftCodePoint != rightCodePoint) {
+                return Integer.compare(leftCodePoint, rightCodePoint);
+            }
+            i += Character.charCount(leftCodePoint);
+            j += Character.charCount(rightCodePoint);
+        }
+        return Integer.compare(left.length() - i, right.length() - j);
+    }
+
+    static AttributeValue add(AttributeValue left, AttributeValue right) {
+        return AttributeValue.fromN(number(left).add(number(right)).stripTrailingZeros().toPlainString());
+    }
+
+    static AttributeValue subtract(AttributeValue left, AttributeValue right) {
+        return AttributeValue.fromN(number(left).subtract(number(right)).stripTrailingZeros().toPlainString());
+    }
+
+    static boolean beginsWith(AttributeValue value, AttributeValue prefix) {
+        if (value == null || prefix == null) {
+            return false;
+        }
+        if (value.s() != null && prefix.s() != null) {
+            return value.s().startsWith(prefix.s());
+        }
+        if (value.b() != null && prefix.b() != null) {
+            var bytes = value.b().asByteArrayUnsafe();
+            var prefixBytes = prefix.b().asByteArrayUnsafe();
+            return bytes.length >= prefixBytes.length
+                    && Arrays.equals(bytes, 0, prefixBytes.length, prefixBytes, 0, prefixBytes.length);
+        }
+        return false;
+    }
+
+    static boolean contains(AttributeValue value, AttributeValue operand) {
+        if (value == null || operand == null) {
+            return false;
+        }
+        if (value.s() != null && operand.s() != null) {
+            return value.s().contains(operand.s());
+        }
+        if (value.hasSs() && operand.s() != null) {
+            return value.ss().contains(operand.s());
+        }
+        if (value.hasNs() && operand.n() != null) {
+            return value.ns().stream().anyMatch(n -> isEqual(AttributeValue.fromN(n), operand));
+        }
+        if (value.hasBs() && operand.b() != null) {
+            return value.bs().contains(operand.b());
+        }
+        if (value.hasL()) {
+            return value.l().stream().anyMatch(element -> isEqual(element, operand));
+        }
+        return false;
+    }
+
+    static AttributeValue size(AttributeValue value) {
+        if (value == null) {
+            return null;
+        }
+
+        int size;
+        if (value.s() != null) {
+            size = value.s().length();
+        } else if (value.b() != null) {
+            size = value.b().asByteArrayUnsafe().length;
+        } else if (value.hasM()) {
+            size = value.m().size();
+        } else if (value.hasL()) {
+            size = value.l().size();
+        } else if (value.hasSs()) {
+            size = value.ss().size();
+        } else if (value.hasNs()) {
+            size = value.ns().size();
+        } else if (value.hasBs()) {
+            size = value.bs().size();
+        } else {
+            throw DynamoDbErrors.validation("Invalid operand type for size function");
+        }
+        return AttributeValue.fromN(Integer.toString(size));
+    }
+
+    /**
+     * Size of an item as DynamoDB accounts it against the 400 KB item limit: the UTF-8 length of every attribute name
+     * plus the size of its value.
+     */
+    static int itemSize(Map<String, AttributeValue> item) {
+        var size = 0;
+        for (var attribute : item.entrySet()) {
+            size += utf8Length(attribute.getKey()) + valueSize(attribute.getValue());
+        }
+        return size;
+    }
+
+    private static int valueSize(AttributeValue value) {
+        if (value.s() != null) {
+            return utf8Length(value.s());
+        }
+        if (value.n() != null) {
+            return numberSize(value.n());
+        }
+        if (value.b() != null) {
+            return value.b().asByteArrayUnsafe().length;
+        }
+        if (value.hasM()) {
+            // 3 bytes of overhead, plus one byte per element
+            var size = 3;
+            for (var element : value.m().entrySet()) {
+                size += 1 + utf8Length(element.getKey()) + valueSize(element.getValue());
+            }
+            return size;
+        }
+        if (value.hasL()) {
+            var size = 3;
+            for (var element : value.l()) {
+                size += 1 + valueSize(element);
+            }
+            return size;
+        }
+        if (value.hasSs()) {
+            return value.ss().stream().mapToInt(AttributeValues::utf8Length).sum();
+        }
+        if (value.hasNs()) {
+            return value.ns().stream().mapToInt(AttributeValues::numberSize).sum();
+        }
+        if (value.hasBs()) {
+            return value.bs().stream().mapToInt(bytes -> bytes.asByteArrayUnsafe().length).sum();
+        }
+        return 1;  // BOOL and NULL
+    }
+
+    // Up to 38 significant digits, two per byte, plus one byte
+    private static int numberSize(String number) {
+        var digits = new BigDecimal(number).stripTrailingZeros().unscaledValue().abs().toString().length();
+        return (digits + 1) / 2 + 1;
+    }
+
+    private static int utf8Length(String value) {
+        var length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    static String typeOf(AttributeValue value) {
+        return switch (value.type()) {
+            case S -> "S";
+            case N -> "N";
+            case B -> "B";
+            case BOOL -> "BOOL";
+            case M -> "M";
+            case L -> "L";
+            case SS -> "SS";
+            case NS -> "NS";
+            case BS -> "BS";
+            default -> "NULL";
+        };
+    }
+
+    private static BigDecimal number(AttributeValue value) {
+        if (value == null || value.n() == null) {
+            throw DynamoDbErrors.validation("An operand in the update expression has an incorrect data type");
+        }
+        return new BigDecimal(value.n());
+    }
+}
@@ -0,0 +1,85 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Capacity units consumed by one request, per table, metered the way on-demand DynamoDB bills them: a read unit per
+ * 4 KB read (half for eventually consistent reads), a write unit per 1 KB written (the larger of the old and new item),
+ * both rounded up per item and doubled in transactions.
+ */
+final class CapacityUnits {
+
+    private static final int READ_UNIT_BYTES = 4 * 1024;
+    private static final int WRITE_UNIT_BYTES = 1024;
+
+    private final boolean requested;
+    private final Map<String, double[]> readWriteUnitsByTable = new LinkedHashMap<>(2);
+
+    CapacityUnits(ReturnConsumedCapacity returnConsumedCapacity) {
+        this.requested = returnConsumedCapacity == ReturnConsumedCapacity.TOTAL
+                || returnConsumedCapacity == ReturnConsumedCapacity.INDEXES;
+    }
+
+    static double readUnits(int bytes, boolean consistentRead) {
+        var units = Math.max(1, (bytes + READ_UNIT_BYTES - 1) / READ_UNIT_BYTES);
+        return consistentRead ? units : units / 2.0;
+    }
+
+    static double writeUnits(Map<String, AttributeValue> oldItem, Map<String, AttributeValue> newItem) {
+        var bytes = Math.max(size(oldItem), size(newItem));
+        return Math.max(1, (bytes + WRITE_UNIT_BYTES - 1) / WRITE_UNIT_BYTES);
+    }
+
+    static int size(Map<String, AttributeValue> item) {
+        return item == null ? 0 : AttributeValues.itemSize(item);
+    }
+
+    boolean requested() {
+        return requested;
+    }
+
+    void read(String tableName, double units) {
+        if (requested) {
+            readWriteUnitsByTable.computeIfAbsent(tableName, ignored -> new double[2])[0] += units;
+        }
+    }
+
+    void write(String tableName, double units) {
+        if (requested) {
+            readWriteUnitsByTable.computeIfAbsent(tableName, ignored -> new double[2])[1] += units;
+        }
+    }
+
+    /**
+     * The consumed capacity of a single-table operation, or {@code null} when it was not requested.
+     */
+    ConsumedCapacity single() {
+        var all = all();
+        return all == null || all.isEmpty() ? null : all.getFirst();
+    }
+
+    /**
+     * The consumed capacity per table, or {@code null} when it was not requested.
+     */
+    List<ConsumedCapacity> all() {
+        if (!requested) {
+            return null;
+        }
+
+        var consumedCapacities = new ArrayList<ConsumedCapacity>(readWriteUnitsByTable.size());
+        readWriteUnitsByTable.forEach((tableName, units) -> consumedCapacities.add(ConsumedCapacity.builder()
+                .tableName(tableName)
+                .capacityUnits(units[0] + units[1])
+                .readCapacityUnits(units[0])
+                .writeCapacityUnits(units[1])
+                .build()));
+        return consumedCapacities;
+    }
+}
@@ -0,0 +1,180 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parsed document path, e.g. {@code ClaimedSeatMap.#seatNumber} or {@code MealPreference[0]}.
+ * <p>
+ * Elements are either attribute names ({@link String}, possibly a {@code #placeholder}) or list indexes ({@link Integer}).
+ * Placeholders are resolved on every evaluation, so a parsed path can be cached and shared between requests.
+ */
+final class DocumentPath {
+
+    private final List<Object> elements;
+
+    DocumentPath(List<Object> elements) {
+        this.elements = List.copyOf(elements);
+    }
+
+    /**
+     * Resolves the top level attribute name, e.g. {@code ClaimedSeatMap} for {@code ClaimedSeatMap.#seatNumber}.
+     */
+    String topLevelName(EvaluationContext context) {
+        return context.name((String) elements.get(0));
+    }
+
+    boolean isTopLevel() {
+        return elements.size() == 1;
+    }
+
+    AttributeValue read(Map<String, AttributeValue> item, EvaluationContext context) {
+        if (item == null) {
+            return null;
+        }
+
+        var current = item.get(topLevelName(context));
+        for (int i = 1; i < elements.size() && current != null; i++) {
+            current = child(current, elements.get(i), context);
+        }
+        return current;
+    }
+
+    /**
+     * Returns a copy of {@code item} with the value at this path replaced, copying only the nested documents on the path.
+     */
+    Map<String, AttributeValue> write(Map<String, AttributeValue> item, AttributeValue value, EvaluationContext context) {
+        var copy = new HashMap<>(item);
+        var name = topLevelName(context);
+
+        if (isTopLevel()) {
+            copy.put(name, value);
+            return copy;
+        }
+
+        var parent = copy.get(name);
+        if (parent == null) {
+            throw DynamoDbErrors.validation("The document path provided in the update expression is invalid for update");
+        }
+        copy.put(name, writeNested(parent, 1, value, context));
+        return copy;
+    }
+
+    /**
+     * Returns a copy of {@code item} without the value at this path. Missing paths are ignored, as DynamoDB does.
+     */
+    Map<String, AttributeValue> remove(Map<String, AttributeValue> item, EvaluationContext context) {
+        var name = topLevelName(context);
+        if (!item.containsKey(name)) {
+            return item;
+        }
+
+        var copy = new HashMap<>(item);
+        if (isTopLevel()) {
+            copy.remove(name);
+            return copy;
+        }
+
+        copy.put(name, writeNested(copy.get(name), 1, null, context));
+        return copy;
+    }
+
+    /**
+     * Projects this path out of {@code source} into {@code target}, keeping the nesting of the original document.
+     */
+    void project(Map<String, AttributeValue> source, Map<String, AttributeValue> target, EvaluationContext context) {
+        var value = read(source, context);
+        if (value == null) {
+            return;
+        }
+
+        if (isTopLevel()) {
+            target.put(topLevelName(context), value);
+            return;
+        }
+
+        // Nested projections are rebuilt as maps; list indexes are projected as single element lists
+        AttributeValue projected = value;
+        for (int i = elements.size() - 1; i >= 1; i--) {
+            var element = elements.get(i);
+            projected = element instanceof Integer
+                    ? AttributeValue.fromL(List.of(projected))
+                    : AttributeValue.fromM(Map.of(context.name((String) element), projected));
+        }
+        target.merge(topLevelName(context), projected, DocumentPath::mergeProjection);
+    }
+
+    private static AttributeValue mergeProjection(AttributeValue left, AttributeValue right) {
+        if (left.hasM() && right.hasM()) {
+            var merged = new HashMap<>(left.m());
+            right.m().forEach((key, value) -> merged.merge(key, value, DocumentPath::mergeProjection));
+            return AttributeValue.fromM(merged);
+        }
+        if (left.hasL() && right.hasL()) {
+            var merged = new ArrayList<>(left.l());
+            merged.addAll(right.l());
+            return AttributeValue.fromL(merged);
+        }
+        return right;
+    }
+
+    private AttributeValue writeNested(AttributeValue parent, int index, AttributeValue value, EvaluationContext context) {
+        var element = elements.get(index);
+        var last = index == elements.size() - 1;
+
+        if (element instanceof Integer position) {
+            if (!parent.hasL()) {
+                throw DynamoDbErrors.validation("The document path provided in the update expression is invalid for update");
+            }
+            var list = new ArrayList<>(parent.l());
+            if (last) {
+                if (value == null) {
+                    if (position < list.size()) {
+                        list.remove((int) position);
+                    }
+                } else if (position < list.size()) {
+                    list.set(position, value);
+                } else {
+                    list.add(value);
+                }
+            } else {
+                if (position >= list.size()) {
+                    throw DynamoDbErrors.validation("The document path provided in the update expression is invalid for update");
+                }
+                list.set(position, writeNested(list.get(position), index + 1, value, context));
+            }
+            return AttributeValue.fromL(list);
+        }
+
+        if (!parent.hasM()) {
+            throw DynamoDbErrors.validation("The document path provided in the update expression is invalid for update");
+        }
+        var name = context.name((String) element);
+        var map = new HashMap<>(parent.m());
+        if (last) {
+            if (value == null) {
+                map.remove(name);
+            } else {
+                map.put(name, value);
+            }
+        } else {
+            var child = map.get(name);
+            if (child == null) {
+                throw DynamoDbErrors.validation("The document path provided in the update expression is invalid for update");
+            }
+            map.put(name, writeNested(child, index + 1, value, context));
+        }
+        return AttributeValue.fromM(map);
+    }
+
+    private static AttributeValue child(AttributeValue current, Object element, EvaluationContext context) {
+        if (element instanceof Integer position) {
+            return current.hasL() && position < current.l().size() ? current.l().get(position) : null;
+        }
+        return current.hasM() ? current.m().get(context.name((String) element)) : null;
+    }
+}
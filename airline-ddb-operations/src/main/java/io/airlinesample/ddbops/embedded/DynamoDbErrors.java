@@ -0,0 +1,83 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Builds exceptions shaped like the ones the real service returns, so callers can rely on
+ * {@code errorCode()}, status codes and cancellation reasons exactly as they would against DynamoDB.
+ */
+final class DynamoDbErrors {
+
+    static final String NONE = "None";
+    static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    static final String VALIDATION_ERROR = "ValidationError";
+
+    private static final String SERVICE_NAME = "DynamoDb";
+
+    static DynamoDbException validation(String message) {
+        return (DynamoDbException) DynamoDbException.builder()
+                .message(message)
+                .statusCode(400)
+                .awsErrorDetails(errorDetails("ValidationException", message))
+                .build();
+    }
+
+    static ResourceNotFoundException resourceNotFound(String tableName) {
+        var message = "Requested resource not found: Table: " + tableName + " not found";
+        return ResourceNotFoundException.builder()
+                .message(message)
+                .statusCode(400)
+                .awsErrorDetails(errorDetails("ResourceNotFoundException", message))
+                .build();
+    }
+
+    static ConditionalCheckFailedException conditionalCheckFailed() {
+        return conditionalCheckFailed(null);
+    }
+
+    /**
+     * @param item the item that failed the condition, returned when the request asked for
+     *             {@code ReturnValuesOnConditionCheckFailure.ALL_OLD}; {@code null} otherwise
+     */
+    static ConditionalCheckFailedException conditionalCheckFailed(Map<String, AttributeValue> item) {
+        var message = "The conditional request failed";
+        return ConditionalCheckFailedException.builder()
+                .item(item)
+                .message(message)
+                .statusCode(400)
+                .awsErrorDetails(errorDetails("ConditionalCheckFailedException", message))
+                .build();
+    }
+
+    static TransactionCanceledException transactionCanceled(List<CancellationReason> reasons) {
+        var message = reasons.stream()
+                .map(CancellationReason::code)
+                .collect(Collectors.joining(", ",
+                        "Transaction cancelled, please refer cancellation reasons for specific reasons [", "]"));
+
+        return TransactionCanceledException.builder()
+                .message(message)
+                .cancellationReasons(reasons)
+                .statusCode(400)
+                .awsErrorDetails(errorDetails("TransactionCanceledException", message))
+                .build();
+    }
+
+    private static AwsErrorDetails errorDetails(String errorCode, String message) {
+        return AwsErrorDetails.builder()
+                .errorCode(errorCode)
+                .errorMessage(message)
+                .serviceName(SERVICE_NAME)
+                .build();
+    }
+}
@@ -0,0 +1,664 @@
+package io.airlinesample.ddbops.embedded;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.embedded.EmbeddedTable.ItemKey;
+import io.airlinesample.ddbops.embedded.Expressions.Comparison;
+import io.airlinesample.ddbops.embedded.Expressions.Condition;
+import io.airlinesample.ddbops.embedded.Expressions.PathOperand;
+import io.airlinesample.ddbops.embedded.Expressions.ValueOperand;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process, in-memory stand-in for the DynamoDB operations used by the airline repositories.
+ * <p>
+ * The engine works directly on the SDK request and response model, so the same repository code runs unchanged against
+ * LocalStack, AWS or this engine (through {@link EmbeddedDynamoDbClient}). It implements the semantics the booking flows
+ * depend on:
+ * <ul>
+ *     <li>condition and update expressions, including nested document paths like {@code ClaimedSeatMap.#seatNumber};</li>
+ *     <li>all-or-nothing {@code TransactWriteItems} with per-item cancellation reasons and
+ *     {@code ReturnValuesOnConditionCheckFailure}: malformed requests fail as a whole with a
+ *     {@code ValidationException}, while failed conditions and data errors (wrong operand types, invalid document
+ *     paths, items over {@value #MAX_ITEM_SIZE_BYTES} bytes) cancel the transaction with one reason per item;</li>
+ *     <li>{@code BatchWriteItem} of up to {@value #MAX_BATCH_WRITE_ITEMS} puts and deletes, each applied atomically
+ *     but independently of the others;</li>
+ *     <li>{@code BatchGetItem} of up to {@value #MAX_BATCH_GET_KEYS} keys, returning the keys left once the response
+ *     reaches 16 MB as {@code UnprocessedKeys};</li>
+ *     <li>{@code Scan} of a table, whole or split into {@code Segment}/{@code TotalSegments} parallel segments, in
+ *     pages of up to {@value #MAX_SCAN_PAGE_BYTES} bytes;</li>
+ *     <li>{@code Query} on global secondary indexes with {@code ALL}, {@code KEYS_ONLY} or {@code INCLUDE}
+ *     projections, kept in sync on every write and charged the extra write units DynamoDB bills for them;</li>
+ *     <li>strongly consistent reads: every committed write is immediately visible;</li>
+ *     <li>{@code ReturnConsumedCapacity}: the capacity units the request would consume on an on-demand table.</li>
+ * </ul>
+ * Writes to the same item are serialized by striped locks; transactions take their locks in a global order, so
+ * concurrent transactions never deadlock.
+ */
+public final class EmbeddedDynamoDb {
+
+    private static final int LOCK_STRIPES = 1 << 10;
+    private static final int MAX_TRANSACTION_ITEMS = 100;
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_GET_KEYS = 100;
+    private static final int MAX_BATCH_GET_RESPONSE_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_ITEM_SIZE_BYTES = 400 * 1024;
+    private static final int MAX_SCAN_PAGE_BYTES = 1024 * 1024;
+    private static final int MAX_SCAN_SEGMENTS = 1_000_000;
+
+    private final Map<String, EmbeddedTable> tables = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final Expressions expressions = new Expressions();
+
+    public EmbeddedDynamoDb() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Creates an engine with the {@code passengers}, {@code flights} and {@code bookings} tables of {@code cfTemplate.yaml},
+     * the {@code BookingIDIndex} with its default {@code ALL} projection included.
+     */
+    public static EmbeddedDynamoDb withAirlineTables() {
+        return withAirlineTables(Projection.builder().projectionType(ProjectionType.ALL).build());
+    }
+
+    /**
+     * Same as {@link #withAirlineTables()}, with {@code bookingIdIndexProjection} as projection of the
+     * {@code BookingIDIndex}.
+     */
+    public static EmbeddedDynamoDb withAirlineTables(Projection bookingIdIndexProjection) {
+        return new EmbeddedDynamoDb()
+                .createTable(Passenger.PASSENGER_TABLE_NAME, Passenger.EMAIL_ADDRESS_FIELD_NAME, null)
+                .createTable(Flight.FLIGHT_TABLE_NAME, Flight.ROUTE_BY_DAY_FIELD_NAME, Flight.DEPARTURE_TIME_FIELD_NAME)
+                .createTable(Booking.BOOKING_TABLE_NAME, Booking.CUSTOMER_EMAIL_FIELD_NAME, Booking.BOOKING_ID_FIELD_NAME)
+                .createGlobalSecondaryIndex(Booking.BOOKING_TABLE_NAME, Booking.BOOKING_ID_INDEX_NAME,
+                        Booking.BOOKING_ID_FIELD_NAME, null, bookingIdIndexProjection);
+    }
+
+    /**
+     * Creates a table keyed by {@code partitionKey} and, if not {@code null}, {@code sortKey}.
+     */
+    public EmbeddedDynamoDb createTable(String tableName, String partitionKey, String sortKey) {
+        if (tables.putIfAbsent(tableName, new EmbeddedTable(tableName, partitionKey, sortKey)) != null) {
+            throw DynamoDbErrors.validation("Table already exists: " + tableName);
+        }
+        return this;
+    }
+
+    /**
+     * Creates a global secondary index of {@code tableName} keyed by {@code partitionKey} and, if not {@code null},
+     * {@code sortKey}, holding the attributes of {@code projection} ({@code ALL} when {@code null}).
+     */
+    public EmbeddedDynamoDb createGlobalSecondaryIndex(String tableName, String indexName, String partitionKey,
+                                                       String sortKey, Projection projection) {
+        var table = table(tableName);
+        table.addIndex(new EmbeddedGlobalIndex(indexName, partitionKey, sortKey, table, projection));
+        return this;
+    }
+
+    /**
+     * Returns the number of items currently stored in {@code tableName}.
+     */
+    public long itemCount(String tableName) {
+        return table(tableName).itemCount();
+    }
+
+    public GetItemResponse getItem(GetItemRequest request) {
+        var table = table(request.tableName());
+        var item = table.get(table.keyOf(request.key()));
+
+        var capacity = new CapacityUnits(request.returnConsumedCapacity());
+        capacity.read(table.name(), CapacityUnits.readUnits(CapacityUnits.size(item), Boolean.TRUE.equals(request.consistentRead())));
+
+        var response = GetItemResponse.builder()
+                .consumedCapacity(capacity.single());
+        if (item != null) {
+            var context = EvaluationContext.of(request.expressionAttributeNames(), null);
+            response.item(project(item, request.projectionExpression(), context));
+        }
+        return response.build();
+    }
+
+    public PutItemResponse putItem(PutItemRequest request) {
+        var table = table(request.tableName());
+        var key = table.itemKey(request.item());
+        var context = EvaluationContext.of(request.expressionAttributeNames(), request.expressionAttributeValues());
+        checkItemSize(request.item(), "Item size has exceeded the maximum allowed size");
+
+        var lock = lockFor(table, key);
+        lock.lock();
+        try {
+            var existing = table.get(key);
+            if (!conditionHolds(request.conditionExpression(), existing, context)) {
+                var returnOldItem = request.returnValuesOnConditionCheckFailure() == ReturnValuesOnConditionCheckFailure.ALL_OLD;
+                throw DynamoDbErrors.conditionalCheckFailed(returnOldItem ? existing : null);
+            }
+            table.put(key, new HashMap<>(request.item()));
+
+            var capacity = new CapacityUnits(request.returnConsumedCapacity());
+            capacity.write(table.name(), CapacityUnits.writeUnits(existing, request.item())
+                    + table.indexWriteUnits(key, existing, request.item()));
+
+            var response = PutItemResponse.builder()
+                    .consumedCapacity(capacity.single());
+            if (request.returnValues() == ReturnValue.ALL_OLD && existing != null) {
+                response.attributes(existing);
+            }
+            return response.build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public QueryResponse query(QueryRequest request) {
+        if (request.keyConditionExpression() == null) {
+            throw DynamoDbErrors.validation("Query requires a KeyConditionExpression");
+        }
+
+        var table = table(request.tableName());
+        var context = EvaluationContext.of(request.expressionAttributeNames(), request.expressionAttributeValues());
+        var keyCondition = expressions.condition(request.keyConditionExpression());
+        var filter = request.filterExpression() == null ? null : expressions.condition(request.filterExpression());
+
+        var index = request.indexName() == null ? null : table.index(request.indexName());
+        if (index != null && Boolean.TRUE.equals(request.consistentRead())) {
+            throw DynamoDbErrors.validation("Consistent reads are not supported on global secondary indexes");
+        }
+
+        var ascending = !Boolean.FALSE.equals(request.scanIndexForward());
+        Iterable<Map<String, AttributeValue>> candidates;
+        if (index == null) {
+            var partitionValue = partitionKeyValue(keyCondition, table.partitionKeyName(), context);
+            var exclusiveStartSortKey = request.hasExclusiveStartKey() && table.sortKeyName() != null
+                    ? request.exclusiveStartKey().get(table.sortKeyName())
+                    : null;
+            candidates = table.partition(partitionValue, exclusiveStartSortKey, ascending).values();
+        } else {
+            var partitionValue = partitionKeyValue(keyCondition, index.partitionKeyName(), context);
+            var exclusiveStartKey = request.hasExclusiveStartKey() ? request.exclusiveStartKey() : null;
+            candidates = index.partition(partitionValue, exclusiveStartKey, ascending).values();
+        }
+        var limit = request.limit() == null ? Integer.MAX_VALUE : request.limit();
+        var countOnly = request.select() == Select.COUNT;
+
+        var items = new ArrayList<Map<String, AttributeValue>>();
+        var matched = 0;
+        var scanned = 0;
+        var scannedBytes = 0;
+        Map<String, AttributeValue> lastEvaluated = null;
+
+        for (var item : candidates) {
+            if (!keyCondition.test(item, context)) {
+                continue;
+            }
+            scanned++;
+            scannedBytes += CapacityUnits.size(item);
+            if (filter == null || filter.test(item, context)) {
+                matched++;
+                if (!countOnly) {
+                    items.add(project(item, request.projectionExpression(), context));
+                }
+            }
+            // Limit caps the evaluated items (before filtering), exactly like DynamoDB
+            if (scanned == limit) {
+                lastEvaluated = index == null ? table.keyAttributes(item) : index.keyAttributes(item);
+                break;
+            }
+        }
+
+        // A query is metered on the total size of the items it evaluated, not per item
+        var capacity = new CapacityUnits(request.returnConsumedCapacity());
+        capacity.read(table.name(), CapacityUnits.readUnits(scannedBytes, Boolean.TRUE.equals(request.consistentRead())));
+
+        var response = QueryResponse.builder()
+                .count(matched)
+                .scannedCount(scanned)
+                .consumedCapacity(capacity.single());
+        if (!countOnly) {
+            response.items(items);
+        }
+        if (lastEvaluated != null) {
+            response.lastEvaluatedKey(lastEvaluated);
+        }
+        return response.build();
+    }
+
+    public ScanResponse scan(ScanRequest request) {
+        if (request.indexName() != null) {
+            throw DynamoDbErrors.validation("Scan of a global secondary index is not supported");
+        }
+        if ((request.segment() == null) != (request.totalSegments() == null)) {
+            throw DynamoDbErrors.validation("Segment and TotalSegments must be provided together");
+        }
+        var totalSegments = request.totalSegments() == null ? 1 : request.totalSegments();
+        var segment = request.segment() == null ? 0 : request.segment();
+        if (totalSegments < 1 || totalSegments > MAX_SCAN_SEGMENTS || segment < 0 || segment >= totalSegments) {
+            throw DynamoDbErrors.validation("Segment must be at least 0 and less than TotalSegments, TotalSegments "
+                    + "between 1 and " + MAX_SCAN_SEGMENTS);
+        }
+
+        var table = table(request.tableName());
+        var context = EvaluationContext.of(request.expressionAttributeNames(), request.expressionAttributeValues());
+        var filter = request.filterExpression() == null ? null : expressions.condition(request.filterExpression());
+        var exclusiveStartKey = request.hasExclusiveStartKey() ? request.exclusiveStartKey() : null;
+        var limit = request.limit() == null ? Integer.MAX_VALUE : request.limit();
+        var countOnly = request.select() == Select.COUNT;
+
+        var items = new ArrayList<Map<String, AttributeValue>>();
+        var matched = 0;
+        var scanned = 0;
+        var scannedBytes = 0;
+        Map<String, AttributeValue> lastEvaluated = null;
+
+        for (var item : table.segment(segment, totalSegments, exclusiveStartKey)) {
+            scanned++;
+            scannedBytes += CapacityUnits.size(item);
+            if (filter == null || filter.test(item, context)) {
+                matched++;
+                if (!countOnly) {
+                    items.add(project(item, request.projectionExpression(), context));
+                }
+            }
+            // A page ends at Limit evaluated items or once 1 MB was read, whichever comes first
+            if (scanned == limit || scannedBytes >= MAX_SCAN_PAGE_BYTES) {
+                lastEvaluated = table.keyAttributes(item);
+                break;
+            }
+        }
+
+        var capacity = new CapacityUnits(request.returnConsumedCapacity());
+        capacity.read(table.name(), CapacityUnits.readUnits(scannedBytes, Boolean.TRUE.equals(request.consistentRead())));
+
+        var response = ScanResponse.builder()
+                .count(matched)
+                .scannedCount(scanned)
+                .consumedCapacity(capacity.single());
+        if (!countOnly) {
+            response.items(items);
+        }
+        if (lastEvaluated != null) {
+            response.lastEvaluatedKey(lastEvaluated);
+        }
+        return response.build();
+    }
+
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        var transactItems = request.transactItems();
+        if (transactItems.isEmpty() || transactItems.size() > MAX_TRANSACTION_ITEMS) {
+            throw DynamoDbErrors.validation("Member must have length less than or equal to " + MAX_TRANSACTION_ITEMS
+                    + " and greater than or equal to 1");
+        }
+
+        // Resolves tables, keys and expressions up front: a malformed item fails the whole request, before any lock
+        var operations = new ArrayList<WriteOperation>(transactItems.size());
+        var distinctItems = new HashSet<String>();
+        var stripes = new TreeSet<Integer>();
+        for (var transactItem : transactItems) {
+            var operation = WriteOperation.of(transactItem, this);
+            if (!distinctItems.add(operation.table.name() + '/' + operation.key)) {
+                throw DynamoDbErrors.validation("Transaction request cannot include multiple operations on one item");
+            }
+            stripes.add(stripe(operation.table, operation.key));
+            operations.add(operation);
+        }
+
+        // Lock in ascending stripe order, so overlapping transactions can never deadlock
+        var acquired = new ArrayList<ReentrantLock>(stripes.size());
+        try {
+            for (var stripe : stripes) {
+                locks[stripe].lock();
+                acquired.add(locks[stripe]);
+            }
+
+            var results = new ArrayList<Map<String, AttributeValue>>(operations.size());
+            var reasons = new ArrayList<CancellationReason>(operations.size());
+            var capacity = new CapacityUnits(request.returnConsumedCapacity());
+            var cancelled = false;
+            for (var operation : operations) {
+                var existing = operation.table.get(operation.key);
+                try {
+                    if (operation.condition != null && !operation.condition.test(existing, operation.context)) {
+                        reasons.add(conditionFailed(operation, existing));
+                        results.add(null);
+                        cancelled = true;
+                        continue;
+                    }
+                    var result = operation.apply(existing);
+                    if (result != null) {
+                        checkItemSize(result, "Item size to update has exceeded the maximum allowed size");
+                    }
+                    results.add(result);
+                    reasons.add(CancellationReason.builder().code(DynamoDbErrors.NONE).build());
+                    // Transactional writes cost twice as much, condition checks included; index updates do not double
+                    var indexWriteUnits = operation.kind == WriteOperation.Kind.CONDITION_CHECK
+                            ? 0.0
+                            : operation.table.indexWriteUnits(operation.key, existing, result);
+                    capacity.write(operation.table.name(), 2 * CapacityUnits.writeUnits(existing, result) + indexWriteUnits);
+                } catch (DynamoDbException e) {
+                    reasons.add(CancellationReason.builder()
+                            .code(DynamoDbErrors.VALIDATION_ERROR)
+                            .message(e.awsErrorDetails().errorMessage())
+                            .build());
+                    results.add(null);
+                    cancelled = true;
+                }
+            }
+
+            if (cancelled) {
+                throw DynamoDbErrors.transactionCanceled(reasons);
+            }
+
+            for (int i = 0; i < operations.size(); i++) {
+                var operation = operations.get(i);
+                var result = results.get(i);
+                if (operation.kind == WriteOperation.Kind.DELETE) {
+                    operation.table.delete(operation.key);
+                } else if (result != null) {
+                    operation.table.put(operation.key, result);
+                }
+            }
+            return TransactWriteItemsResponse.builder()
+                    .consumedCapacity(capacity.all())
+                    .build();
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
+
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        var requestItems = request.hasRequestItems() ? request.requestItems() : Map.<String, KeysAndAttributes>of();
+        var keyCount = requestItems.values().stream().mapToInt(keysAndAttributes -> keysAndAttributes.keys().size()).sum();
+        if (keyCount == 0 || keyCount > MAX_BATCH_GET_KEYS) {
+            throw DynamoDbErrors.validation("Too many items requested for the BatchGetItem call: must be between 1 and "
+                    + MAX_BATCH_GET_KEYS);
+        }
+
+        var responses = new HashMap<String, List<Map<String, AttributeValue>>>();
+        var unprocessedKeys = new HashMap<String, KeysAndAttributes>();
+        var capacity = new CapacityUnits(request.returnConsumedCapacity());
+        var distinctItems = new HashSet<String>();
+        var responseBytes = 0;
+        for (var entry : requestItems.entrySet()) {
+            var table = table(entry.getKey());
+            var keysAndAttributes = entry.getValue();
+            var context = EvaluationContext.of(keysAndAttributes.expressionAttributeNames(), null);
+            var consistentRead = Boolean.TRUE.equals(keysAndAttributes.consistentRead());
+            var items = responses.computeIfAbsent(table.name(), name -> new ArrayList<>());
+            var unprocessed = new ArrayList<Map<String, AttributeValue>>();
+
+            for (var key : keysAndAttributes.keys()) {
+                var itemKey = table.keyOf(key);
+                if (!distinctItems.add(table.name() + '/' + itemKey)) {
+                    throw DynamoDbErrors.validation("Provided list of item keys contains duplicates");
+                }
+                // Like DynamoDB, a response stops growing at 16 MB: the caller resubmits the remaining keys
+                if (responseBytes >= MAX_BATCH_GET_RESPONSE_BYTES) {
+                    unprocessed.add(key);
+                    continue;
+                }
+
+                var item = table.get(itemKey);
+                var itemBytes = CapacityUnits.size(item);
+                capacity.read(table.name(), CapacityUnits.readUnits(itemBytes, consistentRead));
+                if (item != null) {
+                    responseBytes += itemBytes;
+                    items.add(project(item, keysAndAttributes.projectionExpression(), context));
+                }
+            }
+            if (!unprocessed.isEmpty()) {
+                unprocessedKeys.put(table.name(), keysAndAttributes.toBuilder().keys(unprocessed).build());
+            }
+        }
+
+        return BatchGetItemResponse.builder()
+                .responses(responses)
+                .unprocessedKeys(unprocessedKeys)
+                .consumedCapacity(capacity.all())
+                .build();
+    }
+
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        var requestItems = request.hasRequestItems() ? request.requestItems() : Map.<String, List<WriteRequest>>of();
+        var requestCount = requestItems.values().stream().mapToInt(List::size).sum();
+        if (requestCount == 0 || requestCount > MAX_BATCH_WRITE_ITEMS) {
+            throw DynamoDbErrors.validation("Member must have length less than or equal to " + MAX_BATCH_WRITE_ITEMS
+                    + " and greater than or equal to 1");
+        }
+
+        // Validates the whole batch first: DynamoDB rejects it entirely rather than writing part of it
+        var writes = new ArrayList<BatchWrite>(requestCount);
+        var distinctItems = new HashSet<String>();
+        for (var tableRequests : requestItems.entrySet()) {
+            var table = table(tableRequests.getKey());
+            for (var writeRequest : tableRequests.getValue()) {
+                var write = BatchWrite.of(table, writeRequest);
+                if (!distinctItems.add(table.name() + '/' + write.key())) {
+                    throw DynamoDbErrors.validation("Provided list of item keys contains duplicates");
+                }
+                writes.add(write);
+            }
+        }
+
+        var capacity = new CapacityUnits(request.returnConsumedCapacity());
+        for (var write : writes) {
+            var lock = lockFor(write.table(), write.key());
+            lock.lock();
+            try {
+                var existing = write.table().get(write.key());
+                capacity.write(write.table().name(), CapacityUnits.writeUnits(existing, write.item())
+                        + write.table().indexWriteUnits(write.key(), existing, write.item()));
+                if (write.item() == null) {
+                    write.table().delete(write.key());
+                } else {
+                    write.table().put(write.key(), new HashMap<>(write.item()));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Never throttled, so nothing is ever left unprocessed
+        return BatchWriteItemResponse.builder()
+                .unprocessedItems(Map.of())
+                .consumedCapacity(capacity.all())
+                .build();
+    }
+
+    // ---- internals -------------------------------------------------------------------------------------------------
+
+    EmbeddedTable table(String tableName) {
+        var table = tables.get(tableName);
+        if (table == null) {
+            throw DynamoDbErrors.resourceNotFound(tableName);
+        }
+        return table;
+    }
+
+    private ReentrantLock lockFor(EmbeddedTable table, ItemKey key) {
+        return locks[stripe(table, key)];
+    }
+
+    private static int stripe(EmbeddedTable table, ItemKey key) {
+        var hash = 31 * table.name().hashCode() + key.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private static void checkItemSize(Map<String, AttributeValue> item, String message) {
+        if (AttributeValues.itemSize(item) > MAX_ITEM_SIZE_BYTES) {
+            throw DynamoDbErrors.validation(message);
+        }
+    }
+
+    private boolean conditionHolds(String conditionExpression, Map<String, AttributeValue> item, EvaluationContext context) {
+        return conditionExpression == null || expressions.condition(conditionExpression).test(item, context);
+    }
+
+    private Map<String, AttributeValue> project(Map<String, AttributeValue> item, String projectionExpression,
+                                                EvaluationContext context) {
+        if (projectionExpression == null) {
+            return item;
+        }
+
+        var projected = new HashMap<String, AttributeValue>();
+        for (var path : expressions.projection(projectionExpression)) {
+            path.project(item, projected, context);
+        }
+        return projected;
+    }
+
+    private static CancellationReason conditionFailed(WriteOperation operation, Map<String, AttributeValue> existing) {
+        var reason = CancellationReason.builder()
+                .code(DynamoDbErrors.CONDITIONAL_CHECK_FAILED)
+                .message("The conditional request failed");
+        if (operation.returnOldItem && existing != null) {
+            reason.item(existing);
+        }
+        return reason.build();
+    }
+
+    /**
+     * Finds the {@code partitionKey = :value} term of a key condition expression.
+     */
+    private static AttributeValue partitionKeyValue(Condition keyCondition, String partitionKey, EvaluationContext context) {
+        if (keyCondition instanceof Expressions.And and) {
+            var left = partitionKeyValueOrNull(and.left(), partitionKey, context);
+            return left != null ? left : partitionKeyValue(and.right(), partitionKey, context);
+        }
+
+        var value = partitionKeyValueOrNull(keyCondition, partitionKey, context);
+        if (value == null) {
+            throw DynamoDbErrors.validation("Query condition missed key schema element: " + partitionKey);
+        }
+        return value;
+    }
+
+    private static AttributeValue partitionKeyValueOrNull(Condition condition, String partitionKey, EvaluationContext context) {
+        if (condition instanceof Comparison comparison
+                && comparison.operator().equals("=")
+                && comparison.left() instanceof PathOperand path
+                && path.path().isTopLevel()
+                && path.path().topLevelName(context).equals(partitionKey)
+                && comparison.right() instanceof ValueOperand value) {
+            return context.value(value.token());
+        }
+        return null;
+    }
+
+    /**
+     * One resolved item operation of a {@code TransactWriteItems} request.
+     */
+    private static final class WriteOperation {
+
+        enum Kind {CONDITION_CHECK, PUT, UPDATE, DELETE}
+
+        private final Kind kind;
+        private final EmbeddedTable table;
+        private final ItemKey key;
+        private final Map<String, AttributeValue> keyAttributes;
+        private final Map<String, AttributeValue> putItem;
+        private final List<Expressions.UpdateAction> updateActions;
+        private final Condition condition;
+        private final EvaluationContext context;
+        private final boolean returnOldItem;
+
+        private WriteOperation(Kind kind, EmbeddedTable table, Map<String, AttributeValue> keyAttributes,
+                               Map<String, AttributeValue> putItem, String updateExpression, String conditionExpression,
+                               Map<String, String> names, Map<String, AttributeValue> values,
+                               ReturnValuesOnConditionCheckFailure returnValues, Expressions expressions) {
+            if (kind == Kind.CONDITION_CHECK && conditionExpression == null) {
+                throw DynamoDbErrors.validation("ConditionCheck requires a ConditionExpression");
+            }
+            if (kind == Kind.UPDATE && updateExpression == null) {
+                throw DynamoDbErrors.validation("Update requires an UpdateExpression");
+            }
+
+            this.kind = kind;
+            this.table = table;
+            this.key = kind == Kind.PUT ? table.itemKey(putItem) : table.keyOf(keyAttributes);
+            this.keyAttributes = kind == Kind.PUT ? table.keyAttributes(putItem) : keyAttributes;
+            this.putItem = putItem;
+            this.updateActions = updateExpression == null ? null : expressions.update(updateExpression);
+            this.condition = conditionExpression == null ? null : expressions.condition(conditionExpression);
+            this.context = EvaluationContext.of(names, values);
+            this.returnOldItem = returnValues == ReturnValuesOnConditionCheckFailure.ALL_OLD;
+        }
+
+        static WriteOperation of(TransactWriteItem item, EmbeddedDynamoDb engine) {
+            if (item.put() != null) {
+                var put = item.put();
+                return new WriteOperation(Kind.PUT, engine.table(put.tableName()), null, put.item(), null,
+                        put.conditionExpression(), put.expressionAttributeNames(), put.expressionAttributeValues(),
+                        put.returnValuesOnConditionCheckFailure(), engine.expressions);
+            }
+            if (item.update() != null) {
+                var update = item.update();
+                return new WriteOperation(Kind.UPDATE, engine.table(update.tableName()), update.key(), null,
+                        update.updateExpression(), update.conditionExpression(), update.expressionAttributeNames(),
+                        update.expressionAttributeValues(), update.returnValuesOnConditionCheckFailure(), engine.expressions);
+            }
+            if (item.delete() != null) {
+                var delete = item.delete();
+                return new WriteOperation(Kind.DELETE, engine.table(delete.tableName()), delete.key(), null, null,
+                        delete.conditionExpression(), delete.expressionAttributeNames(),
+                        delete.expressionAttributeValues(), delete.returnValuesOnConditionCheckFailure(), engine.expressions);
+            }
+            if (item.conditionCheck() != null) {
+                var check = item.conditionCheck();
+                return new WriteOperation(Kind.CONDITION_CHECK, engine.table(check.tableName()), check.key(), null,
+                        null, check.conditionExpression(), check.expressionAttributeNames(),
+                        check.expressionAttributeValues(), check.returnValuesOnConditionCheckFailure(), engine.expressions);
+            }
+            throw DynamoDbErrors.validation("TransactWriteItem must contain exactly one operation");
+        }
+
+        /**
+         * Computes the item after this operation, or {@code null} when nothing has to be written.
+         */
+        Map<String, AttributeValue> apply(Map<String, AttributeValue> existing) {
+            return switch (kind) {
+                case CONDITION_CHECK, DELETE -> null;
+                case PUT -> new HashMap<>(putItem);
+                case UPDATE -> {
+                    var original = existing != null ? existing : keyAttributes;
+                    var working = original;
+                    for (var action : updateActions) {
+                        working = action.apply(working, original, context);
+                    }
+                    yield working;
+                }
+            };
+        }
+    }
+
+    /**
+     * One resolved put or delete of a {@code BatchWriteItem} request; {@code item} is {@code null} for a delete.
+     */
+    private record BatchWrite(EmbeddedTable table, ItemKey key, Map<String, AttributeValue> item) {
+
+        static BatchWrite of(EmbeddedTable table, WriteRequest request) {
+            if ((request.putRequest() == null) == (request.deleteRequest() == null)) {
+                throw DynamoDbErrors.validation("WriteRequest must contain exactly one of PutRequest or DeleteRequest");
+            }
+            if (request.putRequest() != null) {
+                var item = request.putRequest().item();
+                checkItemSize(item, "Item size has exceeded the maximum allowed size");
+                return new BatchWrite(table, table.itemKey(item), item);
+            }
+            return new BatchWrite(table, table.keyOf(request.deleteRequest().key()), null);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link DynamoDbAsyncClient} backed by an {@link EmbeddedDynamoDb} engine, for the async repositories and the
+ * enhanced async client. Operations the engine does not model keep the SDK default of throwing
+ * {@link UnsupportedOperationException}.
+ * <p>
+ * The engine never blocks on I/O, so by default each operation runs on the calling thread and returns an already
+ * completed future; failures complete the future exceptionally, as the SDK does. Pass an {@link Executor} to complete
+ * the futures on other threads instead, closer to how callbacks run on the SDK's response threads.
+ */
+public final class EmbeddedDynamoDbAsyncClient implements DynamoDbAsyncClient {
+
+    private final EmbeddedDynamoDb engine;
+    private final Executor executor;
+
+    public EmbeddedDynamoDbAsyncClient(EmbeddedDynamoDb engine) {
+        this(engine, null);
+    }
+
+    /**
+     * @param executor runs the operations; {@code null} to run them on the calling thread
+     */
+    public EmbeddedDynamoDbAsyncClient(EmbeddedDynamoDb engine, Executor executor) {
+        this.engine = requireNonNull(engine, "engine cannot be null");
+        this.executor = executor;
+    }
+
+    public EmbeddedDynamoDb engine() {
+        return engine;
+    }
+
+    @Override
+    public CompletableFuture<GetItemResponse> getItem(GetItemRequest getItemRequest) {
+        return execute(() -> engine.getItem(getItemRequest));
+    }
+
+    @Override
+    public CompletableFuture<PutItemResponse> putItem(PutItemRequest putItemRequest) {
+        return execute(() -> engine.putItem(putItemRequest));
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> query(QueryRequest queryRequest) {
+        return execute(() -> engine.query(queryRequest));
+    }
+
+    @Override
+    public CompletableFuture<ScanResponse> scan(ScanRequest scanRequest) {
+        return execute(() -> engine.scan(scanRequest));
+    }
+
+    @Override
+    public CompletableFuture<TransactWriteItemsResponse> transactWriteItems(TransactWriteItemsRequest transactWriteItemsRequest) {
+        return execute(() -> engine.transactWriteItems(transactWriteItemsRequest));
+    }
+
+    @Override
+    public CompletableFuture<BatchGetItemResponse> batchGetItem(BatchGetItemRequest batchGetItemRequest) {
+        return execute(() -> engine.batchGetItem(batchGetItemRequest));
+    }
+
+    @Override
+    public CompletableFuture<BatchWriteItemResponse> batchWriteItem(BatchWriteItemRequest batchWriteItemRequest) {
+        return execute(() -> engine.batchWriteItem(batchWriteItemRequest));
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release: the engine lives as long as it is referenced, the executor belongs to the caller
+    }
+
+    private <T> CompletableFuture<T> execute(Supplier<T> operation) {
+        if (executor == null) {
+            return complete(new CompletableFuture<>(), operation);
+        }
+
+        var future = new CompletableFuture<T>();
+        executor.execute(() -> complete(future, operation));
+        return future;
+    }
+
+    // Completes with the service exception itself, not wrapped in a CompletionException, like the SDK clients
+    private static <T> CompletableFuture<T> complete(CompletableFuture<T> future, Supplier<T> operation) {
+        try {
+            future.complete(operation.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
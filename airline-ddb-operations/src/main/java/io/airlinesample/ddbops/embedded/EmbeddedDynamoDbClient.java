@@ -0,0 +1,69 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link DynamoDbClient} backed by an {@link EmbeddedDynamoDb} engine, so repositories, the enhanced client and
+ * benchmarks run in-process without LocalStack. Operations the engine does not model keep the SDK default of
+ * throwing {@link UnsupportedOperationException}.
+ */
+public final class EmbeddedDynamoDbClient implements DynamoDbClient {
+
+    private final EmbeddedDynamoDb engine;
+
+    public EmbeddedDynamoDbClient(EmbeddedDynamoDb engine) {
+        this.engine = requireNonNull(engine, "engine cannot be null");
+    }
+
+    public EmbeddedDynamoDb engine() {
+        return engine;
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest getItemRequest) {
+        return engine.getItem(getItemRequest);
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest putItemRequest) {
+        return engine.putItem(putItemRequest);
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest queryRequest) {
+        return engine.query(queryRequest);
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest scanRequest) {
+        return engine.scan(scanRequest);
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest transactWriteItemsRequest) {
+        return engine.transactWriteItems(transactWriteItemsRequest);
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest batchGetItemRequest) {
+        return engine.batchGetItem(batchGetItemRequest);
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest batchWriteItemRequest) {
+        return engine.batchWriteItem(batchWriteItemRequest);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release: the engine lives as long as it is referenced
+    }
+}
@@ -0,0 +1,173 @@
+package io.airlinesample.ddbops.embedded;
+
+import io.airlinesample.ddbops.embedded.EmbeddedTable.ItemKey;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Storage of a global secondary index: a copy of the projected attributes of every table item carrying the index
+ * key, grouped by index partition key and ordered by index sort key, then by table key (index keys need not be
+ * unique). Items missing an index key attribute are left out, as in a sparse DynamoDB index.
+ * <p>
+ * The index is maintained by {@link EmbeddedTable} on every write, under the item's lock, so it is never behind the
+ * table; DynamoDB propagates to a global index asynchronously, which is why index reads are never strongly consistent.
+ */
+final class EmbeddedGlobalIndex {
+
+    // Indexes without a sort key order the items of a partition by table key only
+    private static final AttributeValue NO_SORT_KEY = AttributeValue.fromS("");
+
+    private static final Comparator<EntryKey> ENTRY_ORDER = Comparator
+            .comparing(EntryKey::sort, AttributeValues.KEY_ORDER)
+            .thenComparing(EntryKey::tableKey);
+
+    private final String name;
+    private final String partitionKeyName;
+    private final String sortKeyName;
+    private final EmbeddedTable table;
+    private final ProjectionType projectionType;
+    private final Set<String> nonKeyAttributes;
+
+    private final Map<String, ConcurrentSkipListMap<EntryKey, Map<String, AttributeValue>>> partitions = new ConcurrentHashMap<>();
+
+    EmbeddedGlobalIndex(String name, String partitionKeyName, String sortKeyName, EmbeddedTable table,
+                        Projection projection) {
+        this.name = requireNonNull(name, "name cannot be null");
+        this.partitionKeyName = requireNonNull(partitionKeyName, "partitionKeyName cannot be null");
+        this.sortKeyName = sortKeyName;
+        this.table = requireNonNull(table, "table cannot be null");
+        this.projectionType = projection == null || projection.projectionType() == null
+                ? ProjectionType.ALL
+                : projection.projectionType();
+        this.nonKeyAttributes = projection != null && projection.hasNonKeyAttributes()
+                ? Set.copyOf(projection.nonKeyAttributes())
+                : Set.of();
+        if ((projectionType == ProjectionType.INCLUDE) == nonKeyAttributes.isEmpty()) {
+            throw DynamoDbErrors.validation("NonKeyAttributes must be given with, and only with, ProjectionType INCLUDE");
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    String partitionKeyName() {
+        return partitionKeyName;
+    }
+
+    /**
+     * Key of an index item: the index key attributes followed by the table ones, as in a {@code LastEvaluatedKey}.
+     */
+    Map<String, AttributeValue> keyAttributes(Map<String, AttributeValue> indexItem) {
+        var key = new HashMap<>(table.keyAttributes(indexItem));
+        key.put(partitionKeyName, indexItem.get(partitionKeyName));
+        if (sortKeyName != null) {
+            key.put(sortKeyName, indexItem.get(sortKeyName));
+        }
+        return key;
+    }
+
+    /**
+     * Returns the items of one index partition in index order, starting after {@code exclusiveStartKey} if given.
+     */
+    NavigableMap<EntryKey, Map<String, AttributeValue>> partition(AttributeValue partitionValue,
+                                                                  Map<String, AttributeValue> exclusiveStartKey,
+                                                                  boolean ascending) {
+        var partition = partitions.get(AttributeValues.keyString(partitionValue));
+        if (partition == null) {
+            return Collections.emptyNavigableMap();
+        }
+
+        NavigableMap<EntryKey, Map<String, AttributeValue>> view = ascending ? partition : partition.descendingMap();
+        return exclusiveStartKey == null ? view : view.tailMap(entryKey(exclusiveStartKey, table.itemKey(exclusiveStartKey)), false);
+    }
+
+    /**
+     * Replaces the index item of the table item stored under {@code tableKey}, going from {@code oldItem} to
+     * {@code newItem}; either is {@code null} when the table item is created or deleted.
+     */
+    void update(ItemKey tableKey, Map<String, AttributeValue> oldItem, Map<String, AttributeValue> newItem) {
+        var oldIndexItem = project(oldItem);
+        var newIndexItem = project(newItem);
+        var oldEntry = oldIndexItem == null ? null : entryKey(oldIndexItem, tableKey);
+        var newEntry = newIndexItem == null ? null : entryKey(newIndexItem, tableKey);
+
+        if (oldEntry != null && !oldEntry.equals(newEntry)) {
+            var partition = partitions.get(AttributeValues.keyString(oldIndexItem.get(partitionKeyName)));
+            if (partition != null) {
+                partition.remove(oldEntry);
+            }
+        }
+        if (newEntry != null) {
+            partitions
+                    .computeIfAbsent(AttributeValues.keyString(newIndexItem.get(partitionKeyName)),
+                            ignored -> new ConcurrentSkipListMap<>(ENTRY_ORDER))
+                    .put(newEntry, Collections.unmodifiableMap(newIndexItem));
+        }
+    }
+
+    /**
+     * Write units DynamoDB charges to keep this index in sync: nothing when the projected attributes did not change,
+     * a delete and a put when the index key did.
+     */
+    double writeUnits(ItemKey tableKey, Map<String, AttributeValue> oldItem, Map<String, AttributeValue> newItem) {
+        var oldIndexItem = project(oldItem);
+        var newIndexItem = project(newItem);
+        if (Objects.equals(oldIndexItem, newIndexItem)) {
+            return 0;
+        }
+        if (oldIndexItem != null && newIndexItem != null
+                && !entryKey(oldIndexItem, tableKey).equals(entryKey(newIndexItem, tableKey))) {
+            return CapacityUnits.writeUnits(oldIndexItem, null) + CapacityUnits.writeUnits(null, newIndexItem);
+        }
+        return CapacityUnits.writeUnits(oldIndexItem, newIndexItem);
+    }
+
+    /**
+     * The index item of {@code item}, or {@code null} when it does not carry the index key.
+     */
+    private Map<String, AttributeValue> project(Map<String, AttributeValue> item) {
+        if (item == null || !item.containsKey(partitionKeyName) || (sortKeyName != null && !item.containsKey(sortKeyName))) {
+            return null;
+        }
+        if (projectionType == ProjectionType.ALL) {
+            return item;
+        }
+
+        var indexItem = keyAttributes(item);
+        for (var attribute : nonKeyAttributes) {
+            var value = item.get(attribute);
+            if (value != null) {
+                indexItem.put(attribute, value);
+            }
+        }
+        return indexItem;
+    }
+
+    private EntryKey entryKey(Map<String, AttributeValue> indexItem, ItemKey tableKey) {
+        var sort = sortKeyName == null ? NO_SORT_KEY : indexItem.get(sortKeyName);
+        if (sort == null) {
+            throw DynamoDbErrors.validation("The provided starting key is invalid: missing " + sortKeyName);
+        }
+        return new EntryKey(sort, tableKey.partition() + '/' + AttributeValues.keyString(tableKey.sort()));
+    }
+
+    /**
+     * Position of an item in an index partition.
+     */
+    record EntryKey(AttributeValue sort, String tableKey) {
+    }
+}
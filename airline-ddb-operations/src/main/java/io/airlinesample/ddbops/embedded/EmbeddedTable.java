@@ -0,0 +1,203 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Storage of a single table: a hash of partitions, each partition ordered by sort key, and its global secondary
+ * indexes, updated along with every write.
+ * <p>
+ * Items are immutable maps replaced as a whole on every write, so readers never lock and never observe a
+ * half-applied update. Writers are serialized by the striped locks of {@link EmbeddedDynamoDb}.
+ */
+final class EmbeddedTable {
+
+    // Tables without a sort key keep a single item per partition under this placeholder sort key
+    private static final AttributeValue NO_SORT_KEY = AttributeValue.fromS("");
+
+    private final String name;
+    private final String partitionKeyName;
+    private final String sortKeyName;
+
+    private final Map<String, ConcurrentSkipListMap<AttributeValue, Map<String, AttributeValue>>> partitions = new ConcurrentHashMap<>();
+    private final AtomicLong itemCount = new AtomicLong();
+    private final Map<String, EmbeddedGlobalIndex> indexes = new ConcurrentHashMap<>();
+
+    EmbeddedTable(String name, String partitionKeyName, String sortKeyName) {
+        this.name = requireNonNull(name, "name cannot be null");
+        this.partitionKeyName = requireNonNull(partitionKeyName, "partitionKeyName cannot be null");
+        this.sortKeyName = sortKeyName;
+    }
+
+    String name() {
+        return name;
+    }
+
+    String partitionKeyName() {
+        return partitionKeyName;
+    }
+
+    String sortKeyName() {
+        return sortKeyName;
+    }
+
+    long itemCount() {
+        return itemCount.get();
+    }
+
+    /**
+     * Adds {@code index} and fills it from the items already stored.
+     */
+    void addIndex(EmbeddedGlobalIndex index) {
+        if (indexes.putIfAbsent(index.name(), index) != null) {
+            throw DynamoDbErrors.validation("Index already exists: " + index.name());
+        }
+        partitions.forEach((partitionValue, partition) -> partition.forEach((sortValue, item) ->
+                index.update(new ItemKey(partitionValue, sortValue), null, item)));
+    }
+
+    EmbeddedGlobalIndex index(String indexName) {
+        var index = indexes.get(indexName);
+        if (index == null) {
+            throw DynamoDbErrors.validation("The table does not have the specified index: " + indexName);
+        }
+        return index;
+    }
+
+    /**
+     * Write units charged to the indexes of this table for the write of the item stored under {@code key}.
+     */
+    double indexWriteUnits(ItemKey key, Map<String, AttributeValue> oldItem, Map<String, AttributeValue> newItem) {
+        var units = 0.0;
+        for (var index : indexes.values()) {
+            units += index.writeUnits(key, oldItem, newItem);
+        }
+        return units;
+    }
+
+    /**
+     * Extracts the primary key of a key map (GetItem, Update, Delete) and rejects non-key attributes, as DynamoDB does.
+     */
+    ItemKey keyOf(Map<String, AttributeValue> key) {
+        var expectedSize = sortKeyName == null ? 1 : 2;
+        if (key == null || key.size() != expectedSize) {
+            throw DynamoDbErrors.validation("The provided key element does not match the schema");
+        }
+        return itemKey(key);
+    }
+
+    /**
+     * Extracts the primary key of a full item (PutItem).
+     */
+    ItemKey itemKey(Map<String, AttributeValue> item) {
+        var partitionValue = item.get(partitionKeyName);
+        var sortValue = sortKeyName == null ? NO_SORT_KEY : item.get(sortKeyName);
+        if (partitionValue == null || sortValue == null) {
+            throw DynamoDbErrors.validation("One or more parameter values were invalid: Missing the key "
+                    + (partitionValue == null ? partitionKeyName : sortKeyName) + " in the item");
+        }
+        return new ItemKey(AttributeValues.keyString(partitionValue), sortValue);
+    }
+
+    Map<String, AttributeValue> keyAttributes(Map<String, AttributeValue> item) {
+        var key = new HashMap<String, AttributeValue>(4);
+        key.put(partitionKeyName, item.get(partitionKeyName));
+        if (sortKeyName != null) {
+            key.put(sortKeyName, item.get(sortKeyName));
+        }
+        return key;
+    }
+
+    Map<String, AttributeValue> get(ItemKey key) {
+        var partition = partitions.get(key.partition());
+        return partition == null ? null : partition.get(key.sort());
+    }
+
+    /**
+     * Stores {@code item} under {@code key}; must be called while holding the item's lock.
+     */
+    void put(ItemKey key, Map<String, AttributeValue> item) {
+        var stored = Collections.unmodifiableMap(item);
+        var previous = partitions
+                .computeIfAbsent(key.partition(), ignored -> new ConcurrentSkipListMap<>(AttributeValues.KEY_ORDER))
+                .put(key.sort(), stored);
+        if (previous == null) {
+            itemCount.incrementAndGet();
+        }
+        for (var index : indexes.values()) {
+            index.update(key, previous, stored);
+        }
+    }
+
+    /**
+     * Removes the item stored under {@code key}; must be called while holding the item's lock.
+     */
+    void delete(ItemKey key) {
+        var partition = partitions.get(key.partition());
+        var previous = partition == null ? null : partition.remove(key.sort());
+        if (previous != null) {
+            itemCount.decrementAndGet();
+            for (var index : indexes.values()) {
+                index.update(key, previous, null);
+            }
+        }
+    }
+
+    /**
+     * Returns the items of one partition in sort key order, starting after {@code exclusiveStartSortKey} if given.
+     */
+    NavigableMap<AttributeValue, Map<String, AttributeValue>> partition(AttributeValue partitionValue,
+                                                                       AttributeValue exclusiveStartSortKey,
+                                                                       boolean ascending) {
+        var partition = partitions.get(AttributeValues.keyString(partitionValue));
+        if (partition == null) {
+            return Collections.emptyNavigableMap();
+        }
+
+        NavigableMap<AttributeValue, Map<String, AttributeValue>> view = ascending ? partition : partition.descendingMap();
+        return exclusiveStartSortKey == null ? view : view.tailMap(exclusiveStartSortKey, false);
+    }
+
+    /**
+     * Returns the items of segment {@code segment} of {@code totalSegments}, starting after the item keyed by
+     * {@code exclusiveStartKey} if given. Partitions are spread over the segments by the hash of their key, and a
+     * segment is read partition by partition in key order, so the order is stable across the pages of a scan.
+     */
+    Iterable<Map<String, AttributeValue>> segment(int segment, int totalSegments, Map<String, AttributeValue> exclusiveStartKey) {
+        var startKey = exclusiveStartKey == null ? null : itemKey(exclusiveStartKey);
+        var partitionValues = partitions.keySet().stream()
+                .filter(partitionValue -> Math.floorMod(partitionValue.hashCode(), totalSegments) == segment)
+                .filter(partitionValue -> startKey == null || partitionValue.compareTo(startKey.partition()) >= 0)
+                .sorted()
+                .toList();
+
+        return () -> partitionValues.stream()
+                .flatMap(partitionValue -> {
+                    var partition = partitions.get(partitionValue);
+                    if (partition == null) {
+                        return Stream.empty();
+                    }
+                    var items = startKey != null && partitionValue.equals(startKey.partition())
+                            ? partition.tailMap(startKey.sort(), false)
+                            : partition;
+                    return items.values().stream();
+                })
+                .iterator();
+    }
+
+    /**
+     * Identifies one item: the normalized partition key and the raw sort key value.
+     */
+    record ItemKey(String partition, AttributeValue sort) {
+    }
+}
@@ -0,0 +1,37 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Per-request bindings for {@code #name} and {@code :value} placeholders used by parsed expressions.
+ */
+record EvaluationContext(Map<String, String> names, Map<String, AttributeValue> values) {
+
+    static final EvaluationContext EMPTY = new EvaluationContext(Map.of(), Map.of());
+
+    static EvaluationContext of(Map<String, String> names, Map<String, AttributeValue> values) {
+        return new EvaluationContext(names == null ? Map.of() : names, values == null ? Map.of() : values);
+    }
+
+    String name(String token) {
+        if (token.charAt(0) != '#') {
+            return token;
+        }
+
+        var name = names.get(token);
+        if (name == null) {
+            throw DynamoDbErrors.validation("An expression attribute name used in the document path is not defined; attribute name: " + token);
+        }
+        return name;
+    }
+
+    AttributeValue value(String token) {
+        var value = values.get(token);
+        if (value == null) {
+            throw DynamoDbErrors.validation("An expression attribute value used in expression is not defined; attribute value: " + token);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,343 @@
+package io.airlinesample.ddbops.embedded;
+
+import io.airlinesample.ddbops.embedded.Expressions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser for the subset of the DynamoDB expression grammar used by the airline repositories
+ * (and the enhanced client), covering:
+ * <ul>
+ *     <li>comparisons, {@code BETWEEN}, {@code IN}, {@code AND}/{@code OR}/{@code NOT} and parentheses;</li>
+ *     <li>{@code attribute_exists}, {@code attribute_not_exists}, {@code attribute_type}, {@code begins_with},
+ *     {@code contains} and {@code size};</li>
+ *     <li>{@code SET} (with {@code +}, {@code -}, {@code if_not_exists}, {@code list_append}), {@code REMOVE},
+ *     {@code ADD} and {@code DELETE} update clauses;</li>
+ *     <li>nested document paths such as {@code ClaimedSeatMap.#seatNumber} or {@code MealPreference[0]}.</li>
+ * </ul>
+ */
+final class ExpressionParser {
+
+    private final String expression;
+    private final List<String> tokens;
+    private int position;
+
+    private ExpressionParser(String expression) {
+        this.expression = expression;
+        this.tokens = tokenize(expression);
+    }
+
+    static Condition parseCondition(String expression) {
+        var parser = new ExpressionParser(expression);
+        var condition = parser.orCondition();
+        parser.expectEnd();
+        return condition;
+    }
+
+    static List<UpdateAction> parseUpdate(String expression) {
+        var parser = new ExpressionParser(expression);
+        var actions = new ArrayList<UpdateAction>();
+
+        while (!parser.atEnd()) {
+            var clause = parser.next().toUpperCase();
+            do {
+                actions.add(switch (clause) {
+                    case "SET" -> parser.setAction();
+                    case "REMOVE" -> new RemoveAction(parser.path());
+                    case "ADD" -> new AddAction(parser.path(), parser.operand());
+                    case "DELETE" -> new DeleteAction(parser.path(), parser.operand());
+                    default -> throw parser.syntaxError("unexpected token '" + clause + "'");
+                });
+            } while (parser.accept(","));
+        }
+
+        if (actions.isEmpty()) {
+            throw parser.syntaxError("empty update expression");
+        }
+        return List.copyOf(actions);
+    }
+
+    static List<DocumentPath> parseProjection(String expression) {
+        var parser = new ExpressionParser(expression);
+        var paths = new ArrayList<DocumentPath>();
+        do {
+            paths.add(parser.path());
+        } while (parser.accept(","));
+        parser.expectEnd();
+        return List.copyOf(paths);
+    }
+
+    // ---- conditions ------------------------------------------------------------------------------------------------
+
+    private Condition orCondition() {
+        var condition = andCondition();
+        while (acceptKeyword("OR")) {
+            condition = new Or(condition, andCondition());
+        }
+        return condition;
+    }
+
+    private Condition andCondition() {
+        var condition = notCondition();
+        while (acceptKeyword("AND")) {
+            condition = new And(condition, notCondition());
+        }
+        return condition;
+    }
+
+    private Condition notCondition() {
+        if (acceptKeyword("NOT")) {
+            return new Not(notCondition());
+        }
+        return atom();
+    }
+
+    private Condition atom() {
+        if (accept("(")) {
+            var condition = orCondition();
+            expect(")");
+            return condition;
+        }
+
+        if (isFunctionCall()) {
+            var function = peek().toLowerCase();
+            switch (function) {
+                case "attribute_exists", "attribute_not_exists" -> {
+                    next();
+                    expect("(");
+                    var path = path();
+                    expect(")");
+                    return new AttributeExists(path, function.equals("attribute_exists"));
+                }
+                case "attribute_type", "begins_with", "contains" -> {
+                    next();
+                    expect("(");
+                    var path = path();
+                    expect(",");
+                    var operand = operand();
+                    expect(")");
+                    return switch (function) {
+                        case "attribute_type" -> new AttributeType(path, operand);
+                        case "begins_with" -> new BeginsWith(path, operand);
+                        default -> new Contains(path, operand);
+                    };
+                }
+                default -> {
+                    // size(...) is an operand, fall through to the comparison below
+                }
+            }
+        }
+
+        var left = operand();
+        if (acceptKeyword("BETWEEN")) {
+            var lower = operand();
+            expectKeyword("AND");
+            return new Between(left, lower, operand());
+        }
+        if (acceptKeyword("IN")) {
+            expect("(");
+            var candidates = new ArrayList<Operand>();
+            do {
+                candidates.add(operand());
+            } while (accept(","));
+            expect(")");
+            return new In(left, List.copyOf(candidates));
+        }
+
+        var operator = next();
+        if (!List.of("=", "<>", "<", "<=", ">", ">=").contains(operator)) {
+            throw syntaxError("expected a comparator but found '" + operator + "'");
+        }
+        return new Comparison(left, operator, operand());
+    }
+
+    private Operand operand() {
+        if (peek().startsWith(":")) {
+            return new ValueOperand(next());
+        }
+        if (isFunctionCall() && peek().equalsIgnoreCase("size")) {
+            next();
+            expect("(");
+            var path = path();
+            expect(")");
+            return new SizeOperand(path);
+        }
+        return new PathOperand(path());
+    }
+
+    // ---- updates ---------------------------------------------------------------------------------------------------
+
+    private UpdateAction setAction() {
+        var path = path();
+        expect("=");
+        return new SetAction(path, setValue());
+    }
+
+    private Operand setValue() {
+        var left = setOperand();
+        if (accept("+")) {
+            return new Arithmetic(left, true, setOperand());
+        }
+        if (accept("-")) {
+            return new Arithmetic(left, false, setOperand());
+        }
+        return left;
+    }
+
+    private Operand setOperand() {
+        if (isFunctionCall()) {
+            var function = next().toLowerCase();
+            expect("(");
+            Operand operand = switch (function) {
+                case "if_not_exists" -> {
+                    var path = path();
+                    expect(",");
+                    yield new IfNotExists(path, setValue());
+                }
+                case "list_append" -> {
+                    var left = setValue();
+                    expect(",");
+                    yield new ListAppend(left, setValue());
+                }
+                default -> throw syntaxError("unsupported function '" + function + "'");
+            };
+            expect(")");
+            return operand;
+        }
+        return operand();
+    }
+
+    // ---- paths -----------------------------------------------------------------------------------------------------
+
+    private DocumentPath path() {
+        var elements = new ArrayList<Object>();
+        elements.add(name());
+
+        while (true) {
+            if (accept(".")) {
+                elements.add(name());
+            } else if (accept("[")) {
+                var index = next();
+                if (!index.chars().allMatch(Character::isDigit)) {
+                    throw syntaxError("invalid list index '" + index + "'");
+                }
+                elements.add(Integer.parseInt(index));
+                expect("]");
+            } else {
+                return new DocumentPath(elements);
+            }
+        }
+    }
+
+    private String name() {
+        var token = next();
+        var first = token.charAt(0);
+        if (first != '#' && !Character.isLetter(first) && first != '_') {
+            throw syntaxError("expected an attribute name but found '" + token + "'");
+        }
+        return token;
+    }
+
+    // ---- tokens ----------------------------------------------------------------------------------------------------
+
+    private static List<String> tokenize(String expression) {
+        var tokens = new ArrayList<String>();
+        var length = expression.length();
+        var i = 0;
+
+        while (i < length) {
+            var c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (c == '#' || c == ':' || Character.isLetterOrDigit(c) || c == '_') {
+                var start = i++;
+                while (i < length && (Character.isLetterOrDigit(expression.charAt(i)) || expression.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(expression.substring(start, i));
+                continue;
+            }
+
+            if ((c == '<' || c == '>') && i + 1 < length) {
+                var two = expression.substring(i, i + 2);
+                if (two.equals("<=") || two.equals(">=") || two.equals("<>")) {
+                    tokens.add(two);
+                    i += 2;
+                    continue;
+                }
+            }
+
+            if ("()[],.=<>+-".indexOf(c) < 0) {
+                throw DynamoDbErrors.validation("Invalid expression: unexpected character '" + c + "' in: " + expression);
+            }
+            tokens.add(String.valueOf(c));
+            i++;
+        }
+        return tokens;
+    }
+
+    private boolean isFunctionCall() {
+        return position + 1 < tokens.size()
+                && Character.isLetter(tokens.get(position).charAt(0))
+                && tokens.get(position + 1).equals("(");
+    }
+
+    private boolean atEnd() {
+        return position >= tokens.size();
+    }
+
+    private String peek() {
+        if (atEnd()) {
+            throw syntaxError("unexpected end of expression");
+        }
+        return tokens.get(position);
+    }
+
+    private String next() {
+        var token = peek();
+        position++;
+        return token;
+    }
+
+    private boolean accept(String token) {
+        if (!atEnd() && tokens.get(position).equals(token)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (!atEnd() && tokens.get(position).equalsIgnoreCase(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw syntaxError("expected '" + token + "'");
+        }
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw syntaxError("expected '" + keyword + "'");
+        }
+    }
+
+    private void expectEnd() {
+        if (!atEnd()) {
+            throw syntaxError("unexpected token '" + tokens.get(position) + "'");
+        }
+    }
+
+    private RuntimeException syntaxError(String message) {
+        return DynamoDbErrors.validation("Invalid expression: " + message + " in: " + expression);
+    }
+}
@@ -0,0 +1,321 @@
+package io.airlinesample.ddbops.embedded;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Abstract syntax of the DynamoDB expression language (condition, key condition, filter, update and projection
+ * expressions) together with its evaluation rules.
+ * <p>
+ * Parsed expressions are immutable and cached by their text: the repositories send a small, fixed set of expression
+ * shapes and only change the placeholder bindings, so each shape is parsed once per engine.
+ */
+final class Expressions {
+
+    private static final int MAX_CACHED_EXPRESSIONS = 10_000;
+
+    private final Map<String, Condition> conditions = new ConcurrentHashMap<>();
+    private final Map<String, List<UpdateAction>> updates = new ConcurrentHashMap<>();
+    private final Map<String, List<DocumentPath>> projections = new ConcurrentHashMap<>();
+
+    Condition condition(String expression) {
+        return cached(conditions, expression, ExpressionParser::parseCondition);
+    }
+
+    List<UpdateAction> update(String expression) {
+        return cached(updates, expression, ExpressionParser::parseUpdate);
+    }
+
+    List<DocumentPath> projection(String expression) {
+        return cached(projections, expression, ExpressionParser::parseProjection);
+    }
+
+    private static <T> T cached(Map<String, T> cache, String expression, Function<String, T> parser) {
+        var parsed = cache.get(expression);
+        if (parsed != null) {
+            return parsed;
+        }
+
+        parsed = parser.apply(expression);
+        if (cache.size() < MAX_CACHED_EXPRESSIONS) {
+            cache.put(expression, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * A boolean expression evaluated against a single item, or {@code null} when the item does not exist.
+     */
+    interface Condition {
+        boolean test(Map<String, AttributeValue> item, EvaluationContext context);
+    }
+
+    /**
+     * A value-producing expression. Returns {@code null} when it refers to a missing attribute.
+     */
+    interface Operand {
+        AttributeValue evaluate(Map<String, AttributeValue> item, EvaluationContext context);
+    }
+
+    /**
+     * One action of an update expression. Operands are evaluated against the item as it was before the update,
+     * while writes accumulate on {@code working}.
+     */
+    interface UpdateAction {
+        Map<String, AttributeValue> apply(Map<String, AttributeValue> working,
+                                          Map<String, AttributeValue> original,
+                                          EvaluationContext context);
+    }
+
+    // ---- conditions ------------------------------------------------------------------------------------------------
+
+    record And(Condition left, Condition right) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            return left.test(item, context) && right.test(item, context);
+        }
+    }
+
+    record Or(Condition left, Condition right) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            return left.test(item, context) || right.test(item, context);
+        }
+    }
+
+    record Not(Condition condition) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            return !condition.test(item, context);
+        }
+    }
+
+    record Comparison(Operand left, String operator, Operand right) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            var leftValue = left.evaluate(item, context);
+            var rightValue = right.evaluate(item, context);
+
+            return switch (operator) {
+                case "=" -> AttributeValues.isEqual(leftValue, rightValue);
+                case "<>" -> leftValue != null && rightValue != null && !AttributeValues.isEqual(leftValue, rightValue);
+                default -> {
+                    var result = AttributeValues.compare(leftValue, rightValue);
+                    if (result == null) {
+                        yield false;
+                    }
+                    yield switch (operator) {
+                        case "<" -> result < 0;
+                        case "<=" -> result <= 0;
+                        case ">" -> result > 0;
+                        case ">=" -> result >= 0;
+                        default -> throw DynamoDbErrors.validation("Invalid comparison operator: " + operator);
+                    };
+                }
+            };
+        }
+    }
+
+    record Between(Operand operand, Operand lower, Operand upper) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            var value = operand.evaluate(item, context);
+            var lowerResult = AttributeValues.compare(value, lower.evaluate(item, context));
+            var upperResult = AttributeValues.compare(value, upper.evaluate(item, context));
+            return lowerResult != null && upperResult != null && lowerResult >= 0 && upperResult <= 0;
+        }
+    }
+
+    record In(Operand operand, List<Operand> candidates) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            var value = operand.evaluate(item, context);
+            return candidates.stream().anyMatch(candidate -> AttributeValues.isEqual(value, candidate.evaluate(item, context)));
+        }
+    }
+
+    record AttributeExists(DocumentPath path, boolean expected) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            return (path.read(item, context) != null) == expected;
+        }
+    }
+
+    record AttributeType(DocumentPath path, Operand type) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            var value = path.read(item, context);
+            var expectedType = type.evaluate(item, context);
+            return value != null && expectedType != null && AttributeValues.typeOf(value).equals(expectedType.s());
+        }
+    }
+
+    record BeginsWith(DocumentPath path, Operand prefix) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            return AttributeValues.beginsWith(path.read(item, context), prefix.evaluate(item, context));
+        }
+    }
+
+    record Contains(DocumentPath path, Operand operand) implements Condition {
+        @Override
+        public boolean test(Map<String, AttributeValue> item, EvaluationContext context) {
+            return AttributeValues.contains(path.read(item, context), operand.evaluate(item, context));
+        }
+    }
+
+    // ---- operands --------------------------------------------------------------------------------------------------
+
+    record PathOperand(DocumentPath path) implements Operand {
+        @Override
+        public AttributeValue evaluate(Map<String, AttributeValue> item, EvaluationContext context) {
+            return path.read(item, context);
+        }
+    }
+
+    record ValueOperand(String token) implements Operand {
+        @Override
+        public AttributeValue evaluate(Map<String, AttributeValue> item, EvaluationContext context) {
+            return context.value(token);
+        }
+    }
+
+    record SizeOperand(DocumentPath path) implements Operand {
+        @Override
+        public AttributeValue evaluate(Map<String, AttributeValue> item, EvaluationContext context) {
+            return AttributeValues.size(path.read(item, context));
+        }
+    }
+
+    record Arithmetic(Operand left, boolean plus, Operand right) implements Operand {
+        @Override
+        public AttributeValue evaluate(Map<String, AttributeValue> item, EvaluationContext context) {
+            var leftValue = required(left, item, context);
+            var rightValue = required(right, item, context);
+            return plus ? AttributeValues.add(leftValue, rightValue) : AttributeValues.subtract(leftValue, rightValue);
+        }
+    }
+
+    record IfNotExists(DocumentPath path, Operand fallback) implements Operand {
+        @Override
+        public AttributeValue evaluate(Map<String, AttributeValue> item, EvaluationContext context) {
+            var value = path.read(item, context);
+            return value != null ? value : fallback.evaluate(item, context);
+        }
+    }
+
+    record ListAppend(Operand left, Operand right) implements Operand {
+        @Override
+        public AttributeValue evaluate(Map<String, AttributeValue> item, EvaluationContext context) {
+            var leftValue = required(left, item, context);
+            var rightValue = required(right, item, context);
+            if (!leftValue.hasL() || !rightValue.hasL()) {
+                throw DynamoDbErrors.validation("Incorrect operand type for operator or function; operator or function: list_append");
+            }
+
+            var appended = new ArrayList<>(leftValue.l());
+            appended.addAll(rightValue.l());
+            return AttributeValue.fromL(appended);
+        }
+    }
+
+    private static AttributeValue required(Operand operand, Map<String, AttributeValue> item, EvaluationContext context) {
+        var value = operand.evaluate(item, context);
+        if (value == null) {
+            throw DynamoDbErrors.validation("The provided expression refers to an attribute that does not exist in the item");
+        }
+        return value;
+    }
+
+    // ---- update actions --------------------------------------------------------------------------------------------
+
+    record SetAction(DocumentPath path, Operand value) implements UpdateAction {
+        @Override
+        public Map<String, AttributeValue> apply(Map<String, AttributeValue> working,
+                                                 Map<String, AttributeValue> original,
+                                                 EvaluationContext context) {
+            return path.write(working, required(value, original, context), context);
+        }
+    }
+
+    record RemoveAction(DocumentPath path) implements UpdateAction {
+        @Override
+        public Map<String, AttributeValue> apply(Map<String, AttributeValue> working,
+                                                 Map<String, AttributeValue> original,
+                                                 EvaluationContext context) {
+            return path.remove(working, context);
+        }
+    }
+
+    record AddAction(DocumentPath path, Operand value) implements UpdateAction {
+        @Override
+        public Map<String, AttributeValue> apply(Map<String, AttributeValue> working,
+                                                 Map<String, AttributeValue> original,
+                                                 EvaluationContext context) {
+            var current = path.read(original, context);
+            var increment = required(value, original, context);
+            if (current == null) {
+                return path.write(working, increment, context);
+            }
+            if (current.n() != null) {
+                return path.write(working, AttributeValues.add(current, increment), context);
+            }
+            return path.write(working, mergeSets(current, increment, true), context);
+        }
+    }
+
+    record DeleteAction(DocumentPath path, Operand value) implements UpdateAction {
+        @Override
+        public Map<String, AttributeValue> apply(Map<String, AttributeValue> working,
+                                                 Map<String, AttributeValue> original,
+                                                 EvaluationContext context) {
+            var current = path.read(original, context);
+            if (current == null) {
+                return working;
+            }
+
+            var remaining = mergeSets(current, required(value, original, context), false);
+            return AttributeValues.size(remaining).n().equals("0")
+                    ? path.remove(working, context)
+                    : path.write(working, remaining, context);
+        }
+    }
+
+    private static AttributeValue mergeSets(AttributeValue current, AttributeValue operand, boolean union) {
+        if (current.hasSs() && operand.hasSs()) {
+            var result = new LinkedHashSet<>(current.ss());
+            if (union) {
+                result.addAll(operand.ss());
+            } else {
+                result.removeAll(new HashSet<>(operand.ss()));
+            }
+            return AttributeValue.fromSs(List.copyOf(result));
+        }
+        if (current.hasNs() && operand.hasNs()) {
+            var result = new LinkedHashSet<>(current.ns());
+            if (union) {
+                result.addAll(operand.ns());
+            } else {
+                result.removeAll(new HashSet<>(operand.ns()));
+            }
+            return AttributeValue.fromNs(List.copyOf(result));
+        }
+        if (current.hasBs() && operand.hasBs()) {
+            var result = new LinkedHashSet<>(current.bs());
+            if (union) {
+                result.addAll(operand.bs());
+            } else {
+                result.removeAll(new HashSet<>(operand.bs()));
+            }
+            return AttributeValue.fromBs(List.copyOf(result));
+        }
+        throw DynamoDbErrors.validation("An operand in the update expression has an incorrect data type");
+    }
+}
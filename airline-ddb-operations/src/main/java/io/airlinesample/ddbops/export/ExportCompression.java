@@ -0,0 +1,55 @@
+package io.airlinesample.ddbops.export;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of the exported NDJSON files.
+ * <p>
+ * Both formats allow concatenated frames ({@code gzip} members, {@code zstd} frames), and their decompressors read
+ * them back as a single stream. An export relies on it: each checkpoint closes the current frame, so the file can be
+ * truncated back to the last checkpoint and appended to when the export resumes.
+ */
+public enum ExportCompression {
+
+    /**
+     * Read by every tool ({@code zcat}, {@code gunzip}, Spark, Athena), but several times slower to compress.
+     */
+    GZIP(".ndjson.gz") {
+        @Override
+        OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        }
+    },
+
+    /**
+     * Fast enough to keep up with the scan on a single core, with a better ratio than {@code gzip}.
+     */
+    ZSTD(".ndjson.zst") {
+        @Override
+        OutputStream compress(OutputStream out) throws IOException {
+            return new ZstdOutputStream(out, ZSTD_LEVEL);
+        }
+    };
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int ZSTD_LEVEL = 3;
+
+    private final String fileExtension;
+
+    ExportCompression(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Starts a new frame written to {@code out}; closing the returned stream ends the frame and closes {@code out}.
+     */
+    abstract OutputStream compress(OutputStream out) throws IOException;
+}
@@ -0,0 +1,56 @@
+package io.airlinesample.ddbops.export;
+
+import lombok.Builder;
+
+import java.nio.file.Path;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * What a {@link ScanExporter} exports, where to, and how fast.
+ *
+ * @param tableName                  table to scan
+ * @param directory                  directory of the output files and checkpoints, created if missing
+ * @param totalSegments              parallel scan segments, {@value #DEFAULT_TOTAL_SEGMENTS} when not positive; a
+ *                                   resumed export must use the same value
+ * @param compression                compression of the output files, {@link ExportCompression#ZSTD} when {@code null}
+ * @param readCapacityUnitsPerSecond read capacity the whole export may consume per second, unlimited when not positive
+ * @param pageSize                   items per {@code Scan} page, when not positive pages stop at 1 MB only
+ * @param checkpointEveryPages       pages between two checkpoints of a segment, {@value #DEFAULT_CHECKPOINT_EVERY_PAGES}
+ *                                   when not positive; at most that many pages are scanned again after a crash
+ * @param bufferSize                 bytes of the direct buffer of each segment file, {@value #DEFAULT_BUFFER_SIZE}
+ *                                   when not positive
+ */
+@Builder(toBuilder = true)
+public record ExportOptions(String tableName,
+                            Path directory,
+                            int totalSegments,
+                            ExportCompression compression,
+                            double readCapacityUnitsPerSecond,
+                            int pageSize,
+                            int checkpointEveryPages,
+                            int bufferSize) {
+
+    public static final int DEFAULT_TOTAL_SEGMENTS = 8;
+    public static final int DEFAULT_CHECKPOINT_EVERY_PAGES = 16;
+    public static final int DEFAULT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    public ExportOptions {
+        requireNonNull(tableName, "tableName cannot be null");
+        requireNonNull(directory, "directory cannot be null");
+        totalSegments = totalSegments > 0 ? totalSegments : DEFAULT_TOTAL_SEGMENTS;
+        compression = compression != null ? compression : ExportCompression.ZSTD;
+        checkpointEveryPages = checkpointEveryPages > 0 ? checkpointEveryPages : DEFAULT_CHECKPOINT_EVERY_PAGES;
+        bufferSize = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * Unthrottled export of {@code tableName} into {@code directory}, with the default segments and compression.
+     */
+    public static ExportOptions of(String tableName, Path directory) {
+        return ExportOptions.builder()
+                .tableName(tableName)
+                .directory(directory)
+                .build();
+    }
+}
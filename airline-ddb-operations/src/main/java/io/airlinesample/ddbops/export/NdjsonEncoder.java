@@ -0,0 +1,130 @@
+package io.airlinesample.ddbops.export;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes DynamoDB items as NDJSON lines, in the JSON shape of the {@code @JsonProperty} annotations of the models: the
+ * attribute names are the property names, numbers are JSON numbers, maps are objects, lists and sets are arrays, and
+ * binary values (such as {@code SeatBitmap}) are Base64 strings, as Jackson writes a {@code byte[]}. A line of the
+ * {@code flights} or {@code bookings} export therefore reads back into a {@code Flight} or a {@code Booking}.
+ */
+final class NdjsonEncoder {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private NdjsonEncoder() {
+    }
+
+    /**
+     * Writes {@code item} as one JSON object followed by a line feed.
+     */
+    static void writeLine(Map<String, AttributeValue> item, Writer out) throws IOException {
+        writeObject(item, out);
+        out.write('\n');
+    }
+
+    private static void writeObject(Map<String, AttributeValue> attributes, Writer out) throws IOException {
+        out.write('{');
+        var first = true;
+        for (var attribute : attributes.entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            writeString(attribute.getKey(), out);
+            out.write(':');
+            writeValue(attribute.getValue(), out);
+        }
+        out.write('}');
+    }
+
+    private static void writeValue(AttributeValue value, Writer out) throws IOException {
+        switch (value.type()) {
+            case S -> writeString(value.s(), out);
+            case N -> out.write(value.n());
+            case BOOL -> out.write(value.bool() ? "true" : "false");
+            case NUL -> out.write("null");
+            case B -> writeBinary(value.b(), out);
+            case M -> writeObject(value.m(), out);
+            case L -> {
+                out.write('[');
+                for (int i = 0; i < value.l().size(); i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    writeValue(value.l().get(i), out);
+                }
+                out.write(']');
+            }
+            case SS -> writeArray(value.ss(), out, false);
+            case NS -> writeArray(value.ns(), out, true);
+            case BS -> {
+                out.write('[');
+                for (int i = 0; i < value.bs().size(); i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    writeBinary(value.bs().get(i), out);
+                }
+                out.write(']');
+            }
+            default -> throw new IllegalArgumentException("Unsupported attribute value: " + value);
+        }
+    }
+
+    private static void writeArray(List<String> values, Writer out, boolean numbers) throws IOException {
+        out.write('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (numbers) {
+                out.write(values.get(i));
+            } else {
+                writeString(values.get(i), out);
+            }
+        }
+        out.write(']');
+    }
+
+    private static void writeBinary(SdkBytes bytes, Writer out) throws IOException {
+        out.write('"');
+        out.write(Base64.getEncoder().encodeToString(bytes.asByteArrayUnsafe()));
+        out.write('"');
+    }
+
+    private static void writeString(String value, Writer out) throws IOException {
+        out.write('"');
+        // Unescaped runs are written in one call
+        var runStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(value, runStart, i - runStart);
+            runStart = i + 1;
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    out.write("\\u00");
+                    out.write(HEX_DIGITS[c >> 4]);
+                    out.write(HEX_DIGITS[c & 0xF]);
+                }
+            }
+        }
+        out.write(value, runStart, value.length() - runStart);
+        out.write('"');
+    }
+}
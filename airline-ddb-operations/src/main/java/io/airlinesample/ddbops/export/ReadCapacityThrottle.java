@@ -0,0 +1,68 @@
+package io.airlinesample.ddbops.export;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the read capacity units consumed per second by all the segments of an export, so it leaves the table's
+ * provisioned (or budgeted on-demand) capacity to production traffic.
+ * <p>
+ * The capacity of a page is only known once it was read, so the throttle works on debt: a segment may read its next
+ * page as soon as the balance is positive, the capacity the page consumed is then charged to the balance, which is
+ * refilled at the configured rate and holds at most one second of it. Each segment overshoots by at most one page, and
+ * the rate averages out to the configured one.
+ */
+final class ReadCapacityThrottle {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double unitsPerSecond;
+    private double balance;
+    private long refilledAtNanos;
+
+    /**
+     * @param unitsPerSecond read capacity units per second, not throttled when not positive
+     */
+    ReadCapacityThrottle(double unitsPerSecond) {
+        this.unitsPerSecond = unitsPerSecond;
+        this.balance = unitsPerSecond;
+        this.refilledAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits until the next page may be read.
+     */
+    void acquire() throws InterruptedException {
+        if (unitsPerSecond <= 0) {
+            return;
+        }
+
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (balance > 0) {
+                    return;
+                }
+                waitNanos = (long) (-balance / unitsPerSecond * NANOS_PER_SECOND) + 1;
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Charges the read capacity units consumed by a page.
+     */
+    synchronized void charge(double units) {
+        if (unitsPerSecond <= 0) {
+            return;
+        }
+        refill();
+        balance -= units;
+    }
+
+    private void refill() {
+        var now = System.nanoTime();
+        balance = Math.min(unitsPerSecond, balance + (now - refilledAtNanos) * unitsPerSecond / NANOS_PER_SECOND);
+        refilledAtNanos = now;
+    }
+}
@@ -0,0 +1,237 @@
+package io.airlinesample.ddbops.export;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Exports a whole table to compressed NDJSON files with a parallel {@code Scan}, for analytics and debugging.
+ * <p>
+ * How an export runs:
+ * <ul>
+ *     <li>The table is scanned in {@code totalSegments} segments ({@code Segment}/{@code TotalSegments}), each on its
+ *     own virtual thread, into its own file: {@code <table>-<segment>-of-<totalSegments>.ndjson.zst} (or
+ *     {@code .gz}). Items are written as they arrive, one JSON object per line (see {@link NdjsonEncoder}), so an
+ *     export never holds more than a page per segment in memory.</li>
+ *     <li>Every {@code checkpointEveryPages} pages, a segment closes its compressed frame, forces its file to disk and
+ *     saves a {@link SegmentCheckpoint} with the {@code LastEvaluatedKey} and the file length. Running the same export
+ *     again skips the completed segments and resumes the others from their last checkpoint, after truncating what
+ *     was written past it; nothing is exported twice.</li>
+ *     <li>Pages are eventually consistent reads, half the capacity of strongly consistent ones, and all segments share
+ *     a {@link ReadCapacityThrottle} of {@code readCapacityUnitsPerSecond}.</li>
+ * </ul>
+ * The first failing segment stops the export: the other segments stop after their current page, and its exception is
+ * rethrown once they did. Items written during the scan may or may not be exported, as with any {@code Scan}.
+ */
+@Slf4j
+public final class ScanExporter {
+
+    // Minimum charge of an eventually consistent read, when the response does not report the capacity consumed
+    private static final double MIN_READ_UNITS_PER_ITEM = 0.5;
+
+    private final DynamoDbClient dynamoDbClient;
+
+    public ScanExporter(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+    }
+
+    /**
+     * Exports {@code options.tableName()}, or resumes its interrupted export.
+     *
+     * @return the counters of the export, resumed segments included
+     */
+    public Summary export(ExportOptions options) {
+        requireNonNull(options, "options cannot be null");
+        try {
+            Files.createDirectories(options.directory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create export directory " + options.directory(), e);
+        }
+
+        var throttle = new ReadCapacityThrottle(options.readCapacityUnitsPerSecond());
+        var failure = new AtomicReference<RuntimeException>();
+        var counters = new Counters();
+        var startNanos = System.nanoTime();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int segment = 0; segment < options.totalSegments(); segment++) {
+                var submitted = segment;
+                executor.execute(() -> {
+                    try {
+                        exportSegment(options, submitted, throttle, failure, counters);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+            }
+        }  // Waits for every segment
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        return new Summary(counters.items.sum(), counters.bytes.sum(), counters.pages.sum(),
+                counters.readCapacityUnits.sum(), counters.resumedSegments.sum(),
+                Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    private void exportSegment(ExportOptions options, int segment, ReadCapacityThrottle throttle,
+                               AtomicReference<RuntimeException> failure, Counters counters) {
+        var fileName = String.format("%s-%04d-of-%04d", options.tableName(), segment, options.totalSegments());
+        var dataFile = options.directory().resolve(fileName + options.compression().fileExtension());
+        var checkpointFile = options.directory().resolve(fileName + ".checkpoint");
+
+        var checkpoint = SegmentCheckpoint.read(checkpointFile)
+                .orElseGet(() -> SegmentCheckpoint.start(segment, options.totalSegments()));
+        if (checkpoint.segment() != segment || checkpoint.totalSegments() != options.totalSegments()) {
+            throw new IllegalStateException(checkpointFile + " belongs to segment " + checkpoint.segment() + " of "
+                    + checkpoint.totalSegments() + ", not " + segment + " of " + options.totalSegments());
+        }
+        if (checkpoint.items() > 0 || checkpoint.completed()) {
+            counters.resumedSegments.increment();
+        }
+        if (checkpoint.completed()) {
+            counters.add(checkpoint.items(), checkpoint.bytes());
+            return;
+        }
+
+        try (var file = SegmentFile.open(dataFile, checkpoint.bytes(), options.bufferSize(), options.compression())) {
+            var lastEvaluatedKey = checkpoint.lastEvaluatedKey();
+            var items = checkpoint.items();
+            var pagesSinceCheckpoint = 0;
+            Writer frame = null;
+
+            try {
+                do {
+                    throttle.acquire();
+                    var response = dynamoDbClient.scan(scanRequest(options, segment, lastEvaluatedKey));
+                    var readUnits = readUnits(response);
+                    throttle.charge(readUnits);
+                    counters.pages.increment();
+                    counters.readCapacityUnits.add(readUnits);
+
+                    if (frame == null) {
+                        frame = file.openFrame();
+                    }
+                    for (var item : response.items()) {
+                        NdjsonEncoder.writeLine(item, frame);
+                    }
+                    items += response.items().size();
+                    lastEvaluatedKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                            ? response.lastEvaluatedKey()
+                            : null;
+
+                    if (lastEvaluatedKey == null || ++pagesSinceCheckpoint == options.checkpointEveryPages()) {
+                        frame.close();
+                        frame = null;
+                        checkpoint = new SegmentCheckpoint(segment, options.totalSegments(), lastEvaluatedKey, items,
+                                file.commit(), lastEvaluatedKey == null);
+                        checkpoint.write(checkpointFile);
+                        pagesSinceCheckpoint = 0;
+                        log.debug("event=export-checkpoint table={} segment={} items={} bytes={}",
+                                options.tableName(), segment, items, checkpoint.bytes());
+                    }
+                } while (lastEvaluatedKey != null && failure.get() == null);
+            } finally {
+                // A segment stopped by its own failure or another one's leaves its frame open: the frame is past the
+                // last checkpoint, so its compressor only has to be released, before the file is closed
+                if (frame != null) {
+                    abandon(frame, options, segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + dataFile, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while throttling the export of " + options.tableName(), e);
+        }
+
+        // Counts what the last checkpoint covers, not the pages a stopped segment will scan again
+        counters.add(checkpoint.items(), checkpoint.bytes());
+        if (checkpoint.completed()) {
+            log.info("event=export-segment-completed table={} segment={} items={} bytes={}",
+                    options.tableName(), segment, checkpoint.items(), checkpoint.bytes());
+        }
+    }
+
+    /**
+     * Closes a frame no checkpoint will cover, releasing its compressor (zstd holds native memory).
+     */
+    private static void abandon(Writer frame, ExportOptions options, int segment) {
+        try {
+            frame.close();
+        } catch (IOException e) {
+            log.warn("event=export-frame-abandoned table={} segment={} error={}", options.tableName(), segment, e.toString());
+        }
+    }
+
+    private static ScanRequest scanRequest(ExportOptions options, int segment, Map<String, AttributeValue> exclusiveStartKey) {
+        var request = ScanRequest.builder()
+                .tableName(options.tableName())
+                .segment(segment)
+                .totalSegments(options.totalSegments())
+                .consistentRead(false)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
+                .exclusiveStartKey(exclusiveStartKey);
+        if (options.pageSize() > 0) {
+            request.limit(options.pageSize());
+        }
+        return request.build();
+    }
+
+    private static double readUnits(ScanResponse response) {
+        var consumedCapacity = response.consumedCapacity();
+        if (consumedCapacity != null && consumedCapacity.capacityUnits() != null) {
+            return consumedCapacity.capacityUnits();
+        }
+        return Math.max(1, response.scannedCount() == null ? 0 : response.scannedCount()) * MIN_READ_UNITS_PER_ITEM;
+    }
+
+    /**
+     * Counters of an export.
+     *
+     * @param items             items exported
+     * @param bytes             bytes of the output files
+     * @param pages             {@code Scan} pages read by this run
+     * @param readCapacityUnits read capacity units consumed by this run
+     * @param resumedSegments   segments resumed from a checkpoint of a previous run, completed ones included
+     * @param elapsed           duration of this run
+     */
+    public record Summary(long items, long bytes, long pages, double readCapacityUnits, long resumedSegments,
+                          Duration elapsed) {
+
+        public double itemsPerSecond() {
+            return items * 1_000_000_000.0 / Math.max(1, elapsed.toNanos());
+        }
+    }
+
+    private static final class Counters {
+
+        private final LongAdder items = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder pages = new LongAdder();
+        private final DoubleAdder readCapacityUnits = new DoubleAdder();
+        private final LongAdder resumedSegments = new LongAdder();
+
+        private void add(long segmentItems, long segmentBytes) {
+            items.add(segmentItems);
+            bytes.add(segmentBytes);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.airlinesample.ddbops.export;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Progress of one scan segment, saved next to its output file after every committed frame.
+ * <p>
+ * Checkpoints are small properties files, replaced atomically, so a crash leaves either the previous or the new
+ * checkpoint. Key attributes are stored with their type, e.g. {@code key.RouteByDay=S:LHR#CDG#2030-01-01}.
+ *
+ * @param segment           segment of the scan
+ * @param totalSegments     segments the scan was split into; a segment only resumes with the same split
+ * @param lastEvaluatedKey  key to resume the scan after, {@code null} to start from the beginning
+ * @param items             items exported so far
+ * @param bytes             bytes of the output file covered by this checkpoint
+ * @param completed         {@code true} once the segment was scanned to the end
+ */
+record SegmentCheckpoint(int segment, int totalSegments, Map<String, AttributeValue> lastEvaluatedKey, long items,
+                         long bytes, boolean completed) {
+
+    private static final String KEY_PREFIX = "key.";
+
+    static SegmentCheckpoint start(int segment, int totalSegments) {
+        return new SegmentCheckpoint(segment, totalSegments, null, 0, 0, false);
+    }
+
+    static Optional<SegmentCheckpoint> read(Path path) {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+
+        var properties = new Properties();
+        try (var reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + path, e);
+        }
+
+        Map<String, AttributeValue> lastEvaluatedKey = null;
+        for (var name : properties.stringPropertyNames()) {
+            if (name.startsWith(KEY_PREFIX)) {
+                if (lastEvaluatedKey == null) {
+                    lastEvaluatedKey = new HashMap<>(4);
+                }
+                lastEvaluatedKey.put(name.substring(KEY_PREFIX.length()), keyValue(properties.getProperty(name)));
+            }
+        }
+        return Optional.of(new SegmentCheckpoint(
+                Integer.parseInt(properties.getProperty("segment")),
+                Integer.parseInt(properties.getProperty("totalSegments")),
+                lastEvaluatedKey,
+                Long.parseLong(properties.getProperty("items")),
+                Long.parseLong(properties.getProperty("bytes")),
+                Boolean.parseBoolean(properties.getProperty("completed"))));
+    }
+
+    /**
+     * Replaces the checkpoint at {@code path}, written to a temporary file first and then moved over it.
+     */
+    void write(Path path) {
+        var properties = new Properties();
+        properties.setProperty("segment", Integer.toString(segment));
+        properties.setProperty("totalSegments", Integer.toString(totalSegments));
+        properties.setProperty("items", Long.toString(items));
+        properties.setProperty("bytes", Long.toString(bytes));
+        properties.setProperty("completed", Boolean.toString(completed));
+        if (lastEvaluatedKey != null) {
+            lastEvaluatedKey.forEach((name, value) -> properties.setProperty(KEY_PREFIX + name, keyString(value)));
+        }
+
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (var writer = Files.newBufferedWriter(temporary)) {
+                properties.store(writer, null);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + path, e);
+        }
+    }
+
+    private static String keyString(AttributeValue value) {
+        return switch (value.type()) {
+            case S -> "S:" + value.s();
+            case N -> "N:" + value.n();
+            case B -> "B:" + Base64.getEncoder().encodeToString(value.b().asByteArrayUnsafe());
+            default -> throw new IllegalArgumentException("Key attributes are strings, numbers or binaries: " + value);
+        };
+    }
+
+    private static AttributeValue keyValue(String keyString) {
+        var value = keyString.substring(2);
+        return switch (keyString.substring(0, 2)) {
+            case "S:" -> AttributeValue.fromS(value);
+            case "N:" -> AttributeValue.fromN(value);
+            case "B:" -> AttributeValue.fromB(SdkBytes.fromByteArray(Base64.getDecoder().decode(value)));
+            default -> throw new IllegalArgumentException("Invalid key attribute in checkpoint: " + keyString);
+        };
+    }
+}
@@ -0,0 +1,117 @@
+package io.airlinesample.ddbops.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Output file of one scan segment: compressed frames written through a large direct {@link ByteBuffer} into a
+ * {@link FileChannel}, so the channel sees a few large writes instead of one per line.
+ * <p>
+ * The file is opened at the offset of the last checkpoint, and everything past it, written after that checkpoint by
+ * an export that did not complete, is truncated. Each {@link #commit()} makes the closed frames durable and returns
+ * the offset to record in the next checkpoint.
+ */
+final class SegmentFile implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final ExportCompression compression;
+    private final OutputStream bufferStream = new BufferStream();
+
+    private SegmentFile(FileChannel channel, int bufferSize, ExportCompression compression) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.compression = compression;
+    }
+
+    /**
+     * Opens {@code path} for writing at {@code offset}, discarding what follows it.
+     */
+    static SegmentFile open(Path path, long offset, int bufferSize, ExportCompression compression) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < offset) {
+                throw new IllegalStateException(path + " is shorter than its checkpoint (" + channel.size() + " < "
+                        + offset + " bytes), delete the checkpoint to export the segment again");
+            }
+            channel.truncate(offset);
+            channel.position(offset);
+            return new SegmentFile(channel, bufferSize, compression);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a compressed frame; closing the returned writer ends the frame, but leaves the file open.
+     */
+    Writer openFrame() throws IOException {
+        return new OutputStreamWriter(compression.compress(bufferStream), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the buffered bytes of the closed frames and forces them to disk.
+     *
+     * @return the offset the file is durable up to
+     */
+    long commit() throws IOException {
+        drain();
+        channel.force(false);
+        return channel.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Bytes written since the last commit are not covered by a checkpoint: the buffered ones are dropped, those
+        // already drained are truncated when the export resumes
+        channel.close();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Sink of the compressors: fills the buffer, draining it to the channel whenever it is full.
+     */
+    private final class BufferStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                var chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        @Override
+        public void close() {
+            // Ends a frame, not the file
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package io.airlinesample.ddbops.metrics;
+
+import io.airlinesample.ddbops.application.BookFlightUseCase;
+import io.airlinesample.ddbops.application.RetryStatistics;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Hot-path metrics of the booking flows, tagged by repository strategy and flight:
+ * <ul>
+ *     <li>latency histograms (HdrHistogram) of {@code findFlight}, {@code transactBookFlight} and {@code bookFlight};</li>
+ *     <li>booking transactions succeeded, failed on their condition, otherwise cancelled, or failed;</li>
+ *     <li>bookings booked, rejected or failed, and the retries of the optimistic-locking services;</li>
+ *     <li>the read and write capacity units DynamoDB reports as consumed, and so the cost per booking.</li>
+ * </ul>
+ * Metrics are collected by decorators, so the repositories and services stay unaware of them:
+ * <pre>{@code
+ * var metrics = new BookingMetrics();
+ * var dynamoDbClient = metrics.meteredDynamoDbClient("CONDITIONAL_EXPRESSION", client);
+ * var flightBookings = metrics.meteredFlightBookings("CONDITIONAL_EXPRESSION",
+ *         new ConditionalExpressionBookFlightRepository(dynamoDbClient));
+ * var bookFlight = metrics.meteredBookFlightUseCase("CONDITIONAL_EXPRESSION", new NoLockingBookFlightService(flightBookings));
+ * metrics.registerMBeans();
+ * metrics.startReporting(new ConsoleMetricsReporter(), Duration.ofSeconds(10));
+ * }</pre>
+ * Recording only touches striped counters and wait-free histogram recorders, so metering costs well under a
+ * microsecond per call.
+ */
+@Slf4j
+public final class BookingMetrics implements AutoCloseable {
+
+    public static final String JMX_DOMAIN = "io.airlinesample.ddbops";
+
+    private static final int DEFAULT_MAX_FLIGHTS_PER_STRATEGY = 100;
+
+    private final int maxFlightsPerStrategy;
+    private final ConcurrentMap<String, StrategyMetrics> strategies = new ConcurrentHashMap<>();
+    private final List<ObjectName> registeredMBeans = new CopyOnWriteArrayList<>();
+    private final List<ScheduledExecutorService> reporters = new CopyOnWriteArrayList<>();
+    private volatile MBeanServer mBeanServer;
+
+    public BookingMetrics() {
+        this(DEFAULT_MAX_FLIGHTS_PER_STRATEGY);
+    }
+
+    /**
+     * @param maxFlightsPerStrategy flights tracked individually per strategy; the others only count in its totals
+     */
+    public BookingMetrics(int maxFlightsPerStrategy) {
+        if (maxFlightsPerStrategy < 0) {
+            throw new IllegalArgumentException("maxFlightsPerStrategy cannot be negative");
+        }
+        this.maxFlightsPerStrategy = maxFlightsPerStrategy;
+    }
+
+    /**
+     * Wraps {@code flightBookings} to time {@code findFlight} and {@code transactBookFlight} and count the transaction
+     * outcomes under {@code strategy}.
+     */
+    public FlightBookings meteredFlightBookings(String strategy, FlightBookings flightBookings) {
+        return new MeteredFlightBookings(requireNonNull(flightBookings), strategy(strategy));
+    }
+
+    /**
+     * Wraps {@code bookFlightUseCase} to time {@code bookFlight} and count the booking outcomes under {@code strategy}.
+     */
+    public BookFlightUseCase meteredBookFlightUseCase(String strategy, BookFlightUseCase bookFlightUseCase) {
+        return new MeteredBookFlightUseCase(requireNonNull(bookFlightUseCase), strategy(strategy));
+    }
+
+    /**
+     * Wraps {@code dynamoDbClient} to request and count the consumed capacity under {@code strategy}. Closing the
+     * returned client closes {@code dynamoDbClient}.
+     */
+    public DynamoDbClient meteredDynamoDbClient(String strategy, DynamoDbClient dynamoDbClient) {
+        return new MeteredDynamoDbClient(requireNonNull(dynamoDbClient), strategy(strategy));
+    }
+
+    /**
+     * Reports the retry counters of an optimistic-locking service with the metrics of {@code strategy}.
+     */
+    public void registerRetryStatistics(String strategy, RetryStatistics retryStatistics) {
+        strategy(strategy).total().retryStatistics(requireNonNull(retryStatistics));
+    }
+
+    /**
+     * The totals of each strategy, followed by its per-flight metrics.
+     */
+    public List<MetricsSnapshot> snapshots() {
+        return strategies.values().stream()
+                .flatMap(strategyMetrics -> strategyMetrics.snapshots().stream())
+                .toList();
+    }
+
+    /**
+     * Registers a {@link BookingMetricsMXBean} per strategy and per tracked flight on the platform MBean server, flights
+     * seen later included, until {@link #close()}.
+     */
+    public void registerMBeans() {
+        registerMBeans(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public synchronized void registerMBeans(MBeanServer mBeanServer) {
+        if (this.mBeanServer != null) {
+            throw new IllegalStateException("MBeans are already registered");
+        }
+
+        this.mBeanServer = requireNonNull(mBeanServer);
+        strategies.values().forEach(strategyMetrics -> strategyMetrics.metricSets().forEach(this::registerMBean));
+    }
+
+    /**
+     * Calls {@code reporter} every {@code interval} on a daemon thread, until {@link #close()}. A reporter that throws
+     * misses that report only.
+     */
+    public void startReporting(MetricsReporter reporter, Duration interval) {
+        requireNonNull(reporter, "reporter cannot be null");
+        if (!interval.isPositive()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+
+        var executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("booking-metrics-reporter").daemon(true).factory());
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                reporter.report(snapshots());
+            } catch (RuntimeException e) {
+                log.warn("Metrics reporter failed", e);
+            }
+        }, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+        reporters.add(executor);
+    }
+
+    /**
+     * Stops the reporters and unregisters the MBeans. Metered components keep recording.
+     */
+    @Override
+    public synchronized void close() {
+        reporters.forEach(ScheduledExecutorService::shutdownNow);
+        reporters.clear();
+
+        var server = mBeanServer;
+        mBeanServer = null;
+        if (server != null) {
+            for (var name : registeredMBeans) {
+                try {
+                    server.unregisterMBean(name);
+                } catch (JMException e) {
+                    // Already unregistered by someone else: nothing left to clean up
+                }
+            }
+        }
+        registeredMBeans.clear();
+    }
+
+    private StrategyMetrics strategy(String strategy) {
+        requireNonNull(strategy, "strategy cannot be null");
+        return strategies.computeIfAbsent(strategy,
+                name -> new StrategyMetrics(name, maxFlightsPerStrategy, this::registerMBean));
+    }
+
+    // Synchronized with registerMBeans, so a metric set created meanwhile is registered exactly once
+    private synchronized void registerMBean(MetricSet metricSet) {
+        var server = mBeanServer;
+        if (server == null) {
+            return;
+        }
+
+        try {
+            var name = objectName(metricSet);
+            if (server.isRegistered(name)) {
+                return;
+            }
+            server.registerMBean(metricSet, name);
+            registeredMBeans.add(name);
+        } catch (JMException e) {
+            // Metrics stay available through the snapshots and reporters
+            log.warn("Could not register the booking metrics MBean", e);
+        }
+    }
+
+    private static ObjectName objectName(MetricSet metricSet) throws JMException {
+        var name = JMX_DOMAIN + ":type=BookingMetrics,strategy=" + ObjectName.quote(metricSet.getStrategy());
+        if (metricSet.getFlight() != null) {
+            name += ",flight=" + ObjectName.quote(metricSet.getFlight());
+        }
+        return new ObjectName(name);
+    }
+}
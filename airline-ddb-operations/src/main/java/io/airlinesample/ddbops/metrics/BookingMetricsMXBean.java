@@ -0,0 +1,63 @@
+package io.airlinesample.ddbops.metrics;
+
+/**
+ * JMX view of the {@link MetricsSnapshot} of one strategy, or one flight of a strategy, registered by
+ * {@link BookingMetrics#registerMBeans()} as {@code io.airlinesample.ddbops:type=BookingMetrics,strategy=<strategy>}
+ * (plus {@code ,flight=<flight>}). Latencies are in microseconds.
+ */
+public interface BookingMetricsMXBean {
+
+    String getStrategy();
+
+    String getFlight();
+
+    long getBooked();
+
+    long getRejected();
+
+    long getFailed();
+
+    long getTransactionsSucceeded();
+
+    long getPreconditionFailed();
+
+    long getTransactionsCancelled();
+
+    long getGenericFailures();
+
+    double getConflictRate();
+
+    long getRetries();
+
+    long getRetriesExhausted();
+
+    double getReadCapacityUnits();
+
+    double getWriteCapacityUnits();
+
+    double getCapacityUnitsPerBooking();
+
+    long getBookFlightCount();
+
+    long getBookFlightP50Micros();
+
+    long getBookFlightP99Micros();
+
+    long getBookFlightP999Micros();
+
+    long getBookFlightMaxMicros();
+
+    long getTransactBookFlightCount();
+
+    long getTransactBookFlightP50Micros();
+
+    long getTransactBookFlightP99Micros();
+
+    long getTransactBookFlightP999Micros();
+
+    long getFindFlightCount();
+
+    long getFindFlightP50Micros();
+
+    long getFindFlightP99Micros();
+}
@@ -0,0 +1,68 @@
+package io.airlinesample.ddbops.metrics;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Prints one line per strategy (and per flight, when {@code withFlights}) with the booking outcomes, the latency
+ * percentiles and the cost per booking.
+ */
+public final class ConsoleMetricsReporter implements MetricsReporter {
+
+    private final PrintStream out;
+    private final boolean withFlights;
+
+    public ConsoleMetricsReporter() {
+        this(System.out, false);
+    }
+
+    public ConsoleMetricsReporter(PrintStream out, boolean withFlights) {
+        this.out = requireNonNull(out);
+        this.withFlights = withFlights;
+    }
+
+    @Override
+    public void report(List<MetricsSnapshot> snapshots) {
+        for (var snapshot : snapshots) {
+            if (snapshot.flight() == null || withFlights) {
+                out.println(format(snapshot));
+            }
+        }
+    }
+
+    /**
+     * Capacity units and retries are only tracked per strategy, so flight lines leave them out.
+     */
+    static String format(MetricsSnapshot snapshot) {
+        var line = String.format("📈 %s%s: booked=%d rejected=%d failed=%d | tx ok=%d conditionFailed=%d cancelled=%d "
+                        + "failures=%d conflictRate=%.1f%% | bookFlight %s | transactBookFlight %s | findFlight %s",
+                snapshot.strategy(),
+                snapshot.flight() == null ? "" : " " + snapshot.flight(),
+                snapshot.booked(), snapshot.rejected(), snapshot.failed(),
+                snapshot.transactionsSucceeded(), snapshot.preconditionFailed(), snapshot.transactionsCancelled(),
+                snapshot.genericFailures(), snapshot.conflictRate() * 100,
+                format(snapshot.bookFlight()), format(snapshot.transactBookFlight()), format(snapshot.findFlight()));
+        if (snapshot.flight() != null) {
+            return line;
+        }
+        return line + String.format(" | retries=%d exhausted=%d | RCU=%.1f WCU=%.1f CU/booking=%.2f",
+                snapshot.retries(), snapshot.retriesExhausted(),
+                snapshot.readCapacityUnits(), snapshot.writeCapacityUnits(), snapshot.capacityUnitsPerBooking());
+    }
+
+    private static String format(TimerSnapshot timer) {
+        if (timer.count() == 0) {
+            return "-";
+        }
+        return String.format("n=%d p50=%s p99=%s p999=%s max=%s", timer.count(),
+                micros(timer.p50()), micros(timer.p99()), micros(timer.p999()), micros(timer.max()));
+    }
+
+    private static String micros(Duration duration) {
+        var micros = duration.toNanos() / 1_000.0;
+        return micros >= 1_000 ? String.format("%.1fms", micros / 1_000) : String.format("%.0fµs", micros);
+    }
+}
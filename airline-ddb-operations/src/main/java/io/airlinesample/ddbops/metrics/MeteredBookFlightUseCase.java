@@ -0,0 +1,31 @@
+package io.airlinesample.ddbops.metrics;
+
+import io.airlinesample.ddbops.application.BookFlightUseCase;
+import io.airlinesample.ddbops.domain.Booking;
+
+/**
+ * Times {@code bookFlight} of another {@link BookFlightUseCase}, retries included, and counts booked, rejected and
+ * failed bookings.
+ */
+final class MeteredBookFlightUseCase implements BookFlightUseCase {
+
+    private final BookFlightUseCase delegate;
+    private final StrategyMetrics metrics;
+
+    MeteredBookFlightUseCase(BookFlightUseCase delegate, StrategyMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean bookFlight(Booking booking) {
+        var startNanos = System.nanoTime();
+        Boolean success = null;
+        try {
+            success = delegate.bookFlight(booking);
+            return success;
+        } finally {
+            metrics.recordBooking(booking.flightPrimaryKey(), System.nanoTime() - startNanos, success);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.airlinesample.ddbops.metrics;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.List;
+
+import static software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity.TOTAL;
+
+/**
+ * {@link DynamoDbClient} that turns {@code ReturnConsumedCapacity} on for every data-plane operation (unless the
+ * request already sets it) and adds the capacity units returned by DynamoDB to the strategy metrics. Works in front of
+ * any client, the SDK one or the embedded engine, and under the enhanced client.
+ * <p>
+ * Requests that fail, cancelled transactions included, return no {@code ConsumedCapacity}, so their cost is not
+ * counted.
+ */
+final class MeteredDynamoDbClient implements DynamoDbClient {
+
+    private final DynamoDbClient delegate;
+    private final StrategyMetrics metrics;
+
+    MeteredDynamoDbClient(DynamoDbClient delegate, StrategyMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        var response = delegate.getItem(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), false);
+        return response;
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        var response = delegate.putItem(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), true);
+        return response;
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        var response = delegate.updateItem(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), true);
+        return response;
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        var response = delegate.deleteItem(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), true);
+        return response;
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        var response = delegate.query(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), false);
+        return response;
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        var response = delegate.scan(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), false);
+        return response;
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        var response = delegate.batchGetItem(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), false);
+        return response;
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        var response = delegate.batchWriteItem(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), true);
+        return response;
+    }
+
+    @Override
+    public TransactGetItemsResponse transactGetItems(TransactGetItemsRequest request) {
+        var response = delegate.transactGetItems(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), false);
+        return response;
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        var response = delegate.transactWriteItems(request.returnConsumedCapacity() != null
+                ? request
+                : request.toBuilder().returnConsumedCapacity(TOTAL).build());
+        record(response.consumedCapacity(), true);
+        return response;
+    }
+
+    @Override
+    public String serviceName() {
+        return delegate.serviceName();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private void record(List<ConsumedCapacity> consumedCapacities, boolean write) {
+        if (consumedCapacities != null) {
+            consumedCapacities.forEach(consumedCapacity -> record(consumedCapacity, write));
+        }
+    }
+
+    /**
+     * Splits the units into reads and writes as returned; older endpoints only return the total, which is then
+     * attributed by the kind of operation.
+     */
+    private void record(ConsumedCapacity consumedCapacity, boolean write) {
+        if (consumedCapacity == null) {
+            return;
+        }
+
+        var readUnits = consumedCapacity.readCapacityUnits();
+        var writeUnits = consumedCapacity.writeCapacityUnits();
+        if (readUnits == null && writeUnits == null) {
+            var units = consumedCapacity.capacityUnits() == null ? 0 : consumedCapacity.capacityUnits();
+            readUnits = write ? 0 : units;
+            writeUnits = write ? units : 0;
+        }
+        metrics.total().recordConsumedCapacity(readUnits == null ? 0 : readUnits, writeUnits == null ? 0 : writeUnits);
+    }
+}
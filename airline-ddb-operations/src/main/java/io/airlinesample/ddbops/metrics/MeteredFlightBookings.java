@@ -0,0 +1,63 @@
+package io.airlinesample.ddbops.metrics;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Times {@code findFlight} and {@code transactBookFlight} of another {@link FlightBookings} and counts the outcome of
+ * every booking transaction, a transaction that threw counting as a generic failure.
+ */
+final class MeteredFlightBookings implements FlightBookings {
+
+    private final FlightBookings delegate;
+    private final StrategyMetrics metrics;
+
+    MeteredFlightBookings(FlightBookings delegate, StrategyMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Optional<Flight> findFlight(FlightPrimaryKey primaryKey) {
+        var startNanos = System.nanoTime();
+        try {
+            return delegate.findFlight(primaryKey);
+        } finally {
+            metrics.recordFindFlight(primaryKey, System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> primaryKeys) {
+        return delegate.findFlights(primaryKeys);
+    }
+
+    @Override
+    public boolean guardsFlightVersion() {
+        return delegate.guardsFlightVersion();
+    }
+
+    @Override
+    public Optional<Booking> findBooking(String customerEmail, String bookingID) {
+        return delegate.findBooking(customerEmail, bookingID);
+    }
+
+    @Override
+    public TransactSummary transactBookFlight(Booking booking, Flight flight) {
+        var startNanos = System.nanoTime();
+        TransactSummary transactSummary = null;
+        try {
+            transactSummary = delegate.transactBookFlight(booking, flight);
+            return transactSummary;
+        } finally {
+            // The repositories only fold DynamoDbException into the summary: SDK client errors, e.g. timeouts, escape
+            metrics.recordTransaction(booking.flightPrimaryKey(), System.nanoTime() - startNanos, transactSummary);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package io.airlinesample.ddbops.metrics;
+
+import io.airlinesample.ddbops.application.RetryStatistics;
+import io.airlinesample.ddbops.domain.FlightBookings;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers and counters sharing one set of tags: a strategy, and optionally a flight.
+ */
+final class MetricSet implements BookingMetricsMXBean {
+
+    private final String strategy;
+    private final String flight;
+
+    private final OperationTimer findFlight = new OperationTimer();
+    private final OperationTimer transactBookFlight = new OperationTimer();
+    private final OperationTimer bookFlight = new OperationTimer();
+
+    private final LongAdder transactionsSucceeded = new LongAdder();
+    private final LongAdder preconditionFailed = new LongAdder();
+    private final LongAdder transactionsCancelled = new LongAdder();
+    private final LongAdder genericFailures = new LongAdder();
+
+    private final LongAdder booked = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private final DoubleAdder readCapacityUnits = new DoubleAdder();
+    private final DoubleAdder writeCapacityUnits = new DoubleAdder();
+
+    private volatile RetryStatistics retryStatistics;
+
+    MetricSet(String strategy, String flight) {
+        this.strategy = strategy;
+        this.flight = flight;
+    }
+
+    void recordFindFlight(long nanos) {
+        findFlight.record(nanos);
+    }
+
+    /**
+     * @param transactSummary the transaction outcome, {@code null} when the transaction threw
+     */
+    void recordTransaction(long nanos, FlightBookings.TransactSummary transactSummary) {
+        transactBookFlight.record(nanos);
+        if (transactSummary == null) {
+            genericFailures.increment();
+        } else if (transactSummary.success()) {
+            transactionsSucceeded.increment();
+        } else if (transactSummary.preconditionFailed()) {
+            preconditionFailed.increment();
+        } else if (transactSummary.transactionCancelled()) {
+            transactionsCancelled.increment();
+        } else {
+            genericFailures.increment();
+        }
+    }
+
+    /**
+     * @param success the booking result, {@code null} when the booking threw
+     */
+    void recordBooking(long nanos, Boolean success) {
+        bookFlight.record(nanos);
+        (success == null ? failed : success ? booked : rejected).increment();
+    }
+
+    void recordConsumedCapacity(double readUnits, double writeUnits) {
+        readCapacityUnits.add(readUnits);
+        writeCapacityUnits.add(writeUnits);
+    }
+
+    void retryStatistics(RetryStatistics retryStatistics) {
+        this.retryStatistics = retryStatistics;
+    }
+
+    MetricsSnapshot snapshot() {
+        var retries = retryStatistics;
+        return MetricsSnapshot.builder()
+                .strategy(strategy)
+                .flight(flight)
+                .findFlight(findFlight.snapshot())
+                .transactBookFlight(transactBookFlight.snapshot())
+                .bookFlight(bookFlight.snapshot())
+                .transactionsSucceeded(transactionsSucceeded.sum())
+                .preconditionFailed(preconditionFailed.sum())
+                .transactionsCancelled(transactionsCancelled.sum())
+                .genericFailures(genericFailures.sum())
+                .booked(booked.sum())
+                .rejected(rejected.sum())
+                .failed(failed.sum())
+                .retries(retries == null ? 0 : retries.retries())
+                .retriesExhausted(retries == null ? 0 : retries.retriesExhausted())
+                .readCapacityUnits(readCapacityUnits.sum())
+                .writeCapacityUnits(writeCapacityUnits.sum())
+                .build();
+    }
+
+    // ---- JMX -------------------------------------------------------------------------------------------------------
+
+    @Override
+    public String getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public String getFlight() {
+        return flight;
+    }
+
+    @Override
+    public long getBooked() {
+        return booked.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    @Override
+    public long getTransactionsSucceeded() {
+        return transactionsSucceeded.sum();
+    }
+
+    @Override
+    public long getPreconditionFailed() {
+        return preconditionFailed.sum();
+    }
+
+    @Override
+    public long getTransactionsCancelled() {
+        return transactionsCancelled.sum();
+    }
+
+    @Override
+    public long getGenericFailures() {
+        return genericFailures.sum();
+    }
+
+    @Override
+    public double getConflictRate() {
+        return snapshot().conflictRate();
+    }
+
+    @Override
+    public long getRetries() {
+        var retries = retryStatistics;
+        return retries == null ? 0 : retries.retries();
+    }
+
+    @Override
+    public long getRetriesExhausted() {
+        var retries = retryStatistics;
+        return retries == null ? 0 : retries.retriesExhausted();
+    }
+
+    @Override
+    public double getReadCapacityUnits() {
+        return readCapacityUnits.sum();
+    }
+
+    @Override
+    public double getWriteCapacityUnits() {
+        return writeCapacityUnits.sum();
+    }
+
+    @Override
+    public double getCapacityUnitsPerBooking() {
+        return snapshot().capacityUnitsPerBooking();
+    }
+
+    @Override
+    public long getBookFlightCount() {
+        return bookFlight.snapshot().count();
+    }
+
+    @Override
+    public long getBookFlightP50Micros() {
+        return bookFlight.snapshot().p50().toNanos() / 1_000;
+    }
+
+    @Override
+    public long getBookFlightP99Micros() {
+        return bookFlight.snapshot().p99().toNanos() / 1_000;
+    }
+
+    @Override
+    public long getBookFlightP999Micros() {
+        return bookFlight.snapshot().p999().toNanos() / 1_000;
+    }
+
+    @Override
+    public long getBookFlightMaxMicros() {
+        return bookFlight.snapshot().max().toNanos() / 1_000;
+    }
+
+    @Override
+    public long getTransactBookFlightCount() {
+        return transactBookFlight.snapshot().count();
+    }
+
+    @Override
+    public long getTransactBookFlightP50Micros() {
+        return transactBookFlight.snapshot().p50().toNanos() / 1_000;
+    }
+
+    @Override
+    public long getTransactBookFlightP99Micros() {
+        return transactBookFlight.snapshot().p99().toNanos() / 1_000;
+    }
+
+    @Override
+    public long getTransactBookFlightP999Micros() {
+        return transactBookFlight.snapshot().p999().toNanos() / 1_000;
+    }
+
+    @Override
+    public long getFindFlightCount() {
+        return findFlight.snapshot().count();
+    }
+
+    @Override
+    public long getFindFlightP50Micros() {
+        return findFlight.snapshot().p50().toNanos() / 1_000;
+    }
+
+    @Override
+    public long getFindFlightP99Micros() {
+        return findFlight.snapshot().p99().toNanos() / 1_000;
+    }
+}
@@ -0,0 +1,18 @@
+package io.airlinesample.ddbops.metrics;
+
+import java.util.List;
+
+/**
+ * Receives the metrics periodically, see {@link BookingMetrics#startReporting}. Implement it to ship the metrics to a
+ * monitoring system.
+ */
+@FunctionalInterface
+public interface MetricsReporter {
+
+    /**
+     * Called from a single reporting thread: implementations need not be thread-safe, but should not block for long.
+     *
+     * @param snapshots the totals of each strategy, followed by its per-flight metrics
+     */
+    void report(List<MetricsSnapshot> snapshots);
+}
@@ -0,0 +1,67 @@
+package io.airlinesample.ddbops.metrics;
+
+import lombok.Builder;
+
+/**
+ * Booking metrics of one repository strategy, for all its flights or a single one, since the metrics were created.
+ * Capacity units and retries are only tracked per strategy, so they are 0 on the per-flight snapshots.
+ *
+ * @param strategy              repository strategy the metrics are tagged with
+ * @param flight                flight the metrics are tagged with ({@code <RouteByDay>/<DepartureTime>}), or
+ *                              {@code null} for all the flights of the strategy
+ * @param findFlight            latency of {@code FlightBookings.findFlight}
+ * @param transactBookFlight    latency of {@code FlightBookings.transactBookFlight}
+ * @param bookFlight            latency of {@code BookFlightUseCase.bookFlight}, retries included
+ * @param transactionsSucceeded booking transactions committed
+ * @param preconditionFailed    booking transactions cancelled by a failed condition (no seat, seat taken, version
+ *                              conflict)
+ * @param transactionsCancelled booking transactions cancelled for another reason (e.g. a transaction conflict)
+ * @param genericFailures       booking transactions that failed without being cancelled (e.g. throttling, timeouts)
+ * @param booked                bookings confirmed
+ * @param rejected              bookings rejected
+ * @param failed                bookings that threw
+ * @param retries               booking attempts repeated after an optimistic-locking conflict
+ * @param retriesExhausted      bookings that gave up after their last attempt
+ * @param readCapacityUnits     read capacity units consumed, as returned by {@code ReturnConsumedCapacity}
+ * @param writeCapacityUnits    write capacity units consumed, as returned by {@code ReturnConsumedCapacity}
+ */
+@Builder
+public record MetricsSnapshot(String strategy,
+                              String flight,
+                              TimerSnapshot findFlight,
+                              TimerSnapshot transactBookFlight,
+                              TimerSnapshot bookFlight,
+                              long transactionsSucceeded,
+                              long preconditionFailed,
+                              long transactionsCancelled,
+                              long genericFailures,
+                              long booked,
+                              long rejected,
+                              long failed,
+                              long retries,
+                              long retriesExhausted,
+                              double readCapacityUnits,
+                              double writeCapacityUnits) {
+
+    /**
+     * Booking transactions submitted, whatever their outcome.
+     */
+    public long transactions() {
+        return transactionsSucceeded + preconditionFailed + transactionsCancelled + genericFailures;
+    }
+
+    /**
+     * Share of the booking transactions that failed their condition.
+     */
+    public double conflictRate() {
+        var transactions = transactions();
+        return transactions == 0 ? 0 : (double) preconditionFailed / transactions;
+    }
+
+    /**
+     * Capacity units consumed per confirmed booking: what a booking costs, failed attempts included.
+     */
+    public double capacityUnitsPerBooking() {
+        return booked == 0 ? 0 : (readCapacityUnits + writeCapacityUnits) / booked;
+    }
+}
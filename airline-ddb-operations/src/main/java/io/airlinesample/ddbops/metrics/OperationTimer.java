@@ -0,0 +1,32 @@
+package io.airlinesample.ddbops.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of one operation. Recording is wait-free, so the booking threads never contend on it; readers
+ * swap the active {@link Recorder} interval out and fold it into the cumulative histogram.
+ */
+final class OperationTimer {
+
+    // 1 µs to 1 min at 3 significant digits: ~0.1% error on every percentile
+    private static final long LOWEST_DISCERNIBLE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder recorder = new Recorder(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram cumulative = new Histogram(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+
+    void record(long nanos) {
+        recorder.recordValue(Math.min(Math.max(nanos, 0), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    synchronized TimerSnapshot snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        cumulative.add(interval);
+        return TimerSnapshot.of(cumulative);
+    }
+}
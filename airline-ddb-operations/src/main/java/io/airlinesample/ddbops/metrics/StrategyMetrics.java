@@ -0,0 +1,86 @@
+package io.airlinesample.ddbops.metrics;
+
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * The metrics of one strategy: its totals, plus a {@link MetricSet} per flight for the first {@code maxFlights}
+ * flights seen, so a run over millions of flights cannot grow the metrics (nor the JMX tree) without bound. Flights
+ * past the limit only count in the totals.
+ */
+final class StrategyMetrics {
+
+    private final String strategy;
+    private final MetricSet total;
+    private final ConcurrentMap<FlightPrimaryKey, MetricSet> flights = new ConcurrentHashMap<>();
+    private final int maxFlights;
+    private final Consumer<MetricSet> onNewMetricSet;
+
+    StrategyMetrics(String strategy, int maxFlights, Consumer<MetricSet> onNewMetricSet) {
+        this.strategy = strategy;
+        this.total = new MetricSet(strategy, null);
+        this.maxFlights = maxFlights;
+        this.onNewMetricSet = onNewMetricSet;
+        onNewMetricSet.accept(total);
+    }
+
+    void recordFindFlight(FlightPrimaryKey flightKey, long nanos) {
+        total.recordFindFlight(nanos);
+        var flight = flight(flightKey);
+        if (flight != null) {
+            flight.recordFindFlight(nanos);
+        }
+    }
+
+    void recordTransaction(FlightPrimaryKey flightKey, long nanos, FlightBookings.TransactSummary transactSummary) {
+        total.recordTransaction(nanos, transactSummary);
+        var flight = flight(flightKey);
+        if (flight != null) {
+            flight.recordTransaction(nanos, transactSummary);
+        }
+    }
+
+    void recordBooking(FlightPrimaryKey flightKey, long nanos, Boolean success) {
+        total.recordBooking(nanos, success);
+        var flight = flight(flightKey);
+        if (flight != null) {
+            flight.recordBooking(nanos, success);
+        }
+    }
+
+    MetricSet total() {
+        return total;
+    }
+
+    Collection<MetricSet> metricSets() {
+        var metricSets = new ArrayList<MetricSet>(flights.size() + 1);
+        metricSets.add(total);
+        metricSets.addAll(flights.values());
+        return metricSets;
+    }
+
+    List<MetricsSnapshot> snapshots() {
+        return metricSets().stream().map(MetricSet::snapshot).toList();
+    }
+
+    private MetricSet flight(FlightPrimaryKey flightKey) {
+        var flight = flights.get(flightKey);
+        if (flight != null || flights.size() >= maxFlights) {
+            return flight;
+        }
+
+        // May overshoot maxFlights by a few under a race, which is harmless
+        return flights.computeIfAbsent(flightKey, key -> {
+            var metricSet = new MetricSet(strategy, key.getPartitionKey() + "/" + key.getSortKey());
+            onNewMetricSet.accept(metricSet);
+            return metricSet;
+        });
+    }
+}
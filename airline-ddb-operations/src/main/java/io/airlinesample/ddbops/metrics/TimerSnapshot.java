@@ -0,0 +1,29 @@
+package io.airlinesample.ddbops.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+
+/**
+ * Latency distribution of an operation since the metrics were created.
+ *
+ * @param count calls timed
+ */
+public record TimerSnapshot(long count, Duration mean, Duration p50, Duration p90, Duration p99, Duration p999,
+                            Duration max) {
+
+    static TimerSnapshot of(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return new TimerSnapshot(0, Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO,
+                    Duration.ZERO);
+        }
+
+        return new TimerSnapshot(histogram.getTotalCount(),
+                Duration.ofNanos(Math.round(histogram.getMean())),
+                Duration.ofNanos(histogram.getValueAtPercentile(50)),
+                Duration.ofNanos(histogram.getValueAtPercentile(90)),
+                Duration.ofNanos(histogram.getValueAtPercentile(99)),
+                Duration.ofNanos(histogram.getValueAtPercentile(99.9)),
+                Duration.ofNanos(histogram.getMaxValue()));
+    }
+}
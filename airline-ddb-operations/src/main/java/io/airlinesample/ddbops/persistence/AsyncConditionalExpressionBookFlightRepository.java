@@ -0,0 +1,60 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.AsyncFlightBookings;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings.TransactSummary;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import lombok.RequiredArgsConstructor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link ConditionalExpressionBookFlightRepository}, sending the very same conditional
+ * transaction and the same {@code GetItem} reads through {@link DynamoDbAsyncClient}.
+ * <p>
+ * The {@code transactBookFlight} transaction never completes exceptionally: DynamoDB failures are folded into the
+ * returned {@code TransactSummary}.
+ */
+@RequiredArgsConstructor
+public final class AsyncConditionalExpressionBookFlightRepository implements AsyncFlightBookings {
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @Override
+    public CompletableFuture<Optional<Flight>> findFlight(FlightPrimaryKey flightKey) {
+        return findFlight(flightKey, ReadOptions.consistent());
+    }
+
+    public CompletableFuture<Optional<Flight>> findFlight(FlightPrimaryKey flightKey, ReadOptions readOptions) {
+        return dynamoDbAsyncClient.getItem(BookFlightRequests.findFlightGetItem(flightKey, readOptions))
+                .thenApply(response -> response.hasItem()
+                        ? Optional.of(FlightMapper.toModel(response.item()))
+                        : Optional.empty());
+    }
+
+    @Override
+    public CompletableFuture<Optional<Booking>> findBooking(String customerEmail, String bookingID) {
+        return findBooking(customerEmail, bookingID, ReadOptions.consistent());
+    }
+
+    public CompletableFuture<Optional<Booking>> findBooking(String customerEmail, String bookingID,
+                                                            ReadOptions readOptions) {
+        return dynamoDbAsyncClient.getItem(BookFlightRequests.findBookingGetItem(customerEmail, bookingID, readOptions))
+                .thenApply(response -> response.hasItem()
+                        ? Optional.of(BookingMapper.toModel(response.item()))
+                        : Optional.empty());
+    }
+
+    @Override
+    public CompletableFuture<TransactSummary> transactBookFlight(Booking booking, Flight flight) {
+        var transactionRequest = BookFlightRequests.conditionalBookFlightTransaction(booking);
+
+        return dynamoDbAsyncClient.transactWriteItems(transactionRequest)
+                .handle((response, throwable) -> throwable == null
+                        ? new TransactionSummaryResolver().dynamoTransactSummary()
+                        : TransactionSummaryResolver.resolve(throwable));
+    }
+}
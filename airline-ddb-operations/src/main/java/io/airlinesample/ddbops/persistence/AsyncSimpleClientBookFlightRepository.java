@@ -0,0 +1,74 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.AsyncFlightBookings;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings.TransactSummary;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static io.airlinesample.ddbops.domain.Booking.BOOKING_TABLE_NAME;
+import static io.airlinesample.ddbops.domain.Flight.FLIGHT_TABLE_NAME;
+
+/**
+ * Non-blocking counterpart of {@link SimpleClientBookFlightRepository}, sending the very same requests through
+ * {@link DynamoDbAsyncClient}.
+ * <p>
+ * The {@code transactBookFlight} transaction is guarded by the flight {@code Version} (optimistic locking), and
+ * never completes exceptionally: DynamoDB failures are folded into the returned {@code TransactSummary}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public final class AsyncSimpleClientBookFlightRepository implements AsyncFlightBookings {
+
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @Override
+    public CompletableFuture<Optional<Flight>> findFlight(FlightPrimaryKey flightKey) {
+        return dynamoDbAsyncClient.query(BookFlightRequests.findFlightQuery(flightKey))
+                .thenApply(queryResponse -> {
+                    // Log a warning if multiple items are returned
+                    logWarningIfMultipleItemsFound(queryResponse, FLIGHT_TABLE_NAME);
+
+                    return queryResponse.items().stream()
+                            .map(FlightMapper::toModel)
+                            .findFirst();
+                });
+    }
+
+    @Override
+    public CompletableFuture<Optional<Booking>> findBooking(String customerEmail, String bookingId) {
+        return dynamoDbAsyncClient.query(BookFlightRequests.findBookingQuery(customerEmail, bookingId))
+                .thenApply(queryResponse -> {
+                    // Log a warning if multiple items are returned
+                    logWarningIfMultipleItemsFound(queryResponse, BOOKING_TABLE_NAME);
+
+                    return queryResponse.items().stream()
+                            .map(BookingMapper::toModel)
+                            .findFirst();
+                });
+    }
+
+    private void logWarningIfMultipleItemsFound(QueryResponse queryResponse, String entityName) {
+        // Log a warning if more than one item is found for the given entity
+        if (queryResponse.hasItems() && queryResponse.count() > 1) {
+            log.warn("event=duplicate-items table={} count={}: using the first one", entityName, queryResponse.count());
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransactSummary> transactBookFlight(Booking booking, Flight flight) {
+        var transactionRequest = BookFlightRequests.optimisticBookFlightTransaction(booking, flight);
+
+        return dynamoDbAsyncClient.transactWriteItems(transactionRequest)
+                .handle((response, throwable) -> throwable == null
+                        ? new TransactionSummaryResolver().dynamoTransactSummary()
+                        : TransactionSummaryResolver.resolve(throwable));
+    }
+}
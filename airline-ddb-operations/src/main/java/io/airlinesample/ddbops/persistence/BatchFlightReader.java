@@ -0,0 +1,87 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.airlinesample.ddbops.domain.Flight.FLIGHT_TABLE_NAME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads many flights by key with {@code BatchGetItem}, for the {@code findFlights} of the low-level repositories:
+ * <ul>
+ *     <li>duplicate keys are read once, as {@code BatchGetItem} requires;</li>
+ *     <li>keys are cut into chunks of {@value #MAX_BATCH_SIZE} (the {@code BatchGetItem} limit), dispatched in parallel,
+ *     each on its own virtual thread, so a results page costs one round trip per chunk, all in flight at once;</li>
+ *     <li>{@code UnprocessedKeys} returned by DynamoDB (throttled, or past the 16 MB response limit) are resubmitted
+ *     with exponential backoff and full jitter, up to {@value BatchReads#MAX_ATTEMPTS} attempts per chunk.</li>
+ * </ul>
+ * The first failing chunk fails the whole read, once the other chunks completed.
+ */
+final class BatchFlightReader {
+
+    static final int MAX_BATCH_SIZE = BatchReads.MAX_BATCH_GET_KEYS;
+
+    private final DynamoDbClient dynamoDbClient;
+
+    BatchFlightReader(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+    }
+
+    /**
+     * @return the flights found, in the order of {@code flightKeys}; missing flights are left out
+     */
+    Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> flightKeys, ReadOptions readOptions) {
+        requireNonNull(readOptions, "readOptions cannot be null");
+
+        var keysById = new LinkedHashMap<String, FlightPrimaryKey>();
+        for (var flightKey : flightKeys) {
+            keysById.putIfAbsent(id(flightKey.getPartitionKey(), flightKey.getSortKey()), flightKey);
+        }
+        if (keysById.isEmpty()) {
+            return Map.of();
+        }
+
+        var keys = new ArrayList<>(keysById.values());
+        var found = new ConcurrentHashMap<String, Flight>();
+        var reads = new ArrayList<Runnable>();
+        for (int from = 0; from < keys.size(); from += MAX_BATCH_SIZE) {
+            var chunk = keys.subList(from, Math.min(from + MAX_BATCH_SIZE, keys.size()));
+            reads.add(() -> readChunk(chunk, readOptions, found));
+        }
+        BatchReads.runInParallel(reads);
+
+        // Back in the order the keys were given
+        var flights = LinkedHashMap.<FlightPrimaryKey, Flight>newLinkedHashMap(found.size());
+        keysById.forEach((id, flightKey) -> {
+            var flight = found.get(id);
+            if (flight != null) {
+                flights.put(flightKey, flight);
+            }
+        });
+        return flights;
+    }
+
+    private void readChunk(List<FlightPrimaryKey> chunk, ReadOptions readOptions, Map<String, Flight> found) {
+        var request = BookFlightRequests.findFlightsBatchGetItem(chunk, readOptions);
+        for (var item : BatchReads.readAll(dynamoDbClient, request, FLIGHT_TABLE_NAME)) {
+            found.put(id(item), FlightMapper.toModel(item));
+        }
+    }
+
+    private static String id(Map<String, AttributeValue> item) {
+        return id(item.get(Flight.ROUTE_BY_DAY_FIELD_NAME).s(), item.get(Flight.DEPARTURE_TIME_FIELD_NAME).s());
+    }
+
+    private static String id(String partitionKey, String sortKey) {
+        return partitionKey + '/' + sortKey;
+    }
+}
@@ -0,0 +1,119 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Backoff;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Building blocks of the batched reads ({@link BatchFlightReader}, {@link BookingIdIndexRepository}):
+ * <ul>
+ *     <li>{@link #readAll} sends a {@code BatchGetItem} and resubmits the {@code UnprocessedKeys} returned by DynamoDB
+ *     (throttled, or past the 16 MB response limit) with exponential backoff and full jitter, up to
+ *     {@value #MAX_ATTEMPTS} attempts;</li>
+ *     <li>{@link #runInParallel} runs independent reads each on its own virtual thread, all in flight at once or at
+ *     most {@code parallelism} at a time.</li>
+ * </ul>
+ */
+final class BatchReads {
+
+    static final int MAX_BATCH_GET_KEYS = 100;
+    static final int MAX_ATTEMPTS = 10;
+
+    private static final Backoff BACKOFF = new Backoff(Duration.ofMillis(50), Duration.ofSeconds(5));
+
+    private BatchReads() {
+    }
+
+    /**
+     * Reads all the keys of {@code request}, a {@code BatchGetItem} of up to {@value #MAX_BATCH_GET_KEYS} keys of
+     * {@code tableName}.
+     *
+     * @return the items found, in no particular order
+     */
+    static List<Map<String, AttributeValue>> readAll(DynamoDbClient dynamoDbClient, BatchGetItemRequest request,
+                                                     String tableName) {
+        var items = new ArrayList<Map<String, AttributeValue>>();
+        for (int attempt = 1; ; attempt++) {
+            var response = dynamoDbClient.batchGetItem(request);
+            items.addAll(response.responses().getOrDefault(tableName, List.of()));
+
+            var unprocessed = response.hasUnprocessedKeys() ? response.unprocessedKeys() : Map.<String, KeysAndAttributes>of();
+            if (unprocessed.isEmpty()) {
+                return items;
+            }
+
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IllegalStateException(unprocessed.values().stream().mapToInt(keys -> keys.keys().size()).sum()
+                        + " items of " + tableName + " still unprocessed after " + MAX_ATTEMPTS + " BatchGetItem attempts");
+            }
+
+            // Throttled or over the response size limit: back off, then ask again only for what was not read
+            BACKOFF.sleep(attempt);
+            request = BatchGetItemRequest.builder()
+                    .requestItems(unprocessed)
+                    .returnConsumedCapacity(request.returnConsumedCapacity())
+                    .build();
+        }
+    }
+
+    /**
+     * Runs {@code reads} in parallel, or inline when there is a single one. The first failing read fails the whole
+     * call, once the other reads completed.
+     */
+    static void runInParallel(List<Runnable> reads) {
+        runInParallel(reads, Math.max(reads.size(), 1));
+    }
+
+    /**
+     * Runs {@code reads} like {@link #runInParallel(List)}, with at most {@code parallelism} of them in flight: a read
+     * is only submitted once an earlier one completed, for callers with one request per input element.
+     */
+    static void runInParallel(List<Runnable> reads, int parallelism) {
+        if (reads.size() == 1) {
+            reads.getFirst().run();
+            return;
+        }
+
+        var inFlightReads = new Semaphore(parallelism);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new CompletableFuture<?>[reads.size()];
+            for (int i = 0; i < futures.length; i++) {
+                acquire(inFlightReads);
+                var read = reads.get(i);
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        read.run();
+                    } finally {
+                        inFlightReads.release();
+                    }
+                }, executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void acquire(Semaphore inFlightReads) {
+        try {
+            inFlightReads.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a read to complete", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Backoff;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bulk-loads items into a table with {@code BatchWriteItem}, for seeding local or test tables with large datasets.
+ * <p>
+ * How a load runs:
+ * <ul>
+ *     <li>The input is a {@link Stream} consumed lazily: items are mapped and cut into batches of
+ *     {@value #MAX_BATCH_SIZE} (the {@code BatchWriteItem} limit) as they are pulled, so the dataset never has to fit
+ *     in memory.</li>
+ *     <li>Up to {@code parallelism} batches are written concurrently, each on its own virtual thread; the input is not
+ *     pulled further until a batch completes.</li>
+ *     <li>{@code UnprocessedItems} returned by DynamoDB (e.g. when throttled) are resubmitted with exponential backoff
+ *     and full jitter, up to {@value #MAX_ATTEMPTS} attempts per batch.</li>
+ * </ul>
+ * The first failing batch stops the load: no further batches are submitted and its exception is rethrown once the
+ * batches in flight completed. Items of a batch must have distinct keys, as {@code BatchWriteItem} requires.
+ */
+public final class BatchWriteBulkLoader {
+
+    static final int MAX_BATCH_SIZE = 25;
+    static final int MAX_ATTEMPTS = 10;
+
+    private static final int DEFAULT_PARALLELISM = 16;
+    private static final Backoff BACKOFF = new Backoff(Duration.ofMillis(50), Duration.ofSeconds(5));
+
+    private final DynamoDbClient dynamoDbClient;
+    private final int parallelism;
+    private final Backoff backoff;
+
+    public BatchWriteBulkLoader(DynamoDbClient dynamoDbClient) {
+        this(dynamoDbClient, DEFAULT_PARALLELISM);
+    }
+
+    public BatchWriteBulkLoader(DynamoDbClient dynamoDbClient, int parallelism) {
+        this(dynamoDbClient, parallelism, BACKOFF);
+    }
+
+    BatchWriteBulkLoader(DynamoDbClient dynamoDbClient, int parallelism, Backoff backoff) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+        this.parallelism = parallelism;
+        this.backoff = requireNonNull(backoff);
+    }
+
+    /**
+     * Writes every item of {@code items} into {@code tableName}, replacing existing items with the same key. The
+     * stream is closed once consumed.
+     *
+     * @param toItem maps an element of the stream to the DynamoDB item to write
+     * @return the counters of the load
+     */
+    public <T> Summary load(String tableName, Stream<T> items, Function<? super T, Map<String, AttributeValue>> toItem) {
+        requireNonNull(tableName, "tableName cannot be null");
+        requireNonNull(toItem, "toItem cannot be null");
+
+        var inFlightBatches = new Semaphore(parallelism);
+        var failure = new AtomicReference<RuntimeException>();
+        var counters = new Counters();
+        var startNanos = System.nanoTime();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor(); items) {
+            var iterator = items.iterator();
+            var batch = new ArrayList<WriteRequest>(MAX_BATCH_SIZE);
+
+            while (iterator.hasNext() && failure.get() == null) {
+                batch.add(WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(toItem.apply(iterator.next())).build())
+                        .build());
+
+                if (batch.size() < MAX_BATCH_SIZE && iterator.hasNext()) {
+                    continue;
+                }
+
+                acquire(inFlightBatches);
+                if (failure.get() != null) {
+                    // A batch failed while this one was waiting for a slot
+                    inFlightBatches.release();
+                    break;
+                }
+                var submitted = batch;
+                executor.execute(() -> {
+                    try {
+                        writeBatch(tableName, submitted, counters);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlightBatches.release();
+                    }
+                });
+                batch = new ArrayList<>(MAX_BATCH_SIZE);
+            }
+        }  // Waits for the batches in flight
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        return new Summary(counters.items.sum(), counters.batches.sum(), counters.resubmittedItems.sum(),
+                Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    private void writeBatch(String tableName, List<WriteRequest> batch, Counters counters) {
+        var pending = Map.of(tableName, batch);
+
+        for (int attempt = 1; ; attempt++) {
+            var response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(pending)
+                    .build());
+            counters.batches.increment();
+
+            var unprocessed = response.hasUnprocessedItems() ? response.unprocessedItems() : Map.<String, List<WriteRequest>>of();
+            var unprocessedCount = unprocessed.values().stream().mapToInt(List::size).sum();
+            if (unprocessedCount == 0) {
+                counters.items.add(batch.size());
+                return;
+            }
+
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IllegalStateException(unprocessedCount + " items of " + tableName
+                        + " still unprocessed after " + MAX_ATTEMPTS + " BatchWriteItem attempts");
+            }
+
+            // Throttled or partially failed: back off, then resubmit only what was not written
+            counters.resubmittedItems.add(unprocessedCount);
+            backoff.sleep(attempt);
+            pending = unprocessed;
+        }
+    }
+
+    private static void acquire(Semaphore inFlightBatches) {
+        try {
+            inFlightBatches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batch to complete", e);
+        }
+    }
+
+    /**
+     * Counters of a bulk load.
+     *
+     * @param items            items written
+     * @param batches          {@code BatchWriteItem} requests sent, resubmissions included
+     * @param resubmittedItems items resubmitted after DynamoDB returned them unprocessed
+     * @param elapsed          duration of the load
+     */
+    public record Summary(long items, long batches, long resubmittedItems, Duration elapsed) {
+
+        public double itemsPerSecond() {
+            return items * 1_000_000_000.0 / Math.max(1, elapsed.toNanos());
+        }
+    }
+
+    private static final class Counters {
+
+        private final LongAdder items = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder resubmittedItems = new LongAdder();
+    }
+}
@@ -0,0 +1,425 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static io.airlinesample.ddbops.domain.Booking.*;
+import static io.airlinesample.ddbops.domain.Flight.FLIGHT_TABLE_NAME;
+import static software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure.ALL_OLD;
+
+/**
+ * Builds the low-level DynamoDB requests of the booking flows, shared by the synchronous and asynchronous
+ * repositories so both clients send exactly the same requests.
+ */
+final class BookFlightRequests {
+
+    private static final String FIND_FLIGHT_KEY_CONDITION = String.format("%s = :PK AND %s = :SK",
+            Flight.ROUTE_BY_DAY_FIELD_NAME, Flight.DEPARTURE_TIME_FIELD_NAME);
+    // Select only necessary fields to reduce cost and improve performance
+    private static final String FIND_FLIGHT_PROJECTION = String.join(",",
+            Flight.AIRPLANE_MODEL_FIELD_NAME,
+            Flight.CLAIMED_SEAT_MAP_FIELD_NAME,
+            Flight.SEAT_BITMAP_FIELD_NAME,
+            Flight.TOTAL_SEATS_FIELD_NAME,
+            Flight.HELD_SEATS_FIELD_NAME,
+            Flight.AVAILABLE_SEATS_FIELD_NAME,
+            Flight.VERSION_FIELD_NAME);
+
+    private static final List<String> FLIGHT_KEY_ATTRIBUTES = List.of(
+            Flight.ROUTE_BY_DAY_FIELD_NAME, Flight.DEPARTURE_TIME_FIELD_NAME);
+
+    private static final List<String> BOOKING_KEY_ATTRIBUTES = List.of(
+            CUSTOMER_EMAIL_FIELD_NAME, BOOKING_ID_FIELD_NAME);
+
+    private static final String FIND_CUSTOMER_BOOKINGS_KEY_CONDITION = String.format("%s = :PK", CUSTOMER_EMAIL_FIELD_NAME);
+    // Fields of the booking list view; the customer is known to the caller
+    private static final ReadOptions BOOKING_LIST_VIEW = ReadOptions.eventuallyConsistent().withProjection(
+            FLIGHT_NUMBER_FIELD_NAME,
+            SOURCE_FIELD_NAME,
+            DESTINATION_FIELD_NAME,
+            DEPARTURE_DATE_TIME_FIELD_NAME,
+            SEAT_NUMBER_FIELD_NAME,
+            FARE_CLASS_FIELD_NAME);
+
+    private static final String FIND_BOOKING_BY_ID_KEY_CONDITION = String.format("%s = :ID", BOOKING_ID_FIELD_NAME);
+
+    private static final String FIND_BOOKING_KEY_CONDITION = String.format("%s = :PK AND %s = :SK",
+            CUSTOMER_EMAIL_FIELD_NAME, BOOKING_ID_FIELD_NAME);
+    // Select only necessary fields
+    private static final String FIND_BOOKING_PROJECTION = String.join(",",
+            CUSTOMER_EMAIL_FIELD_NAME,
+            BOOKING_ID_FIELD_NAME,
+            DEPARTURE_DATE_TIME_FIELD_NAME);
+
+    /**
+     * Builds a query request to find a flight by its primary key.
+     */
+    static QueryRequest findFlightQuery(FlightPrimaryKey flightKey) {
+        return QueryRequest.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .keyConditionExpression(FIND_FLIGHT_KEY_CONDITION)
+                .expressionAttributeValues(Map.of(
+                        ":PK", AttributeValue.fromS(flightKey.getPartitionKey()),
+                        ":SK", AttributeValue.fromS(flightKey.getSortKey())
+                ))
+                .consistentRead(true)
+                .scanIndexForward(false)  // Fetch the latest items first
+                .projectionExpression(FIND_FLIGHT_PROJECTION)
+                .build();
+    }
+
+    /**
+     * Builds a query request to find a booking by customer email and booking ID.
+     */
+    static QueryRequest findBookingQuery(String customerEmail, String bookingId) {
+        return QueryRequest.builder()
+                .tableName(BOOKING_TABLE_NAME)
+                .keyConditionExpression(FIND_BOOKING_KEY_CONDITION)
+                .expressionAttributeValues(Map.of(
+                        ":PK", AttributeValue.fromS(customerEmail),
+                        ":SK", AttributeValue.fromS(bookingId)
+                ))
+                .consistentRead(true)
+                .scanIndexForward(false)  // Fetch the latest items first
+                .projectionExpression(FIND_BOOKING_PROJECTION)
+                .build();
+    }
+
+    /**
+     * Builds a single-item read of a flight, served as {@code readOptions} asks.
+     */
+    static GetItemRequest findFlightGetItem(FlightPrimaryKey flightKey, ReadOptions readOptions) {
+        return getItem(FLIGHT_TABLE_NAME, FlightMapper.toDDBKeyMap(flightKey), readOptions);
+    }
+
+    /**
+     * Builds a single-item read of a booking, served as {@code readOptions} asks.
+     */
+    static GetItemRequest findBookingGetItem(String customerEmail, String bookingId, ReadOptions readOptions) {
+        return getItem(BOOKING_TABLE_NAME, Map.of(
+                CUSTOMER_EMAIL_FIELD_NAME, AttributeValue.fromS(customerEmail),
+                BOOKING_ID_FIELD_NAME, AttributeValue.fromS(bookingId)
+        ), readOptions);
+    }
+
+    /**
+     * Builds the {@code BatchGetItem} of up to 100 flights, served as {@code readOptions} asks.
+     */
+    static BatchGetItemRequest findFlightsBatchGetItem(Collection<FlightPrimaryKey> flightKeys, ReadOptions readOptions) {
+        var keys = new ArrayList<Map<String, AttributeValue>>(flightKeys.size());
+        for (var flightKey : flightKeys) {
+            keys.add(FlightMapper.toDDBKeyMap(flightKey));
+        }
+
+        var keysAndAttributes = KeysAndAttributes.builder()
+                .keys(keys)
+                .consistentRead(readOptions.consistentRead());
+        var projection = Projection.of(FLIGHT_KEY_ATTRIBUTES, readOptions);
+        if (projection != null) {
+            keysAndAttributes
+                    .projectionExpression(projection.expression())
+                    .expressionAttributeNames(projection.attributeNames());
+        }
+        return BatchGetItemRequest.builder()
+                .requestItems(Map.of(FLIGHT_TABLE_NAME, keysAndAttributes.build()))
+                .build();
+    }
+
+    /**
+     * Builds the query of the next {@code pageSize} bookings of {@code customerEmail}, projecting the list-view
+     * fields, with the departure window applied as a filter expression: DynamoDB filters after the {@code Limit}, so
+     * the response may hold fewer bookings, even none.
+     *
+     * @param departureFrom           earliest departure in epoch seconds, or {@code null}
+     * @param departureTo             latest departure in epoch seconds, or {@code null}
+     * @param exclusiveStartBookingId booking ID to resume after, or {@code null} to start from the first booking
+     */
+    static QueryRequest findCustomerBookingsQuery(String customerEmail, Long departureFrom, Long departureTo,
+                                                  int pageSize, String exclusiveStartBookingId) {
+        var projection = Projection.of(BOOKING_KEY_ATTRIBUTES, BOOKING_LIST_VIEW);
+        var attributeNames = new HashMap<>(projection.attributeNames());
+        var attributeValues = new HashMap<String, AttributeValue>(4);
+        attributeValues.put(":PK", AttributeValue.fromS(customerEmail));
+
+        var request = QueryRequest.builder()
+                .tableName(BOOKING_TABLE_NAME)
+                .keyConditionExpression(FIND_CUSTOMER_BOOKINGS_KEY_CONDITION)
+                .projectionExpression(projection.expression())
+                .consistentRead(BOOKING_LIST_VIEW.consistentRead())
+                .limit(pageSize);
+
+        // Filtered after the read: the window trims the page, not the read capacity
+        if (departureFrom != null || departureTo != null) {
+            attributeNames.put("#departure", DEPARTURE_DATE_TIME_FIELD_NAME);
+            if (departureFrom != null) {
+                attributeValues.put(":from", AttributeValue.fromN(departureFrom.toString()));
+            }
+            if (departureTo != null) {
+                attributeValues.put(":to", AttributeValue.fromN(departureTo.toString()));
+            }
+            request.filterExpression(departureFrom == null ? "#departure <= :to"
+                    : departureTo == null ? "#departure >= :from"
+                    : "#departure BETWEEN :from AND :to");
+        }
+        if (exclusiveStartBookingId != null) {
+            request.exclusiveStartKey(Map.of(
+                    CUSTOMER_EMAIL_FIELD_NAME, AttributeValue.fromS(customerEmail),
+                    BOOKING_ID_FIELD_NAME, AttributeValue.fromS(exclusiveStartBookingId)));
+        }
+        return request
+                .expressionAttributeNames(attributeNames)
+                .expressionAttributeValues(attributeValues)
+                .build();
+    }
+
+    /**
+     * Builds the query of the {@code BookingIDIndex} for {@code bookingId}, reading the attributes the index projects.
+     */
+    static QueryRequest findBookingByIdQuery(String bookingId, BookingIdIndexProjection indexProjection) {
+        var request = QueryRequest.builder()
+                .tableName(BOOKING_TABLE_NAME)
+                .indexName(BOOKING_ID_INDEX_NAME)
+                .keyConditionExpression(FIND_BOOKING_BY_ID_KEY_CONDITION)
+                .expressionAttributeValues(Map.of(":ID", AttributeValue.fromS(bookingId)))
+                .consistentRead(false);  // Global secondary indexes are eventually consistent only
+        var projection = Projection.of(BOOKING_KEY_ATTRIBUTES,
+                new ReadOptions(false, indexProjection.nonKeyAttributes()));
+        if (projection != null) {
+            request
+                    .projectionExpression(projection.expression())
+                    .expressionAttributeNames(projection.attributeNames());
+        }
+        return request.build();
+    }
+
+    /**
+     * Builds the {@code BatchGetItem} of up to 100 bookings by their primary key, served as {@code readOptions} asks.
+     */
+    static BatchGetItemRequest findBookingsBatchGetItem(Collection<Map<String, AttributeValue>> bookingKeys,
+                                                        ReadOptions readOptions) {
+        var keysAndAttributes = KeysAndAttributes.builder()
+                .keys(bookingKeys)
+                .consistentRead(readOptions.consistentRead());
+        var projection = Projection.of(BOOKING_KEY_ATTRIBUTES, readOptions);
+        if (projection != null) {
+            keysAndAttributes
+                    .projectionExpression(projection.expression())
+                    .expressionAttributeNames(projection.attributeNames());
+        }
+        return BatchGetItemRequest.builder()
+                .requestItems(Map.of(BOOKING_TABLE_NAME, keysAndAttributes.build()))
+                .build();
+    }
+
+    private static GetItemRequest getItem(String tableName, Map<String, AttributeValue> key, ReadOptions readOptions) {
+        var request = GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key)
+                .consistentRead(readOptions.consistentRead());
+        var projection = Projection.of(key.keySet(), readOptions);
+        if (projection != null) {
+            request
+                    .projectionExpression(projection.expression())
+                    .expressionAttributeNames(projection.attributeNames());
+        }
+        return request.build();
+    }
+
+    /**
+     * Projection of {@link ReadOptions}, with placeholders so any attribute can be projected, reserved words included.
+     */
+    private record Projection(String expression, Map<String, String> attributeNames) {
+
+        /**
+         * @return the projection of the key attributes and those of {@code readOptions}, or {@code null} to read all
+         */
+        static Projection of(Collection<String> keyAttributes, ReadOptions readOptions) {
+            if (readOptions.projection().isEmpty()) {
+                return null;
+            }
+
+            var names = new LinkedHashSet<>(keyAttributes);
+            names.addAll(readOptions.projection());
+            var attributeNames = HashMap.<String, String>newHashMap(names.size());
+            var expression = new StringJoiner(",");
+            for (var name : names) {
+                var placeholder = "#p" + attributeNames.size();
+                attributeNames.put(placeholder, name);
+                expression.add(placeholder);
+            }
+            return new Projection(expression.toString(), attributeNames);
+        }
+    }
+
+    /**
+     * Builds the transaction of the optimistic locking flow, guarded by the flight {@code Version}.
+     *
+     * @throws IllegalArgumentException for a seat booking on a flight using the {@code SeatBitmap} inventory, which
+     *                                  this transaction would leave unchanged while claiming the seat in
+     *                                  {@code ClaimedSeatMap}; see {@link SeatBitmapBookFlightRepository}
+     */
+    static TransactWriteItemsRequest optimisticBookFlightTransaction(Booking booking, Flight flight) {
+        requireClaimedSeatMap(booking, flight);
+
+        var transactionExpressions = BookFlightTransactionExpressions.of(booking, flight);
+        return bookFlightTransaction(booking, Update.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .key(FlightMapper.toDDBKeyMap(booking.flightPrimaryKey()))
+                .updateExpression(transactionExpressions.updateExpression)
+                .conditionExpression(transactionExpressions.conditionExpression)
+                .returnValuesOnConditionCheckFailure(ALL_OLD)  // Return the current flight with the cancellation reason
+                .expressionAttributeNames(transactionExpressions.expressionAttributeNames)
+                .expressionAttributeValues(transactionExpressions.expressionAttributeValues)
+                .build());
+    }
+
+    /**
+     * Rejects a seat booking on a flight read with a {@code SeatBitmap}, which claims its seats in the bitmap rather
+     * than in {@code ClaimedSeatMap}; see {@link SeatBitmapBookFlightRepository}.
+     */
+    static void requireClaimedSeatMap(Booking booking, Flight flight) {
+        if (booking.hasSeatNumber() && flight != null && flight.getSeatBitmap() != null) {
+            throw new IllegalArgumentException("Flight " + booking.getFlightNumber()
+                    + " keeps its seats in a SeatBitmap: book its seats through SeatBitmapBookFlightRepository");
+        }
+    }
+
+    /**
+     * Builds the transaction of the conditional expression flow, guarded by seat availability only. A seat booking
+     * also requires the seat to be free in {@code ClaimedSeatMap} and the flight to have no {@code SeatBitmap}.
+     */
+    static TransactWriteItemsRequest conditionalBookFlightTransaction(Booking booking) {
+        var transactionExpressions = FlightBookingTransactionExpressions.of(booking);
+        return bookFlightTransaction(booking, Update.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .key(FlightMapper.toDDBKeyMap(booking.flightPrimaryKey()))
+                .updateExpression(transactionExpressions.updateExpression)
+                .conditionExpression(transactionExpressions.conditionExpression)
+                .returnValuesOnConditionCheckFailure(ALL_OLD)  // Return the current flight with the cancellation reason
+                .expressionAttributeNames(transactionExpressions.expressionAttributeNames)
+                .expressionAttributeValues(transactionExpressions.expressionAttributeValues)
+                .build());
+    }
+
+    /**
+     * Builds the transaction of a seat booking on a flight using the compact seat inventory, guarded by the
+     * {@code SeatBitmap} the seat was found free in.
+     */
+    static TransactWriteItemsRequest seatBitmapBookFlightTransaction(Booking booking, Flight flight) {
+        var transactionExpressions = SeatBitmapTransactionExpressions.of(booking, flight);
+        return bookFlightTransaction(booking, Update.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .key(FlightMapper.toDDBKeyMap(booking.flightPrimaryKey()))
+                .updateExpression(transactionExpressions.updateExpression)
+                .conditionExpression(transactionExpressions.conditionExpression)
+                .returnValuesOnConditionCheckFailure(ALL_OLD)  // Return the current flight with the cancellation reason
+                .expressionAttributeValues(transactionExpressions.expressionAttributeValues)
+                .build());
+    }
+
+    /**
+     * Builds the transaction of a booking taking its seat from one shard of a sharded seat inventory, guarded by the
+     * availability of that shard. A seat booking also claims its seat on the flight item.
+     */
+    static TransactWriteItemsRequest shardedBookFlightTransaction(Booking booking, int shard) {
+        var transactionExpressions = ShardedInventoryTransactionExpressions.of(booking);
+        var flightKey = booking.flightPrimaryKey();
+
+        var transactItems = new ArrayList<TransactWriteItem>(3);
+        transactItems.add(TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(FLIGHT_TABLE_NAME)
+                        .key(SeatInventoryShards.shardKeyMap(flightKey, shard))
+                        .updateExpression(transactionExpressions.shardUpdateExpression)
+                        .conditionExpression(transactionExpressions.shardConditionExpression)
+                        .returnValuesOnConditionCheckFailure(ALL_OLD)  // Return the shard counters with the cancellation reason
+                        .expressionAttributeValues(transactionExpressions.shardExpressionAttributeValues)
+                        .build())
+                .build());
+
+        if (booking.hasSeatNumber()) {
+            transactItems.add(TransactWriteItem.builder()
+                    .update(Update.builder()
+                            .tableName(FLIGHT_TABLE_NAME)
+                            .key(FlightMapper.toDDBKeyMap(flightKey))
+                            .updateExpression(ShardedInventoryTransactionExpressions.SEAT_CLAIM_UPDATE_EXPRESSION)
+                            .conditionExpression(ShardedInventoryTransactionExpressions.SEAT_CLAIM_CONDITION_EXPRESSION)
+                            .expressionAttributeNames(Map.of("#seatNumber", booking.getSeatNumber()))
+                            .expressionAttributeValues(Map.of(":bookingId", AttributeValue.fromS(booking.getBookingID())))
+                            .build())
+                    .build());
+        }
+
+        transactItems.add(TransactWriteItem.builder()
+                .put(Put.builder()
+                        .tableName(BOOKING_TABLE_NAME)
+                        .item(BookingMapper.toDDBModel(booking))
+                        .build())
+                .build());
+
+        return TransactWriteItemsRequest.builder()
+                .transactItems(transactItems)
+                .build();
+    }
+
+    /**
+     * Builds one transaction holding a seat for each of {@code bookings} (none with a seat number) on the same flight:
+     * a single flight update of {@code -N} followed by the N booking puts.
+     */
+    static TransactWriteItemsRequest coalescedBookFlightTransaction(FlightPrimaryKey flightKey, List<Booking> bookings) {
+        var transactionExpressions = FlightBookingTransactionExpressions.heldSeats(bookings.size());
+
+        var transactItems = new ArrayList<TransactWriteItem>(bookings.size() + 1);
+        transactItems.add(TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(FLIGHT_TABLE_NAME)
+                        .key(FlightMapper.toDDBKeyMap(flightKey))
+                        .updateExpression(transactionExpressions.updateExpression)
+                        .conditionExpression(transactionExpressions.conditionExpression)
+                        .returnValuesOnConditionCheckFailure(ALL_OLD)  // Return the current flight with the cancellation reason
+                        .expressionAttributeValues(transactionExpressions.expressionAttributeValues)
+                        .build())
+                .build());
+
+        bookings.forEach(booking -> transactItems.add(TransactWriteItem.builder()
+                .put(Put.builder()
+                        .tableName(BOOKING_TABLE_NAME)
+                        .item(BookingMapper.toDDBModel(booking))
+                        .build())
+                .build()));
+
+        return TransactWriteItemsRequest.builder()
+                .transactItems(transactItems)
+                .build();
+    }
+
+    private static TransactWriteItemsRequest bookFlightTransaction(Booking booking, Update flightUpdate) {
+        // Define the flight update transaction item
+        var flightUpdateItem = TransactWriteItem.builder()
+                .update(flightUpdate)
+                .build();
+
+        // Define the booking insertion transaction item
+        var bookingInsertItem = TransactWriteItem.builder()
+                .put(Put.builder()
+                        .tableName(BOOKING_TABLE_NAME)
+                        .item(BookingMapper.toDDBModel(booking))
+                        .build())
+                .build();
+
+        // Combine transaction items into a transaction request
+        return TransactWriteItemsRequest.builder()
+                .transactItems(flightUpdateItem, bookingInsertItem)
+                .build();
+    }
+}
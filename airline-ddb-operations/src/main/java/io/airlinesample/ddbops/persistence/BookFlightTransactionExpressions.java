@@ -0,0 +1,77 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Builds the transaction expressions of the optimistic locking flow: the flight update is guarded by the
+ * {@code Version} read before the booking was applied.
+ * <p>
+ * The expressions are immutable templates built once per shape (with or without a seat number); only the
+ * per-booking values (expected version, seat number, booking ID) are bound at call time.
+ */
+final class BookFlightTransactionExpressions {
+
+    private static final AttributeValue SEAT_DECREMENT = AttributeValue.fromN("1");
+
+    // Optimistic locking condition to ensure version consistency
+    private static final String CONDITION_EXPRESSION = "Version = :expectedVersion";
+
+    // Update expression for cases where a specific seat is booked
+    private static final String UPDATE_EXPRESSION_WITH_SEAT = """
+            SET AvailableSeats = AvailableSeats - :seatDecrement,
+                Version = Version + :seatDecrement,
+                ClaimedSeatMap.#seatNumber = :bookingId
+            """;
+
+    // Update expression for cases where no specific seat is booked
+    private static final String UPDATE_EXPRESSION_WITHOUT_SEAT = """
+            SET AvailableSeats = AvailableSeats - :seatDecrement,
+                HeldSeats = HeldSeats + :seatDecrement,
+                Version = Version + :seatDecrement
+            """;
+
+    final String updateExpression;
+    final String conditionExpression;
+    final Map<String, String> expressionAttributeNames;
+    final Map<String, AttributeValue> expressionAttributeValues;
+
+    private BookFlightTransactionExpressions(String updateExpression,
+                                             Map<String, String> expressionAttributeNames,
+                                             Map<String, AttributeValue> expressionAttributeValues) {
+        this.updateExpression = updateExpression;
+        this.conditionExpression = CONDITION_EXPRESSION;
+        this.expressionAttributeNames = expressionAttributeNames;
+        this.expressionAttributeValues = expressionAttributeValues;
+    }
+
+    /**
+     * Binds the expressions of a booking against the flight version it was applied to.
+     */
+    static BookFlightTransactionExpressions of(Booking booking, Flight flight) {
+        var expectedVersion = AttributeValue.fromN(flight.getVersion().toString());
+
+        // Update expressions and attributes differ based on whether the booking has a specific seat
+        if (booking.hasSeatNumber()) {
+            return new BookFlightTransactionExpressions(
+                    UPDATE_EXPRESSION_WITH_SEAT,
+                    Map.of("#seatNumber", booking.getSeatNumber()),
+                    Map.of(
+                            ":seatDecrement", SEAT_DECREMENT,
+                            ":bookingId", AttributeValue.fromS(booking.getBookingID()),
+                            ":expectedVersion", expectedVersion
+                    ));
+        }
+
+        return new BookFlightTransactionExpressions(
+                UPDATE_EXPRESSION_WITHOUT_SEAT,
+                null,
+                Map.of(
+                        ":seatDecrement", SEAT_DECREMENT,
+                        ":expectedVersion", expectedVersion
+                ));
+    }
+}
@@ -0,0 +1,144 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.BookingFilter;
+import io.airlinesample.ddbops.domain.BookingHistory;
+import io.airlinesample.ddbops.domain.BookingPage;
+import lombok.RequiredArgsConstructor;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static io.airlinesample.ddbops.domain.Booking.BOOKING_ID_FIELD_NAME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Booking history read with {@code Query} on the {@code CustomerEmail} partition of the bookings table:
+ * <ul>
+ *     <li>each query has {@code Limit} set to the page size, and the next page is only queried once the stream
+ *     reaches it;</li>
+ *     <li>the departure window is a filter expression, which DynamoDB applies after the {@code Limit}: a query may
+ *     return fewer bookings than it read, even none, so a page keeps querying until it holds the page size or the
+ *     partition is exhausted. The window trims the pages, not the read capacity;</li>
+ *     <li>the cursor of a page encodes the booking ID to resume after, and becomes the {@code ExclusiveStartKey} of
+ *     the next query when the history is resumed;</li>
+ *     <li>reads are eventually consistent and project the list-view fields only.</li>
+ * </ul>
+ */
+@RequiredArgsConstructor
+public final class BookingHistoryRepository implements BookingHistory {
+
+    private final DynamoDbClient dynamoDbClient;
+
+    @Override
+    public Stream<BookingPage> streamBookings(String customerEmail, BookingFilter filter) {
+        requireNonNull(customerEmail, "customerEmail cannot be null");
+        requireNonNull(filter, "filter cannot be null");
+        var exclusiveStartBookingId = filter.cursor() == null ? null : decodeCursor(filter.cursor());
+
+        return StreamSupport.stream(
+                () -> Spliterators.spliteratorUnknownSize(new PageIterator(customerEmail, filter, exclusiveStartBookingId),
+                        Spliterator.ORDERED | Spliterator.NONNULL),
+                Spliterator.ORDERED | Spliterator.NONNULL,
+                false);
+    }
+
+    private static Long epochSeconds(LocalDateTime departure) {
+        return departure == null ? null : departure.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * The partition key is given again on resume, so the cursor only carries the booking ID to resume after.
+     */
+    private static String encodeCursor(String bookingId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bookingId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid booking history cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Fills each page with {@code pageSize} matching bookings, querying on while the departure filter leaves it short;
+     * only the last page may hold fewer.
+     */
+    private final class PageIterator implements Iterator<BookingPage> {
+
+        private final String customerEmail;
+        private final Long departureFrom;
+        private final Long departureTo;
+        private final int pageSize;
+        private String exclusiveStartBookingId;
+        private boolean exhausted;
+        private BookingPage nextPage;
+
+        PageIterator(String customerEmail, BookingFilter filter, String exclusiveStartBookingId) {
+            this.customerEmail = customerEmail;
+            this.departureFrom = epochSeconds(filter.departureFrom());
+            this.departureTo = epochSeconds(filter.departureTo());
+            this.pageSize = filter.pageSize();
+            this.exclusiveStartBookingId = exclusiveStartBookingId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextPage == null && !exhausted) {
+                nextPage = fillPage();
+            }
+            return nextPage != null;
+        }
+
+        @Override
+        public BookingPage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            var page = nextPage;
+            nextPage = null;
+            return page;
+        }
+
+        private BookingPage fillPage() {
+            var bookings = new ArrayList<Booking>(pageSize);
+            while (bookings.size() < pageSize && !exhausted) {
+                var response = dynamoDbClient.query(BookFlightRequests.findCustomerBookingsQuery(customerEmail,
+                        departureFrom, departureTo, pageSize, exclusiveStartBookingId));
+                var items = response.items();
+                var remaining = pageSize - bookings.size();
+
+                if (items.size() > remaining) {
+                    // The page fills up within this response: resume right after its last booking
+                    items.subList(0, remaining).forEach(item -> bookings.add(BookingMapper.toModel(item)));
+                    exclusiveStartBookingId = bookings.get(pageSize - 1).getBookingID();
+                } else {
+                    items.forEach(item -> bookings.add(BookingMapper.toModel(item)));
+                    if (response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()) {
+                        exclusiveStartBookingId = response.lastEvaluatedKey().get(BOOKING_ID_FIELD_NAME).s();
+                    } else {
+                        exhausted = true;
+                    }
+                }
+            }
+
+            if (bookings.isEmpty()) {
+                return null;
+            }
+            return new BookingPage(bookings, exhausted ? null : encodeCursor(exclusiveStartBookingId));
+        }
+    }
+}
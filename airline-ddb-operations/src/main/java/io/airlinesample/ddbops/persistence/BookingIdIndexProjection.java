@@ -0,0 +1,62 @@
+package io.airlinesample.ddbops.persistence;
+
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Projection of the {@code BookingIDIndex}, as provisioned by the {@code BookingIDIndexProjection} parameter of
+ * {@code cfTemplate.yaml}; it tells {@link BookingIdIndexRepository} what an index query returns.
+ * <p>
+ * Every attribute projected into a global secondary index is written twice, once in the table and once in the index,
+ * and a write to the table also writes the index whenever a projected attribute changes. A slimmer projection trims
+ * the index storage and the index writes, at the cost of a second read when the attributes needed are not in the
+ * index.
+ *
+ * @param type             {@code KEYS_ONLY}, {@code INCLUDE} or {@code ALL}
+ * @param nonKeyAttributes attributes projected besides the keys, only with {@code INCLUDE}
+ */
+public record BookingIdIndexProjection(ProjectionType type, Set<String> nonKeyAttributes) {
+
+    private static final BookingIdIndexProjection KEYS_ONLY = new BookingIdIndexProjection(ProjectionType.KEYS_ONLY, Set.of());
+    private static final BookingIdIndexProjection ALL = new BookingIdIndexProjection(ProjectionType.ALL, Set.of());
+
+    public BookingIdIndexProjection {
+        requireNonNull(type, "type cannot be null");
+        nonKeyAttributes = nonKeyAttributes == null ? Set.of() : Set.copyOf(nonKeyAttributes);
+        if ((type == ProjectionType.INCLUDE) == nonKeyAttributes.isEmpty()) {
+            throw new IllegalArgumentException("nonKeyAttributes must be given with, and only with, INCLUDE");
+        }
+    }
+
+    /**
+     * The index holds the table and index keys only: a lookup reads the booking from the table afterwards.
+     */
+    public static BookingIdIndexProjection keysOnly() {
+        return KEYS_ONLY;
+    }
+
+    /**
+     * The index holds the keys and {@code nonKeyAttributes}: a lookup returns a booking carrying those attributes only.
+     */
+    public static BookingIdIndexProjection include(String... nonKeyAttributes) {
+        return new BookingIdIndexProjection(ProjectionType.INCLUDE, Set.copyOf(List.of(nonKeyAttributes)));
+    }
+
+    /**
+     * The index holds a full copy of every booking.
+     */
+    public static BookingIdIndexProjection all() {
+        return ALL;
+    }
+
+    /**
+     * Whether an index query returns only keys, the booking being read from the table afterwards.
+     */
+    boolean readsTable() {
+        return type == ProjectionType.KEYS_ONLY;
+    }
+}
@@ -0,0 +1,146 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.BookingsById;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.airlinesample.ddbops.domain.Booking.*;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Booking lookup by ID through the {@code BookingIDIndex} global secondary index, keyed by {@code BookingID}, instead
+ * of a scan of the bookings table.
+ * <p>
+ * What a lookup costs depends on the {@link BookingIdIndexProjection} the index was provisioned with:
+ * <ul>
+ *     <li>{@code ALL} (the default, as in {@code cfTemplate.yaml}) and {@code INCLUDE}: the index query returns the
+ *     booking itself, carrying the projected attributes only with {@code INCLUDE};</li>
+ *     <li>{@code KEYS_ONLY}: the index query returns the booking key, then the booking is read from the table, with
+ *     {@code GetItem} for one booking and {@code BatchGetItem} for many.</li>
+ * </ul>
+ * All reads are eventually consistent, as index queries have to be. The batched variant runs the index queries in
+ * parallel, each on its own virtual thread, as DynamoDB has no batched index query; at most {@code parallelism}
+ * queries are in flight at once, so a lookup of many IDs neither floods the index nor gets itself throttled.
+ */
+public final class BookingIdIndexRepository implements BookingsById {
+
+    private static final int DEFAULT_PARALLELISM = 16;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final BookingIdIndexProjection indexProjection;
+    private final int parallelism;
+
+    public BookingIdIndexRepository(DynamoDbClient dynamoDbClient) {
+        this(dynamoDbClient, BookingIdIndexProjection.all());
+    }
+
+    public BookingIdIndexRepository(DynamoDbClient dynamoDbClient, BookingIdIndexProjection indexProjection) {
+        this(dynamoDbClient, indexProjection, DEFAULT_PARALLELISM);
+    }
+
+    public BookingIdIndexRepository(DynamoDbClient dynamoDbClient, BookingIdIndexProjection indexProjection, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+        this.indexProjection = requireNonNull(indexProjection, "indexProjection cannot be null");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public Optional<Booking> findBookingById(String bookingID) {
+        var indexItem = queryIndex(bookingID);
+        if (indexItem == null) {
+            return Optional.empty();
+        }
+        if (!indexProjection.readsTable()) {
+            return Optional.of(BookingMapper.toModel(indexItem));
+        }
+
+        var response = dynamoDbClient.getItem(BookFlightRequests.findBookingGetItem(
+                indexItem.get(CUSTOMER_EMAIL_FIELD_NAME).s(), bookingID, ReadOptions.eventuallyConsistent()));
+        // Deleted between the index query and the read
+        return response.hasItem() ? Optional.of(BookingMapper.toModel(response.item())) : Optional.empty();
+    }
+
+    @Override
+    public Map<String, Booking> findBookingsByIds(Collection<String> bookingIDs) {
+        var distinctIDs = new LinkedHashSet<>(bookingIDs);
+        if (distinctIDs.isEmpty()) {
+            return Map.of();
+        }
+
+        var indexItems = new ConcurrentHashMap<String, Map<String, AttributeValue>>();
+        BatchReads.runInParallel(distinctIDs.stream()
+                .<Runnable>map(bookingID -> () -> {
+                    var indexItem = queryIndex(bookingID);
+                    if (indexItem != null) {
+                        indexItems.put(bookingID, indexItem);
+                    }
+                })
+                .toList(), parallelism);
+
+        var items = indexProjection.readsTable() ? readFromTable(indexItems.values()) : indexItems;
+
+        // Back in the order the IDs were given
+        var bookings = LinkedHashMap.<String, Booking>newLinkedHashMap(items.size());
+        for (var bookingID : distinctIDs) {
+            var item = items.get(bookingID);
+            if (item != null) {
+                bookings.put(bookingID, BookingMapper.toModel(item));
+            }
+        }
+        return bookings;
+    }
+
+    /**
+     * @return the first index item of {@code bookingID}, or {@code null} when there is none
+     */
+    private Map<String, AttributeValue> queryIndex(String bookingID) {
+        requireNonNull(bookingID, "bookingID cannot be null");
+        var response = dynamoDbClient.query(BookFlightRequests.findBookingByIdQuery(bookingID, indexProjection));
+        return response.hasItems() && !response.items().isEmpty() ? response.items().getFirst() : null;
+    }
+
+    /**
+     * Reads the bookings keyed by {@code indexItems} from the table, in parallel chunks of
+     * {@value BatchReads#MAX_BATCH_GET_KEYS}.
+     *
+     * @return the bookings found by booking ID
+     */
+    private Map<String, Map<String, AttributeValue>> readFromTable(Collection<Map<String, AttributeValue>> indexItems) {
+        var keys = new ArrayList<Map<String, AttributeValue>>(indexItems.size());
+        for (var indexItem : indexItems) {
+            keys.add(Map.of(
+                    CUSTOMER_EMAIL_FIELD_NAME, indexItem.get(CUSTOMER_EMAIL_FIELD_NAME),
+                    BOOKING_ID_FIELD_NAME, indexItem.get(BOOKING_ID_FIELD_NAME)));
+        }
+
+        var found = new ConcurrentHashMap<String, Map<String, AttributeValue>>();
+        var reads = new ArrayList<Runnable>();
+        for (int from = 0; from < keys.size(); from += BatchReads.MAX_BATCH_GET_KEYS) {
+            List<Map<String, AttributeValue>> chunk = keys.subList(from, Math.min(from + BatchReads.MAX_BATCH_GET_KEYS, keys.size()));
+            reads.add(() -> {
+                var request = BookFlightRequests.findBookingsBatchGetItem(chunk, ReadOptions.eventuallyConsistent());
+                for (var item : BatchReads.readAll(dynamoDbClient, request, BOOKING_TABLE_NAME)) {
+                    found.put(item.get(BOOKING_ID_FIELD_NAME).s(), item);
+                }
+            });
+        }
+        if (!reads.isEmpty()) {
+            BatchReads.runInParallel(reads);
+        }
+        return found;
+    }
+}
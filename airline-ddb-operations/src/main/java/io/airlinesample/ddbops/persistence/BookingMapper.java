@@ -5,14 +5,16 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 import static io.airlinesample.ddbops.domain.Booking.*;
 
 final class BookingMapper {
 
+    // All booking attributes, the optional seat number included
+    private static final int BOOKING_ATTRIBUTE_COUNT = 8;
+
     static Map<String, AttributeValue> toDDBModel(final Booking booking) {
-        var bookingAttributes = new HashMap<String, AttributeValue>();
+        var bookingAttributes = HashMap.<String, AttributeValue>newHashMap(BOOKING_ATTRIBUTE_COUNT);
 
         // Populate required attributes
         bookingAttributes.put(CUSTOMER_EMAIL_FIELD_NAME, AttributeValue.fromS(booking.getCustomerEmail()));
@@ -45,15 +47,12 @@ final class BookingMapper {
     }
 
     private static String safeStringRead(Map<String, AttributeValue> row, String fieldName) {
-        return Optional.ofNullable(row.get(fieldName))
-                .map(AttributeValue::s)
-                .orElse(null);
+        var attribute = row.get(fieldName);
+        return attribute == null ? null : attribute.s();
     }
 
     private static Long safeLongRead(Map<String, AttributeValue> row, String fieldName) {
-        return Optional.ofNullable(row.get(fieldName))
-                .map(AttributeValue::n)
-                .map(Long::parseLong)
-                .orElse(null);
+        var attribute = row.get(fieldName);
+        return attribute == null || attribute.n() == null ? null : Long.parseLong(attribute.n());
     }
 }
@@ -0,0 +1,143 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read-through flight cache in front of another {@link FlightBookings}, serving the initial {@code findFlight} of the
+ * optimistic locking flow from memory instead of a strongly consistent read per booking attempt.
+ * <p>
+ * A cached flight may be stale, which is safe: the booking transaction is still guarded by
+ * {@code Version = :expectedVersion}, so a stale read only costs a failed transaction. The cache is kept close to the
+ * table by its {@code Version}:
+ * <ul>
+ *     <li>a successful booking through a delegate that {@linkplain FlightBookings#guardsFlightVersion() guards the
+ *     Version} caches the flight it wrote, with the incremented {@code Version};</li>
+ *     <li>a booking failing its flight condition caches the current flight returned with the cancellation reason;</li>
+ *     <li>any other outcome invalidates the entry, so the next booking reads the current flight from DynamoDB: other
+ *     failures, bookings without a read flight, and successful bookings through a delegate without the
+ *     {@code Version} guard, since concurrent bookings may have changed the flight in between.</li>
+ * </ul>
+ * A flight only replaces a cached one with a higher {@code Version}, so a slow read or a late booking outcome never
+ * overwrites a newer flight cached by another thread.
+ * Entries are evicted least recently used first within a lock stripe of the cache, so readers of different flights do
+ * not contend, and expire after a short TTL. Callers receive copies, so claiming a seat on a returned flight never
+ * alters the cached one.
+ */
+public final class CachingFlightBookings implements FlightBookings {
+
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final Duration DEFAULT_TTL = Duration.ofMillis(500);
+
+    private final FlightBookings delegate;
+    private final LruTtlCache<FlightPrimaryKey, Flight> flights;
+
+    public CachingFlightBookings(FlightBookings delegate) {
+        this(delegate, DEFAULT_MAX_SIZE, DEFAULT_TTL);
+    }
+
+    public CachingFlightBookings(FlightBookings delegate, int maxSize, Duration ttl) {
+        this.delegate = requireNonNull(delegate);
+        this.flights = new LruTtlCache<>(maxSize, ttl);
+    }
+
+    @Override
+    public Optional<Flight> findFlight(FlightPrimaryKey primaryKey) {
+        var cachedFlight = flights.get(primaryKey);
+        if (cachedFlight.isPresent()) {
+            return cachedFlight.map(CachingFlightBookings::copyOf);
+        }
+
+        var flight = delegate.findFlight(primaryKey);
+        flight.ifPresent(found -> cache(primaryKey, found));
+        return flight;
+    }
+
+    /**
+     * Not cached: availability lookups read the seat counters only, while the cache holds whole flights.
+     */
+    @Override
+    public Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> primaryKeys) {
+        return delegate.findFlights(primaryKeys);
+    }
+
+    @Override
+    public Optional<Booking> findBooking(String customerEmail, String bookingID) {
+        return delegate.findBooking(customerEmail, bookingID);
+    }
+
+    @Override
+    public TransactSummary transactBookFlight(Booking booking, Flight flight) {
+        var transactSummary = delegate.transactBookFlight(booking, flight);
+
+        var flightKey = booking.flightPrimaryKey();
+        if (transactSummary.success() && delegate.guardsFlightVersion() && !isNull(flight) && !isNull(flight.getVersion())) {
+            // The transaction wrote exactly this flight state and bumped its Version
+            var writtenFlight = copyOf(flight);
+            writtenFlight.setVersion(flight.getVersion() + 1);
+            flights.putIf(flightKey, writtenFlight, CachingFlightBookings::isNewer);
+        } else if (!transactSummary.success() && transactSummary.currentFlight().isPresent()) {
+            cache(flightKey, transactSummary.currentFlight().get());
+        } else {
+            flights.invalidate(flightKey);
+        }
+
+        return transactSummary;
+    }
+
+    @Override
+    public boolean guardsFlightVersion() {
+        return delegate.guardsFlightVersion();
+    }
+
+    /**
+     * Flight reads served from the cache.
+     */
+    public long cacheHits() {
+        return flights.hits();
+    }
+
+    /**
+     * Flight reads that went to DynamoDB.
+     */
+    public long cacheMisses() {
+        return flights.misses();
+    }
+
+    private void cache(FlightPrimaryKey flightKey, Flight flight) {
+        flights.putIf(flightKey, copyOf(flight), CachingFlightBookings::isNewer);
+    }
+
+    /**
+     * Unversioned flights cannot be ordered, the last one written wins.
+     */
+    private static boolean isNewer(Flight cached, Flight candidate) {
+        return isNull(cached.getVersion()) || isNull(candidate.getVersion()) || candidate.getVersion() > cached.getVersion();
+    }
+
+    private static Flight copyOf(Flight flight) {
+        return Flight.mapBuilder()
+                .routeByDay(flight.getRouteByDay())
+                .departureTime(flight.getDepartureTime())
+                .flightNumber(flight.getFlightNumber())
+                .airplaneModel(flight.getAirplaneModel())
+                .totalSeats(flight.getTotalSeats())
+                .availableSeats(flight.getAvailableSeats())
+                .heldSeats(flight.getHeldSeats())
+                .version(flight.getVersion())
+                .claimedSeatMap(isNull(flight.getClaimedSeatMap()) ? null : new HashMap<>(flight.getClaimedSeatMap()))
+                .seatBitmap(isNull(flight.getSeatBitmap()) ? null : flight.getSeatBitmap().clone())
+                .build();
+    }
+}
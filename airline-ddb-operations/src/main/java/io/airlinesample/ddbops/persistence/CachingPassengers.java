@@ -0,0 +1,146 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.domain.Passengers;
+import io.airlinesample.ddbops.domain.Preferences;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read-through passenger profile cache in front of another {@link Passengers}, so reading the preferences of the
+ * booking customer costs no round trip in the common case.
+ * <ul>
+ *     <li>Found profiles are cached for {@code ttl}: a profile change shows up on the booking path within that
+ *     time, or at once through {@link #invalidate(String)}.</li>
+ *     <li>Unknown emails are cached too, for the shorter {@code negativeTtl}, so repeated bookings of guests without a
+ *     profile do not read the table every time, while a passenger signing up is picked up soon.</li>
+ *     <li>{@link #findPassengers} serves what it can from the cache and reads the rest in one batch.</li>
+ * </ul>
+ * Entries are evicted least recently used first, per lock stripe, once {@code maxSize} emails are cached. Callers
+ * receive copies, so altering a returned profile never alters the cached one.
+ */
+public final class CachingPassengers implements Passengers {
+
+    private static final int DEFAULT_MAX_SIZE = 100_000;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    private static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private final Passengers delegate;
+    private final Duration negativeTtl;
+    private final LruTtlCache<String, Optional<Passenger>> passengers;
+
+    public CachingPassengers(Passengers delegate) {
+        this(delegate, DEFAULT_MAX_SIZE, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    public CachingPassengers(Passengers delegate, int maxSize, Duration ttl, Duration negativeTtl) {
+        this(delegate, maxSize, ttl, negativeTtl, System::nanoTime);
+    }
+
+    CachingPassengers(Passengers delegate, int maxSize, Duration ttl, Duration negativeTtl, LongSupplier nanoClock) {
+        this.delegate = requireNonNull(delegate);
+        this.negativeTtl = requireNonNull(negativeTtl, "negativeTtl cannot be null");
+        this.passengers = new LruTtlCache<>(maxSize, ttl, LruTtlCache.DEFAULT_SEGMENTS, nanoClock);
+    }
+
+    @Override
+    public Optional<Passenger> findPassenger(String emailAddress) {
+        var cached = passengers.get(emailAddress);
+        if (cached.isPresent()) {
+            return cached.get().map(CachingPassengers::copyOf);
+        }
+
+        var passenger = delegate.findPassenger(emailAddress);
+        cache(emailAddress, passenger.orElse(null));
+        return passenger;
+    }
+
+    @Override
+    public Map<String, Passenger> findPassengers(Collection<String> emailAddresses) {
+        var distinctEmails = new LinkedHashSet<>(emailAddresses);
+        var found = LinkedHashMap.<String, Passenger>newLinkedHashMap(distinctEmails.size());
+        var missed = new ArrayList<String>();
+        for (var emailAddress : distinctEmails) {
+            var cached = passengers.get(emailAddress);
+            if (cached.isEmpty()) {
+                missed.add(emailAddress);
+            } else {
+                cached.get().ifPresent(passenger -> found.put(emailAddress, copyOf(passenger)));
+            }
+        }
+        if (missed.isEmpty()) {
+            return found;
+        }
+
+        var read = delegate.findPassengers(missed);
+        for (var emailAddress : missed) {
+            cache(emailAddress, read.get(emailAddress));
+        }
+
+        // Back in the order the emails were given
+        var passengersByEmail = LinkedHashMap.<String, Passenger>newLinkedHashMap(found.size() + read.size());
+        for (var emailAddress : distinctEmails) {
+            var passenger = found.containsKey(emailAddress) ? found.get(emailAddress) : read.get(emailAddress);
+            if (passenger != null) {
+                passengersByEmail.put(emailAddress, passenger);
+            }
+        }
+        return passengersByEmail;
+    }
+
+    /**
+     * Drops the cached profile of {@code emailAddress}, e.g. once the passenger updated it.
+     */
+    public void invalidate(String emailAddress) {
+        passengers.invalidate(emailAddress);
+    }
+
+    /**
+     * Profile reads served from the cache, unknown emails included.
+     */
+    public long cacheHits() {
+        return passengers.hits();
+    }
+
+    /**
+     * Profile reads that went to DynamoDB.
+     */
+    public long cacheMisses() {
+        return passengers.misses();
+    }
+
+    private void cache(String emailAddress, Passenger passenger) {
+        if (passenger == null) {
+            passengers.put(emailAddress, Optional.empty(), negativeTtl);
+        } else {
+            passengers.put(emailAddress, Optional.of(copyOf(passenger)));
+        }
+    }
+
+    private static Passenger copyOf(Passenger passenger) {
+        var preferences = passenger.getPreferences();
+        return Passenger.builder()
+                .emailAddress(passenger.getEmailAddress())
+                .fullName(passenger.getFullName())
+                .birthday(passenger.getBirthday())
+                .frequentFlyerID(passenger.getFrequentFlyerID())
+                .preferences(isNull(preferences) ? null : Preferences.builder()
+                        .seatPreference(preferences.getSeatPreference())
+                        .mealPreference(isNull(preferences.getMealPreference()) ? null : new ArrayList<>(preferences.getMealPreference()))
+                        .timezone(preferences.getTimezone())
+                        .language(preferences.getLanguage())
+                        .accessibilityRequirements(isNull(preferences.getAccessibilityRequirements()) ? null : new ArrayList<>(preferences.getAccessibilityRequirements()))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,282 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Coalescing stage in front of a {@link FlightBookings} without optimistic locking, typically
+ * {@link ConditionalExpressionBookFlightRepository}.
+ * <p>
+ * Concurrent bookings <b>without a seat number</b> for the same flight are collected over a short window and committed
+ * as one transaction: a single flight update of {@code AvailableSeats - N, HeldSeats + N} guarded by
+ * {@code AvailableSeats >= N}, followed by the N booking puts. A hot flight item therefore sees one write per window
+ * instead of one write per booking.
+ * <p>
+ * How a batch is formed:
+ * <ul>
+ *     <li>The first booking for a flight opens a batch and becomes its leader; the others join it.</li>
+ *     <li>A leader that is the only booking of the flight in flight commits right away, so an uncontended booking
+ *     never waits for the window.</li>
+ *     <li>Otherwise the leader commits the batch when the window elapses, or as soon as it holds
+ *     {@value #MAX_BOOKINGS_PER_BATCH} bookings (one flight update plus the booking puts fill DynamoDB's 100-item
+ *     transaction limit).</li>
+ *     <li>When the flight cannot hold the whole batch, the {@code AvailableSeats} of the flight returned with the
+ *     failed condition ({@code ALL_OLD}) tell how many fit: the first bookings of the batch are coalesced again into
+ *     the seats left, the others are rejected. Should the flight not be returned, or keep changing, the bookings are
+ *     committed individually, all in parallel.</li>
+ * </ul>
+ * Bookings with a seat number are never coalesced, since each one claims a distinct map entry; they, and the single
+ * bookings of a batch, go to the delegate. So does a booking whose {@code CustomerEmail} and {@code BookingID} are
+ * already in the open batch: DynamoDB rejects a transaction writing the same item twice, which would fail the whole
+ * batch.
+ */
+public final class CoalescingBookFlightRepository implements FlightBookings {
+
+    static final int MAX_BOOKINGS_PER_BATCH = 99;
+
+    private static final Duration DEFAULT_WINDOW = Duration.ofMillis(2);
+    private static final int MAX_COALESCED_ATTEMPTS = 3;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final FlightBookings delegate;
+    private final Duration window;
+
+    private final Map<FlightPrimaryKey, Batch> openBatches = new ConcurrentHashMap<>();
+    private final Map<FlightPrimaryKey, Integer> bookingsInFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalescedTransactions = new LongAdder();
+    private final LongAdder coalescedBookings = new LongAdder();
+
+    /**
+     * @param dynamoDbClient commits the coalesced transactions
+     * @param delegate       serves the reads and the bookings that are not coalesced; must not need a {@code Version}
+     *                       increment per booking, since a coalesced transaction increments it once for the whole batch
+     */
+    public CoalescingBookFlightRepository(DynamoDbClient dynamoDbClient, FlightBookings delegate) {
+        this(dynamoDbClient, delegate, DEFAULT_WINDOW);
+    }
+
+    public CoalescingBookFlightRepository(DynamoDbClient dynamoDbClient, FlightBookings delegate, Duration window) {
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+        this.delegate = requireNonNull(delegate);
+        this.window = requireNonNull(window);
+    }
+
+    @Override
+    public Optional<Flight> findFlight(FlightPrimaryKey primaryKey) {
+        return delegate.findFlight(primaryKey);
+    }
+
+    @Override
+    public Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> primaryKeys) {
+        return delegate.findFlights(primaryKeys);
+    }
+
+    @Override
+    public Optional<Booking> findBooking(String customerEmail, String bookingID) {
+        return delegate.findBooking(customerEmail, bookingID);
+    }
+
+    @Override
+    public TransactSummary transactBookFlight(Booking booking, Flight flight) {
+        if (booking.hasSeatNumber()) {
+            return delegate.transactBookFlight(booking, flight);
+        }
+
+        var flightKey = booking.flightPrimaryKey();
+        bookingsInFlight.merge(flightKey, 1, Integer::sum);
+        try {
+            return coalesce(flightKey, booking);
+        } finally {
+            bookingsInFlight.computeIfPresent(flightKey, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private TransactSummary coalesce(FlightPrimaryKey flightKey, Booking booking) {
+        var joined = new Batch[1];
+        var position = new int[1];
+
+        // Join the open batch of the flight, or open a new one and lead it
+        openBatches.compute(flightKey, (key, batch) -> {
+            if (batch == null) {
+                batch = new Batch();
+            }
+            if (!batch.bookingKeys.add(bookingKey(booking))) {
+                return batch;  // Already in the batch: booked on its own
+            }
+            position[0] = batch.bookings.size();
+            batch.bookings.add(booking);
+            joined[0] = batch;
+
+            if (batch.bookings.size() == MAX_BOOKINGS_PER_BATCH) {
+                batch.full.countDown();
+                return null;  // Closed: the next booking opens a new batch
+            }
+            return batch;
+        });
+
+        var batch = joined[0];
+        if (batch == null) {
+            return delegate.transactBookFlight(booking, null);
+        }
+        if (position[0] == 0) {
+            try {
+                // Alone on the flight: nobody to wait for
+                if (bookingsInFlight.getOrDefault(flightKey, 1) > 1) {
+                    awaitWindow(batch);
+                }
+            } finally {
+                openBatches.remove(flightKey, batch);
+            }
+            commit(flightKey, batch);
+        }
+
+        return batch.result.join().get(position[0]);
+    }
+
+    /**
+     * Transactions that committed more than one booking.
+     */
+    public long coalescedTransactions() {
+        return coalescedTransactions.sum();
+    }
+
+    /**
+     * Bookings committed as part of a coalesced transaction.
+     */
+    public long coalescedBookings() {
+        return coalescedBookings.sum();
+    }
+
+    private void awaitWindow(Batch batch) {
+        try {
+            batch.full.await(window.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // Commit right away
+        }
+    }
+
+    /**
+     * Commits the batch and completes its result; on any failure, {@link Error}s included, the result is completed
+     * exceptionally so the joiners never stay parked on it.
+     */
+    private void commit(FlightPrimaryKey flightKey, Batch batch) {
+        try {
+            batch.result.complete(commitBookings(flightKey, List.copyOf(batch.bookings)));
+        } catch (Throwable e) {
+            batch.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private List<TransactSummary> commitBookings(FlightPrimaryKey flightKey, List<Booking> bookings) {
+        var summaries = new TransactSummary[bookings.size()];
+        // The bookings [0, pending) are still to commit, the others were rejected
+        var pending = bookings.size();
+
+        for (int attempt = 1; pending > 0; attempt++) {
+            var committing = bookings.subList(0, pending);
+            if (committing.size() == 1) {
+                summaries[0] = delegate.transactBookFlight(committing.get(0), null);
+                break;
+            }
+
+            var transactSummary = transactCoalesced(flightKey, committing);
+            if (transactSummary.success()) {
+                coalescedTransactions.increment();
+                coalescedBookings.add(committing.size());
+            }
+            if (!transactSummary.preconditionFailed()) {
+                Arrays.fill(summaries, 0, pending, transactSummary);
+                break;
+            }
+
+            // Not enough seats for the whole batch: as many of the first bookings as the flight can still hold
+            var availableSeats = transactSummary.currentFlight().map(Flight::getAvailableSeats).orElse(null);
+            if (availableSeats == null || availableSeats >= pending || attempt == MAX_COALESCED_ATTEMPTS) {
+                commitIndividually(committing, summaries);
+                break;
+            }
+            var fitting = Math.max(0, availableSeats);
+            Arrays.fill(summaries, fitting, pending, transactSummary);
+            pending = fitting;
+        }
+        return Arrays.asList(summaries);
+    }
+
+    /**
+     * Commits each booking in its own transaction, all of them at once, each on its own virtual thread.
+     */
+    private void commitIndividually(List<Booking> bookings, TransactSummary[] summaries) {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<TransactSummary>>(bookings.size());
+            for (var booking : bookings) {
+                futures.add(executor.submit(() -> delegate.transactBookFlight(booking, null)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                summaries[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while committing the bookings of a batch", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private TransactSummary transactCoalesced(FlightPrimaryKey flightKey, List<Booking> bookings) {
+        var transactionRequest = BookFlightRequests.coalescedBookFlightTransaction(flightKey, bookings);
+
+        try {
+            dynamoDbClient.transactWriteItems(transactionRequest);
+            return new TransactionSummaryResolver().dynamoTransactSummary();
+        } catch (TransactionCanceledException e) {
+            return new TransactionSummaryResolver(e).dynamoTransactSummary();
+        } catch (DynamoDbException e) {
+            return new TransactionSummaryResolver(e).dynamoTransactSummary();
+        }
+    }
+
+    private static String bookingKey(Booking booking) {
+        return booking.getCustomerEmail() + '/' + booking.getBookingID();
+    }
+
+    private static final class Batch {
+
+        // Only mutated under the openBatches entry lock, and read by the leader once the batch left the map
+        private final List<Booking> bookings = new ArrayList<>();
+        private final Set<String> bookingKeys = new HashSet<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final CompletableFuture<List<TransactSummary>> result = new CompletableFuture<>();
+    }
+}
@@ -6,14 +6,13 @@ import io.airlinesample.ddbops.domain.FlightBookings;
 import io.airlinesample.ddbops.domain.FlightPrimaryKey;
 import lombok.RequiredArgsConstructor;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 
-import static io.airlinesample.ddbops.domain.Booking.BOOKING_TABLE_NAME;
-import static io.airlinesample.ddbops.domain.Flight.FLIGHT_TABLE_NAME;
-
 /**
  * Repository implementation for flight bookings using DynamoDB.
  * <p>
@@ -30,51 +29,70 @@ import static io.airlinesample.ddbops.domain.Flight.FLIGHT_TABLE_NAME;
  * The transaction ensures that the operations are performed atomically and
  * consistent, using conditional expressions to validate that there are enough
  * available seats before making any changes.
+ * <p>
+ * Flights and bookings are read by key with {@code GetItem}, strongly consistent by default; the overloads taking
+ * {@link ReadOptions} select the consistency and the projection per call.
  */
 @RequiredArgsConstructor
 public final class ConditionalExpressionBookFlightRepository implements FlightBookings {
 
     private final DynamoDbClient dynamoDbClient;
 
+    /**
+     * Strongly consistent {@code GetItem} of the whole flight.
+     */
     @Override
     public Optional<Flight> findFlight(FlightPrimaryKey flightKey) {
-        throw new UnsupportedOperationException("findFlight is not implemented yet");
+        return findFlight(flightKey, ReadOptions.consistent());
     }
 
+    /**
+     * {@code GetItem} of a flight, e.g. {@code findFlight(flightKey, ReadOptions.flightAvailability())} for a half-cost
+     * availability check.
+     */
+    public Optional<Flight> findFlight(FlightPrimaryKey flightKey, ReadOptions readOptions) {
+        var response = dynamoDbClient.getItem(BookFlightRequests.findFlightGetItem(flightKey, readOptions));
+        return response.hasItem() ? Optional.of(FlightMapper.toModel(response.item())) : Optional.empty();
+    }
+
+    /**
+     * {@code BatchGetItem} of the seat counters, eventually consistent, in parallel chunks of 100 flights.
+     */
     @Override
-    public Optional<Booking> findBooking(String customerEmail, String bookingId) {
-        throw new UnsupportedOperationException("findBooking is not implemented yet");
+    public Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> flightKeys) {
+        return findFlights(flightKeys, ReadOptions.flightAvailability());
     }
 
+    /**
+     * {@code BatchGetItem} of flights, served as {@code readOptions} asks, in parallel chunks of 100 flights.
+     */
+    public Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> flightKeys, ReadOptions readOptions) {
+        return new BatchFlightReader(dynamoDbClient).findFlights(flightKeys, readOptions);
+    }
+
+    /**
+     * Strongly consistent {@code GetItem} of the whole booking.
+     */
     @Override
-    public TransactSummary transactBookFlight(Booking booking, Flight flight) {
-        // Create transaction expressions for conditional updates
-        var transactionExpressions = new FlightBookingTransactionExpressions(booking);
+    public Optional<Booking> findBooking(String customerEmail, String bookingId) {
+        return findBooking(customerEmail, bookingId, ReadOptions.consistent());
+    }
 
-        // Define the flight update transaction item
-        var flightUpdateItem = TransactWriteItem.builder()
-                .update(Update.builder()
-                        .tableName(FLIGHT_TABLE_NAME)
-                        .key(FlightMapper.toDDBKeyMap(booking.flightPrimaryKey()))
-                        .updateExpression(transactionExpressions.updateExpression)
-                        .conditionExpression(transactionExpressions.conditionExpression)
-                        .expressionAttributeNames(transactionExpressions.expressionAttributeNames)
-                        .expressionAttributeValues(transactionExpressions.expressionAttributeValues)
-                        .build())
-                .build();
+    /**
+     * {@code GetItem} of a booking, served as {@code readOptions} asks.
+     */
+    public Optional<Booking> findBooking(String customerEmail, String bookingId, ReadOptions readOptions) {
+        var response = dynamoDbClient.getItem(BookFlightRequests.findBookingGetItem(customerEmail, bookingId, readOptions));
+        return response.hasItem() ? Optional.of(BookingMapper.toModel(response.item())) : Optional.empty();
+    }
 
-        // Define the booking insertion transaction item
-        var bookingInsertItem = TransactWriteItem.builder()
-                .put(Put.builder()
-                        .tableName(BOOKING_TABLE_NAME)
-                        .item(BookingMapper.toDDBModel(booking))
-                        .build())
-                .build();
+    @Override
+    public TransactSummary transactBookFlight(Booking booking, Flight flight) {
+        // The flight is not needed, but when given it tells a seat the condition would reject anyway
+        BookFlightRequests.requireClaimedSeatMap(booking, flight);
 
-        // Combine transaction items into a transaction request
-        var transactionRequest = TransactWriteItemsRequest.builder()
-                .transactItems(flightUpdateItem, bookingInsertItem)
-                .build();
+        // Create the transaction request with conditional updates
+        var transactionRequest = BookFlightRequests.conditionalBookFlightTransaction(booking);
 
         // Execute the transaction and handle exceptions
         try {
@@ -86,63 +104,4 @@ public final class ConditionalExpressionBookFlightRepository implements FlightBo
             return new TransactionSummaryResolver(e).dynamoTransactSummary();
         }
     }
-
-    /**
-     * Inner class for encapsulating the logic to build conditional expressions
-     * and update expressions for flight booking operations.
-     */
-    private static final class FlightBookingTransactionExpressions {
-
-        private final String updateExpression;
-        private final String conditionExpression;
-        private final Map<String, String> expressionAttributeNames;
-        private final Map<String, AttributeValue> expressionAttributeValues;
-
-        private FlightBookingTransactionExpressions(Booking booking) {
-            if (booking.hasSeatNumber()) {
-                // Build expressions for bookings with a specific seat number
-                this.updateExpression = buildUpdateExpressionWithSeat();
-                this.conditionExpression = """
-                        AvailableSeats > :noAvailableSeats AND attribute_not_exists(ClaimedSeatMap.#seatNumber)
-                        """;
-                this.expressionAttributeNames = Map.of("#seatNumber", booking.getSeatNumber());
-                this.expressionAttributeValues = Map.of(
-                        ":one", AttributeValue.fromN("1"),
-                        ":bookingId", AttributeValue.fromS(booking.getBookingID()),
-                        ":noAvailableSeats", AttributeValue.fromN("0")
-                );
-            } else {
-                // Build expressions for bookings without a specific seat number
-                this.updateExpression = buildUpdateExpressionWithoutSeat();
-                this.conditionExpression = "AvailableSeats > :noAvailableSeats";
-                this.expressionAttributeNames = null;
-                this.expressionAttributeValues = Map.of(
-                        ":one", AttributeValue.fromN("1"),
-                        ":noAvailableSeats", AttributeValue.fromN("0")
-                );
-            }
-        }
-
-        /**
-         * Builds the update expression for bookings with a specific seat number.
-         */
-        private String buildUpdateExpressionWithSeat() {
-            return """
-                    SET AvailableSeats = AvailableSeats - :one,
-                        Version = Version + :one,
-                        ClaimedSeatMap.#seatNumber = :bookingId
-                    """;
-        }
-
-        /**
-         * Builds the update expression for bookings without a specific seat number, increment HeldSeats.
-         */
-        private String buildUpdateExpressionWithoutSeat() {
-            return """
-                    SET AvailableSeats = AvailableSeats - :one,
-                        HeldSeats = HeldSeats + :one,
-                        Version = Version + :one
-                    """;
-        }
-    }
 }
@@ -1,12 +1,21 @@
 package io.airlinesample.ddbops.persistence;
 
+import io.airlinesample.ddbops.domain.Flight;
 import io.airlinesample.ddbops.domain.FlightBookings;
 import lombok.Builder;
 
+import java.util.Optional;
+
 @Builder
 record DynamoTransactSummary(boolean success,
                              boolean preconditionFailed,
                              boolean transactionCancelled,
                              boolean genericFailure,
-                             String failureReason) implements FlightBookings.TransactSummary {
+                             String failureReason,
+                             Flight conditionCheckFailedFlight) implements FlightBookings.TransactSummary {
+
+    @Override
+    public Optional<Flight> currentFlight() {
+        return Optional.ofNullable(conditionCheckFailedFlight);
+    }
 }
@@ -0,0 +1,76 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.AsyncFlightBookings;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings.TransactSummary;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactUpdateItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Objects.requireNonNull;
+import static software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure.ALL_OLD;
+
+public final class EnhancedAsyncClientFlightBookingsRepository implements AsyncFlightBookings {
+
+    private final DynamoDbEnhancedAsyncClient enhancedAsyncClient;
+
+    private final DynamoDbAsyncTable<Flight> flightTable;
+    private final DynamoDbAsyncTable<Booking> bookingTable;
+
+    public EnhancedAsyncClientFlightBookingsRepository(DynamoDbEnhancedAsyncClient enhancedAsyncClient) {
+        this.enhancedAsyncClient = requireNonNull(enhancedAsyncClient);
+        this.flightTable = enhancedAsyncClient.table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class));
+        this.bookingTable = enhancedAsyncClient.table(Booking.BOOKING_TABLE_NAME, TableSchema.fromBean(Booking.class));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Flight>> findFlight(FlightPrimaryKey primaryKey) {
+        return flightTable.getItem(GetItemEnhancedRequest.builder()
+                        .key(Key.builder()
+                                .partitionValue(primaryKey.getPartitionKey())
+                                .sortValue(primaryKey.getSortKey())
+                                .build())
+                        .consistentRead(true)
+                        .build())
+                .thenApply(Optional::ofNullable);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Booking>> findBooking(String customerEmail, String bookingID) {
+        return bookingTable.getItem(GetItemEnhancedRequest.builder()
+                        .key(Key.builder()
+                                .partitionValue(customerEmail)
+                                .sortValue(bookingID)
+                                .build())
+                        .consistentRead(true)
+                        .build())
+                .thenApply(Optional::ofNullable);
+    }
+
+    @Override
+    public CompletableFuture<TransactSummary> transactBookFlight(Booking booking, Flight flight) {
+        var flightUpdateRequest = TransactUpdateItemEnhancedRequest.builder(Flight.class)
+                .item(flight)
+                .returnValuesOnConditionCheckFailure(ALL_OLD)
+                .build();
+
+        var writeRequest = TransactWriteItemsEnhancedRequest.builder()
+                .addPutItem(bookingTable, booking)                // Add booking creation to the transaction
+                .addUpdateItem(flightTable, flightUpdateRequest)  // Add flight update to the transaction
+                .build();
+
+        return enhancedAsyncClient.transactWriteItems(writeRequest)
+                .handle((response, throwable) -> throwable == null
+                        ? new TransactionSummaryResolver().dynamoTransactSummary()
+                        : TransactionSummaryResolver.resolve(throwable));
+    }
+}
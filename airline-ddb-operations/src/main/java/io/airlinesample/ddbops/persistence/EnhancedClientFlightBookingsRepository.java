@@ -11,9 +11,12 @@ import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.TransactUpdateItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
 import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
@@ -22,12 +25,16 @@ import static software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnCondi
 public final class EnhancedClientFlightBookingsRepository implements FlightBookings {
 
     private final DynamoDbEnhancedClient enhancedClient;
+    private final BatchFlightReader batchFlightReader;
 
     private final DynamoDbTable<Flight> flightTable;
     private final DynamoDbTable<Booking> bookingTable;
 
-    public EnhancedClientFlightBookingsRepository(DynamoDbEnhancedClient enhancedClient) {
-        this.enhancedClient = requireNonNull(enhancedClient);
+    public EnhancedClientFlightBookingsRepository(DynamoDbClient dynamoDbClient) {
+        this.enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(requireNonNull(dynamoDbClient))
+                .build();
+        this.batchFlightReader = new BatchFlightReader(dynamoDbClient);
         this.flightTable = enhancedClient.table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class));
         this.bookingTable = enhancedClient.table(Booking.BOOKING_TABLE_NAME, TableSchema.fromBean(Booking.class));
     }
@@ -35,16 +42,31 @@ public final class EnhancedClientFlightBookingsRepository implements FlightBooki
     @Override
     public Optional<Flight> findFlight(FlightPrimaryKey primaryKey) {
         var flight = flightTable.getItem(GetItemEnhancedRequest.builder()
-                .key(Key.builder()
-                        .partitionValue(primaryKey.getPartitionKey())
-                        .sortValue(primaryKey.getSortKey())
-                        .build())
+                .key(flightKey(primaryKey))
                 .consistentRead(true)
                 .build());
 
         return Optional.ofNullable(flight);
     }
 
+    /**
+     * {@code BatchGetItem} of the seat counters, eventually consistent, in parallel chunks of 100 flights. The enhanced
+     * client's {@code ReadBatch} can neither project attributes nor resubmit unprocessed keys with backoff, so the
+     * batch goes through {@link BatchFlightReader} on the low-level client, like the other repositories.
+     */
+    @Override
+    public Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> primaryKeys) {
+        return batchFlightReader.findFlights(primaryKeys, ReadOptions.flightAvailability());
+    }
+
+    /**
+     * The {@code @DynamoDbVersionAttribute} of {@link Flight} makes the enhanced client guard every flight update.
+     */
+    @Override
+    public boolean guardsFlightVersion() {
+        return true;
+    }
+
     @Override
     public Optional<Booking> findBooking(String customerEmail, String bookingID) {
         var booking = bookingTable.getItem(GetItemEnhancedRequest.builder()
@@ -79,4 +101,11 @@ public final class EnhancedClientFlightBookingsRepository implements FlightBooki
             return new TransactionSummaryResolver(e).dynamoTransactSummary();
         }
     }
+
+    private static Key flightKey(FlightPrimaryKey primaryKey) {
+        return Key.builder()
+                .partitionValue(primaryKey.getPartitionKey())
+                .sortValue(primaryKey.getSortKey())
+                .build();
+    }
 }
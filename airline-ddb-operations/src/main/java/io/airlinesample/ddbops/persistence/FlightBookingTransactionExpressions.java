@@ -0,0 +1,107 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Encapsulates the logic to build conditional expressions and update expressions for flight booking operations
+ * that rely entirely on DynamoDB conditions (no read-modify-write cycle).
+ * <p>
+ * The expressions are immutable templates built once per shape (with or without a seat number); only the
+ * per-booking values are bound at call time. A booking without a seat number binds nothing and shares one instance.
+ */
+final class FlightBookingTransactionExpressions {
+
+    private static final AttributeValue ONE = AttributeValue.fromN("1");
+    private static final AttributeValue NO_AVAILABLE_SEATS = AttributeValue.fromN("0");
+
+    // Update expression for bookings with a specific seat number
+    private static final String UPDATE_EXPRESSION_WITH_SEAT = """
+            SET AvailableSeats = AvailableSeats - :one,
+                Version = Version + :one,
+                ClaimedSeatMap.#seatNumber = :bookingId
+            """;
+    // Seats of a flight using the SeatBitmap inventory are not tracked in ClaimedSeatMap: reject the claim there
+    private static final String CONDITION_EXPRESSION_WITH_SEAT = """
+            AvailableSeats > :noAvailableSeats
+                AND attribute_not_exists(ClaimedSeatMap.#seatNumber)
+                AND attribute_not_exists(SeatBitmap)
+            """;
+
+    // Update expression for bookings without a specific seat number, increment HeldSeats
+    private static final String UPDATE_EXPRESSION_WITHOUT_SEAT = """
+            SET AvailableSeats = AvailableSeats - :one,
+                HeldSeats = HeldSeats + :one,
+                Version = Version + :one
+            """;
+    private static final String CONDITION_EXPRESSION_WITHOUT_SEAT = "AvailableSeats > :noAvailableSeats";
+
+    // Update expression holding a block of seats at once, for coalesced bookings without a seat number
+    private static final String UPDATE_EXPRESSION_HELD_SEATS = """
+            SET AvailableSeats = AvailableSeats - :seats,
+                HeldSeats = HeldSeats + :seats,
+                Version = Version + :one
+            """;
+    private static final String CONDITION_EXPRESSION_HELD_SEATS = "AvailableSeats >= :seats";
+
+    private static final FlightBookingTransactionExpressions WITHOUT_SEAT = new FlightBookingTransactionExpressions(
+            UPDATE_EXPRESSION_WITHOUT_SEAT,
+            CONDITION_EXPRESSION_WITHOUT_SEAT,
+            null,
+            Map.of(
+                    ":one", ONE,
+                    ":noAvailableSeats", NO_AVAILABLE_SEATS
+            ));
+
+    final String updateExpression;
+    final String conditionExpression;
+    final Map<String, String> expressionAttributeNames;
+    final Map<String, AttributeValue> expressionAttributeValues;
+
+    private FlightBookingTransactionExpressions(String updateExpression,
+                                                String conditionExpression,
+                                                Map<String, String> expressionAttributeNames,
+                                                Map<String, AttributeValue> expressionAttributeValues) {
+        this.updateExpression = updateExpression;
+        this.conditionExpression = conditionExpression;
+        this.expressionAttributeNames = expressionAttributeNames;
+        this.expressionAttributeValues = expressionAttributeValues;
+    }
+
+    /**
+     * Binds the expressions of a single booking.
+     */
+    static FlightBookingTransactionExpressions of(Booking booking) {
+        if (!booking.hasSeatNumber()) {
+            return WITHOUT_SEAT;
+        }
+
+        // Bind the seat number and booking ID of bookings with a specific seat number
+        return new FlightBookingTransactionExpressions(
+                UPDATE_EXPRESSION_WITH_SEAT,
+                CONDITION_EXPRESSION_WITH_SEAT,
+                Map.of("#seatNumber", booking.getSeatNumber()),
+                Map.of(
+                        ":one", ONE,
+                        ":bookingId", AttributeValue.fromS(booking.getBookingID()),
+                        ":noAvailableSeats", NO_AVAILABLE_SEATS
+                ));
+    }
+
+    /**
+     * Binds the expressions holding {@code seats} seats at once, for a block of bookings without a seat number.
+     * The condition requires enough available seats for the whole block.
+     */
+    static FlightBookingTransactionExpressions heldSeats(int seats) {
+        return new FlightBookingTransactionExpressions(
+                UPDATE_EXPRESSION_HELD_SEATS,
+                CONDITION_EXPRESSION_HELD_SEATS,
+                null,
+                Map.of(
+                        ":one", ONE,
+                        ":seats", AttributeValue.fromN(Integer.toString(seats))
+                ));
+    }
+}
@@ -4,9 +4,8 @@ import io.airlinesample.ddbops.domain.Flight;
 import io.airlinesample.ddbops.domain.FlightPrimaryKey;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 final class FlightMapper {
 
@@ -19,14 +18,6 @@ final class FlightMapper {
 
     // FIXME: Convert to instance??
     static Flight toModel(Map<String, AttributeValue> row) {
-        Map<String, String> claimedSeatMap = null;
-        if (row.containsKey(Flight.CLAIMED_SEAT_MAP_FIELD_NAME)) {
-            claimedSeatMap = row.get(Flight.CLAIMED_SEAT_MAP_FIELD_NAME).m()
-                    .entrySet()
-                    .stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().s()));
-        }
-
         return Flight.mapBuilder()
                 .routeByDay(safeStringRead(row, Flight.ROUTE_BY_DAY_FIELD_NAME)) // FIXME safe conversion?
                 .departureTime(safeStringRead(row, Flight.DEPARTURE_TIME_FIELD_NAME))
@@ -36,27 +27,43 @@ final class FlightMapper {
                 .availableSeats(safeIntegerRead(row, Flight.AVAILABLE_SEATS_FIELD_NAME))
                 .heldSeats(safeIntegerRead(row, Flight.HELD_SEATS_FIELD_NAME))
                 .version(safeLongRead(row, Flight.VERSION_FIELD_NAME))
-                .claimedSeatMap(claimedSeatMap)
+                .claimedSeatMap(claimedSeatMapRead(row))
+                .seatBitmap(safeBytesRead(row, Flight.SEAT_BITMAP_FIELD_NAME))
                 .build();
     }
 
+    private static Map<String, String> claimedSeatMapRead(Map<String, AttributeValue> row) {
+        var attribute = row.get(Flight.CLAIMED_SEAT_MAP_FIELD_NAME);
+        if (attribute == null) {
+            return null;
+        }
+
+        // Decoded on every optimistic booking: size the map once, no stream pipeline
+        var seats = attribute.m();
+        var claimedSeatMap = HashMap.<String, String>newHashMap(seats.size());
+        for (var seat : seats.entrySet()) {
+            claimedSeatMap.put(seat.getKey(), seat.getValue().s());
+        }
+        return claimedSeatMap;
+    }
+
     private static String safeStringRead(Map<String, AttributeValue> row, String fieldName) {
-        return Optional.ofNullable(row.get(fieldName))
-                .map(AttributeValue::s)
-                .orElse(null);
+        var attribute = row.get(fieldName);
+        return attribute == null ? null : attribute.s();
+    }
+
+    private static byte[] safeBytesRead(Map<String, AttributeValue> row, String fieldName) {
+        var attribute = row.get(fieldName);
+        return attribute == null || attribute.b() == null ? null : attribute.b().asByteArray();
     }
 
     private static Long safeLongRead(Map<String, AttributeValue> row, String fieldName) {
-        return Optional.ofNullable(row.get(fieldName))
-                .map(AttributeValue::n)
-                .map(Long::parseLong)
-                .orElse(null);
+        var attribute = row.get(fieldName);
+        return attribute == null || attribute.n() == null ? null : Long.parseLong(attribute.n());
     }
 
     private static Integer safeIntegerRead(Map<String, AttributeValue> row, String fieldName) {
-        return Optional.ofNullable(row.get(fieldName))
-                .map(AttributeValue::n)
-                .map(Integer::parseInt)
-                .orElse(null);
+        var attribute = row.get(fieldName);
+        return attribute == null || attribute.n() == null ? null : Integer.parseInt(attribute.n());
     }
 }
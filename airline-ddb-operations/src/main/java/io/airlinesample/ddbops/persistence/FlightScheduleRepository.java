@@ -0,0 +1,194 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.domain.FlightSchedule;
+import io.airlinesample.ddbops.domain.TimeRange;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static io.airlinesample.ddbops.domain.Flight.*;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Departures of a route read with {@code Query} on the {@code RouteByDay} partition of each day, with the key condition
+ * {@code DepartureTime BETWEEN :from AND :to}:
+ * <ul>
+ *     <li>pages of {@code pageSize} items are fetched on demand, following {@code LastEvaluatedKey}, so only the pages
+ *     a consumer actually reaches are paid for;</li>
+ *     <li>reads are eventually consistent (half the read capacity) and project the flight attributes only, leaving
+ *     {@code ClaimedSeatMap} and {@code SeatBitmap} off the wire;</li>
+ *     <li>the shard items of a sharded flight (see {@link SeatInventoryShards}) sort right after the flight item and are
+ *     folded into it, so callers see the summed seat counters, even when a page ends between the flight and its
+ *     shards;</li>
+ *     <li>over several days, the day partitions are queried in parallel, up to {@value #MAX_CONCURRENT_DAYS} at once,
+ *     and the flights are emitted in date order.</li>
+ * </ul>
+ * Besides the {@link Stream}s of {@link FlightSchedule}, {@link #flightsOnRoute} exposes the same queries as a
+ * {@link Flowable}, whose requests drive the page fetches.
+ */
+public final class FlightScheduleRepository implements FlightSchedule {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_CONCURRENT_DAYS = 8;
+
+    private static final String ROUTE_BY_DAY_KEY_CONDITION = String.format("%s = :PK AND %s BETWEEN :from AND :to",
+            ROUTE_BY_DAY_FIELD_NAME, DEPARTURE_TIME_FIELD_NAME);
+
+    // Shard sort keys extend the flight one (0800#SHARD#03): '~' sorts after them, keeping the shards of the last flight
+    private static final String LAST_SORT_KEY_SUFFIX = "~";
+
+    private static final String FLIGHT_PROJECTION = String.join(", ",
+            ROUTE_BY_DAY_FIELD_NAME,
+            DEPARTURE_TIME_FIELD_NAME,
+            FLIGHT_NUMBER_FIELD_NAME,
+            AIRPLANE_MODEL_FIELD_NAME,
+            TOTAL_SEATS_FIELD_NAME,
+            AVAILABLE_SEATS_FIELD_NAME,
+            HELD_SEATS_FIELD_NAME);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final int pageSize;
+
+    public FlightScheduleRepository(DynamoDbClient dynamoDbClient) {
+        this(dynamoDbClient, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * @param pageSize items read per {@code Query} call, shard items included
+     */
+    public FlightScheduleRepository(DynamoDbClient dynamoDbClient, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public Stream<Flight> findFlightsOnRoute(String source, String destination, LocalDate date, TimeRange timeRange) {
+        var query = routeByDayQuery(source, destination, date, timeRange);
+        return StreamSupport.stream(
+                () -> Spliterators.spliteratorUnknownSize(flights(query), Spliterator.ORDERED | Spliterator.NONNULL),
+                Spliterator.ORDERED | Spliterator.NONNULL,
+                false);
+    }
+
+    @Override
+    public Stream<Flight> findFlightsOnRoute(String source, String destination, LocalDate firstDate,
+                                             LocalDate lastDate, TimeRange timeRange) {
+        // Closing the stream cancels the day queries still running
+        return flightsOnRoute(source, destination, firstDate, lastDate, timeRange).blockingStream(pageSize);
+    }
+
+    /**
+     * Flights of a route on {@code date}; every subscription runs its own query, on the subscribing thread.
+     */
+    public Flowable<Flight> flightsOnRoute(String source, String destination, LocalDate date, TimeRange timeRange) {
+        var query = routeByDayQuery(source, destination, date, timeRange);
+        return Flowable.fromIterable(() -> flights(query));
+    }
+
+    /**
+     * Flights of a route from {@code firstDate} to {@code lastDate}, both included; the days are queried on the
+     * {@link Schedulers#io()} threads.
+     */
+    public Flowable<Flight> flightsOnRoute(String source, String destination, LocalDate firstDate, LocalDate lastDate,
+                                           TimeRange timeRange) {
+        requireNonNull(firstDate, "firstDate cannot be null");
+        requireNonNull(lastDate, "lastDate cannot be null");
+        if (lastDate.isBefore(firstDate)) {
+            throw new IllegalArgumentException("lastDate cannot be before firstDate");
+        }
+
+        var days = firstDate.datesUntil(lastDate.plusDays(1)).toList();
+        return Flowable.fromIterable(days)
+                .concatMapEager(day -> flightsOnRoute(source, destination, day, timeRange).subscribeOn(Schedulers.io()),
+                        MAX_CONCURRENT_DAYS, pageSize);
+    }
+
+    private QueryRequest routeByDayQuery(String source, String destination, LocalDate date, TimeRange timeRange) {
+        requireNonNull(date, "date cannot be null");
+        requireNonNull(timeRange, "timeRange cannot be null");
+        var from = new FlightPrimaryKey(source, destination, LocalDateTime.of(date, timeRange.earliest()));
+        var to = new FlightPrimaryKey(source, destination, LocalDateTime.of(date, timeRange.latest()));
+
+        return QueryRequest.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .keyConditionExpression(ROUTE_BY_DAY_KEY_CONDITION)
+                .expressionAttributeValues(Map.of(
+                        ":PK", AttributeValue.fromS(from.getPartitionKey()),
+                        ":from", AttributeValue.fromS(from.getSortKey()),
+                        ":to", AttributeValue.fromS(to.getSortKey() + LAST_SORT_KEY_SUFFIX)
+                ))
+                .projectionExpression(FLIGHT_PROJECTION)
+                .consistentRead(false)
+                .limit(pageSize)
+                .build();
+    }
+
+    private Iterator<Flight> flights(QueryRequest query) {
+        return new ShardFoldingIterator(dynamoDbClient.queryPaginator(query).items().iterator());
+    }
+
+    /**
+     * Folds the shard items following a flight item into that flight; the next page is only requested once the
+     * current one is consumed.
+     */
+    private static final class ShardFoldingIterator implements Iterator<Flight> {
+
+        private final Iterator<Map<String, AttributeValue>> items;
+        private Map<String, AttributeValue> pendingFlightItem;
+
+        ShardFoldingIterator(Iterator<Map<String, AttributeValue>> items) {
+            this.items = items;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pendingFlightItem == null && items.hasNext()) {
+                var item = items.next();
+                // Shard items left without their flight item are skipped
+                if (!SeatInventoryShards.isShardSortKey(item.get(DEPARTURE_TIME_FIELD_NAME).s())) {
+                    pendingFlightItem = item;
+                }
+            }
+            return pendingFlightItem != null;
+        }
+
+        @Override
+        public Flight next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            var flightItem = pendingFlightItem;
+            pendingFlightItem = null;
+            List<Map<String, AttributeValue>> shardItems = new ArrayList<>();
+            while (items.hasNext()) {
+                var item = items.next();
+                if (!SeatInventoryShards.isShardSortKey(item.get(DEPARTURE_TIME_FIELD_NAME).s())) {
+                    pendingFlightItem = item;
+                    break;
+                }
+                shardItems.add(item);
+            }
+            return new SeatInventoryShards.Inventory(flightItem, shardItems).flight();
+        }
+    }
+}
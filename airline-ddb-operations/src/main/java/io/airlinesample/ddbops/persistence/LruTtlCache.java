@@ -0,0 +1,179 @@
+package io.airlinesample.ddbops.persistence;
+
+import java.io.Serial;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded in-memory cache evicting the least recently used entry once {@code maxSize} is reached, and expiring
+ * entries {@code ttl} after they were written, or after the TTL given when writing them.
+ * <p>
+ * Even a read reorders an access-ordered {@link LinkedHashMap}, so each read takes a lock. To keep the readers of
+ * different keys from queuing on one monitor, the keys are spread by hash over up to {@value #DEFAULT_SEGMENTS}
+ * segments, each an LRU map of its share of {@code maxSize} behind its own lock. The price is that eviction is least
+ * recently used within a segment rather than across the whole cache; readers of the same key still serialize, which
+ * is cheap next to the DynamoDB round trip they save.
+ */
+final class LruTtlCache<K, V> {
+
+    static final int DEFAULT_SEGMENTS = 16;
+
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final Segment<K, V>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    LruTtlCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, DEFAULT_SEGMENTS, System::nanoTime);
+    }
+
+    /**
+     * @param segments upper bound of the lock stripes, rounded down to a power of two and to at most {@code maxSize}
+     */
+    LruTtlCache(int maxSize, Duration ttl, int segments, LongSupplier nanoClock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        if (segments < 1) {
+            throw new IllegalArgumentException("segments must be greater than 0");
+        }
+
+        this.ttlNanos = requireNonNull(ttl, "ttl cannot be null").toNanos();
+        this.nanoClock = requireNonNull(nanoClock);
+
+        // Every segment holds at least one entry, and the segment sizes add up to maxSize
+        var segmentCount = Integer.highestOneBit(Math.min(segments, maxSize));
+        this.segments = newSegments(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment<>(maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    Optional<V> get(K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            var entry = segment.get(key);
+            if (entry == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+
+            if (nanoClock.getAsLong() - entry.expiresAtNanos >= 0) {
+                segment.remove(key);
+                misses.increment();
+                return Optional.empty();
+            }
+
+            hits.increment();
+            return Optional.of(entry.value);
+        }
+    }
+
+    void put(K key, V value) {
+        put(key, value, ttlNanos);
+    }
+
+    /**
+     * Caches {@code value} for {@code ttl} instead of the TTL of the cache, e.g. a shorter one for negative entries.
+     */
+    void put(K key, V value, Duration ttl) {
+        put(key, value, ttl.toNanos());
+    }
+
+    private void put(K key, V value, long ttlNanos) {
+        requireNonNull(value);
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry<>(value, nanoClock.getAsLong() + ttlNanos));
+        }
+    }
+
+    /**
+     * Caches {@code value} unless the key holds a live entry that {@code replaces} rejects, e.g. a newer version of
+     * the value; expired entries are always replaced.
+     *
+     * @param replaces tests whether {@code value} (second argument) may replace the cached value (first argument)
+     */
+    void putIf(K key, V value, BiPredicate<? super V, ? super V> replaces) {
+        requireNonNull(value);
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            var now = nanoClock.getAsLong();
+            segment.compute(key, (ignored, entry) -> entry == null || now - entry.expiresAtNanos >= 0 || replaces.test(entry.value, value)
+                    ? new Entry<>(value, now + ttlNanos)
+                    : entry);
+        }
+    }
+
+    void invalidate(K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    int size() {
+        var size = 0;
+        for (var segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Java cannot create an array of a generic type, so a wildcard array is cast; it only ever holds
+     * {@code Segment<K, V>}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] newSegments(int segmentCount) {
+        return (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        var hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+    }
+
+    /**
+     * Access-ordered map of one lock stripe, only used while holding its monitor.
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
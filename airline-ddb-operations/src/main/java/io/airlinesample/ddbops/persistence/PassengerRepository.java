@@ -0,0 +1,97 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.domain.Passengers;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.airlinesample.ddbops.domain.Passenger.EMAIL_ADDRESS_FIELD_NAME;
+import static io.airlinesample.ddbops.domain.Passenger.PASSENGER_TABLE_NAME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Passenger profiles read from the {@code passengers} table, eventually consistent (profiles change rarely, and half
+ * the read capacity of a strongly consistent read):
+ * <ul>
+ *     <li>{@code GetItem} for one passenger;</li>
+ *     <li>{@code BatchGetItem} for many, deduplicated, in parallel chunks of {@value BatchReads#MAX_BATCH_GET_KEYS}
+ *     emails, resubmitting any {@code UnprocessedKeys}.</li>
+ * </ul>
+ * Put {@link CachingPassengers} in front of it on the booking path.
+ */
+public final class PassengerRepository implements Passengers {
+
+    // Building a bean schema is expensive, mapping with it is not
+    private static final TableSchema<Passenger> PASSENGER_SCHEMA = TableSchema.fromBean(Passenger.class);
+
+    private final DynamoDbClient dynamoDbClient;
+
+    public PassengerRepository(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+    }
+
+    @Override
+    public Optional<Passenger> findPassenger(String emailAddress) {
+        var response = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(PASSENGER_TABLE_NAME)
+                .key(keyMap(emailAddress))
+                .consistentRead(false)
+                .build());
+        return response.hasItem() && !response.item().isEmpty()
+                ? Optional.of(PASSENGER_SCHEMA.mapToItem(response.item()))
+                : Optional.empty();
+    }
+
+    @Override
+    public Map<String, Passenger> findPassengers(Collection<String> emailAddresses) {
+        var keys = new ArrayList<>(new LinkedHashSet<>(emailAddresses));
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+
+        var found = new ConcurrentHashMap<String, Passenger>();
+        var reads = new ArrayList<Runnable>();
+        for (int from = 0; from < keys.size(); from += BatchReads.MAX_BATCH_GET_KEYS) {
+            var chunk = keys.subList(from, Math.min(from + BatchReads.MAX_BATCH_GET_KEYS, keys.size()));
+            reads.add(() -> {
+                var request = BatchGetItemRequest.builder()
+                        .requestItems(Map.of(PASSENGER_TABLE_NAME, KeysAndAttributes.builder()
+                                .keys(chunk.stream().map(PassengerRepository::keyMap).toList())
+                                .consistentRead(false)
+                                .build()))
+                        .build();
+                for (var item : BatchReads.readAll(dynamoDbClient, request, PASSENGER_TABLE_NAME)) {
+                    var passenger = PASSENGER_SCHEMA.mapToItem(item);
+                    found.put(passenger.getEmailAddress(), passenger);
+                }
+            });
+        }
+        BatchReads.runInParallel(reads);
+
+        // Back in the order the emails were given
+        var passengers = LinkedHashMap.<String, Passenger>newLinkedHashMap(found.size());
+        for (var emailAddress : keys) {
+            var passenger = found.get(emailAddress);
+            if (passenger != null) {
+                passengers.put(emailAddress, passenger);
+            }
+        }
+        return passengers;
+    }
+
+    private static Map<String, AttributeValue> keyMap(String emailAddress) {
+        return Map.of(EMAIL_ADDRESS_FIELD_NAME, AttributeValue.fromS(requireNonNull(emailAddress, "emailAddress cannot be null")));
+    }
+}
@@ -0,0 +1,62 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Flight;
+import lombok.Builder;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How a single-item read is served.
+ * <p>
+ * An eventually consistent read costs half the read capacity of a strongly consistent one, but may miss a write made
+ * in the last second or so: fine for availability checks and listings, not for the read of a read-modify-write cycle.
+ * A projection does not lower the capacity consumed, which DynamoDB derives from the full item size, but keeps large
+ * attributes such as {@code ClaimedSeatMap} off the wire and out of the mapping. The key attributes are always read,
+ * so the mapped models keep their identity.
+ *
+ * @param consistentRead {@code true} for a strongly consistent read
+ * @param projection     attributes to read, all of them when empty or {@code null}
+ */
+@Builder(toBuilder = true)
+public record ReadOptions(boolean consistentRead, Set<String> projection) {
+
+    private static final ReadOptions CONSISTENT = new ReadOptions(true, Set.of());
+    private static final ReadOptions EVENTUALLY_CONSISTENT = new ReadOptions(false, Set.of());
+    private static final ReadOptions FLIGHT_AVAILABILITY = new ReadOptions(false, Set.of(
+            Flight.TOTAL_SEATS_FIELD_NAME,
+            Flight.AVAILABLE_SEATS_FIELD_NAME,
+            Flight.HELD_SEATS_FIELD_NAME));
+
+    public ReadOptions {
+        projection = projection == null ? Set.of() : Set.copyOf(projection);
+    }
+
+    /**
+     * Strongly consistent read of the whole item.
+     */
+    public static ReadOptions consistent() {
+        return CONSISTENT;
+    }
+
+    /**
+     * Half-cost, eventually consistent read of the whole item.
+     */
+    public static ReadOptions eventuallyConsistent() {
+        return EVENTUALLY_CONSISTENT;
+    }
+
+    /**
+     * Half-cost, eventually consistent read of the seat counters of a flight, for read-heavy availability checks.
+     */
+    public static ReadOptions flightAvailability() {
+        return FLIGHT_AVAILABILITY;
+    }
+
+    /**
+     * Same consistency, reading only {@code attributeNames} (and the key).
+     */
+    public ReadOptions withProjection(String... attributeNames) {
+        return new ReadOptions(consistentRead, Set.copyOf(List.of(attributeNames)));
+    }
+}
@@ -0,0 +1,78 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Repository for flights whose seat inventory uses the compact {@code SeatBitmap} encoding instead of
+ * {@code ClaimedSeatMap} (see {@link Flight#encodeSeatsAsBitmap()}). Booking IDs are not stored on the flight: the
+ * booking item records its seat number.
+ * <p>
+ * The {@code transactBookFlight} method performs a transactional operation that:
+ * <ul>
+ *     <li>for a seat booking, writes the flight bitmap with the seat occupied, guarded by compare-and-swap on the
+ *     bitmap the seat was found free in; the flight must have been read and the seat claimed on it first;</li>
+ *     <li>for a booking without a seat number, holds a seat guarded by seat availability only, no read needed;</li>
+ *     <li>inserts the new booking record into the booking table.</li>
+ * </ul>
+ * Flights stored with a {@code ClaimedSeatMap} must keep being booked through the other repositories, which in turn
+ * reject seat bookings on flights stored with a {@code SeatBitmap}.
+ */
+public final class SeatBitmapBookFlightRepository implements FlightBookings {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final SimpleClientBookFlightRepository finder;
+
+    public SeatBitmapBookFlightRepository(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+        this.finder = new SimpleClientBookFlightRepository(dynamoDbClient);
+    }
+
+    @Override
+    public Optional<Flight> findFlight(FlightPrimaryKey primaryKey) {
+        return finder.findFlight(primaryKey);
+    }
+
+    @Override
+    public Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> primaryKeys) {
+        return finder.findFlights(primaryKeys);
+    }
+
+    @Override
+    public Optional<Booking> findBooking(String customerEmail, String bookingID) {
+        return finder.findBooking(customerEmail, bookingID);
+    }
+
+    @Override
+    public TransactSummary transactBookFlight(Booking booking, Flight flight) {
+        if (booking.hasSeatNumber() && (isNull(flight) || isNull(flight.getSeatBitmap()))) {
+            throw new IllegalArgumentException("A seat booking needs the flight, read with its SeatBitmap, to claim the seat on");
+        }
+
+        var transactionRequest = booking.hasSeatNumber()
+                ? BookFlightRequests.seatBitmapBookFlightTransaction(booking, flight)
+                : BookFlightRequests.conditionalBookFlightTransaction(booking);
+
+        // Execute the transaction and handle exceptions
+        try {
+            dynamoDbClient.transactWriteItems(transactionRequest);
+            return new TransactionSummaryResolver().dynamoTransactSummary();
+        } catch (TransactionCanceledException e) {
+            return new TransactionSummaryResolver(e).dynamoTransactSummary();
+        } catch (DynamoDbException e) {
+            return new TransactionSummaryResolver(e).dynamoTransactSummary();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.SeatBitmap;
+import io.airlinesample.ddbops.domain.SeatLayout;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Builds the transaction expressions of a seat booking on the compact seat inventory ({@link SeatBitmap}).
+ * <p>
+ * DynamoDB expressions cannot test a single bit of a binary attribute, so seat availability is checked by
+ * compare-and-swap on the whole bitmap: the update writes the bitmap with the seat occupied, on condition that the
+ * stored bitmap is still the one the seat was found free in. Unlike the {@code Version} condition, bookings without a
+ * seat number (which leave the bitmap untouched) never invalidate a seat booking.
+ */
+final class SeatBitmapTransactionExpressions {
+
+    private static final AttributeValue ONE = AttributeValue.fromN("1");
+    private static final AttributeValue NO_AVAILABLE_SEATS = AttributeValue.fromN("0");
+
+    private static final String UPDATE_EXPRESSION = """
+            SET AvailableSeats = AvailableSeats - :one,
+                Version = Version + :one,
+                SeatBitmap = :seatBitmap
+            """;
+    private static final String CONDITION_EXPRESSION = "AvailableSeats > :noAvailableSeats AND SeatBitmap = :expectedSeatBitmap";
+
+    final String updateExpression;
+    final String conditionExpression;
+    final Map<String, AttributeValue> expressionAttributeValues;
+
+    private SeatBitmapTransactionExpressions(Map<String, AttributeValue> expressionAttributeValues) {
+        this.updateExpression = UPDATE_EXPRESSION;
+        this.conditionExpression = CONDITION_EXPRESSION;
+        this.expressionAttributeValues = expressionAttributeValues;
+    }
+
+    /**
+     * Binds the expressions of a seat booking against {@code flight}, on which the seat has already been claimed.
+     */
+    static SeatBitmapTransactionExpressions of(Booking booking, Flight flight) {
+        var layout = SeatLayout.forAirplaneModel(flight.getAirplaneModel());
+        var seatIndex = layout.map(seatLayout -> seatLayout.seatIndex(booking.getSeatNumber())).orElse(-1);
+        if (seatIndex < 0 || seatIndex >= layout.get().capacity()) {
+            throw new IllegalArgumentException("Seat " + booking.getSeatNumber() + " is out of the "
+                    + flight.getAirplaneModel() + " seat layout");
+        }
+        if (!SeatBitmap.isOccupied(flight.getSeatBitmap(), seatIndex)) {
+            throw new IllegalArgumentException("Seat " + booking.getSeatNumber() + " is not claimed on the flight seat bitmap");
+        }
+
+        // The expected bitmap is the stored one exactly as read, byte for byte: the claimed bitmap without this
+        // booking's seat may be longer when claiming it grew the array, and would then never match
+        var expectedSeatBitmap = isNull(flight.getSeatBitmapAsRead())
+                ? SeatBitmap.withFree(flight.getSeatBitmap(), seatIndex)
+                : flight.getSeatBitmapAsRead();
+
+        return new SeatBitmapTransactionExpressions(Map.of(
+                ":one", ONE,
+                ":noAvailableSeats", NO_AVAILABLE_SEATS,
+                ":seatBitmap", AttributeValue.fromB(SdkBytes.fromByteArray(flight.getSeatBitmap())),
+                ":expectedSeatBitmap", AttributeValue.fromB(SdkBytes.fromByteArray(expectedSeatBitmap))
+        ));
+    }
+}
@@ -0,0 +1,217 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.airlinesample.ddbops.domain.Flight.*;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Manages the sharded seat inventory of flights (see {@link ShardedInventoryBookFlightRepository}).
+ * <ul>
+ *     <li>{@link #split} moves the available seats of a flight into shard items, ahead of a flash sale.</li>
+ *     <li>{@link #rebalance} spreads the seats left across the shards again, since random shard picks drain them
+ *     unevenly; run it periodically while the flight is selling.</li>
+ * </ul>
+ * Both are single transactions guarded by the counters they read, so the total number of seats never changes: a
+ * concurrent booking makes them fail, and they are retried from a fresh read.
+ */
+public final class SeatInventoryReconciler {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final AttributeValue ZERO = AttributeValue.fromN("0");
+    private static final AttributeValue ONE = AttributeValue.fromN("1");
+
+    private static final String SPLIT_UPDATE_EXPRESSION = """
+            SET AvailableSeats = :zero,
+                InventoryShards = :shards,
+                Version = Version + :one
+            """;
+    private static final String SPLIT_CONDITION_EXPRESSION =
+            "AvailableSeats = :availableSeats AND attribute_not_exists(InventoryShards)";
+    private static final String SHARD_PUT_CONDITION_EXPRESSION = "attribute_not_exists(DepartureTime)";
+
+    private static final String REBALANCE_UPDATE_EXPRESSION = "SET AvailableSeats = :targetSeats";
+    private static final String REBALANCE_CONDITION_EXPRESSION = "AvailableSeats = :observedSeats";
+
+    private final DynamoDbClient dynamoDbClient;
+
+    public SeatInventoryReconciler(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+    }
+
+    /**
+     * Splits the available seats of a flight evenly across {@code shards} shard items.
+     *
+     * @return {@code true} when the flight was split, {@code false} when concurrent bookings kept changing it
+     * @throws IllegalArgumentException when the flight does not exist or {@code shards} is out of range
+     * @throws IllegalStateException    when the flight is already sharded
+     */
+    public boolean split(FlightPrimaryKey flightKey, int shards) {
+        if (shards < 2 || shards > SeatInventoryShards.MAX_SHARDS) {
+            throw new IllegalArgumentException("shards must be between 2 and " + SeatInventoryShards.MAX_SHARDS);
+        }
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            var inventory = read(flightKey);
+            if (inventory.sharded()) {
+                throw new IllegalStateException("Flight is already sharded: " + flightKey);
+            }
+
+            var availableSeats = inventory.flight().getAvailableSeats();
+            if (tryTransact(splitTransaction(flightKey, availableSeats, shards))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Spreads the seats left on a sharded flight evenly across its shards. Only the shards whose count changes are
+     * written.
+     *
+     * @return {@code true} when the shards are balanced, {@code false} when concurrent bookings kept changing them
+     * @throws IllegalArgumentException when the flight does not exist or is not sharded
+     */
+    public boolean rebalance(FlightPrimaryKey flightKey) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            var inventory = read(flightKey);
+            if (!inventory.sharded()) {
+                throw new IllegalArgumentException("Flight is not sharded: " + flightKey);
+            }
+
+            var observedSeats = new int[inventory.shards()];
+            for (int shard = 0; shard < observedSeats.length; shard++) {
+                observedSeats[shard] = inventory.availableSeats(shard);
+            }
+
+            var transactItems = rebalanceItems(flightKey, observedSeats, targetSeats(observedSeats));
+            if (transactItems.isEmpty() || tryTransact(TransactWriteItemsRequest.builder().transactItems(transactItems).build())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SeatInventoryShards.Inventory read(FlightPrimaryKey flightKey) {
+        return SeatInventoryShards.read(dynamoDbClient, flightKey)
+                .orElseThrow(() -> new IllegalArgumentException("Flight not found: " + flightKey));
+    }
+
+    private boolean tryTransact(TransactWriteItemsRequest transactionRequest) {
+        try {
+            dynamoDbClient.transactWriteItems(transactionRequest);
+            return true;
+        } catch (TransactionCanceledException e) {
+            return false;  // A counter changed since it was read
+        }
+    }
+
+    private static TransactWriteItemsRequest splitTransaction(FlightPrimaryKey flightKey, int availableSeats, int shards) {
+        var transactItems = new ArrayList<TransactWriteItem>(shards + 1);
+        transactItems.add(TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(FLIGHT_TABLE_NAME)
+                        .key(FlightMapper.toDDBKeyMap(flightKey))
+                        .updateExpression(SPLIT_UPDATE_EXPRESSION)
+                        .conditionExpression(SPLIT_CONDITION_EXPRESSION)
+                        .expressionAttributeValues(Map.of(
+                                ":zero", ZERO,
+                                ":one", ONE,
+                                ":shards", AttributeValue.fromN(Integer.toString(shards)),
+                                ":availableSeats", AttributeValue.fromN(Integer.toString(availableSeats))
+                        ))
+                        .build())
+                .build());
+
+        var shardSeats = evenly(availableSeats, shards);
+        for (int shard = 0; shard < shards; shard++) {
+            var shardItem = new HashMap<>(SeatInventoryShards.shardKeyMap(flightKey, shard));
+            shardItem.put(AVAILABLE_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(shardSeats[shard])));
+            shardItem.put(HELD_SEATS_FIELD_NAME, ZERO);
+
+            transactItems.add(TransactWriteItem.builder()
+                    .put(Put.builder()
+                            .tableName(FLIGHT_TABLE_NAME)
+                            .item(shardItem)
+                            .conditionExpression(SHARD_PUT_CONDITION_EXPRESSION)
+                            .build())
+                    .build());
+        }
+
+        return TransactWriteItemsRequest.builder()
+                .transactItems(transactItems)
+                .build();
+    }
+
+    private static ArrayList<TransactWriteItem> rebalanceItems(FlightPrimaryKey flightKey, int[] observedSeats, int[] targetSeats) {
+        var transactItems = new ArrayList<TransactWriteItem>();
+        for (int shard = 0; shard < observedSeats.length; shard++) {
+            if (observedSeats[shard] == targetSeats[shard]) {
+                continue;
+            }
+
+            transactItems.add(TransactWriteItem.builder()
+                    .update(Update.builder()
+                            .tableName(FLIGHT_TABLE_NAME)
+                            .key(SeatInventoryShards.shardKeyMap(flightKey, shard))
+                            .updateExpression(REBALANCE_UPDATE_EXPRESSION)
+                            .conditionExpression(REBALANCE_CONDITION_EXPRESSION)
+                            .expressionAttributeValues(Map.of(
+                                    ":targetSeats", AttributeValue.fromN(Integer.toString(targetSeats[shard])),
+                                    ":observedSeats", AttributeValue.fromN(Integer.toString(observedSeats[shard]))
+                            ))
+                            .build())
+                    .build());
+        }
+        return transactItems;
+    }
+
+    /**
+     * Even split of the observed seats; the remainder goes to the shards already holding more than the even share, so
+     * a balanced inventory needs no write.
+     */
+    private static int[] targetSeats(int[] observedSeats) {
+        var total = 0;
+        for (var seats : observedSeats) {
+            total += seats;
+        }
+
+        var share = total / observedSeats.length;
+        var remainder = total % observedSeats.length;
+        var targetSeats = new int[observedSeats.length];
+        for (int shard = 0; shard < observedSeats.length; shard++) {
+            targetSeats[shard] = share;
+            if (remainder > 0 && observedSeats[shard] > share) {
+                targetSeats[shard]++;
+                remainder--;
+            }
+        }
+        for (int shard = 0; remainder > 0; shard++) {
+            if (targetSeats[shard] == share) {
+                targetSeats[shard]++;
+                remainder--;
+            }
+        }
+        return targetSeats;
+    }
+
+    private static int[] evenly(int seats, int shards) {
+        var shardSeats = new int[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            shardSeats[shard] = seats / shards + (shard < seats % shards ? 1 : 0);
+        }
+        return shardSeats;
+    }
+}
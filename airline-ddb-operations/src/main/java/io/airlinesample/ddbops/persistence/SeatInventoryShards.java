@@ -0,0 +1,142 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.airlinesample.ddbops.domain.Flight.*;
+
+/**
+ * Layout of a sharded seat inventory: the {@code AvailableSeats} and {@code HeldSeats} counters of a flight are split
+ * across shard items stored next to the flight item, under the same {@code RouteByDay} partition. The shard sort key
+ * extends the flight one, e.g. {@code 0800#SHARD#03}, so a single query on the flight sort key prefix returns the
+ * flight and all its shards.
+ * <p>
+ * Once split, the flight item keeps {@code AvailableSeats = 0} and records the number of shards in
+ * {@value #INVENTORY_SHARDS_FIELD_NAME}; repositories unaware of the shards therefore see the flight as sold out
+ * instead of overselling it.
+ */
+final class SeatInventoryShards {
+
+    static final String INVENTORY_SHARDS_FIELD_NAME = "InventoryShards";
+
+    // The split transaction updates the flight and puts every shard: 100 items at most
+    static final int MAX_SHARDS = 99;
+
+    private static final String SHARD_SORT_KEY_INFIX = "#SHARD#";
+
+    private static final String FLIGHT_WITH_SHARDS_KEY_CONDITION = String.format("%s = :PK AND begins_with(%s, :SK)",
+            ROUTE_BY_DAY_FIELD_NAME, DEPARTURE_TIME_FIELD_NAME);
+
+    private SeatInventoryShards() {
+    }
+
+    static Map<String, AttributeValue> shardKeyMap(FlightPrimaryKey flightKey, int shard) {
+        return Map.of(
+                ROUTE_BY_DAY_FIELD_NAME, AttributeValue.fromS(flightKey.getPartitionKey()),
+                DEPARTURE_TIME_FIELD_NAME, AttributeValue.fromS(shardSortKey(flightKey, shard))
+        );
+    }
+
+    static String shardSortKey(FlightPrimaryKey flightKey, int shard) {
+        // Two digits keep the shards sorted by index
+        return flightKey.getSortKey() + SHARD_SORT_KEY_INFIX + (shard < 10 ? "0" + shard : Integer.toString(shard));
+    }
+
+    /**
+     * Whether {@code sortKey} is the one of a shard item rather than of a flight item.
+     */
+    static boolean isShardSortKey(String sortKey) {
+        return sortKey.contains(SHARD_SORT_KEY_INFIX);
+    }
+
+    /**
+     * Builds a strongly consistent query returning the flight item followed by its shard items.
+     */
+    static QueryRequest findFlightWithShardsQuery(FlightPrimaryKey flightKey) {
+        return QueryRequest.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .keyConditionExpression(FLIGHT_WITH_SHARDS_KEY_CONDITION)
+                .expressionAttributeValues(Map.of(
+                        ":PK", AttributeValue.fromS(flightKey.getPartitionKey()),
+                        ":SK", AttributeValue.fromS(flightKey.getSortKey())
+                ))
+                .consistentRead(true)
+                .build();
+    }
+
+    /**
+     * Reads the flight and its shards in one query.
+     *
+     * @return the inventory, or empty when the flight does not exist
+     */
+    static Optional<Inventory> read(DynamoDbClient dynamoDbClient, FlightPrimaryKey flightKey) {
+        var items = dynamoDbClient.query(findFlightWithShardsQuery(flightKey)).items();
+
+        Map<String, AttributeValue> flightItem = null;
+        var shardItems = new ArrayList<Map<String, AttributeValue>>(items.size());
+        for (var item : items) {
+            if (flightKey.getSortKey().equals(item.get(DEPARTURE_TIME_FIELD_NAME).s())) {
+                flightItem = item;
+            } else {
+                shardItems.add(item);  // Returned in sort key order, i.e. by shard index
+            }
+        }
+
+        return flightItem == null ? Optional.empty() : Optional.of(new Inventory(flightItem, shardItems));
+    }
+
+    /**
+     * The flight item and its shard items, indexed by shard; no shard items when the flight is not sharded.
+     */
+    record Inventory(Map<String, AttributeValue> flightItem, List<Map<String, AttributeValue>> shardItems) {
+
+        boolean sharded() {
+            return !shardItems.isEmpty();
+        }
+
+        int shards() {
+            return shardItems.size();
+        }
+
+        int availableSeats(int shard) {
+            return counter(shardItems.get(shard), AVAILABLE_SEATS_FIELD_NAME);
+        }
+
+        int heldSeats(int shard) {
+            return counter(shardItems.get(shard), HELD_SEATS_FIELD_NAME);
+        }
+
+        /**
+         * The flight with the seat counters of all its shards added up, as a caller of an unsharded flight sees it.
+         */
+        Flight flight() {
+            var flight = FlightMapper.toModel(flightItem);
+            if (!sharded()) {
+                return flight;
+            }
+
+            var availableSeats = 0;
+            var heldSeats = counter(flightItem, HELD_SEATS_FIELD_NAME);
+            for (int shard = 0; shard < shards(); shard++) {
+                availableSeats += availableSeats(shard);
+                heldSeats += heldSeats(shard);
+            }
+            flight.setAvailableSeats(availableSeats);
+            flight.setHeldSeats(heldSeats);
+            return flight;
+        }
+
+        private static int counter(Map<String, AttributeValue> item, String fieldName) {
+            var attribute = item.get(fieldName);
+            return attribute == null || attribute.n() == null ? 0 : Integer.parseInt(attribute.n());
+        }
+    }
+}
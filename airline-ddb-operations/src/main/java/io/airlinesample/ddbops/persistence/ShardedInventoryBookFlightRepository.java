@@ -0,0 +1,166 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static java.util.Objects.requireNonNull;
+import static software.amazon.awssdk.services.dynamodb.model.BatchStatementErrorCodeEnum.CONDITIONAL_CHECK_FAILED;
+
+/**
+ * Repository for flights whose seat inventory is split across shard items (see {@link SeatInventoryReconciler#split}),
+ * so the bookings of a hot flight spread their writes over several items instead of all updating the flight item.
+ * <p>
+ * The {@code transactBookFlight} method performs a transactional operation that:
+ * <ul>
+ *     <li>takes a seat from one shard, guarded by the availability of that shard; a booking with a seat number also
+ *     claims the seat on the flight item;</li>
+ *     <li>inserts the new booking record into the booking table.</li>
+ * </ul>
+ * Each booking starts from a random shard with spare seats, as last seen by this repository, and falls back to the
+ * next ones when a shard turns out to be empty. The seats seen per shard are refreshed from DynamoDB every
+ * {@code refreshInterval}, or as soon as every shard looks empty, so seats moved by the reconciler are picked up.
+ * <p>
+ * Flights that are not sharded are booked through {@link ConditionalExpressionBookFlightRepository}; split a flight
+ * before it goes on sale, since this repository only notices the split on its next refresh. Seat claims still write
+ * the flight item: sharding scales the bookings without a seat number, the bulk of a flash sale.
+ */
+public final class ShardedInventoryBookFlightRepository implements FlightBookings {
+
+    private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(1);
+    private static final int MAX_CACHED_FLIGHTS = 10_000;
+
+    // Shared by the flights that are not sharded
+    private static final AtomicIntegerArray NOT_SHARDED = new AtomicIntegerArray(0);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final FlightBookings unsharded;
+    private final SimpleClientBookFlightRepository finder;
+    private final LruTtlCache<FlightPrimaryKey, AtomicIntegerArray> shardSeats;
+
+    public ShardedInventoryBookFlightRepository(DynamoDbClient dynamoDbClient) {
+        this(dynamoDbClient, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    public ShardedInventoryBookFlightRepository(DynamoDbClient dynamoDbClient, Duration refreshInterval) {
+        this.dynamoDbClient = requireNonNull(dynamoDbClient);
+        this.unsharded = new ConditionalExpressionBookFlightRepository(dynamoDbClient);
+        this.finder = new SimpleClientBookFlightRepository(dynamoDbClient);
+        this.shardSeats = new LruTtlCache<>(MAX_CACHED_FLIGHTS, refreshInterval);
+    }
+
+    /**
+     * Finds a flight with the seat counters of all its shards added up.
+     */
+    @Override
+    public Optional<Flight> findFlight(FlightPrimaryKey primaryKey) {
+        return SeatInventoryShards.read(dynamoDbClient, primaryKey)
+                .map(inventory -> {
+                    shardSeats.put(primaryKey, shardSeats(inventory));
+                    return inventory.flight();
+                });
+    }
+
+    @Override
+    public Optional<Booking> findBooking(String customerEmail, String bookingID) {
+        return finder.findBooking(customerEmail, bookingID);
+    }
+
+    @Override
+    public TransactSummary transactBookFlight(Booking booking, Flight flight) {
+        var flightKey = booking.flightPrimaryKey();
+
+        var seats = shardSeats.get(flightKey).orElseGet(() -> refreshShardSeats(flightKey));
+        if (seats == NOT_SHARDED) {
+            return unsharded.transactBookFlight(booking, flight);
+        }
+
+        var refreshed = false;
+        while (true) {
+            var shard = pickShard(seats);
+            if (shard < 0) {
+                if (refreshed) {
+                    return soldOut();
+                }
+                // Every shard looks empty: the reconciler may have moved seats since they were last read
+                seats = refreshShardSeats(flightKey);
+                refreshed = true;
+                continue;
+            }
+
+            try {
+                dynamoDbClient.transactWriteItems(BookFlightRequests.shardedBookFlightTransaction(booking, shard));
+                seats.decrementAndGet(shard);
+                return new TransactionSummaryResolver().dynamoTransactSummary();
+            } catch (TransactionCanceledException e) {
+                if (!shardConditionFailed(e)) {
+                    return new TransactionSummaryResolver(e).dynamoTransactSummary();
+                }
+                seats.set(shard, 0);  // Fall back to the next shard with spare seats
+            } catch (DynamoDbException e) {
+                return new TransactionSummaryResolver(e).dynamoTransactSummary();
+            }
+        }
+    }
+
+    private AtomicIntegerArray refreshShardSeats(FlightPrimaryKey flightKey) {
+        var seats = SeatInventoryShards.read(dynamoDbClient, flightKey)
+                .map(ShardedInventoryBookFlightRepository::shardSeats)
+                .orElse(NOT_SHARDED);
+        shardSeats.put(flightKey, seats);
+        return seats;
+    }
+
+    private static AtomicIntegerArray shardSeats(SeatInventoryShards.Inventory inventory) {
+        if (!inventory.sharded()) {
+            return NOT_SHARDED;
+        }
+
+        var seats = new AtomicIntegerArray(inventory.shards());
+        for (int shard = 0; shard < inventory.shards(); shard++) {
+            seats.set(shard, inventory.availableSeats(shard));
+        }
+        return seats;
+    }
+
+    /**
+     * Picks a shard with spare seats starting from a random one, so concurrent bookings spread over the shards.
+     *
+     * @return the shard, or -1 when every shard looks empty
+     */
+    private static int pickShard(AtomicIntegerArray seats) {
+        var shards = seats.length();
+        var start = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            var shard = (start + i) % shards;
+            if (seats.get(shard) > 0) {
+                return shard;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean shardConditionFailed(TransactionCanceledException e) {
+        // The shard update is always the first item of the transaction
+        return e.hasCancellationReasons()
+                && !e.cancellationReasons().isEmpty()
+                && CONDITIONAL_CHECK_FAILED.toString().equals(e.cancellationReasons().get(0).code());
+    }
+
+    private static DynamoTransactSummary soldOut() {
+        return DynamoTransactSummary.builder()
+                .preconditionFailed(true)
+                .transactionCancelled(true)
+                .failureReason("No available seats left in any inventory shard of the flight.")
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Builds the transaction expressions of a booking against a sharded seat inventory (see {@link SeatInventoryShards}):
+ * the seat is taken from one shard, guarded by the availability of that shard only.
+ * <p>
+ * A booking with a seat number also claims the seat on the flight item, guarded by the seat being unclaimed. The
+ * flight {@code Version} is left alone: nothing reads the sharded flight for optimistic locking.
+ */
+final class ShardedInventoryTransactionExpressions {
+
+    private static final AttributeValue ONE = AttributeValue.fromN("1");
+    private static final AttributeValue NO_AVAILABLE_SEATS = AttributeValue.fromN("0");
+
+    private static final String SHARD_CONDITION_EXPRESSION = "AvailableSeats > :noAvailableSeats";
+    private static final Map<String, AttributeValue> SHARD_EXPRESSION_ATTRIBUTE_VALUES = Map.of(
+            ":one", ONE,
+            ":noAvailableSeats", NO_AVAILABLE_SEATS
+    );
+
+    // Shard update for bookings with a specific seat number, the seat itself is claimed on the flight
+    private static final String SHARD_UPDATE_EXPRESSION_WITH_SEAT = "SET AvailableSeats = AvailableSeats - :one";
+
+    // Shard update for bookings without a specific seat number, increment HeldSeats
+    private static final String SHARD_UPDATE_EXPRESSION_WITHOUT_SEAT = """
+            SET AvailableSeats = AvailableSeats - :one,
+                HeldSeats = HeldSeats + :one
+            """;
+
+    static final String SEAT_CLAIM_UPDATE_EXPRESSION = "SET ClaimedSeatMap.#seatNumber = :bookingId";
+    static final String SEAT_CLAIM_CONDITION_EXPRESSION =
+            "attribute_not_exists(ClaimedSeatMap.#seatNumber) AND attribute_not_exists(SeatBitmap)";
+
+    private static final ShardedInventoryTransactionExpressions WITH_SEAT =
+            new ShardedInventoryTransactionExpressions(SHARD_UPDATE_EXPRESSION_WITH_SEAT);
+    private static final ShardedInventoryTransactionExpressions WITHOUT_SEAT =
+            new ShardedInventoryTransactionExpressions(SHARD_UPDATE_EXPRESSION_WITHOUT_SEAT);
+
+    final String shardUpdateExpression;
+    final String shardConditionExpression;
+    final Map<String, AttributeValue> shardExpressionAttributeValues;
+
+    private ShardedInventoryTransactionExpressions(String shardUpdateExpression) {
+        this.shardUpdateExpression = shardUpdateExpression;
+        this.shardConditionExpression = SHARD_CONDITION_EXPRESSION;
+        this.shardExpressionAttributeValues = SHARD_EXPRESSION_ATTRIBUTE_VALUES;
+    }
+
+    /**
+     * Returns the shard expressions of a booking; nothing is bound per booking, so both shapes are shared.
+     */
+    static ShardedInventoryTransactionExpressions of(Booking booking) {
+        return booking.hasSeatNumber() ? WITH_SEAT : WITHOUT_SEAT;
+    }
+}
@@ -1,9 +1,12 @@
 package io.airlinesample.ddbops.persistence;
 
+import io.airlinesample.ddbops.domain.Flight;
 import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
 import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
+import java.util.concurrent.CompletionException;
+
 import static software.amazon.awssdk.services.dynamodb.model.BatchStatementErrorCodeEnum.CONDITIONAL_CHECK_FAILED;
 
 final class TransactionSummaryResolver {
@@ -28,6 +31,7 @@ final class TransactionSummaryResolver {
                     .preconditionFailed(true)
                     .transactionCancelled(true)
                     .failureReason("Optimistic locking failed: Another user modified the flight concurrently.")
+                    .conditionCheckFailedFlight(conditionCheckFailedFlight(e))
                     .build();
             return;
         }
@@ -45,6 +49,43 @@ final class TransactionSummaryResolver {
                 .build();
     }
 
+    /**
+     * Maps the flight item returned with the failed flight condition (ALL_OLD), whatever its position in the
+     * transaction. Returns null when DynamoDB did not return it.
+     */
+    private static Flight conditionCheckFailedFlight(TransactionCanceledException e) {
+        return e.cancellationReasons().stream()
+                .filter(reason -> CONDITIONAL_CHECK_FAILED.toString().equals(reason.code()))
+                .filter(CancellationReason::hasItem)
+                .map(CancellationReason::item)
+                .filter(item -> item.containsKey(Flight.ROUTE_BY_DAY_FIELD_NAME))
+                .map(FlightMapper::toModel)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Resolves the failure of an asynchronous transaction, as surfaced by a {@code CompletableFuture}.
+     * Non-DynamoDB failures (e.g. client-side timeouts) are reported as generic failures.
+     */
+    static DynamoTransactSummary resolve(Throwable throwable) {
+        var cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+
+        if (cause instanceof TransactionCanceledException e) {
+            return new TransactionSummaryResolver(e).dynamoTransactSummary();
+        }
+        if (cause instanceof DynamoDbException e) {
+            return new TransactionSummaryResolver(e).dynamoTransactSummary();
+        }
+
+        return DynamoTransactSummary.builder()
+                .genericFailure(true)
+                .failureReason("Transaction failed: " + cause.getMessage())
+                .build();
+    }
+
     DynamoTransactSummary dynamoTransactSummary() {
         return this.dynamoTransactSummary;
     }
@@ -0,0 +1,185 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.AwsClientProvider;
+import io.airlinesample.ddbops.domain.AsyncFlightBookings;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbAsyncClient;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import io.airlinesample.ddbops.persistence.AsyncSimpleClientBookFlightRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Books through {@link AsyncOptimisticLockingFlightBookingService} and the version-guarded
+ * {@link AsyncSimpleClientBookFlightRepository}, against an {@link EmbeddedDynamoDb}: conflicts are retried after a
+ * non-blocking backoff, within the retry policy.
+ */
+class AsyncOptimisticLockingFlightBookingServiceTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("CDG")
+            .departureDateTime(DEPARTURE)
+            .build();
+    private static final int TOTAL_SEATS = 10;
+
+    // One retrying booking per flight at most: a budget slot that is not given back blocks every later retry
+    private static final RetryPolicy POLICY = RetryPolicy.builder()
+            .maxAttempts(3)
+            .baseDelay(Duration.ofMillis(1))
+            .maxDelay(Duration.ofMillis(1))
+            .maxRetriesInFlightPerFlight(1)
+            .build();
+
+    private EmbeddedDynamoDb engine;
+    private AsyncSimpleClientBookFlightRepository repository;
+
+    @BeforeEach
+    void createTables() {
+        engine = EmbeddedDynamoDb.withAirlineTables();
+        repository = new AsyncSimpleClientBookFlightRepository(new EmbeddedDynamoDbAsyncClient(engine));
+        AwsClientProvider.dynamoDbEnhancedClient(new EmbeddedDynamoDbClient(engine))
+                .table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class))
+                .putItem(Flight.builder()
+                        .primaryKey(FLIGHT_KEY)
+                        .flightNumber("BA304")
+                        .airplaneModel("Airbus A320")
+                        .totalSeats(TOTAL_SEATS)
+                        .build());
+    }
+
+    @Test
+    void booksTheFlight() {
+        var service = new AsyncOptimisticLockingFlightBookingService(repository, POLICY);
+
+        assertTrue(service.bookFlight(booking("booking-1")).join());
+
+        var flight = currentFlight();
+        assertEquals(TOTAL_SEATS - 1, flight.getAvailableSeats());
+        assertEquals(1, flight.getHeldSeats());
+        assertTrue(repository.findBooking("passenger@example.com", "booking-1").join().isPresent());
+        assertEquals(1, service.retryStatistics().transactions());
+        assertEquals(0, service.retryStatistics().conflicts());
+    }
+
+    @Test
+    void retriesAConflictOnTheReturnedFlight() {
+        var flightBookings = new CompetingFlightBookings(repository, 1);
+        var service = new AsyncOptimisticLockingFlightBookingService(flightBookings, POLICY);
+
+        assertTrue(service.bookFlight(booking("booking-1")).join());
+
+        assertEquals(2, flightBookings.transactions.get(), "the first transaction found the flight changed");
+        assertEquals(1, flightBookings.reads.get(), "the retry rebased on the flight returned by the failed condition");
+        var statistics = service.retryStatistics();
+        assertEquals(1, statistics.conflicts());
+        assertEquals(1, statistics.retries());
+        assertEquals(TOTAL_SEATS - 2, currentFlight().getAvailableSeats());
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsAndReleasesTheBudget() {
+        var flightBookings = new CompetingFlightBookings(repository, Integer.MAX_VALUE);
+        var service = new AsyncOptimisticLockingFlightBookingService(flightBookings, POLICY);
+
+        assertFalse(service.bookFlight(booking("booking-1")).join());
+        assertFalse(service.bookFlight(booking("booking-2")).join());
+
+        var statistics = service.retryStatistics();
+        assertEquals(6, statistics.conflicts());
+        assertEquals(4, statistics.retries());
+        assertEquals(2, statistics.retriesExhausted());
+        assertEquals(0, statistics.contentionBudgetExhausted());
+        assertTrue(repository.findBooking("passenger@example.com", "booking-1").join().isEmpty());
+        assertEquals(TOTAL_SEATS - 6, currentFlight().getAvailableSeats(), "only the competing bookings were booked");
+    }
+
+    @Test
+    void rejectsAnUnknownFlight() {
+        var service = new AsyncOptimisticLockingFlightBookingService(repository, POLICY);
+        var booking = booking("booking-1");
+        booking.setDepartureDateTime(DEPARTURE.plusDays(1).toEpochSecond(ZoneOffset.UTC));
+
+        assertFalse(service.bookFlight(booking).join());
+        assertEquals(0, service.retryStatistics().transactions());
+    }
+
+    private Flight currentFlight() {
+        return repository.findFlight(FLIGHT_KEY).join().orElseThrow();
+    }
+
+    private static Booking booking(String bookingId) {
+        return Booking.builder()
+                .customerEmail("passenger@example.com")
+                .bookingID(bookingId)
+                .flightNumber("BA304")
+                .source(FLIGHT_KEY.getSourceAirportCode())
+                .destination(FLIGHT_KEY.getDestinationAirportCode())
+                .departureDateTime(DEPARTURE.toEpochSecond(ZoneOffset.UTC))
+                .build();
+    }
+
+    /**
+     * Books a competing booking right before each of the first {@code competingTransactions} transactions, after the
+     * service read the flight, so that their version condition fails.
+     */
+    private static final class CompetingFlightBookings implements AsyncFlightBookings {
+
+        private final AsyncFlightBookings delegate;
+        private final int competingTransactions;
+        private final AtomicInteger reads = new AtomicInteger();
+        private final AtomicInteger transactions = new AtomicInteger();
+
+        private CompetingFlightBookings(AsyncFlightBookings delegate, int competingTransactions) {
+            this.delegate = delegate;
+            this.competingTransactions = competingTransactions;
+        }
+
+        @Override
+        public CompletableFuture<Optional<Flight>> findFlight(FlightPrimaryKey primaryKey) {
+            reads.incrementAndGet();
+            return delegate.findFlight(primaryKey);
+        }
+
+        @Override
+        public CompletableFuture<Optional<Booking>> findBooking(String customerEmail, String bookingID) {
+            return delegate.findBooking(customerEmail, bookingID);
+        }
+
+        @Override
+        public CompletableFuture<FlightBookings.TransactSummary> transactBookFlight(Booking booking, Flight flight) {
+            var transaction = transactions.incrementAndGet();
+            if (transaction > competingTransactions) {
+                return delegate.transactBookFlight(booking, flight);
+            }
+
+            var competingBooking = booking("competitor-" + transaction);
+            return delegate.findFlight(booking.flightPrimaryKey())
+                    .thenCompose(competingFlight -> {
+                        var current = competingFlight.orElseThrow();
+                        current.incrementHeldSeats();
+                        current.decrementAvailableSeats();
+                        return delegate.transactBookFlight(competingBooking, current);
+                    })
+                    .thenCompose(competingSummary -> {
+                        assertTrue(competingSummary.success());
+                        return delegate.transactBookFlight(booking, flight);
+                    });
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentionBudgetTest {
+
+    private static final FlightPrimaryKey HOT_FLIGHT = new FlightPrimaryKey("LHR#CDG#2030-01-01", "0800");
+    private static final FlightPrimaryKey OTHER_FLIGHT = new FlightPrimaryKey("LHR#CDG#2030-01-01", "0900");
+
+    @Test
+    void capsRetriesPerFlight() {
+        var budget = new ContentionBudget(2);
+
+        assertTrue(budget.tryAcquire(HOT_FLIGHT));
+        assertTrue(budget.tryAcquire(HOT_FLIGHT));
+        assertFalse(budget.tryAcquire(HOT_FLIGHT));
+        assertTrue(budget.tryAcquire(OTHER_FLIGHT), "the budget is per flight");
+    }
+
+    @Test
+    void releaseReturnsTheSlot() {
+        var budget = new ContentionBudget(1);
+
+        assertTrue(budget.tryAcquire(HOT_FLIGHT));
+        budget.release(HOT_FLIGHT);
+        assertTrue(budget.tryAcquire(HOT_FLIGHT));
+        assertFalse(budget.tryAcquire(HOT_FLIGHT));
+    }
+
+    @Test
+    void releaseWithoutAcquireDoesNotGrowTheBudget() {
+        var budget = new ContentionBudget(1);
+
+        budget.release(HOT_FLIGHT);
+
+        assertTrue(budget.tryAcquire(HOT_FLIGHT));
+        assertFalse(budget.tryAcquire(HOT_FLIGHT));
+    }
+}
@@ -0,0 +1,190 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Retries of {@link OptimisticLockingFlightBookingService} against a repository that keeps reporting conflicts: the
+ * retry policy bounds the attempts, and the contention budget is given back however a booking ends.
+ */
+class OptimisticLockingFlightBookingServiceTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("CDG")
+            .departureDateTime(DEPARTURE)
+            .build();
+
+    // One retrying booking per flight at most: a budget slot that is not given back blocks every later retry
+    private static final RetryPolicy POLICY = RetryPolicy.builder()
+            .maxAttempts(3)
+            .baseDelay(Duration.ofNanos(1))
+            .maxDelay(Duration.ofNanos(1))
+            .maxRetriesInFlightPerFlight(1)
+            .build();
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        var flightBookings = new ConflictingFlightBookings();
+        var service = new OptimisticLockingFlightBookingService(flightBookings, POLICY);
+
+        assertFalse(service.bookFlight(booking("booking-1")));
+
+        assertEquals(3, flightBookings.transactions.get());
+        assertEquals(1, flightBookings.reads.get(), "retries rebase on the flight returned by the failed condition");
+        var statistics = service.retryStatistics();
+        assertEquals(3, statistics.transactions());
+        assertEquals(3, statistics.conflicts());
+        assertEquals(2, statistics.retries());
+        assertEquals(1, statistics.retriesExhausted());
+    }
+
+    @Test
+    void releasesTheBudgetAfterExhaustedRetries() {
+        var service = new OptimisticLockingFlightBookingService(new ConflictingFlightBookings(), POLICY);
+
+        assertFalse(service.bookFlight(booking("booking-1")));
+        assertFalse(service.bookFlight(booking("booking-2")));
+
+        var statistics = service.retryStatistics();
+        assertEquals(4, statistics.retries());
+        assertEquals(2, statistics.retriesExhausted());
+        assertEquals(0, statistics.contentionBudgetExhausted());
+    }
+
+    @Test
+    void releasesTheBudgetWhenARetryFails() {
+        var flightBookings = new ConflictingFlightBookings();
+        var service = new OptimisticLockingFlightBookingService(flightBookings, POLICY);
+
+        flightBookings.failOnTransaction = 2;
+        assertThrows(IllegalStateException.class, () -> service.bookFlight(booking("booking-1")));
+
+        flightBookings.failOnTransaction = 0;
+        assertFalse(service.bookFlight(booking("booking-2")));
+
+        var statistics = service.retryStatistics();
+        assertEquals(3, statistics.retries(), "the first booking retried once, the second one twice");
+        assertEquals(0, statistics.contentionBudgetExhausted());
+    }
+
+    @Test
+    void reportsConflictsStraightAwayWhenTheBudgetIsTaken() {
+        var flightBookings = new ConflictingFlightBookings();
+        var service = new OptimisticLockingFlightBookingService(flightBookings, POLICY);
+
+        // The first booking holds the only budget slot of the flight while it retries, and books the second one then
+        flightBookings.onTransaction = () -> {
+            if (flightBookings.transactions.get() == 2) {
+                assertFalse(service.bookFlight(booking("booking-2")));
+            }
+        };
+        assertFalse(service.bookFlight(booking("booking-1")));
+
+        var statistics = service.retryStatistics();
+        assertEquals(1, statistics.contentionBudgetExhausted());
+        assertEquals(2, statistics.retries(), "only the first booking retried");
+    }
+
+    private static Booking booking(String bookingId) {
+        return Booking.builder()
+                .customerEmail("passenger@example.com")
+                .bookingID(bookingId)
+                .flightNumber("BA304")
+                .source("LHR")
+                .destination("CDG")
+                .departureDateTime(DEPARTURE.toEpochSecond(ZoneOffset.UTC))
+                .build();
+    }
+
+    private static Flight flight() {
+        return Flight.mapBuilder()
+                .routeByDay(FLIGHT_KEY.getPartitionKey())
+                .departureTime(FLIGHT_KEY.getSortKey())
+                .flightNumber("BA304")
+                .airplaneModel("A320")
+                .totalSeats(10)
+                .availableSeats(10)
+                .heldSeats(0)
+                .version(1L)
+                .build();
+    }
+
+    /**
+     * Fails every booking on the flight condition, returning the current flight as ALL_OLD does.
+     */
+    private static final class ConflictingFlightBookings implements FlightBookings {
+
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger transactions = new AtomicInteger();
+        volatile int failOnTransaction;
+        volatile Runnable onTransaction = () -> {
+        };
+
+        @Override
+        public Optional<Flight> findFlight(FlightPrimaryKey primaryKey) {
+            reads.incrementAndGet();
+            return Optional.of(flight());
+        }
+
+        @Override
+        public Optional<Booking> findBooking(String customerEmail, String bookingID) {
+            return Optional.empty();
+        }
+
+        @Override
+        public TransactSummary transactBookFlight(Booking booking, Flight flight) {
+            var transaction = transactions.incrementAndGet();
+            if (transaction == failOnTransaction) {
+                throw new IllegalStateException("connection reset");
+            }
+            onTransaction.run();
+            return new Conflict(flight());
+        }
+    }
+
+    private record Conflict(Flight flight) implements FlightBookings.TransactSummary {
+
+        @Override
+        public boolean success() {
+            return false;
+        }
+
+        @Override
+        public boolean preconditionFailed() {
+            return true;
+        }
+
+        @Override
+        public boolean transactionCancelled() {
+            return true;
+        }
+
+        @Override
+        public boolean genericFailure() {
+            return false;
+        }
+
+        @Override
+        public String failureReason() {
+            return "ConditionalCheckFailed";
+        }
+
+        @Override
+        public Optional<Flight> currentFlight() {
+            return Optional.of(flight);
+        }
+    }
+}
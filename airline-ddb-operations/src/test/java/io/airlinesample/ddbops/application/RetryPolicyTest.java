@@ -0,0 +1,84 @@
+package io.airlinesample.ddbops.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Full-jitter bounds of {@link RetryPolicy#backoff(int)} and the validation of its delays.
+ */
+class RetryPolicyTest {
+
+    private static final Duration BASE_DELAY = Duration.ofMillis(10);
+    private static final Duration MAX_DELAY = Duration.ofMillis(200);
+
+    @Test
+    void backoffStaysWithinTheExponentialCeiling() {
+        var policy = policy(BASE_DELAY, MAX_DELAY);
+
+        for (int retry = 1; retry <= 8; retry++) {
+            var ceiling = Duration.ofMillis(Math.min(10L << (retry - 1), 200));
+            for (int i = 0; i < 1_000; i++) {
+                var backoff = policy.backoff(retry);
+                assertFalse(backoff.isNegative(), "retry " + retry);
+                assertTrue(backoff.compareTo(ceiling) <= 0, "retry " + retry + " waited " + backoff);
+            }
+        }
+    }
+
+    @Test
+    void backoffIsJitteredAcrossTheWholeRange() {
+        var policy = policy(BASE_DELAY, MAX_DELAY);
+
+        var shortest = Duration.ofDays(1);
+        var longest = Duration.ZERO;
+        for (int i = 0; i < 10_000; i++) {
+            var backoff = policy.backoff(1);
+            shortest = backoff.compareTo(shortest) < 0 ? backoff : shortest;
+            longest = backoff.compareTo(longest) > 0 ? backoff : longest;
+        }
+
+        assertTrue(shortest.compareTo(BASE_DELAY.dividedBy(10)) < 0, "shortest " + shortest);
+        assertTrue(longest.compareTo(BASE_DELAY.multipliedBy(9).dividedBy(10)) > 0, "longest " + longest);
+    }
+
+    @Test
+    void backoffSaturatesAtMaxDelayInsteadOfOverflowing() {
+        // 9 s << 10 and anything << 62 are past Long.MAX_VALUE nanoseconds
+        var policy = policy(Duration.ofSeconds(9), Duration.ofSeconds(30));
+
+        for (var retry : new int[]{11, 40, 63, 64, 1_000, Integer.MAX_VALUE}) {
+            for (int i = 0; i < 100; i++) {
+                var backoff = policy.backoff(retry);
+                assertFalse(backoff.isNegative(), "retry " + retry);
+                assertTrue(backoff.compareTo(Duration.ofSeconds(30)) <= 0, "retry " + retry + " waited " + backoff);
+            }
+        }
+    }
+
+    @Test
+    void noRetryNeverBacksOff() {
+        var policy = RetryPolicy.noRetry();
+
+        assertFalse(policy.canRetry(1));
+        assertEquals(Duration.ZERO, policy.backoff(1));
+    }
+
+    @Test
+    void rejectsDelaysThatCannotBackOff() {
+        assertThrows(IllegalArgumentException.class, () -> policy(Duration.ZERO, MAX_DELAY));
+        assertThrows(IllegalArgumentException.class, () -> policy(MAX_DELAY, BASE_DELAY));
+        assertThrows(IllegalArgumentException.class, () -> policy(BASE_DELAY.negated(), MAX_DELAY));
+    }
+
+    private static RetryPolicy policy(Duration baseDelay, Duration maxDelay) {
+        return RetryPolicy.builder()
+                .maxAttempts(4)
+                .baseDelay(baseDelay)
+                .maxDelay(maxDelay)
+                .maxRetriesInFlightPerFlight(16)
+                .build();
+    }
+}
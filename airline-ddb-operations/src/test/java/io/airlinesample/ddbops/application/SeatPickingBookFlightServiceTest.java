@@ -0,0 +1,190 @@
+package io.airlinesample.ddbops.application;
+
+import io.airlinesample.ddbops.AwsClientProvider;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.domain.Passengers;
+import io.airlinesample.ddbops.domain.SeatBitmap;
+import io.airlinesample.ddbops.domain.SeatLayout;
+import io.airlinesample.ddbops.domain.SeatSelector;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import io.airlinesample.ddbops.persistence.ConditionalExpressionBookFlightRepository;
+import io.airlinesample.ddbops.persistence.SeatBitmapBookFlightRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Picks and books seats with {@link SeatPickingBookFlightService} on a flight stored with a {@code SeatBitmap},
+ * against an {@link EmbeddedDynamoDb}.
+ */
+class SeatPickingBookFlightServiceTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("CDG")
+            .departureDateTime(DEPARTURE)
+            .build();
+    private static final SeatLayout LAYOUT = SeatLayout.forAirplaneModel("Airbus A320").orElseThrow();
+    private static final Passengers NO_PASSENGERS = new Passengers() {
+        @Override
+        public Optional<Passenger> findPassenger(String emailAddress) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<String, Passenger> findPassengers(Collection<String> emailAddresses) {
+            return Map.of();
+        }
+    };
+
+    private DynamoDbClient dynamoDbClient;
+    private SeatBitmapBookFlightRepository seatBitmapRepository;
+
+    @BeforeEach
+    void createTables() {
+        dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+        seatBitmapRepository = new SeatBitmapBookFlightRepository(dynamoDbClient);
+        putBitmapFlight();
+    }
+
+    @Test
+    void claimsThePickedSeatsInTheBitmap() {
+        var service = new SeatPickingBookFlightService(seatBitmapRepository, NO_PASSENGERS,
+                SeatSelector.random(), RetryPolicy.defaultPolicy());
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(service.bookFlight(booking("booking-" + i)));
+        }
+
+        var flight = seatBitmapRepository.findFlight(FLIGHT_KEY).orElseThrow();
+        assertEquals(LAYOUT.capacity() - 20, flight.getAvailableSeats());
+        assertEquals(20, occupiedSeats(flight));
+        assertTrue(flight.getClaimedSeatMap().isEmpty());
+    }
+
+    @Test
+    void picksAnotherSeatFromTheFlightReturnedWithAFailedSwap() {
+        var flightBookings = new CompetingFlightBookings(seatBitmapRepository, "booking-competitor");
+        var service = new SeatPickingBookFlightService(flightBookings, NO_PASSENGERS,
+                SeatSelector.deterministic(), RetryPolicy.defaultPolicy());
+
+        assertTrue(service.bookFlight(booking("booking-1")));
+
+        assertEquals(2, flightBookings.transactions.get(), "the first swap found the bitmap changed");
+        assertEquals(1, service.retryStatistics().conflicts());
+        var flight = seatBitmapRepository.findFlight(FLIGHT_KEY).orElseThrow();
+        assertEquals(2, occupiedSeats(flight));
+        assertTrue(SeatBitmap.isOccupied(flight.getSeatBitmap(), LAYOUT.seatIndex("1B")), "the next seat in order was claimed");
+    }
+
+    @Test
+    void claimedSeatMapRepositoriesRejectTheBitmapFlight() {
+        var service = new SeatPickingBookFlightService(new ConditionalExpressionBookFlightRepository(dynamoDbClient),
+                NO_PASSENGERS, SeatSelector.random(), RetryPolicy.defaultPolicy());
+
+        assertThrows(IllegalArgumentException.class, () -> service.bookFlight(booking("booking-1")));
+
+        var flight = seatBitmapRepository.findFlight(FLIGHT_KEY).orElseThrow();
+        assertEquals(LAYOUT.capacity(), flight.getAvailableSeats());
+        assertEquals(0, occupiedSeats(flight));
+    }
+
+    private void putBitmapFlight() {
+        var flight = Flight.builder()
+                .primaryKey(FLIGHT_KEY)
+                .flightNumber("BA304")
+                .airplaneModel(LAYOUT.airplaneModel())
+                .totalSeats(LAYOUT.capacity())
+                .build();
+        flight.encodeSeatsAsBitmap();
+        AwsClientProvider.dynamoDbEnhancedClient(dynamoDbClient)
+                .table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class))
+                .putItem(flight);
+    }
+
+    private static int occupiedSeats(Flight flight) {
+        var occupied = 0;
+        for (int seatIndex = 0; seatIndex < LAYOUT.capacity(); seatIndex++) {
+            if (SeatBitmap.isOccupied(flight.getSeatBitmap(), seatIndex)) {
+                occupied++;
+            }
+        }
+        return occupied;
+    }
+
+    private static Booking booking(String bookingId) {
+        return Booking.builder()
+                .customerEmail("passenger@example.com")
+                .bookingID(bookingId)
+                .flightNumber("BA304")
+                .source(FLIGHT_KEY.getSourceAirportCode())
+                .destination(FLIGHT_KEY.getDestinationAirportCode())
+                .departureDateTime(DEPARTURE.toEpochSecond(ZoneOffset.UTC))
+                .build();
+    }
+
+    /**
+     * Books seat 1A for a competing booking right before the first transaction, after the service read the flight.
+     */
+    private static final class CompetingFlightBookings implements FlightBookings {
+
+        private final FlightBookings delegate;
+        private final String competingBookingId;
+        private final AtomicInteger transactions = new AtomicInteger();
+
+        private CompetingFlightBookings(FlightBookings delegate, String competingBookingId) {
+            this.delegate = delegate;
+            this.competingBookingId = competingBookingId;
+        }
+
+        @Override
+        public Optional<Flight> findFlight(FlightPrimaryKey primaryKey) {
+            return delegate.findFlight(primaryKey);
+        }
+
+        @Override
+        public Map<FlightPrimaryKey, Flight> findFlights(Collection<FlightPrimaryKey> primaryKeys) {
+            return delegate.findFlights(primaryKeys);
+        }
+
+        @Override
+        public Optional<Booking> findBooking(String customerEmail, String bookingID) {
+            return delegate.findBooking(customerEmail, bookingID);
+        }
+
+        @Override
+        public TransactSummary transactBookFlight(Booking booking, Flight flight) {
+            if (transactions.getAndIncrement() == 0) {
+                var competingFlight = delegate.findFlight(booking.flightPrimaryKey()).orElseThrow();
+                assertTrue(competingFlight.addSeatIfAvailable("1A", competingBookingId));
+                var competingBooking = Booking.builder()
+                        .customerEmail("competitor@example.com")
+                        .bookingID(competingBookingId)
+                        .flightNumber(booking.getFlightNumber())
+                        .source(booking.getSource())
+                        .destination(booking.getDestination())
+                        .departureDateTime(booking.getDepartureDateTime())
+                        .seatNumber("1A")
+                        .build();
+                assertTrue(delegate.transactBookFlight(competingBooking, competingFlight).success());
+            }
+            return delegate.transactBookFlight(booking, flight);
+        }
+    }
+}
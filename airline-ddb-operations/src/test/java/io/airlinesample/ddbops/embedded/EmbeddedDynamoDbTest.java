@@ -0,0 +1,243 @@
+package io.airlinesample.ddbops.embedded;
+
+import io.airlinesample.ddbops.domain.Flight;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Condition and transaction semantics of {@link EmbeddedDynamoDb}, as the booking repositories rely on them.
+ */
+class EmbeddedDynamoDbTest {
+
+    private static final String ROUTE = "LHR#CDG#2030-01-01";
+    private static final AttributeValue ZERO = AttributeValue.fromN("0");
+    private static final AttributeValue ONE = AttributeValue.fromN("1");
+
+    private EmbeddedDynamoDb engine;
+
+    @BeforeEach
+    void createTables() {
+        engine = EmbeddedDynamoDb.withAirlineTables();
+        putFlight("0800", 1);
+        putFlight("0900", 0);
+    }
+
+    @Test
+    void transactionWritesAllItemsOrNone() {
+        var request = transaction(
+                bookSeat("0800", ReturnValuesOnConditionCheckFailure.NONE),
+                bookSeat("0900", ReturnValuesOnConditionCheckFailure.NONE));
+
+        var e = assertThrows(TransactionCanceledException.class, () -> engine.transactWriteItems(request));
+
+        assertEquals(List.of(DynamoDbErrors.NONE, DynamoDbErrors.CONDITIONAL_CHECK_FAILED),
+                e.cancellationReasons().stream().map(CancellationReason::code).toList());
+        assertEquals("TransactionCanceledException", e.awsErrorDetails().errorCode());
+        assertEquals("1", flight("0800").get(Flight.AVAILABLE_SEATS_FIELD_NAME).n(), "the first update is rolled back");
+    }
+
+    @Test
+    void cancellationReasonsReturnTheFailedItemOnlyWhenAsked() {
+        var withItem = assertThrows(TransactionCanceledException.class, () -> engine.transactWriteItems(transaction(
+                bookSeat("0900", ReturnValuesOnConditionCheckFailure.ALL_OLD))));
+        var withoutItem = assertThrows(TransactionCanceledException.class, () -> engine.transactWriteItems(transaction(
+                bookSeat("0900", ReturnValuesOnConditionCheckFailure.NONE))));
+
+        assertEquals(flight("0900"), withItem.cancellationReasons().get(0).item());
+        assertFalse(withoutItem.cancellationReasons().get(0).hasItem());
+    }
+
+    @Test
+    void cancellationReasonsHaveNoItemWhenTheItemDoesNotExist() {
+        var e = assertThrows(TransactionCanceledException.class, () -> engine.transactWriteItems(transaction(
+                bookSeat("1000", ReturnValuesOnConditionCheckFailure.ALL_OLD))));
+
+        assertEquals(DynamoDbErrors.CONDITIONAL_CHECK_FAILED, e.cancellationReasons().get(0).code());
+        assertFalse(e.cancellationReasons().get(0).hasItem());
+    }
+
+    @Test
+    void conditionChecksGuardTheOtherItemsWithoutWritingTheirOwn() {
+        var check = TransactWriteItem.builder()
+                .conditionCheck(ConditionCheck.builder()
+                        .tableName(Flight.FLIGHT_TABLE_NAME)
+                        .key(flightKey("0900"))
+                        .conditionExpression("Version = :one")
+                        .expressionAttributeValues(Map.of(":one", ONE))
+                        .build())
+                .build();
+        var before = flight("0900");
+
+        engine.transactWriteItems(transaction(check, bookSeat("0800", ReturnValuesOnConditionCheckFailure.NONE)));
+
+        assertEquals("0", flight("0800").get(Flight.AVAILABLE_SEATS_FIELD_NAME).n());
+        assertEquals(before, flight("0900"));
+    }
+
+    @Test
+    void updatesCreateMissingItemsFromTheirKey() {
+        engine.transactWriteItems(transaction(TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(Flight.FLIGHT_TABLE_NAME)
+                        .key(flightKey("1000"))
+                        .updateExpression("SET HeldSeats = if_not_exists(HeldSeats, :zero) + :one")
+                        .expressionAttributeValues(Map.of(":zero", ZERO, ":one", ONE))
+                        .build())
+                .build()));
+
+        var created = flight("1000");
+        assertEquals(ROUTE, created.get(Flight.ROUTE_BY_DAY_FIELD_NAME).s());
+        assertEquals("1", created.get(Flight.HELD_SEATS_FIELD_NAME).n());
+    }
+
+    @Test
+    void dataErrorsCancelTheTransactionWithAValidationReason() {
+        var invalidUpdate = TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(Flight.FLIGHT_TABLE_NAME)
+                        .key(flightKey("0900"))
+                        .updateExpression("SET AvailableSeats = Missing - :one")
+                        .expressionAttributeValues(Map.of(":one", ONE))
+                        .build())
+                .build();
+
+        var e = assertThrows(TransactionCanceledException.class, () -> engine.transactWriteItems(transaction(
+                bookSeat("0800", ReturnValuesOnConditionCheckFailure.NONE), invalidUpdate)));
+
+        assertEquals(List.of(DynamoDbErrors.NONE, DynamoDbErrors.VALIDATION_ERROR),
+                e.cancellationReasons().stream().map(CancellationReason::code).toList());
+        assertEquals("1", flight("0800").get(Flight.AVAILABLE_SEATS_FIELD_NAME).n());
+    }
+
+    @Test
+    void malformedRequestsFailAsAWhole() {
+        var bookTwice = transaction(
+                bookSeat("0800", ReturnValuesOnConditionCheckFailure.NONE),
+                bookSeat("0800", ReturnValuesOnConditionCheckFailure.NONE));
+        var invalidExpression = transaction(TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(Flight.FLIGHT_TABLE_NAME)
+                        .key(flightKey("0800"))
+                        .updateExpression("SET AvailableSeats = AvailableSeats - :one")
+                        .conditionExpression("AvailableSeats >")
+                        .expressionAttributeValues(Map.of(":one", ONE))
+                        .build())
+                .build());
+        var unknownTable = transaction(TransactWriteItem.builder()
+                .conditionCheck(ConditionCheck.builder()
+                        .tableName("airports")
+                        .key(flightKey("0800"))
+                        .conditionExpression("attribute_exists(Code)")
+                        .build())
+                .build());
+
+        assertEquals("ValidationException", assertRejected(bookTwice).awsErrorDetails().errorCode());
+        assertEquals("ValidationException", assertRejected(invalidExpression).awsErrorDetails().errorCode());
+        assertTrue(assertRejected(unknownTable) instanceof ResourceNotFoundException);
+        assertEquals("1", flight("0800").get(Flight.AVAILABLE_SEATS_FIELD_NAME).n());
+    }
+
+    @Test
+    void conditionalPutsReturnTheCurrentItemOnlyWhenAsked() {
+        var request = PutItemRequest.builder()
+                .tableName(Flight.FLIGHT_TABLE_NAME)
+                .item(flightKey("0900"))
+                .conditionExpression("attribute_not_exists(RouteByDay)");
+
+        var withItem = assertThrows(ConditionalCheckFailedException.class, () -> engine.putItem(request
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build()));
+        var withoutItem = assertThrows(ConditionalCheckFailedException.class, () -> engine.putItem(request
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.NONE)
+                .build()));
+
+        assertEquals(flight("0900"), withItem.item());
+        assertFalse(withoutItem.hasItem());
+        assertEquals("ConditionalCheckFailedException", withoutItem.awsErrorDetails().errorCode());
+    }
+
+    @Test
+    void concurrentTransactionsNeverOversell() throws InterruptedException {
+        putFlight("1000", 20);
+        var booked = new AtomicInteger();
+        var rejected = new AtomicInteger();
+
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 100; i++) {
+                executor.execute(() -> {
+                    try {
+                        engine.transactWriteItems(transaction(bookSeat("1000", ReturnValuesOnConditionCheckFailure.NONE)));
+                        booked.incrementAndGet();
+                    } catch (TransactionCanceledException e) {
+                        rejected.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        assertEquals(20, booked.get());
+        assertEquals(80, rejected.get());
+        assertEquals("0", flight("1000").get(Flight.AVAILABLE_SEATS_FIELD_NAME).n());
+        assertEquals("21", flight("1000").get(Flight.VERSION_FIELD_NAME).n());
+    }
+
+    private void putFlight(String departureTime, int availableSeats) {
+        var item = new HashMap<>(flightKey(departureTime));
+        item.put(Flight.AVAILABLE_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(availableSeats)));
+        item.put(Flight.VERSION_FIELD_NAME, ONE);
+        engine.putItem(PutItemRequest.builder()
+                .tableName(Flight.FLIGHT_TABLE_NAME)
+                .item(item)
+                .build());
+    }
+
+    private Map<String, AttributeValue> flight(String departureTime) {
+        return engine.getItem(GetItemRequest.builder()
+                        .tableName(Flight.FLIGHT_TABLE_NAME)
+                        .key(flightKey(departureTime))
+                        .consistentRead(true)
+                        .build())
+                .item();
+    }
+
+    private DynamoDbException assertRejected(TransactWriteItemsRequest request) {
+        var e = assertThrows(DynamoDbException.class, () -> engine.transactWriteItems(request));
+        assertFalse(e instanceof TransactionCanceledException, "rejected before any condition is evaluated");
+        return e;
+    }
+
+    private static TransactWriteItem bookSeat(String departureTime, ReturnValuesOnConditionCheckFailure returnValues) {
+        return TransactWriteItem.builder()
+                .update(Update.builder()
+                        .tableName(Flight.FLIGHT_TABLE_NAME)
+                        .key(flightKey(departureTime))
+                        .updateExpression("SET AvailableSeats = AvailableSeats - :one, Version = Version + :one")
+                        .conditionExpression("AvailableSeats > :zero")
+                        .expressionAttributeValues(Map.of(":zero", ZERO, ":one", ONE))
+                        .returnValuesOnConditionCheckFailure(returnValues)
+                        .build())
+                .build();
+    }
+
+    private static TransactWriteItemsRequest transaction(TransactWriteItem... transactItems) {
+        return TransactWriteItemsRequest.builder()
+                .transactItems(transactItems)
+                .build();
+    }
+
+    private static Map<String, AttributeValue> flightKey(String departureTime) {
+        return Map.of(
+                Flight.ROUTE_BY_DAY_FIELD_NAME, AttributeValue.fromS(ROUTE),
+                Flight.DEPARTURE_TIME_FIELD_NAME, AttributeValue.fromS(departureTime)
+        );
+    }
+}
@@ -0,0 +1,222 @@
+package io.airlinesample.ddbops.embedded;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parses and evaluates expressions the way the engine does, without going through a table.
+ */
+class ExpressionParserTest {
+
+    private static final Map<String, AttributeValue> FLIGHT = Map.of(
+            "AvailableSeats", AttributeValue.fromN("12"),
+            "Version", AttributeValue.fromN("3"),
+            "FlightNumber", AttributeValue.fromS("BA304"),
+            "ClaimedSeatMap", AttributeValue.fromM(Map.of("1A", AttributeValue.fromS("booking-1"))),
+            "MealPreference", AttributeValue.fromL(List.of(AttributeValue.fromS("VGML"), AttributeValue.fromS("KSML"))),
+            "Tags", AttributeValue.fromSs(List.of("flash-sale", "widebody"))
+    );
+
+    private static final Map<String, AttributeValue> VALUES = Map.of(
+            ":zero", AttributeValue.fromN("0"),
+            ":one", AttributeValue.fromN("1"),
+            ":three", AttributeValue.fromN("3"),
+            ":twelve", AttributeValue.fromN("12"),
+            ":flightNumber", AttributeValue.fromS("BA304"),
+            ":prefix", AttributeValue.fromS("BA"),
+            ":tag", AttributeValue.fromS("widebody"),
+            ":map", AttributeValue.fromS("M"),
+            ":meals", AttributeValue.fromL(List.of(AttributeValue.fromS("AVML"))),
+            ":newTags", AttributeValue.fromSs(List.of("long-haul", "widebody"))
+    );
+
+    private static final EvaluationContext CONTEXT = EvaluationContext.of(Map.of("#seat", "1A", "#free", "2B"), VALUES);
+
+    @Test
+    void comparesNumbersAndStrings() {
+        assertTrue(holds("AvailableSeats > :zero"));
+        assertTrue(holds("AvailableSeats >= :twelve"));
+        assertFalse(holds("AvailableSeats < :twelve"));
+        assertTrue(holds("AvailableSeats <> :one"));
+        assertTrue(holds("FlightNumber = :flightNumber"));
+        assertTrue(holds(":three = Version"));
+    }
+
+    @Test
+    void ordersStringsByTheirUtf8Bytes() {
+        var supplementary = AttributeValue.fromS("\uD83D\uDE00");  // U+1F600, F0 9F 98 80 in UTF-8
+        var privateUse = AttributeValue.fromS("\uE000");             // EE 80 80 in UTF-8
+
+        assertTrue(AttributeValues.KEY_ORDER.compare(supplementary, privateUse) > 0);
+        assertTrue(AttributeValues.KEY_ORDER.compare(AttributeValue.fromS("BA"), AttributeValue.fromS("BA304")) < 0);
+        assertEquals(0, AttributeValues.KEY_ORDER.compare(supplementary, AttributeValue.fromS("\uD83D\uDE00")));
+    }
+
+    @Test
+    void comparisonsOnMissingOrMismatchedAttributesAreFalse() {
+        assertFalse(holds("HeldSeats = :zero"));
+        assertFalse(holds("HeldSeats <> :zero"));
+        assertFalse(holds("HeldSeats < :one"));
+        assertFalse(holds("FlightNumber > :zero"), "a string is never ordered against a number");
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        // Version = 1 OR (AvailableSeats = 12 AND FlightNumber = BA304)
+        assertTrue(holds("Version = :one OR AvailableSeats = :twelve AND FlightNumber = :flightNumber"));
+        // (Version = 3 OR AvailableSeats = 12) AND Version = 1
+        assertFalse(holds("(Version = :three OR AvailableSeats = :twelve) AND Version = :one"));
+        assertTrue(holds("Version = :three OR AvailableSeats = :twelve AND Version = :one"));
+    }
+
+    @Test
+    void notBindsTighterThanAnd() {
+        assertFalse(holds("NOT Version = :three AND AvailableSeats = :twelve"));
+        assertTrue(holds("NOT (Version = :one AND AvailableSeats = :twelve)"));
+        assertTrue(holds("NOT NOT Version = :three"));
+    }
+
+    @Test
+    void keywordsAreCaseInsensitive() {
+        assertTrue(holds("Version = :three and not AvailableSeats = :zero or Version = :one"));
+        assertTrue(holds("AvailableSeats between :one and :twelve"));
+    }
+
+    @Test
+    void betweenIsInclusiveAndItsAndIsNotAConjunction() {
+        assertTrue(holds("AvailableSeats BETWEEN :three AND :twelve AND FlightNumber = :flightNumber"));
+        assertFalse(holds("Version BETWEEN :zero AND :one"));
+        assertTrue(holds("Version BETWEEN :three AND :three"));
+    }
+
+    @Test
+    void inMatchesAnyCandidate() {
+        assertTrue(holds("Version IN (:zero, :one, :three)"));
+        assertFalse(holds("Version IN (:zero, :one)"));
+    }
+
+    @Test
+    void evaluatesFunctionsOnNestedPaths() {
+        assertTrue(holds("attribute_exists(ClaimedSeatMap.#seat)"));
+        assertTrue(holds("attribute_not_exists(ClaimedSeatMap.#free)"));
+        assertTrue(holds("attribute_not_exists(MealPreference[2])"));
+        assertTrue(holds("attribute_type(ClaimedSeatMap, :map)"));
+        assertTrue(holds("begins_with(FlightNumber, :prefix)"));
+        assertTrue(holds("contains(Tags, :tag)"));
+        assertTrue(holds("size(MealPreference) > :one AND size(ClaimedSeatMap) = :one"));
+    }
+
+    @Test
+    void conditionsOnAMissingItemOnlyHoldForMissingAttributes() {
+        var condition = ExpressionParser.parseCondition("attribute_not_exists(FlightNumber)");
+
+        assertTrue(condition.test(null, CONTEXT));
+        assertFalse(ExpressionParser.parseCondition("AvailableSeats > :zero").test(null, CONTEXT));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        assertValidationError(() -> ExpressionParser.parseCondition("AvailableSeats > :zero Version"));
+        assertValidationError(() -> ExpressionParser.parseCondition("AvailableSeats :zero"));
+        assertValidationError(() -> ExpressionParser.parseCondition("(AvailableSeats > :zero"));
+        assertValidationError(() -> ExpressionParser.parseCondition("AvailableSeats > :zero; Version = :one"));
+        assertValidationError(() -> ExpressionParser.parseCondition("Version BETWEEN :zero :one"));
+        assertValidationError(() -> ExpressionParser.parseCondition("attribute_exists(MealPreference[first])"));
+        assertValidationError(() -> ExpressionParser.parseUpdate("SET"));
+        assertValidationError(() -> ExpressionParser.parseUpdate("INCREMENT Version"));
+        assertValidationError(() -> ExpressionParser.parseUpdate("SET Version = max(Version, :one)"));
+    }
+
+    @Test
+    void rejectsUndefinedPlaceholders() {
+        assertValidationError(() -> holds("Version = :undefined"));
+        assertValidationError(() -> holds("attribute_exists(ClaimedSeatMap.#undefined)"));
+    }
+
+    @Test
+    void updateOperandsReadTheItemBeforeTheUpdate() {
+        var updated = update("SET Version = Version + :one, PreviousVersion = Version, AvailableSeats = AvailableSeats - :one");
+
+        assertEquals("4", updated.get("Version").n());
+        assertEquals("3", updated.get("PreviousVersion").n());
+        assertEquals("11", updated.get("AvailableSeats").n());
+    }
+
+    @Test
+    void appliesEveryUpdateClause() {
+        var updated = update("""
+                SET HeldSeats = if_not_exists(HeldSeats, :zero), MealPreference = list_append(MealPreference, :meals),
+                    ClaimedSeatMap.#free = :flightNumber
+                REMOVE ClaimedSeatMap.#seat, FlightNumber
+                ADD Version :one, Tags :newTags
+                """);
+
+        assertEquals("0", updated.get("HeldSeats").n());
+        assertEquals(3, updated.get("MealPreference").l().size());
+        assertEquals(Map.of("2B", AttributeValue.fromS("BA304")), updated.get("ClaimedSeatMap").m());
+        assertFalse(updated.containsKey("FlightNumber"));
+        assertEquals("4", updated.get("Version").n());
+        assertEquals(List.of("flash-sale", "widebody", "long-haul"), updated.get("Tags").ss());
+    }
+
+    @Test
+    void deletesFromSetsAndRemovesEmptiedOnes() {
+        assertEquals(List.of("flash-sale"), update("DELETE Tags :newTags").get("Tags").ss());
+
+        var updated = apply(ExpressionParser.parseUpdate("DELETE Tags :newTags"),
+                Map.of("Tags", AttributeValue.fromSs(List.of("widebody"))));
+        assertFalse(updated.containsKey("Tags"));
+    }
+
+    @Test
+    void updatesFailOnMissingOperandsAndInvalidPaths() {
+        assertValidationError(() -> update("SET AvailableSeats = HeldSeats - :one"));
+        assertValidationError(() -> update("SET SeatMap.#seat = :flightNumber"));
+        assertValidationError(() -> update("SET FlightNumber.#seat = :flightNumber"));
+        assertValidationError(() -> update("SET Tags = list_append(Tags, :meals)"));
+    }
+
+    @Test
+    void parsesProjections() {
+        var paths = ExpressionParser.parseProjection("FlightNumber, ClaimedSeatMap.#seat, MealPreference[1]");
+
+        assertEquals(3, paths.size());
+        assertEquals(AttributeValue.fromS("booking-1"), paths.get(1).read(FLIGHT, CONTEXT));
+        assertEquals(AttributeValue.fromS("KSML"), paths.get(2).read(FLIGHT, CONTEXT));
+    }
+
+    @Test
+    void cachesParsedExpressionsByText() {
+        var expressions = new Expressions();
+
+        assertSame(expressions.condition("Version = :one"), expressions.condition("Version = :one"));
+        assertSame(expressions.update("SET Version = :one"), expressions.update("SET Version = :one"));
+    }
+
+    private static boolean holds(String condition) {
+        return ExpressionParser.parseCondition(condition).test(FLIGHT, CONTEXT);
+    }
+
+    private static Map<String, AttributeValue> update(String updateExpression) {
+        return apply(ExpressionParser.parseUpdate(updateExpression), FLIGHT);
+    }
+
+    private static Map<String, AttributeValue> apply(List<Expressions.UpdateAction> actions, Map<String, AttributeValue> item) {
+        var working = item;
+        for (var action : actions) {
+            working = action.apply(working, item, CONTEXT);
+        }
+        return working;
+    }
+
+    private static void assertValidationError(Runnable runnable) {
+        var e = assertThrows(DynamoDbException.class, runnable::run);
+        assertEquals("ValidationException", e.awsErrorDetails().errorCode());
+    }
+}
@@ -0,0 +1,250 @@
+package io.airlinesample.ddbops.export;
+
+import com.github.luben.zstd.ZstdInputStream;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports the {@code bookings} of an {@link EmbeddedDynamoDb}, kills the export after some checkpoints, resumes it and
+ * checks that the NDJSON files hold every booking exactly once.
+ */
+class ScanExporterTest {
+
+    private static final int BOOKINGS = 3_000;
+    private static final int TOTAL_SEGMENTS = 4;
+    private static final Pattern BOOKING_ID = Pattern.compile("\"BookingID\":\"([^\"]+)\"");
+
+    @TempDir
+    Path directory;
+
+    private DynamoDbClient dynamoDbClient;
+
+    @BeforeEach
+    void putBookings() {
+        dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+        for (int i = 0; i < BOOKINGS; i++) {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(Booking.BOOKING_TABLE_NAME)
+                    .item(Map.of(
+                            Booking.CUSTOMER_EMAIL_FIELD_NAME, AttributeValue.fromS("passenger-" + i % 500 + "@example.com"),
+                            Booking.BOOKING_ID_FIELD_NAME, AttributeValue.fromS("booking-" + i),
+                            Booking.FLIGHT_NUMBER_FIELD_NAME, AttributeValue.fromS("BA304"),
+                            Booking.DEPARTURE_DATE_TIME_FIELD_NAME, AttributeValue.fromN(Long.toString(1_900_000_000L + i)),
+                            Booking.SEAT_NUMBER_FIELD_NAME, AttributeValue.fromS("12C")
+                    ))
+                    .build());
+        }
+    }
+
+    @Test
+    void resumedExportWritesEveryItemExactlyOnce() throws IOException {
+        for (var compression : ExportCompression.values()) {
+            var options = options(directory.resolve(compression.name()), compression);
+            var crashing = new CrashingClient(dynamoDbClient, 24);
+
+            assertThrows(IllegalStateException.class, () -> new ScanExporter(crashing).export(options));
+            assertTrue(checkpoints(options).values().stream().anyMatch(checkpoint -> checkpoint.items() > 0),
+                    "the export was killed after a checkpoint");
+
+            var summary = new ScanExporter(dynamoDbClient).export(options);
+
+            assertEquals(BOOKINGS, summary.items());
+            assertTrue(summary.resumedSegments() > 0);
+            assertExportedOnce(options);
+        }
+    }
+
+    @Test
+    void resumeTruncatesWhatWasWrittenPastTheCheckpoint() throws IOException {
+        var options = options(directory, ExportCompression.ZSTD);
+        assertThrows(IllegalStateException.class, () -> new ScanExporter(new CrashingClient(dynamoDbClient, 24)).export(options));
+
+        // Bytes past the last checkpoint, as a frame torn by the crash leaves them; more than the rest of the segment
+        // writes, so resuming cannot just overwrite them
+        var tornFrame = "{\"BookingID\":\"torn\"}\n".repeat(16 * 1024).getBytes(StandardCharsets.UTF_8);
+        var checkpoints = checkpoints(options);
+        assertFalse(checkpoints.isEmpty());
+        for (int segment = 0; segment < TOTAL_SEGMENTS; segment++) {
+            var dataFile = dataFile(options, segment);
+            var checkpointBytes = checkpoints.containsKey(segment) ? checkpoints.get(segment).bytes() : 0;
+            Files.write(dataFile, tornFrame, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            assertTrue(Files.size(dataFile) > checkpointBytes);
+        }
+
+        new ScanExporter(dynamoDbClient).export(options);
+
+        assertExportedOnce(options);
+    }
+
+    @Test
+    void resumeSkipsCompletedSegments() throws IOException {
+        var options = options(directory, ExportCompression.ZSTD);
+        new ScanExporter(dynamoDbClient).export(options);
+        var exported = exportedBookingIds(options);
+        // Segment 2 is exported again from scratch, the others are complete
+        Files.delete(checkpointFile(options, 2));
+        Files.delete(dataFile(options, 2));
+
+        var scanning = new CrashingClient(dynamoDbClient, Integer.MAX_VALUE);
+        var summary = new ScanExporter(scanning).export(options);
+
+        assertEquals(Set.of(2), scanning.scannedSegments);
+        assertEquals(BOOKINGS, summary.items());
+        assertEquals(TOTAL_SEGMENTS - 1, summary.resumedSegments());
+        assertEquals(exported, exportedBookingIds(options));
+
+        var rerun = new ScanExporter(new CrashingClient(dynamoDbClient, 0)).export(options);
+        assertEquals(0, rerun.pages(), "a completed export scans nothing");
+        assertEquals(BOOKINGS, rerun.items());
+        assertEquals(TOTAL_SEGMENTS, rerun.resumedSegments());
+    }
+
+    @Test
+    void resumeRejectsACheckpointOfAnotherSplit() throws IOException {
+        var options = options(directory, ExportCompression.ZSTD);
+        assertThrows(IllegalStateException.class, () -> new ScanExporter(new CrashingClient(dynamoDbClient, 24)).export(options));
+        var checkpoint = checkpoints(options).get(0);
+        new SegmentCheckpoint(0, 2 * TOTAL_SEGMENTS, checkpoint.lastEvaluatedKey(), checkpoint.items(),
+                checkpoint.bytes(), checkpoint.completed()).write(checkpointFile(options, 0));
+
+        var e = assertThrows(IllegalStateException.class, () -> new ScanExporter(dynamoDbClient).export(options));
+
+        assertTrue(e.getMessage().contains("belongs to segment 0 of " + 2 * TOTAL_SEGMENTS), e.getMessage());
+    }
+
+    private static ExportOptions options(Path directory, ExportCompression compression) {
+        return ExportOptions.builder()
+                .tableName(Booking.BOOKING_TABLE_NAME)
+                .directory(directory)
+                .totalSegments(TOTAL_SEGMENTS)
+                .compression(compression)
+                .pageSize(50)
+                .checkpointEveryPages(2)
+                .bufferSize(1024)
+                .build();
+    }
+
+    private static void assertExportedOnce(ExportOptions options) throws IOException {
+        var lines = new HashMap<String, Integer>();
+        for (int segment = 0; segment < TOTAL_SEGMENTS; segment++) {
+            for (var bookingId : bookingIds(options, segment)) {
+                lines.merge(bookingId, 1, Integer::sum);
+            }
+        }
+
+        assertEquals(BOOKINGS, lines.size(), "every booking is exported");
+        lines.forEach((bookingId, count) -> assertEquals(1, count, bookingId + " is exported once"));
+    }
+
+    private static Set<String> exportedBookingIds(ExportOptions options) throws IOException {
+        var bookingIds = new HashSet<String>();
+        for (int segment = 0; segment < TOTAL_SEGMENTS; segment++) {
+            bookingIds.addAll(bookingIds(options, segment));
+        }
+        return bookingIds;
+    }
+
+    private static List<String> bookingIds(ExportOptions options, int segment) throws IOException {
+        var bookingIds = new ArrayList<String>();
+        try (var reader = new BufferedReader(new InputStreamReader(decompress(options, segment), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                var matcher = BOOKING_ID.matcher(line);
+                assertTrue(matcher.find(), "not a booking: " + line);
+                bookingIds.add(matcher.group(1));
+            }
+        }
+        return bookingIds;
+    }
+
+    private static InputStream decompress(ExportOptions options, int segment) throws IOException {
+        var in = Files.newInputStream(dataFile(options, segment));
+        return options.compression() == ExportCompression.GZIP ? new GZIPInputStream(in) : new ZstdInputStream(in);
+    }
+
+    private static Map<Integer, SegmentCheckpoint> checkpoints(ExportOptions options) {
+        var checkpoints = new HashMap<Integer, SegmentCheckpoint>();
+        for (int segment = 0; segment < TOTAL_SEGMENTS; segment++) {
+            var current = segment;
+            SegmentCheckpoint.read(checkpointFile(options, segment)).ifPresent(checkpoint -> checkpoints.put(current, checkpoint));
+        }
+        return checkpoints;
+    }
+
+    private static Path dataFile(ExportOptions options, int segment) {
+        return options.directory().resolve(fileName(options, segment) + options.compression().fileExtension());
+    }
+
+    private static Path checkpointFile(ExportOptions options, int segment) {
+        return options.directory().resolve(fileName(options, segment) + ".checkpoint");
+    }
+
+    private static String fileName(ExportOptions options, int segment) {
+        return String.format("%s-%04d-of-%04d", options.tableName(), segment, options.totalSegments());
+    }
+
+    /**
+     * Fails every {@code Scan} after the first {@code scansBeforeCrash}, as a killed export would stop, and records the
+     * segments it scanned.
+     */
+    private static final class CrashingClient implements DynamoDbClient {
+
+        private final DynamoDbClient delegate;
+        private final int scansBeforeCrash;
+        private final AtomicInteger scans = new AtomicInteger();
+        private final Set<Integer> scannedSegments = ConcurrentHashMap.newKeySet();
+
+        private CrashingClient(DynamoDbClient delegate, int scansBeforeCrash) {
+            this.delegate = delegate;
+            this.scansBeforeCrash = scansBeforeCrash;
+        }
+
+        @Override
+        public ScanResponse scan(ScanRequest scanRequest) {
+            if (scans.incrementAndGet() > scansBeforeCrash) {
+                throw new IllegalStateException("Export killed");
+            }
+            scannedSegments.add(scanRequest.segment());
+            return delegate.scan(scanRequest);
+        }
+
+        @Override
+        public String serviceName() {
+            return delegate.serviceName();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.AwsClientProvider;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbAsyncClient;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Books through {@link AsyncConditionalExpressionBookFlightRepository}, guarded by seat availability only, against an
+ * {@link EmbeddedDynamoDb}.
+ */
+class AsyncConditionalExpressionBookFlightRepositoryTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("CDG")
+            .departureDateTime(DEPARTURE)
+            .build();
+
+    private AsyncConditionalExpressionBookFlightRepository repository;
+
+    @BeforeEach
+    void createTables() {
+        var engine = EmbeddedDynamoDb.withAirlineTables();
+        repository = new AsyncConditionalExpressionBookFlightRepository(new EmbeddedDynamoDbAsyncClient(engine));
+        AwsClientProvider.dynamoDbEnhancedClient(new EmbeddedDynamoDbClient(engine))
+                .table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class))
+                .putItem(Flight.builder()
+                        .primaryKey(FLIGHT_KEY)
+                        .flightNumber("BA304")
+                        .airplaneModel("Airbus A320")
+                        .totalSeats(2)
+                        .build());
+    }
+
+    @Test
+    void booksWithoutReadingTheFlight() {
+        var transactSummary = repository.transactBookFlight(booking("booking-1", "1A"), null).join();
+
+        assertTrue(transactSummary.success());
+        var flight = repository.findFlight(FLIGHT_KEY).join().orElseThrow();
+        assertEquals(1, flight.getAvailableSeats());
+        assertTrue(repository.findBooking("passenger@example.com", "booking-1").join().isPresent());
+    }
+
+    @Test
+    void reportsATakenSeatAsAFailedCondition() {
+        assertTrue(repository.transactBookFlight(booking("booking-1", "1A"), null).join().success());
+
+        var transactSummary = repository.transactBookFlight(booking("booking-2", "1A"), null).join();
+
+        assertTrue(transactSummary.preconditionFailed());
+        assertEquals(1, transactSummary.currentFlight().orElseThrow().getAvailableSeats());
+        assertTrue(repository.findBooking("passenger@example.com", "booking-2").join().isEmpty());
+    }
+
+    @Test
+    void reportsASoldOutFlightAsAFailedCondition() {
+        assertTrue(repository.transactBookFlight(booking("booking-1", null), null).join().success());
+        assertTrue(repository.transactBookFlight(booking("booking-2", null), null).join().success());
+
+        var transactSummary = repository.transactBookFlight(booking("booking-3", null), null).join();
+
+        assertTrue(transactSummary.preconditionFailed());
+        assertEquals(0, repository.findFlight(FLIGHT_KEY, ReadOptions.consistent()).join()
+                .orElseThrow().getAvailableSeats());
+    }
+
+    private static Booking booking(String bookingId, String seatNumber) {
+        return Booking.builder()
+                .customerEmail("passenger@example.com")
+                .bookingID(bookingId)
+                .flightNumber("BA304")
+                .source(FLIGHT_KEY.getSourceAirportCode())
+                .destination(FLIGHT_KEY.getDestinationAirportCode())
+                .departureDateTime(DEPARTURE.toEpochSecond(ZoneOffset.UTC))
+                .seatNumber(seatNumber)
+                .build();
+    }
+}
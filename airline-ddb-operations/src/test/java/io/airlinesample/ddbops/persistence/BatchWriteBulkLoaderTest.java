@@ -0,0 +1,162 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Backoff;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static io.airlinesample.ddbops.domain.Booking.BOOKING_ID_FIELD_NAME;
+import static io.airlinesample.ddbops.domain.Booking.BOOKING_TABLE_NAME;
+import static io.airlinesample.ddbops.domain.Booking.CUSTOMER_EMAIL_FIELD_NAME;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk-loads bookings with {@link BatchWriteBulkLoader} into an {@link EmbeddedDynamoDb}, through a client that
+ * leaves part of every {@code BatchWriteItem} unprocessed, as a throttled table does.
+ */
+class BatchWriteBulkLoaderTest {
+
+    private static final Backoff NO_BACKOFF = new Backoff(Duration.ZERO, Duration.ZERO);
+
+    private DynamoDbClient dynamoDbClient;
+
+    @BeforeEach
+    void createTables() {
+        dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+    }
+
+    @Test
+    void writesEveryItemInBatchesOfTheBatchWriteItemLimit() {
+        var client = new ThrottlingClient(dynamoDbClient, Integer.MAX_VALUE);
+        var loader = new BatchWriteBulkLoader(client, 4, NO_BACKOFF);
+
+        var summary = loader.load(BOOKING_TABLE_NAME, bookings(60), BookingMapper::toDDBModel);
+
+        assertEquals(60, summary.items());
+        assertEquals(3, summary.batches());
+        assertEquals(0, summary.resubmittedItems());
+        assertTrue(client.maxRequestSize.get() <= BatchWriteBulkLoader.MAX_BATCH_SIZE);
+        assertStored(60);
+    }
+
+    @Test
+    void resubmitsTheUnprocessedItemsUntilEveryItemIsWritten() {
+        var client = new ThrottlingClient(dynamoDbClient, 10);
+        var loader = new BatchWriteBulkLoader(client, 1, NO_BACKOFF);
+
+        var summary = loader.load(BOOKING_TABLE_NAME, bookings(25), BookingMapper::toDDBModel);
+
+        // 25 items: 10 written and 15 returned, then 10 and 5, then the last 5
+        assertEquals(25, summary.items());
+        assertEquals(3, summary.batches());
+        assertEquals(20, summary.resubmittedItems());
+        assertStored(25);
+    }
+
+    @Test
+    void failsTheLoadAfterMaxAttempts() {
+        var client = new ThrottlingClient(dynamoDbClient, 0);
+        var loader = new BatchWriteBulkLoader(client, 1, NO_BACKOFF);
+
+        var e = assertThrows(IllegalStateException.class,
+                () -> loader.load(BOOKING_TABLE_NAME, bookings(30), BookingMapper::toDDBModel));
+
+        assertTrue(e.getMessage().contains("after " + BatchWriteBulkLoader.MAX_ATTEMPTS + " BatchWriteItem attempts"));
+        assertEquals(BatchWriteBulkLoader.MAX_ATTEMPTS, client.requests.get(), "no batch was submitted after the failure");
+    }
+
+    @Test
+    void rejectsANonPositiveParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchWriteBulkLoader(dynamoDbClient, 0));
+    }
+
+    private void assertStored(int count) {
+        for (int i = 0; i < count; i++) {
+            var response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(BOOKING_TABLE_NAME)
+                    .key(Map.of(
+                            CUSTOMER_EMAIL_FIELD_NAME, AttributeValue.fromS("customer-" + i + "@example.com"),
+                            BOOKING_ID_FIELD_NAME, AttributeValue.fromS("booking-" + i)))
+                    .build());
+            assertTrue(response.hasItem() && !response.item().isEmpty(), "booking-" + i + " was written");
+        }
+    }
+
+    private static Stream<Booking> bookings(int count) {
+        return IntStream.range(0, count).mapToObj(BatchWriteBulkLoaderTest::booking);
+    }
+
+    private static Booking booking(int i) {
+        return Booking.builder()
+                .customerEmail("customer-" + i + "@example.com")
+                .bookingID("booking-" + i)
+                .flightNumber("BA304")
+                .source("LHR")
+                .destination("CDG")
+                .departureDateTime(202_001_010_800L)
+                .fareClass("economy")
+                .build();
+    }
+
+    /**
+     * Writes the first {@code processedPerRequest} items of every {@code BatchWriteItem} and returns the others as
+     * {@code UnprocessedItems}.
+     */
+    private static final class ThrottlingClient implements DynamoDbClient {
+
+        private final DynamoDbClient delegate;
+        private final int processedPerRequest;
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger maxRequestSize = new AtomicInteger();
+
+        private ThrottlingClient(DynamoDbClient delegate, int processedPerRequest) {
+            this.delegate = delegate;
+            this.processedPerRequest = processedPerRequest;
+        }
+
+        @Override
+        public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest batchWriteItemRequest) {
+            requests.incrementAndGet();
+            var tableName = batchWriteItemRequest.requestItems().keySet().iterator().next();
+            List<WriteRequest> writeRequests = batchWriteItemRequest.requestItems().get(tableName);
+            maxRequestSize.accumulateAndGet(writeRequests.size(), Math::max);
+
+            var processed = Math.min(processedPerRequest, writeRequests.size());
+            if (processed > 0) {
+                delegate.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(tableName, writeRequests.subList(0, processed)))
+                        .build());
+            }
+            if (processed == writeRequests.size()) {
+                return BatchWriteItemResponse.builder().build();
+            }
+            return BatchWriteItemResponse.builder()
+                    .unprocessedItems(Map.of(tableName, writeRequests.subList(processed, writeRequests.size())))
+                    .build();
+        }
+
+        @Override
+        public String serviceName() {
+            return delegate.serviceName();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.BookingFilter;
+import io.airlinesample.ddbops.domain.BookingPage;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlinesample.ddbops.domain.Booking.BOOKING_TABLE_NAME;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pages through the booking history of a customer with {@link BookingHistoryRepository}, against an
+ * {@link EmbeddedDynamoDb}.
+ */
+class BookingHistoryRepositoryTest {
+
+    private static final String CUSTOMER_EMAIL = "frequent-flyer@example.com";
+    private static final LocalDateTime FIRST_DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final int BOOKINGS = 20;
+
+    private QueryCountingClient dynamoDbClient;
+    private BookingHistoryRepository repository;
+
+    @BeforeEach
+    void createTables() {
+        dynamoDbClient = new QueryCountingClient(new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables()));
+        repository = new BookingHistoryRepository(dynamoDbClient);
+        // booking-00 departs on day 0, booking-01 on day 1, and so on
+        for (int i = 0; i < BOOKINGS; i++) {
+            putBooking(CUSTOMER_EMAIL, i);
+        }
+        putBooking("other-customer@example.com", 0);
+    }
+
+    @Test
+    void walksTheWholeHistoryInBookingIdOrder() {
+        var pages = repository.streamBookings(CUSTOMER_EMAIL, BookingFilter.builder().pageSize(8).build()).toList();
+
+        assertEquals(List.of(8, 8, 4), pages.stream().map(page -> page.bookings().size()).toList());
+        assertEquals(bookingIds(0, BOOKINGS), bookingIds(pages));
+        assertTrue(pages.get(1).hasMore());
+        assertFalse(pages.get(2).hasMore());
+    }
+
+    @Test
+    void readsTheNextPageOnlyWhenTheStreamReachesIt() {
+        var firstPage = repository.streamBookings(CUSTOMER_EMAIL, BookingFilter.builder().pageSize(5).build())
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(bookingIds(0, 5), bookingIds(List.of(firstPage)));
+        assertEquals(1, dynamoDbClient.queries.get());
+    }
+
+    @Test
+    void resumesAfterTheCursorOfAPage() {
+        var filter = BookingFilter.builder().pageSize(6).build();
+        var firstPage = repository.streamBookings(CUSTOMER_EMAIL, filter).findFirst().orElseThrow();
+
+        var rest = repository.streamBookings(CUSTOMER_EMAIL, filter.resumeAfter(firstPage.cursor())).toList();
+
+        assertEquals(bookingIds(6, BOOKINGS), bookingIds(rest));
+    }
+
+    @Test
+    void fillsThePagesDespiteTheDepartureFilter() {
+        // Days 3 to 14 match: 12 bookings, read 4 at a time while the filter drops the first 3 bookings
+        var filter = BookingFilter.builder()
+                .departureFrom(FIRST_DEPARTURE.plusDays(3))
+                .departureTo(FIRST_DEPARTURE.plusDays(14))
+                .pageSize(4)
+                .build();
+
+        var pages = repository.streamBookings(CUSTOMER_EMAIL, filter).toList();
+
+        assertEquals(List.of(4, 4, 4), pages.stream().map(page -> page.bookings().size()).toList());
+        assertEquals(bookingIds(3, 15), bookingIds(pages));
+    }
+
+    @Test
+    void resumesAFilteredHistoryAfterTheLastBookingOfAPage() {
+        // The first page fills up within its second query, which read bookings it does not return
+        var filter = BookingFilter.builder()
+                .departureFrom(FIRST_DEPARTURE.plusDays(2))
+                .pageSize(5)
+                .build();
+        var firstPage = repository.streamBookings(CUSTOMER_EMAIL, filter).findFirst().orElseThrow();
+
+        var rest = repository.streamBookings(CUSTOMER_EMAIL, filter.resumeAfter(firstPage.cursor())).toList();
+
+        assertEquals(bookingIds(2, 7), bookingIds(List.of(firstPage)));
+        assertEquals(bookingIds(7, BOOKINGS), bookingIds(rest));
+    }
+
+    @Test
+    void endsWithoutAnEmptyPageWhenNothingMatches() {
+        var filter = BookingFilter.builder()
+                .departureFrom(FIRST_DEPARTURE.plusDays(BOOKINGS))
+                .pageSize(3)
+                .build();
+
+        assertEquals(0, repository.streamBookings(CUSTOMER_EMAIL, filter).count());
+        assertEquals(7, dynamoDbClient.queries.get(), "the whole partition was read, 3 bookings at a time");
+    }
+
+    @Test
+    void rejectsAnInvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.streamBookings(CUSTOMER_EMAIL, BookingFilter.all().resumeAfter("not base64!")));
+    }
+
+    private void putBooking(String customerEmail, int day) {
+        var booking = Booking.builder()
+                .customerEmail(customerEmail)
+                .bookingID(String.format("booking-%02d", day))
+                .flightNumber("BA304")
+                .source("LHR")
+                .destination("CDG")
+                .departureDateTime(FIRST_DEPARTURE.plusDays(day).toEpochSecond(ZoneOffset.UTC))
+                .fareClass("economy")
+                .build();
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(BOOKING_TABLE_NAME)
+                .item(BookingMapper.toDDBModel(booking))
+                .build());
+    }
+
+    private static List<String> bookingIds(int fromDay, int toDay) {
+        var bookingIds = new ArrayList<String>();
+        for (int day = fromDay; day < toDay; day++) {
+            bookingIds.add(String.format("booking-%02d", day));
+        }
+        return bookingIds;
+    }
+
+    private static List<String> bookingIds(List<BookingPage> pages) {
+        return pages.stream()
+                .flatMap(page -> page.bookings().stream())
+                .map(Booking::getBookingID)
+                .toList();
+    }
+
+    private static final class QueryCountingClient implements DynamoDbClient {
+
+        private final DynamoDbClient delegate;
+        private final AtomicInteger queries = new AtomicInteger();
+
+        private QueryCountingClient(DynamoDbClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public QueryResponse query(QueryRequest queryRequest) {
+            queries.incrementAndGet();
+            return delegate.query(queryRequest);
+        }
+
+        @Override
+        public PutItemResponse putItem(PutItemRequest putItemRequest) {
+            return delegate.putItem(putItemRequest);
+        }
+
+        @Override
+        public String serviceName() {
+            return delegate.serviceName();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
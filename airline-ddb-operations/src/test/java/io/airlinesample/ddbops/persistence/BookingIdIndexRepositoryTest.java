@@ -0,0 +1,137 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlinesample.ddbops.domain.Booking.BOOKING_TABLE_NAME;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Looks bookings up by ID through the {@code BookingIDIndex} of an {@link EmbeddedDynamoDb}.
+ */
+class BookingIdIndexRepositoryTest {
+
+    private static final int BOOKINGS = 40;
+    private static final int PARALLELISM = 4;
+
+    private DynamoDbClient dynamoDbClient;
+
+    @BeforeEach
+    void createTables() {
+        dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+    }
+
+    @Test
+    void findsBookingsInTheOrderOfTheIDs() {
+        var bookingIDs = putBookings();
+        Collections.reverse(bookingIDs);
+        var requestedIDs = new ArrayList<>(bookingIDs);
+        requestedIDs.add(1, "unknown");
+        var repository = new BookingIdIndexRepository(dynamoDbClient);
+
+        var bookings = repository.findBookingsByIds(requestedIDs);
+
+        assertEquals(bookingIDs, List.copyOf(bookings.keySet()));
+        assertEquals("customer-7@example.com", bookings.get("booking-7").getCustomerEmail());
+    }
+
+    @Test
+    void findsASingleBookingById() {
+        putBookings();
+        var repository = new BookingIdIndexRepository(dynamoDbClient);
+
+        assertEquals("customer-3@example.com", repository.findBookingById("booking-3").orElseThrow().getCustomerEmail());
+        assertTrue(repository.findBookingById("unknown").isEmpty());
+    }
+
+    @Test
+    void boundsTheIndexQueriesInFlight() {
+        var bookingIDs = putBookings();
+        var client = new ConcurrencyTrackingClient(dynamoDbClient);
+        var repository = new BookingIdIndexRepository(client, BookingIdIndexProjection.all(), PARALLELISM);
+
+        var bookings = repository.findBookingsByIds(bookingIDs);
+
+        assertEquals(BOOKINGS, bookings.size());
+        assertEquals(BOOKINGS, client.queries.get());
+        assertTrue(client.maxInFlight.get() <= PARALLELISM, "at most " + PARALLELISM + " queries in flight, was " + client.maxInFlight.get());
+    }
+
+    @Test
+    void rejectsANonPositiveParallelism() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BookingIdIndexRepository(dynamoDbClient, BookingIdIndexProjection.all(), 0));
+    }
+
+    private List<String> putBookings() {
+        var bookingIDs = new ArrayList<String>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            var booking = Booking.builder()
+                    .customerEmail("customer-" + i + "@example.com")
+                    .bookingID("booking-" + i)
+                    .flightNumber("BA304")
+                    .source("LHR")
+                    .destination("CDG")
+                    .departureDateTime(202_001_010_800L)
+                    .fareClass("economy")
+                    .build();
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(BOOKING_TABLE_NAME)
+                    .item(BookingMapper.toDDBModel(booking))
+                    .build());
+            bookingIDs.add(booking.getBookingID());
+        }
+        return bookingIDs;
+    }
+
+    /**
+     * Records the most queries running at once, each held briefly so that unbounded lookups would overlap.
+     */
+    private static final class ConcurrencyTrackingClient implements DynamoDbClient {
+
+        private final DynamoDbClient delegate;
+        private final AtomicInteger queries = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        private ConcurrencyTrackingClient(DynamoDbClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public QueryResponse query(QueryRequest queryRequest) {
+            queries.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+                return delegate.query(queryRequest);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String serviceName() {
+            return delegate.serviceName();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
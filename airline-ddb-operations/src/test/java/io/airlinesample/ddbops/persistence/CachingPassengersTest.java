@@ -0,0 +1,157 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Passenger;
+import io.airlinesample.ddbops.domain.Passengers;
+import io.airlinesample.ddbops.domain.Preferences;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads passenger profiles through {@link CachingPassengers}, in front of an in-memory {@link Passengers} recording
+ * the reads that reach it, on a manual clock.
+ */
+class CachingPassengersTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final RecordingPassengers delegate = new RecordingPassengers();
+    private final CachingPassengers cache = new CachingPassengers(delegate, 100, TTL, NEGATIVE_TTL, nanos::get);
+
+    @Test
+    void servesAFoundProfileFromTheCacheUntilTheTtl() {
+        delegate.put(passenger("ana@example.com"));
+
+        assertTrue(cache.findPassenger("ana@example.com").isPresent());
+        advance(NEGATIVE_TTL);
+        assertTrue(cache.findPassenger("ana@example.com").isPresent());
+        assertEquals(1, delegate.reads.size(), "found profiles outlive the negative TTL");
+
+        advance(TTL.minus(NEGATIVE_TTL));
+        assertTrue(cache.findPassenger("ana@example.com").isPresent());
+        assertEquals(2, delegate.reads.size());
+    }
+
+    @Test
+    void cachesAnUnknownEmailForTheShorterNegativeTtl() {
+        assertTrue(cache.findPassenger("guest@example.com").isEmpty());
+        delegate.put(passenger("guest@example.com"));
+
+        advance(NEGATIVE_TTL.minusNanos(1));
+        assertTrue(cache.findPassenger("guest@example.com").isEmpty(), "still cached as unknown");
+        assertEquals(1, delegate.reads.size());
+
+        advance(Duration.ofNanos(1));
+        assertTrue(cache.findPassenger("guest@example.com").isPresent(), "the sign-up is picked up");
+        assertEquals(2, delegate.reads.size());
+        assertEquals(1, cache.cacheHits());
+        assertEquals(2, cache.cacheMisses());
+    }
+
+    @Test
+    void readsOnlyTheUncachedEmailsInOneBatch() {
+        delegate.put(passenger("ana@example.com"));
+        delegate.put(passenger("bo@example.com"));
+        delegate.put(passenger("cy@example.com"));
+        cache.findPassenger("bo@example.com");
+        cache.findPassenger("guest@example.com");
+        delegate.reads.clear();
+
+        var passengers = cache.findPassengers(List.of("cy@example.com", "guest@example.com", "bo@example.com",
+                "ana@example.com", "cy@example.com"));
+
+        assertEquals(List.of("cy@example.com", "bo@example.com", "ana@example.com"), List.copyOf(passengers.keySet()));
+        assertEquals(List.of(List.of("cy@example.com", "ana@example.com")), delegate.reads,
+                "one batch of the missed emails, each once");
+
+        cache.findPassengers(List.of("ana@example.com", "bo@example.com", "cy@example.com", "guest@example.com"));
+        assertEquals(1, delegate.reads.size(), "every email was cached by the batch read");
+    }
+
+    @Test
+    void returnsCopiesOfTheCachedProfiles() {
+        delegate.put(passenger("ana@example.com"));
+
+        var first = cache.findPassenger("ana@example.com").orElseThrow();
+        first.setFullName("Altered");
+        first.getPreferences().getMealPreference().add("altered");
+        var batchRead = cache.findPassengers(List.of("ana@example.com")).get("ana@example.com");
+        batchRead.getPreferences().setSeatPreference("altered");
+
+        var cached = cache.findPassenger("ana@example.com").orElseThrow();
+        assertEquals(passenger("ana@example.com"), cached);
+        assertNotSame(first, cached);
+        assertEquals(1, delegate.reads.size());
+    }
+
+    @Test
+    void readsAnInvalidatedProfileAgain() {
+        delegate.put(passenger("ana@example.com"));
+        cache.findPassenger("ana@example.com");
+
+        cache.invalidate("ana@example.com");
+        cache.findPassenger("ana@example.com");
+
+        assertEquals(2, delegate.reads.size());
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static Passenger passenger(String emailAddress) {
+        return Passenger.builder()
+                .emailAddress(emailAddress)
+                .fullName("Passenger " + emailAddress)
+                .frequentFlyerID("FF-" + emailAddress.length())
+                .preferences(Preferences.builder()
+                        .seatPreference("window")
+                        .mealPreference(new ArrayList<>(List.of("vegetarian")))
+                        .language("en")
+                        .build())
+                .build();
+    }
+
+    /**
+     * Profiles kept in memory; every read is recorded as the list of emails it asked for.
+     */
+    private static final class RecordingPassengers implements Passengers {
+
+        private final Map<String, Passenger> passengers = new HashMap<>();
+        private final List<List<String>> reads = new ArrayList<>();
+
+        void put(Passenger passenger) {
+            passengers.put(passenger.getEmailAddress(), passenger);
+        }
+
+        @Override
+        public Optional<Passenger> findPassenger(String emailAddress) {
+            reads.add(List.of(emailAddress));
+            return Optional.ofNullable(passengers.get(emailAddress));
+        }
+
+        @Override
+        public Map<String, Passenger> findPassengers(Collection<String> emailAddresses) {
+            reads.add(List.copyOf(emailAddresses));
+            var found = new LinkedHashMap<String, Passenger>();
+            for (var emailAddress : emailAddresses) {
+                if (passengers.containsKey(emailAddress)) {
+                    found.put(emailAddress, passengers.get(emailAddress));
+                }
+            }
+            return found;
+        }
+    }
+}
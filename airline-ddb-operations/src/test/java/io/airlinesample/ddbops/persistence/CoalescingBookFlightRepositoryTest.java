@@ -0,0 +1,356 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.FlightBookings;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static io.airlinesample.ddbops.domain.Flight.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link CoalescingBookFlightRepository} in front of a {@link ConditionalExpressionBookFlightRepository} against
+ * an {@link EmbeddedDynamoDb}: however the bookings are batched, a flight never sells more seats than it has.
+ */
+class CoalescingBookFlightRepositoryTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("CDG")
+            .departureDateTime(DEPARTURE)
+            .build();
+
+    // Long enough for every booking started together to join the batch, which then commits once full
+    private static final Duration WINDOW = Duration.ofSeconds(10);
+
+    private DynamoDbClient dynamoDbClient;
+
+    @BeforeEach
+    void createTables() {
+        dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+    }
+
+    @Test
+    void concurrentBookingsNeverOversell() throws Exception {
+        putFlight(150);
+        var repository = repository(dynamoDbClient, Duration.ofMillis(20));
+
+        var summaries = bookConcurrently(repository, 400);
+
+        assertEquals(150, count(summaries, FlightBookings.TransactSummary::success));
+        assertEquals(250, count(summaries, FlightBookings.TransactSummary::preconditionFailed));
+        assertEquals(0, availableSeats());
+        assertEquals(150, heldSeats());
+        assertEquals(150, storedBookings(400));
+        assertTrue(repository.coalescedTransactions() > 0, "bookings were coalesced");
+    }
+
+    @Test
+    void batchShrinksToTheSeatsLeftAfterAPreconditionFailure() throws Exception {
+        putFlight(60);
+        var client = new CountingClient(dynamoDbClient, transaction -> {
+        });
+        var repository = repository(client, WINDOW);
+
+        var summaries = bookFullBatch(repository, client);
+
+        assertEquals(60, count(summaries, FlightBookings.TransactSummary::success));
+        assertEquals(40, count(summaries, FlightBookings.TransactSummary::preconditionFailed));
+        // The rejected batch returned the 60 seats left: one more coalesced transaction books them, not 99 single ones
+        assertEquals(2, client.coalescedTransactions.get(), "coalesced attempts");
+        assertEquals(3, client.transactions.get(), "with the held booking");
+        assertEquals(1, repository.coalescedTransactions());
+        assertEquals(60, repository.coalescedBookings());
+        assertEquals(0, availableSeats());
+        assertEquals(60, storedBookings(100));
+    }
+
+    @Test
+    void bookingsAreCommittedIndividuallyWhenTheFlightKeepsChanging() throws Exception {
+        putFlight(200);
+        // Before every coalesced transaction, other bookings take the flight down to two seats short of the batch
+        var client = new CountingClient(dynamoDbClient, transaction -> {
+            var bookings = transaction.transactItems().size() - 1;
+            if (bookings > 1) {
+                putFlight(bookings - 2);
+            }
+        });
+        var repository = repository(client, WINDOW);
+
+        var summaries = bookFullBatch(repository, client);
+
+        // 99 bookings shrink to 97, then to 95, then commit one by one against 93 seats
+        assertEquals(93, count(summaries, FlightBookings.TransactSummary::success));
+        assertEquals(7, count(summaries, FlightBookings.TransactSummary::preconditionFailed));
+        assertEquals(3, client.coalescedTransactions.get(), "coalesced attempts");
+        assertEquals(1 + 3 + 95, client.transactions.get());
+        assertEquals(0, repository.coalescedTransactions());
+        assertEquals(0, availableSeats());
+        assertEquals(93, storedBookings(100));
+    }
+
+    @Test
+    void aBookingAlreadyInTheBatchIsBookedOnItsOwn() throws Exception {
+        putFlight(10);
+        var client = new CountingClient(dynamoDbClient, transaction -> {
+        });
+        var repository = repository(client, Duration.ofMillis(500));
+        // Held in its transaction, so the flight stays contended and the next leader awaits the window
+        var release = client.holdNextTransaction();
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var held = executor.submit(() -> repository.transactBookFlight(booking(9, null), null));
+            client.held.await();
+
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<FlightBookings.TransactSummary>>();
+            for (var i : new int[]{0, 0, 1}) {
+                var booking = booking(i, null);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return repository.transactBookFlight(booking, null);
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                assertTrue(future.get().success());
+            }
+            release.countDown();
+            assertTrue(held.get().success());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, client.coalescedTransactions.get(), "bookings 0 and 1, without the repeated booking 0");
+        assertEquals(1, repository.coalescedTransactions());
+        assertEquals(2, repository.coalescedBookings());
+        assertEquals(3, client.transactions.get(), "the held booking, the batch and the repeated booking");
+        assertEquals(10 - 4, availableSeats());
+    }
+
+    @Test
+    void bookingsWithASeatAreNeverCoalesced() {
+        putFlight(10);
+        var client = new CountingClient(dynamoDbClient, transaction -> {
+        });
+        var repository = repository(client, WINDOW);
+
+        var summary = repository.transactBookFlight(booking(0, "1A"), null);
+
+        assertTrue(summary.success());
+        assertEquals(0, client.coalescedTransactions.get());
+        assertEquals(9, availableSeats());
+    }
+
+    private static CoalescingBookFlightRepository repository(DynamoDbClient client, Duration window) {
+        return new CoalescingBookFlightRepository(client, new ConditionalExpressionBookFlightRepository(client), window);
+    }
+
+    private static List<FlightBookings.TransactSummary> bookConcurrently(CoalescingBookFlightRepository repository,
+                                                                         int bookings)
+            throws InterruptedException, ExecutionException {
+        var executor = Executors.newFixedThreadPool(bookings);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<FlightBookings.TransactSummary>>(bookings);
+            for (int i = 0; i < bookings; i++) {
+                var booking = booking(i, null);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return repository.transactBookFlight(booking, null);
+                }));
+            }
+            start.countDown();
+
+            var summaries = new ArrayList<FlightBookings.TransactSummary>(bookings);
+            for (var future : futures) {
+                summaries.add(future.get());
+            }
+            return summaries;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Books {@value CoalescingBookFlightRepository#MAX_BOOKINGS_PER_BATCH} bookings as exactly one batch, followed by a
+     * last booking. That one is booked first and held in its transaction, so the flight is contended for every other
+     * booking: they all join the batch, which commits as soon as it is full. The held booking commits at the end.
+     */
+    private static List<FlightBookings.TransactSummary> bookFullBatch(CoalescingBookFlightRepository repository,
+                                                                      CountingClient client)
+            throws InterruptedException, ExecutionException {
+        var release = client.holdNextTransaction();
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var held = executor.submit(() -> repository.transactBookFlight(
+                    booking(CoalescingBookFlightRepository.MAX_BOOKINGS_PER_BATCH, null), null));
+            client.held.await();
+
+            var summaries = bookConcurrently(repository, CoalescingBookFlightRepository.MAX_BOOKINGS_PER_BATCH);
+
+            release.countDown();
+            summaries.add(held.get());
+            return summaries;
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static long count(List<FlightBookings.TransactSummary> summaries,
+                              Predicate<FlightBookings.TransactSummary> outcome) {
+        return summaries.stream().filter(outcome).count();
+    }
+
+    private static Booking booking(int i, String seatNumber) {
+        return Booking.builder()
+                .customerEmail("passenger-" + i + "@example.com")
+                .bookingID("booking-" + i)
+                .flightNumber("BA304")
+                .source(FLIGHT_KEY.getSourceAirportCode())
+                .destination(FLIGHT_KEY.getDestinationAirportCode())
+                .departureDateTime(DEPARTURE.toEpochSecond(ZoneOffset.UTC))
+                .seatNumber(seatNumber)
+                .build();
+    }
+
+    private void putFlight(int availableSeats) {
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .item(Map.of(
+                        ROUTE_BY_DAY_FIELD_NAME, AttributeValue.fromS(FLIGHT_KEY.getPartitionKey()),
+                        DEPARTURE_TIME_FIELD_NAME, AttributeValue.fromS(FLIGHT_KEY.getSortKey()),
+                        FLIGHT_NUMBER_FIELD_NAME, AttributeValue.fromS("BA304"),
+                        TOTAL_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(availableSeats)),
+                        AVAILABLE_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(availableSeats)),
+                        HELD_SEATS_FIELD_NAME, AttributeValue.fromN("0"),
+                        VERSION_FIELD_NAME, AttributeValue.fromN("1"),
+                        CLAIMED_SEAT_MAP_FIELD_NAME, AttributeValue.fromM(Map.of())
+                ))
+                .build());
+    }
+
+    private int availableSeats() {
+        return Integer.parseInt(flightItem().get(AVAILABLE_SEATS_FIELD_NAME).n());
+    }
+
+    private int heldSeats() {
+        return Integer.parseInt(flightItem().get(HELD_SEATS_FIELD_NAME).n());
+    }
+
+    private Map<String, AttributeValue> flightItem() {
+        return dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .key(FlightMapper.toDDBKeyMap(FLIGHT_KEY))
+                .consistentRead(true)
+                .build()).item();
+    }
+
+    /**
+     * Stored bookings among the first {@code bookings} ones.
+     */
+    private int storedBookings(int bookings) {
+        var stored = 0;
+        for (int i = 0; i < bookings; i++) {
+            var booking = booking(i, null);
+            var response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(Booking.BOOKING_TABLE_NAME)
+                    .key(Map.of(
+                            Booking.CUSTOMER_EMAIL_FIELD_NAME, AttributeValue.fromS(booking.getCustomerEmail()),
+                            Booking.BOOKING_ID_FIELD_NAME, AttributeValue.fromS(booking.getBookingID())))
+                    .consistentRead(true)
+                    .build());
+            stored += response.hasItem() ? 1 : 0;
+        }
+        return stored;
+    }
+
+    /**
+     * Counts the transactions, and runs {@code beforeTransaction} ahead of each of them.
+     */
+    private static final class CountingClient implements DynamoDbClient {
+
+        private final DynamoDbClient delegate;
+        private final Consumer<TransactWriteItemsRequest> beforeTransaction;
+        private final AtomicInteger transactions = new AtomicInteger();
+        private final AtomicInteger coalescedTransactions = new AtomicInteger();
+        private final CountDownLatch held = new CountDownLatch(1);
+        private volatile CountDownLatch release;
+
+        private CountingClient(DynamoDbClient delegate,
+                               Consumer<TransactWriteItemsRequest> beforeTransaction) {
+            this.delegate = delegate;
+            this.beforeTransaction = beforeTransaction;
+        }
+
+        @Override
+        public GetItemResponse getItem(GetItemRequest getItemRequest) {
+            return delegate.getItem(getItemRequest);
+        }
+
+        /**
+         * Holds the next transaction until the returned latch is released.
+         */
+        CountDownLatch holdNextTransaction() {
+            release = new CountDownLatch(1);
+            return release;
+        }
+
+        @Override
+        public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest transactWriteItemsRequest) {
+            transactions.incrementAndGet();
+            var holding = release;
+            if (holding != null) {
+                release = null;
+                held.countDown();
+                try {
+                    holding.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            if (transactWriteItemsRequest.transactItems().size() > 2) {
+                coalescedTransactions.incrementAndGet();
+            }
+            beforeTransaction.accept(transactWriteItemsRequest);
+            return delegate.transactWriteItems(transactWriteItemsRequest);
+        }
+
+        @Override
+        public String serviceName() {
+            return delegate.serviceName();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
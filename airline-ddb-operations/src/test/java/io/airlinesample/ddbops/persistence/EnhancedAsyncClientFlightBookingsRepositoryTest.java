@@ -0,0 +1,90 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.AwsClientProvider;
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbAsyncClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Books through {@link EnhancedAsyncClientFlightBookingsRepository}, whose flight update is guarded by the
+ * {@code @DynamoDbVersionAttribute}, against an {@link EmbeddedDynamoDb}.
+ */
+class EnhancedAsyncClientFlightBookingsRepositoryTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("CDG")
+            .departureDateTime(DEPARTURE)
+            .build();
+
+    private EnhancedAsyncClientFlightBookingsRepository repository;
+
+    @BeforeEach
+    void createTables() {
+        DynamoDbEnhancedAsyncClient enhancedAsyncClient = AwsClientProvider.dynamoDbEnhancedAsyncClient(
+                new EmbeddedDynamoDbAsyncClient(EmbeddedDynamoDb.withAirlineTables()));
+        repository = new EnhancedAsyncClientFlightBookingsRepository(enhancedAsyncClient);
+        enhancedAsyncClient.table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class))
+                .putItem(Flight.builder()
+                        .primaryKey(FLIGHT_KEY)
+                        .flightNumber("BA304")
+                        .airplaneModel("Airbus A320")
+                        .totalSeats(10)
+                        .build())
+                .join();
+    }
+
+    @Test
+    void booksTheFlightItRead() {
+        var flight = heldSeat(repository.findFlight(FLIGHT_KEY).join().orElseThrow());
+
+        assertTrue(repository.transactBookFlight(booking("booking-1"), flight).join().success());
+
+        var current = repository.findFlight(FLIGHT_KEY).join().orElseThrow();
+        assertEquals(9, current.getAvailableSeats());
+        assertEquals(1, current.getHeldSeats());
+        assertTrue(repository.findBooking("passenger@example.com", "booking-1").join().isPresent());
+    }
+
+    @Test
+    void reportsAStaleVersionAsAConflictWithTheCurrentFlight() {
+        var flight = repository.findFlight(FLIGHT_KEY).join().orElseThrow();
+        var staleFlight = repository.findFlight(FLIGHT_KEY).join().orElseThrow();
+        assertTrue(repository.transactBookFlight(booking("booking-1"), heldSeat(flight)).join().success());
+
+        var transactSummary = repository.transactBookFlight(booking("booking-2"), heldSeat(staleFlight)).join();
+
+        assertTrue(transactSummary.preconditionFailed());
+        assertEquals(9, transactSummary.currentFlight().orElseThrow().getAvailableSeats());
+        assertTrue(repository.findBooking("passenger@example.com", "booking-2").join().isEmpty());
+    }
+
+    private static Flight heldSeat(Flight flight) {
+        flight.incrementHeldSeats();
+        flight.decrementAvailableSeats();
+        return flight;
+    }
+
+    private static Booking booking(String bookingId) {
+        return Booking.builder()
+                .customerEmail("passenger@example.com")
+                .bookingID(bookingId)
+                .flightNumber("BA304")
+                .source(FLIGHT_KEY.getSourceAirportCode())
+                .destination(FLIGHT_KEY.getDestinationAirportCode())
+                .departureDateTime(DEPARTURE.toEpochSecond(ZoneOffset.UTC))
+                .build();
+    }
+}
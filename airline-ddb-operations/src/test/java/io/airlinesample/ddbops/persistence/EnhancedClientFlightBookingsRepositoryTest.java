@@ -0,0 +1,74 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.AwsClientProvider;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads the seat counters of many flights through {@link EnhancedClientFlightBookingsRepository#findFlights}, against
+ * an {@link EmbeddedDynamoDb}.
+ */
+class EnhancedClientFlightBookingsRepositoryTest {
+
+    private DynamoDbClient dynamoDbClient;
+    private EnhancedClientFlightBookingsRepository repository;
+
+    @BeforeEach
+    void createTables() {
+        dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+        repository = new EnhancedClientFlightBookingsRepository(dynamoDbClient);
+    }
+
+    @Test
+    void findsTheSeatCountersInTheOrderOfTheKeys() {
+        var morning = putFlight(8, 150);
+        var evening = putFlight(18, 180);
+        var unknown = flightKey(12);
+
+        var flights = repository.findFlights(List.of(evening, unknown, morning, evening));
+
+        assertEquals(List.of(evening, morning), List.copyOf(flights.keySet()));
+        var flight = flights.get(evening);
+        assertEquals(180, flight.getTotalSeats());
+        assertEquals(180, flight.getAvailableSeats());
+        assertEquals(0, flight.getHeldSeats());
+        assertNull(flight.getFlightNumber(), "only the seat counters are projected");
+    }
+
+    @Test
+    void findsNothingForNoKeys() {
+        assertTrue(repository.findFlights(List.of()).isEmpty());
+    }
+
+    private FlightPrimaryKey putFlight(int hour, int totalSeats) {
+        var flightKey = flightKey(hour);
+        AwsClientProvider.dynamoDbEnhancedClient(dynamoDbClient)
+                .table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class))
+                .putItem(Flight.builder()
+                        .primaryKey(flightKey)
+                        .flightNumber("BA" + hour)
+                        .airplaneModel("Airbus A320")
+                        .totalSeats(totalSeats)
+                        .build());
+        return flightKey;
+    }
+
+    private static FlightPrimaryKey flightKey(int hour) {
+        return FlightPrimaryKey.builder()
+                .sourceAirportCode("LHR")
+                .destinationAirportCode("CDG")
+                .departureDateTime(LocalDateTime.of(2030, 1, 1, hour, 0))
+                .build();
+    }
+}
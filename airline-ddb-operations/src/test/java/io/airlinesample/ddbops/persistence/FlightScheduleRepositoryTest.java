@@ -0,0 +1,151 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.AwsClientProvider;
+import io.airlinesample.ddbops.domain.Flight;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.domain.TimeRange;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lists the departures of a route with {@link FlightScheduleRepository}, against an {@link EmbeddedDynamoDb}.
+ */
+class FlightScheduleRepositoryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+
+    private DynamoDbClient embeddedClient;
+    private QueryCountingClient dynamoDbClient;
+
+    @BeforeEach
+    void createTables() {
+        embeddedClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+        dynamoDbClient = new QueryCountingClient(embeddedClient);
+    }
+
+    @Test
+    void findsTheDeparturesBetweenTheBoundsIncluded() {
+        for (var time : List.of("06:00", "07:59", "08:00", "12:00", "12:30", "12:31", "23:59")) {
+            putFlight("LHR", "CDG", DAY.atTime(LocalTime.parse(time)));
+        }
+        putFlight("LHR", "AMS", DAY.atTime(10, 0));
+        putFlight("LHR", "CDG", DAY.plusDays(1).atTime(10, 0));
+        var repository = new FlightScheduleRepository(dynamoDbClient);
+
+        var flights = repository.findFlightsOnRoute("LHR", "CDG", DAY,
+                new TimeRange(LocalTime.of(8, 0), LocalTime.of(12, 30)));
+
+        assertEquals(List.of(DAY.atTime(8, 0), DAY.atTime(12, 0), DAY.atTime(12, 30)), departures(flights));
+    }
+
+    @Test
+    void findsEveryDepartureOfTheDay() {
+        putFlight("LHR", "CDG", DAY.atTime(0, 0));
+        putFlight("LHR", "CDG", DAY.atTime(23, 59));
+        var repository = new FlightScheduleRepository(dynamoDbClient);
+
+        var flights = repository.findFlightsOnRoute("LHR", "CDG", DAY, TimeRange.allDay());
+
+        assertEquals(List.of(DAY.atTime(0, 0), DAY.atTime(23, 59)), departures(flights));
+    }
+
+    @Test
+    void fetchesThePagesTheStreamReaches() {
+        for (int hour = 0; hour < 10; hour++) {
+            putFlight("LHR", "CDG", DAY.atTime(hour, 0));
+        }
+        var repository = new FlightScheduleRepository(dynamoDbClient, 2);
+
+        var flights = repository.findFlightsOnRoute("LHR", "CDG", DAY, TimeRange.allDay()).limit(3).toList();
+
+        assertEquals(3, flights.size());
+        assertEquals(2, dynamoDbClient.queries.get(), "two pages of two flights hold the first three");
+        assertEquals(10, repository.findFlightsOnRoute("LHR", "CDG", DAY, TimeRange.allDay()).count());
+        assertEquals(2 + 6, dynamoDbClient.queries.get(), "five full pages and an empty last one");
+    }
+
+    @Test
+    void ordersTheFlightsOfSeveralDaysByDeparture() {
+        // Written latest first, and in more pages per day than the page size
+        for (int day = 4; day >= 0; day--) {
+            for (int hour = 20; hour >= 6; hour -= 2) {
+                putFlight("LHR", "CDG", DAY.plusDays(day).atTime(hour, 0));
+            }
+        }
+        var repository = new FlightScheduleRepository(dynamoDbClient, 3);
+
+        List<LocalDateTime> departures;
+        try (var flights = repository.findFlightsOnRoute("LHR", "CDG", DAY.plusDays(1), DAY.plusDays(3),
+                new TimeRange(LocalTime.of(8, 0), LocalTime.of(18, 0)))) {
+            departures = departures(flights);
+        }
+
+        assertEquals(3 * 6, departures.size());
+        assertEquals(departures.stream().sorted().toList(), departures);
+        assertEquals(DAY.plusDays(1).atTime(8, 0), departures.get(0));
+        assertEquals(DAY.plusDays(3).atTime(18, 0), departures.get(departures.size() - 1));
+    }
+
+    @Test
+    void rejectsALastDateBeforeTheFirstOne() {
+        var repository = new FlightScheduleRepository(dynamoDbClient);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.findFlightsOnRoute("LHR", "CDG", DAY, DAY.minusDays(1), TimeRange.allDay()));
+    }
+
+    private void putFlight(String source, String destination, LocalDateTime departure) {
+        AwsClientProvider.dynamoDbEnhancedClient(embeddedClient)
+                .table(Flight.FLIGHT_TABLE_NAME, TableSchema.fromBean(Flight.class))
+                .putItem(Flight.builder()
+                        .primaryKey(new FlightPrimaryKey(source, destination, departure))
+                        .flightNumber("BA304")
+                        .airplaneModel("Airbus A320")
+                        .totalSeats(150)
+                        .build());
+    }
+
+    private static List<LocalDateTime> departures(Stream<Flight> flights) {
+        return flights.map(flight -> flight.getPrimaryKey().getDepartureDateTime()).toList();
+    }
+
+    private static final class QueryCountingClient implements DynamoDbClient {
+
+        private final DynamoDbClient delegate;
+        private final AtomicInteger queries = new AtomicInteger();
+
+        private QueryCountingClient(DynamoDbClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public QueryResponse query(QueryRequest queryRequest) {
+            queries.incrementAndGet();
+            return delegate.query(queryRequest);
+        }
+
+        @Override
+        public String serviceName() {
+            return delegate.serviceName();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.airlinesample.ddbops.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Expiry, eviction and conditional writes of {@link LruTtlCache}, on a clock the test moves by hand.
+ */
+class LruTtlCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        var cache = cache(10, 1);
+        cache.put("BA304", 1L);
+
+        clock.addAndGet(TTL.toNanos() - 1);
+        assertEquals(Optional.of(1L), cache.get("BA304"));
+
+        clock.incrementAndGet();
+        assertEquals(Optional.empty(), cache.get("BA304"));
+        assertEquals(0, cache.size(), "expired entries are dropped when read");
+    }
+
+    @Test
+    void entriesMayExpireSoonerThanTheTtl() {
+        var cache = cache(10, 1);
+        cache.put("BA304", 1L, Duration.ofSeconds(1));
+        cache.put("BA305", 1L);
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertEquals(Optional.empty(), cache.get("BA304"));
+        assertEquals(Optional.of(1L), cache.get("BA305"));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        var cache = cache(3, 1);
+        cache.put("a", 1L);
+        cache.put("b", 2L);
+        cache.put("c", 3L);
+        cache.get("a");
+
+        cache.put("d", 4L);
+
+        assertEquals(Optional.empty(), cache.get("b"));
+        assertEquals(Optional.of(1L), cache.get("a"));
+        assertEquals(Optional.of(3L), cache.get("c"));
+        assertEquals(Optional.of(4L), cache.get("d"));
+    }
+
+    @Test
+    void stripedCacheHoldsAtMostMaxSizeEntries() {
+        var cache = cache(100, LruTtlCache.DEFAULT_SEGMENTS);
+
+        for (long i = 0; i < 10_000; i++) {
+            cache.put("flight-" + i, i);
+        }
+
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    void smallCachesUseNoMoreSegmentsThanEntries() {
+        var cache = cache(3, LruTtlCache.DEFAULT_SEGMENTS);
+
+        for (long i = 0; i < 100; i++) {
+            cache.put("flight-" + i, i);
+        }
+
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void putIfKeepsTheNewerVersion() {
+        var cache = cache(10, 1);
+        cache.putIf("BA304", 5L, LruTtlCacheTest::isNewer);
+
+        cache.putIf("BA304", 3L, LruTtlCacheTest::isNewer);
+        assertEquals(Optional.of(5L), cache.get("BA304"), "an older version never replaces a newer one");
+
+        cache.putIf("BA304", 7L, LruTtlCacheTest::isNewer);
+        assertEquals(Optional.of(7L), cache.get("BA304"));
+    }
+
+    @Test
+    void putIfReplacesAnExpiredEntryWhateverItsVersion() {
+        var cache = cache(10, 1);
+        cache.putIf("BA304", 5L, LruTtlCacheTest::isNewer);
+        clock.addAndGet(TTL.toNanos());
+
+        cache.putIf("BA304", 3L, LruTtlCacheTest::isNewer);
+
+        assertEquals(Optional.of(3L), cache.get("BA304"));
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        var cache = cache(10, 1);
+        cache.put("BA304", 1L);
+
+        cache.get("BA304");
+        cache.get("BA305");
+        cache.invalidate("BA304");
+        cache.get("BA304");
+
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    private LruTtlCache<String, Long> cache(int maxSize, int segments) {
+        return new LruTtlCache<>(maxSize, TTL, segments, clock::get);
+    }
+
+    private static boolean isNewer(Long cached, Long candidate) {
+        return candidate > cached;
+    }
+}
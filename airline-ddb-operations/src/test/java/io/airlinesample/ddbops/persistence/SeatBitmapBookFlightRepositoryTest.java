@@ -0,0 +1,138 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.domain.SeatBitmap;
+import io.airlinesample.ddbops.domain.SeatLayout;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static io.airlinesample.ddbops.domain.Flight.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Books the seats of a flight stored with a {@code SeatBitmap} through {@link SeatBitmapBookFlightRepository} and the
+ * {@code ClaimedSeatMap} repositories, against an {@link EmbeddedDynamoDb}: a seat is sold at most once whichever
+ * path a booking takes.
+ */
+class SeatBitmapBookFlightRepositoryTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("CDG")
+            .departureDateTime(DEPARTURE)
+            .build();
+    private static final SeatLayout LAYOUT = SeatLayout.forAirplaneModel("Airbus A320").orElseThrow();
+
+    private DynamoDbClient dynamoDbClient;
+    private SeatBitmapBookFlightRepository seatBitmapRepository;
+
+    @BeforeEach
+    void createTables() {
+        dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+        seatBitmapRepository = new SeatBitmapBookFlightRepository(dynamoDbClient);
+        putBitmapFlight();
+    }
+
+    @Test
+    void conditionalRepositoryDoesNotSellASeatTakenInTheBitmap() {
+        assertTrue(bookThroughTheBitmap(booking("booking-1", "1A")));
+
+        var summary = new ConditionalExpressionBookFlightRepository(dynamoDbClient)
+                .transactBookFlight(booking("booking-2", "1A"), null);
+
+        assertTrue(summary.preconditionFailed());
+        var flight = seatBitmapRepository.findFlight(FLIGHT_KEY).orElseThrow();
+        assertEquals(LAYOUT.capacity() - 1, flight.getAvailableSeats());
+        assertTrue(flight.getClaimedSeatMap().isEmpty());
+        assertTrue(seatBitmapRepository.findBooking("passenger@example.com", "booking-2").isEmpty());
+    }
+
+    @Test
+    void conditionalRepositoryDoesNotClaimSeatsOutsideTheBitmap() {
+        var summary = new ConditionalExpressionBookFlightRepository(dynamoDbClient)
+                .transactBookFlight(booking("booking-1", "1A"), null);
+
+        assertTrue(summary.preconditionFailed(), "the claim would never reach the bitmap");
+        assertTrue(bookThroughTheBitmap(booking("booking-2", "1A")));
+        var flight = seatBitmapRepository.findFlight(FLIGHT_KEY).orElseThrow();
+        assertEquals(LAYOUT.capacity() - 1, flight.getAvailableSeats());
+        assertTrue(SeatBitmap.isOccupied(flight.getSeatBitmap(), LAYOUT.seatIndex("1A")));
+    }
+
+    @Test
+    void optimisticRepositoryRejectsSeatBookingsOnBitmapFlights() {
+        var repository = new SimpleClientBookFlightRepository(dynamoDbClient);
+        var flight = repository.findFlight(FLIGHT_KEY).orElseThrow();
+        var booking = booking("booking-1", "1A");
+        assertTrue(flight.addSeatIfAvailable(booking.getSeatNumber(), booking.getBookingID()));
+        flight.decrementAvailableSeats();
+
+        assertThrows(IllegalArgumentException.class, () -> repository.transactBookFlight(booking, flight));
+
+        var stored = repository.findFlight(FLIGHT_KEY).orElseThrow();
+        assertEquals(LAYOUT.capacity(), stored.getAvailableSeats());
+        assertTrue(bookThroughTheBitmap(booking("booking-2", "1A")));
+    }
+
+    @Test
+    void bookingsWithoutASeatNumberTakeEitherPath() {
+        assertTrue(new ConditionalExpressionBookFlightRepository(dynamoDbClient)
+                .transactBookFlight(booking("booking-1", null), null).success());
+        assertTrue(seatBitmapRepository.transactBookFlight(booking("booking-2", null), null).success());
+
+        var flight = seatBitmapRepository.findFlight(FLIGHT_KEY).orElseThrow();
+        assertEquals(LAYOUT.capacity() - 2, flight.getAvailableSeats());
+        assertEquals(2, flight.getHeldSeats());
+    }
+
+    private boolean bookThroughTheBitmap(Booking booking) {
+        var flight = seatBitmapRepository.findFlight(FLIGHT_KEY).orElseThrow();
+        if (!flight.addSeatIfAvailable(booking.getSeatNumber(), booking.getBookingID())) {
+            return false;
+        }
+        flight.decrementAvailableSeats();
+        return seatBitmapRepository.transactBookFlight(booking, flight).success();
+    }
+
+    private void putBitmapFlight() {
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .item(Map.of(
+                        ROUTE_BY_DAY_FIELD_NAME, AttributeValue.fromS(FLIGHT_KEY.getPartitionKey()),
+                        DEPARTURE_TIME_FIELD_NAME, AttributeValue.fromS(FLIGHT_KEY.getSortKey()),
+                        FLIGHT_NUMBER_FIELD_NAME, AttributeValue.fromS("BA304"),
+                        AIRPLANE_MODEL_FIELD_NAME, AttributeValue.fromS(LAYOUT.airplaneModel()),
+                        TOTAL_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(LAYOUT.capacity())),
+                        AVAILABLE_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(LAYOUT.capacity())),
+                        HELD_SEATS_FIELD_NAME, AttributeValue.fromN("0"),
+                        VERSION_FIELD_NAME, AttributeValue.fromN("1"),
+                        CLAIMED_SEAT_MAP_FIELD_NAME, AttributeValue.fromM(Map.of()),
+                        SEAT_BITMAP_FIELD_NAME, AttributeValue.fromB(SdkBytes.fromByteArray(SeatBitmap.empty(LAYOUT)))
+                ))
+                .build());
+    }
+
+    private static Booking booking(String bookingId, String seatNumber) {
+        return Booking.builder()
+                .customerEmail("passenger@example.com")
+                .bookingID(bookingId)
+                .flightNumber("BA304")
+                .source(FLIGHT_KEY.getSourceAirportCode())
+                .destination(FLIGHT_KEY.getDestinationAirportCode())
+                .departureDateTime(DEPARTURE.toEpochSecond(ZoneOffset.UTC))
+                .seatNumber(seatNumber)
+                .build();
+    }
+}
@@ -0,0 +1,271 @@
+package io.airlinesample.ddbops.persistence;
+
+import io.airlinesample.ddbops.domain.Booking;
+import io.airlinesample.ddbops.domain.FlightPrimaryKey;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDb;
+import io.airlinesample.ddbops.embedded.EmbeddedDynamoDbClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlinesample.ddbops.domain.Flight.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link SeatInventoryReconciler} against an {@link EmbeddedDynamoDb}: whatever it does, the seats of the shards
+ * add up to the seats available before, minus the bookings made meanwhile.
+ */
+class SeatInventoryReconcilerTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final FlightPrimaryKey FLIGHT_KEY = FlightPrimaryKey.builder()
+            .sourceAirportCode("LHR")
+            .destinationAirportCode("CDG")
+            .departureDateTime(DEPARTURE)
+            .build();
+
+    private DynamoDbClient dynamoDbClient;
+
+    @BeforeEach
+    void createTables() {
+        dynamoDbClient = new EmbeddedDynamoDbClient(EmbeddedDynamoDb.withAirlineTables());
+    }
+
+    @Test
+    void splitKeepsEverySeatWhenTheShardsDoNotDivideThem() {
+        for (var shards : new int[]{2, 3, 7, SeatInventoryShards.MAX_SHARDS}) {
+            createTables();
+            putFlight(100);
+
+            assertTrue(new SeatInventoryReconciler(dynamoDbClient).split(FLIGHT_KEY, shards));
+
+            var inventory = inventory();
+            var shardSeats = shardSeats(inventory);
+            assertEquals(shards, shardSeats.length);
+            assertEquals(100, Arrays.stream(shardSeats).sum(), "seats of " + shards + " shards");
+            assertTrue(max(shardSeats) - min(shardSeats) <= 1, "even split into " + shards + " shards");
+            assertEquals("0", inventory.flightItem().get(AVAILABLE_SEATS_FIELD_NAME).n());
+            assertEquals(Integer.toString(shards), inventory.flightItem().get(SeatInventoryShards.INVENTORY_SHARDS_FIELD_NAME).n());
+        }
+    }
+
+    @Test
+    void splitSpreadsFewerSeatsThanShards() {
+        putFlight(3);
+
+        assertTrue(new SeatInventoryReconciler(dynamoDbClient).split(FLIGHT_KEY, 8));
+
+        assertArrayEquals(new int[]{1, 1, 1, 0, 0, 0, 0, 0}, shardSeats(inventory()));
+    }
+
+    @Test
+    void splitRejectsAShardedFlight() {
+        putFlight(100);
+        var reconciler = new SeatInventoryReconciler(dynamoDbClient);
+        reconciler.split(FLIGHT_KEY, 4);
+
+        assertThrows(IllegalStateException.class, () -> reconciler.split(FLIGHT_KEY, 4));
+        assertEquals(100, Arrays.stream(shardSeats(inventory())).sum());
+    }
+
+    @Test
+    void splitRetriesAfterAConcurrentBookingFailedItsTransaction() {
+        putFlight(101);
+        var interfering = new InterferingClient(dynamoDbClient, 1, () -> book(null));
+
+        assertTrue(new SeatInventoryReconciler(interfering).split(FLIGHT_KEY, 4));
+
+        assertEquals(2, interfering.transactions.get(), "the first split transaction is cancelled");
+        assertEquals(100, Arrays.stream(shardSeats(inventory())).sum());
+    }
+
+    @Test
+    void splitGivesUpWhenBookingsKeepChangingTheFlight() {
+        putFlight(101);
+        var interfering = new InterferingClient(dynamoDbClient, Integer.MAX_VALUE, () -> book(null));
+
+        assertFalse(new SeatInventoryReconciler(interfering).split(FLIGHT_KEY, 4));
+
+        var inventory = inventory();
+        assertFalse(inventory.sharded());
+        assertEquals(101 - interfering.transactions.get(), inventory.flight().getAvailableSeats());
+    }
+
+    @Test
+    void rebalanceEvensOutUnevenDrains() {
+        putFlight(103);
+        var reconciler = new SeatInventoryReconciler(dynamoDbClient);
+        reconciler.split(FLIGHT_KEY, 4);  // 26, 26, 26, 25
+        drain(0, 26);
+        drain(2, 11);
+        drain(3, 1);
+
+        assertTrue(reconciler.rebalance(FLIGHT_KEY));
+
+        var shardSeats = shardSeats(inventory());
+        assertEquals(103 - 38, Arrays.stream(shardSeats).sum());
+        assertTrue(max(shardSeats) - min(shardSeats) <= 1, "balanced: " + Arrays.toString(shardSeats));
+    }
+
+    @Test
+    void rebalanceWritesNothingWhenTheShardsAreBalanced() {
+        putFlight(103);
+        var reconciler = new SeatInventoryReconciler(dynamoDbClient);
+        reconciler.split(FLIGHT_KEY, 4);
+        drain(1, 1);
+        var interfering = new InterferingClient(dynamoDbClient, 0, () -> {
+        });
+
+        assertTrue(new SeatInventoryReconciler(interfering).rebalance(FLIGHT_KEY));
+
+        assertEquals(0, interfering.transactions.get());
+        assertArrayEquals(new int[]{26, 25, 26, 25}, shardSeats(inventory()));
+    }
+
+    @Test
+    void rebalanceRetriesAfterAConcurrentBookingFailedItsTransaction() {
+        putFlight(100);
+        new SeatInventoryReconciler(dynamoDbClient).split(FLIGHT_KEY, 4);  // 25 each
+        drain(0, 25);
+        // Shard 1 gives seats away, so the rebalance writes it guarded by the 25 seats it read
+        var interfering = new InterferingClient(dynamoDbClient, 1, () -> book(1));
+
+        assertTrue(new SeatInventoryReconciler(interfering).rebalance(FLIGHT_KEY));
+
+        assertEquals(2, interfering.transactions.get(), "the first rebalance transaction is cancelled");
+        var shardSeats = shardSeats(inventory());
+        assertEquals(100 - 25 - 1, Arrays.stream(shardSeats).sum());
+        assertTrue(max(shardSeats) - min(shardSeats) <= 1, "balanced: " + Arrays.toString(shardSeats));
+    }
+
+    @Test
+    void rebalanceGivesUpWhenBookingsKeepChangingTheShards() {
+        putFlight(100);
+        new SeatInventoryReconciler(dynamoDbClient).split(FLIGHT_KEY, 4);
+        drain(0, 25);
+        var interfering = new InterferingClient(dynamoDbClient, Integer.MAX_VALUE, () -> book(1));
+
+        assertFalse(new SeatInventoryReconciler(interfering).rebalance(FLIGHT_KEY));
+
+        var shardSeats = shardSeats(inventory());
+        assertEquals(100 - 25 - interfering.transactions.get(), Arrays.stream(shardSeats).sum());
+        assertEquals(0, shardSeats[0], "no shard was written");
+    }
+
+    @Test
+    void rebalanceRejectsAFlightThatIsNotSharded() {
+        putFlight(100);
+
+        assertThrows(IllegalArgumentException.class, () -> new SeatInventoryReconciler(dynamoDbClient).rebalance(FLIGHT_KEY));
+    }
+
+    private void putFlight(int availableSeats) {
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(FLIGHT_TABLE_NAME)
+                .item(Map.of(
+                        ROUTE_BY_DAY_FIELD_NAME, AttributeValue.fromS(FLIGHT_KEY.getPartitionKey()),
+                        DEPARTURE_TIME_FIELD_NAME, AttributeValue.fromS(FLIGHT_KEY.getSortKey()),
+                        FLIGHT_NUMBER_FIELD_NAME, AttributeValue.fromS("BA304"),
+                        TOTAL_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(availableSeats)),
+                        AVAILABLE_SEATS_FIELD_NAME, AttributeValue.fromN(Integer.toString(availableSeats)),
+                        HELD_SEATS_FIELD_NAME, AttributeValue.fromN("0"),
+                        VERSION_FIELD_NAME, AttributeValue.fromN("1")
+                ))
+                .build());
+    }
+
+    private void drain(int shard, int seats) {
+        for (int i = 0; i < seats; i++) {
+            book(shard);
+        }
+    }
+
+    /**
+     * Books a seat on {@code shard}, or on the flight item when {@code null}, as the booking repositories do.
+     */
+    private void book(Integer shard) {
+        var booking = Booking.builder()
+                .customerEmail("passenger@example.com")
+                .bookingID(UUID.randomUUID().toString())
+                .flightNumber("BA304")
+                .source(FLIGHT_KEY.getSourceAirportCode())
+                .destination(FLIGHT_KEY.getDestinationAirportCode())
+                .departureDateTime(DEPARTURE.toEpochSecond(ZoneOffset.UTC))
+                .build();
+        dynamoDbClient.transactWriteItems(shard == null
+                ? BookFlightRequests.conditionalBookFlightTransaction(booking)
+                : BookFlightRequests.shardedBookFlightTransaction(booking, shard));
+    }
+
+    private SeatInventoryShards.Inventory inventory() {
+        return SeatInventoryShards.read(dynamoDbClient, FLIGHT_KEY).orElseThrow();
+    }
+
+    private static int[] shardSeats(SeatInventoryShards.Inventory inventory) {
+        var shardSeats = new int[inventory.shards()];
+        for (int shard = 0; shard < shardSeats.length; shard++) {
+            shardSeats[shard] = inventory.availableSeats(shard);
+        }
+        return shardSeats;
+    }
+
+    private static int max(int[] values) {
+        return Arrays.stream(values).max().orElseThrow();
+    }
+
+    private static int min(int[] values) {
+        return Arrays.stream(values).min().orElseThrow();
+    }
+
+    /**
+     * Runs a concurrent booking between the reads of the reconciler and its first {@code interferences} transactions.
+     */
+    private static final class InterferingClient implements DynamoDbClient {
+
+        private final DynamoDbClient delegate;
+        private final int interferences;
+        private final Runnable booking;
+        private final AtomicInteger transactions = new AtomicInteger();
+
+        private InterferingClient(DynamoDbClient delegate, int interferences, Runnable booking) {
+            this.delegate = delegate;
+            this.interferences = interferences;
+            this.booking = booking;
+        }
+
+        @Override
+        public QueryResponse query(QueryRequest queryRequest) {
+            return delegate.query(queryRequest);
+        }
+
+        @Override
+        public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest transactWriteItemsRequest) {
+            if (transactions.incrementAndGet() <= interferences) {
+                booking.run();
+            }
+            return delegate.transactWriteItems(transactWriteItemsRequest);
+        }
+
+        @Override
+        public String serviceName() {
+            return delegate.serviceName();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.airlinesample.ddbops.persistence;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Maps the failures of asynchronous transactions with {@link TransactionSummaryResolver#resolve(Throwable)}.
+ */
+class TransactionSummaryResolverTest {
+
+    @Test
+    void resolvesAFailedConditionAsAPreconditionFailure() {
+        var summary = TransactionSummaryResolver.resolve(new CompletionException(canceled("ConditionalCheckFailed")));
+
+        assertTrue(summary.preconditionFailed());
+        assertTrue(summary.transactionCancelled());
+        assertFalse(summary.genericFailure());
+        assertTrue(summary.currentFlight().isEmpty(), "no item was returned with the cancellation reason");
+    }
+
+    @Test
+    void resolvesOtherCancellationsWithoutAPreconditionFailure() {
+        var summary = TransactionSummaryResolver.resolve(canceled("TransactionConflict"));
+
+        assertFalse(summary.preconditionFailed());
+        assertTrue(summary.transactionCancelled());
+    }
+
+    @Test
+    void resolvesServiceErrorsAsGenericFailures() {
+        var summary = TransactionSummaryResolver.resolve(new CompletionException(
+                DynamoDbException.builder().message("Throughput exceeds the current capacity").build()));
+
+        assertTrue(summary.genericFailure());
+        assertFalse(summary.transactionCancelled());
+        assertTrue(summary.failureReason().contains("Throughput exceeds the current capacity"));
+    }
+
+    @Test
+    void resolvesClientErrorsAsGenericFailures() {
+        var summary = TransactionSummaryResolver.resolve(new CompletionException(
+                SdkClientException.create("Unable to execute HTTP request")));
+
+        assertTrue(summary.genericFailure());
+        assertFalse(summary.success());
+        assertEquals("Transaction failed: Unable to execute HTTP request", summary.failureReason());
+    }
+
+    private static TransactionCanceledException canceled(String code) {
+        return TransactionCanceledException.builder()
+                .message("Transaction cancelled")
+                .cancellationReasons(CancellationReason.builder().code("None").build(),
+                        CancellationReason.builder().code(code).build())
+                .build();
+    }
+}